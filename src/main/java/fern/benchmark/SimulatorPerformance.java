@@ -6,7 +6,11 @@
 import fern.simulation.algorithm.GibsonBruckSimulator;
 import fern.simulation.algorithm.GillespieEnhanced;
 import fern.simulation.algorithm.GillespieSimple;
+import fern.simulation.algorithm.GillespieSumTree;
 import fern.simulation.algorithm.HybridMaximalTimeStep;
+import fern.simulation.algorithm.OptimizedDirectMethod;
+import fern.simulation.algorithm.RejectionBasedSimulator;
+import fern.simulation.algorithm.SortingDirectMethod;
 import fern.simulation.algorithm.TauLeapingAbsoluteBoundSimulator;
 import fern.simulation.algorithm.TauLeapingRelativeBoundSimulator;
 import fern.simulation.algorithm.TauLeapingSpeciesPopulationBoundSimulator;
@@ -44,7 +48,7 @@ public abstract class SimulatorPerformance extends Benchmark {
   private int[] indices;
 
   /**
-   * Registers the six built-in simulators for the performance benchmarks.
+   * Registers the built-in simulators for the performance benchmarks.
    *
    * @param net the network to benchmark
    * @see GillespieSimple
@@ -53,6 +57,10 @@ public abstract class SimulatorPerformance extends Benchmark {
    * @see TauLeapingAbsoluteBoundSimulator
    * @see TauLeapingRelativeBoundSimulator
    * @see TauLeapingSpeciesPopulationBoundSimulator
+   * @see GillespieSumTree
+   * @see OptimizedDirectMethod
+   * @see SortingDirectMethod
+   * @see RejectionBasedSimulator
    */
   public SimulatorPerformance(Network net) {
     simulators = new Simulator[]{
@@ -63,7 +71,11 @@ public SimulatorPerformance(Network net) {
         new TauLeapingRelativeBoundSimulator(net),
         new TauLeapingSpeciesPopulationBoundSimulator(net),
         new HybridMaximalTimeStep(net),
-        new CompositionRejection(net)
+        new CompositionRejection(net),
+        new GillespieSumTree(net),
+        new OptimizedDirectMethod(net),
+        new SortingDirectMethod(net),
+        new RejectionBasedSimulator(net)
     };
 
     simulatorNames = new String[simulators.length];
@@ -78,7 +90,7 @@ public SimulatorPerformance(Network net) {
   }
 
   /**
-   * Performs one benchmark for each of the six simulators. To minimize effects that could
+   * Performs one benchmark for each of the registered simulators. To minimize effects that could
    * compromise time benchmarks like caching, the order of the simulators is randomized each time.
    * The time needed for each algorithm is recorded and added to <code>Benchmark</code>'s data pool.
    * After each {@link SimulatorPerformance#getShowSteps()} iterations, <code>present</code> is
@@ -44,6 +44,11 @@ public CellGrowthObserver(Simulator sim, double generationTime, double timeOffse
   public void activateReaction(int mu, double tau, FireType fireType, int times) {
   }
 
+  @Override
+  public boolean needsActivateReaction() {
+    return overridesActivateReaction(CellGrowthObserver.class);
+  }
+
   @Override
   public void finished() {
   }
@@ -53,6 +53,29 @@ public AbstractKineticConstantPropensityCalculator(int[][] reactants) {
     this.reactants = reactants;
   }
 
+  /**
+   * Gets the distinct reactant species of {@code reaction}, i.e., the keys of its reactant
+   * histogram.
+   *
+   * @param reaction the index of the reaction
+   * @return the indices of the reactant species
+   * @see #getReactantMultiplicities(int)
+   */
+  public int[] getReactantSpecies(int reaction) {
+    return reactantHistosKeys[reaction].clone();
+  }
+
+  /**
+   * Gets how often each species given by {@link #getReactantSpecies(int)} occurs as reactant of
+   * {@code reaction}, i.e., the values of its reactant histogram.
+   *
+   * @param reaction the index of the reaction
+   * @return the multiplicities of the reactant species
+   */
+  public int[] getReactantMultiplicities(int reaction) {
+    return reactantHistosVals[reaction].clone();
+  }
+
   /**
    * Calculates the propensity for {@code reaction} by the formula h*c, where c is the kinetic
    * constant for {@code reaction} and h is the number of distinct molecular reactant
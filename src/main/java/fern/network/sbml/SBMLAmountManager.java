@@ -0,0 +1,70 @@
+package fern.network.sbml;
+
+import fern.network.DefaultAmountManager;
+import org.simulator.sbml.SBMLinterpreter;
+
+/**
+ * Amount manager for {@link SBMLNetwork}s. It keeps the species values of the network's {@link
+ * SBMLinterpreter} up to date by writing through only the populations that change, so that the
+ * {@link MathTree}s do not have to copy all species amounts before each evaluation.
+ * <p>
+ * If the interpreter has been used with other amounts meanwhile, e.g. by a simulator that
+ * evaluates propensities for hypothetical populations, the next change copies all amounts again.
+ *
+ * @author agent
+ */
+public class SBMLAmountManager extends DefaultAmountManager {
+
+  private SBMLNetwork net;
+  private SBMLinterpreter interpreter;
+
+  /**
+   * Creates the amount manager for a given network.
+   *
+   * @param net the network
+   */
+  public SBMLAmountManager(SBMLNetwork net) {
+    super(net);
+    this.net = net;
+    this.interpreter = net.getSbmlInterpreter();
+  }
+
+  @Override
+  public void performReaction(int reaction, int times) {
+    try {
+      super.performReaction(reaction, times);
+    } finally {
+      if (interpreter.isSynchronized(this)) {
+        for (int species : net.getReactants(reaction)) {
+          interpreter.updateSpeciesAmount(species, getAmount(species));
+        }
+        for (int species : net.getProducts(reaction)) {
+          interpreter.updateSpeciesAmount(species, getAmount(species));
+        }
+      } else {
+        interpreter.synchronizeSpeciesAmounts(this);
+      }
+    }
+  }
+
+  @Override
+  public void setAmount(int species, long amount) {
+    super.setAmount(species, amount);
+    if (interpreter.isSynchronized(this)) {
+      interpreter.updateSpeciesAmount(species, amount);
+    }
+  }
+
+  @Override
+  public void resetAmount() {
+    super.resetAmount();
+    interpreter.synchronizeSpeciesAmounts(this);
+  }
+
+  @Override
+  public void rollback() {
+    super.rollback();
+    interpreter.synchronizeSpeciesAmounts(this);
+  }
+
+}
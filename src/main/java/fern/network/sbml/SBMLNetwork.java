@@ -24,7 +24,6 @@
 
 import fern.network.AbstractNetworkImpl;
 import fern.network.AnnotationManagerImpl;
-import fern.network.DefaultAmountManager;
 import fern.network.FeatureNotSupportedException;
 import fern.simulation.Simulator;
 
@@ -213,7 +212,7 @@ public Model getSBMLModel() {
 
   @Override
   protected void createAmountManager() {
-    amountManager = new DefaultAmountManager(this);
+    amountManager = new SBMLAmountManager(this);
   }
 
   @Override
@@ -6,9 +6,7 @@
  */
 package fern.simulation;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.Arrays;
 
 import fern.network.AmountManager;
 import fern.network.Network;
@@ -54,6 +52,13 @@ public abstract class Simulator {
   private boolean interpolateTheta = false;
   private DelayedThetaInvocationParameters interpolationParameters = null;
 
+  /**
+   * The observers that declared to need the respective callback, built in {@link #preRun()}.
+   */
+  private TriggerObserver[] triggerObservers;
+  private Observer[] stepObservers;
+  private Observer[] reactionObservers;
+
 
   /**
    * Contains the actual time of the simulation.
@@ -66,7 +71,8 @@ public abstract class Simulator {
   protected double[] a;
 
   /**
-   * Contains a shortcut to the {@link Stochastics} framework.
+   * Contains a shortcut to the {@link Stochastics} framework. This is the singleton unless another
+   * instance is set by {@link #setStochastics(Stochastics)}.
    */
   protected Stochastics stochastics = Stochastics.getInstance();
 
@@ -80,6 +86,7 @@ public Simulator(Network net) {
     this.amountManager = net.getAmountManager();
     this.propensityCalculator = net.getPropensityCalculator();
     observer = new Observer[0];
+    buildDispatchArrays();
     a = new double[net.getNumReactions()];
   }
 
@@ -113,6 +120,7 @@ public void start(SimulationController control) {
    * Initializes this simulator for the first run (or a further run starting from time 0).
    */
   public void preRun() {
+    buildDispatchArrays();
     initialize();
 
     for (int o = 0; o < observer.length; o++) {
@@ -129,23 +137,21 @@ public void preRun() {
   public void run(SimulationController control) {
     while (control.goOn(this)) {
 
-      for (Observer o : observer) {
-        if (o instanceof TriggerObserver) {
-          ((TriggerObserver) o).trigger();
-        }
+      for (TriggerObserver o : triggerObservers) {
+        o.trigger();
       }
 
-      for (int o = 0; o < observer.length; o++) {
-        observer[o].step();
+      for (Observer o : stepObservers) {
+        o.step();
       }
 
       performStep(control);
 
-      if (interpolationParameters != null) {
-        for (Observer o : interpolationParameters.observers) {
-          o.theta(interpolationParameters.interpolationTheta);
+      if (interpolationParameters != null && interpolationParameters.pending) {
+        for (int o = 0; o < interpolationParameters.numObservers; o++) {
+          interpolationParameters.observers[o].theta(interpolationParameters.interpolationTheta);
         }
-        interpolationParameters = null;
+        interpolationParameters.pending = false;
       }
 
     }
@@ -169,8 +175,8 @@ public void postRun() {
    * @param fireType type of the firing
    */
   protected void fireReaction(int mu, double t, FireType fireType) {
-    for (int o = 0; o < observer.length; o++) {
-      observer[o].activateReaction(mu, t, fireType, 1);
+    for (Observer o : reactionObservers) {
+      o.activateReaction(mu, t, fireType, 1);
     }
     // change the amount of the reactants
     if (!Double.isInfinite(t)) {
@@ -188,8 +194,8 @@ protected void fireReaction(int mu, double t, FireType fireType) {
    * @param fireType type of the firings
    */
   protected void fireReaction(int mu, double t_start, double t_end, int times, FireType fireType) {
-    for (int o = 0; o < observer.length; o++) {
-      observer[o].activateReaction(mu, t, fireType, times);
+    for (Observer o : reactionObservers) {
+      o.activateReaction(mu, t, fireType, times);
     }
     // change the amount of the reactants
     if (!Double.isInfinite(t)) {
@@ -212,35 +218,31 @@ protected void thetaEvent() {
 //				observer[o].theta(theta);
 
     double theta = getNextThetaEvent();
-    LinkedList<Observer> obs = thetaQueue.getNextObserversAndRemove();
+    int numObservers = thetaQueue.removeNext();
+    Observer[] obs = thetaQueue.getRemoved();
 
     double t_save = t;
     t = theta;
     boolean fired = false;
-    for (Observer o : observer) {
-      if (o instanceof TriggerObserver) {
-        fired |= ((TriggerObserver) o).trigger();
-      }
+    for (TriggerObserver o : triggerObservers) {
+      fired |= o.trigger();
     }
     if (!fired) {
       t = t_save;
     }
 
     if (interpolateTheta) {
-      long[] beforeThetaAmounts = new long[net.getNumSpecies()];
+      if (interpolationParameters == null) {
+        interpolationParameters = new DelayedThetaInvocationParameters(net.getNumSpecies());
+      }
       for (int i = 0; i < net.getNumSpecies(); i++) {
-        beforeThetaAmounts[i] = amountManager.getAmount(i);
+        interpolationParameters.beforeThetaAmounts[i] = amountManager.getAmount(i);
       }
-      interpolationParameters = new DelayedThetaInvocationParameters(
-          getTime(),
-          beforeThetaAmounts,
-          theta,
-          obs
-      );
+      interpolationParameters.set(getTime(), theta, obs, numObservers);
 
     } else {
-      for (Observer o : obs) {
-        o.theta(theta);
+      for (int o = 0; o < numObservers; o++) {
+        obs[o].theta(theta);
       }
 
     }
@@ -254,7 +256,13 @@ protected void thetaEvent() {
   public void initialize() {
     t = 0;
     amountManager.resetAmount();
-    thetaQueue = new ThetaQueue();
+    if (thetaQueue == null) {
+      thetaQueue = new ThetaQueue();
+    }
+    thetaQueue.clear();
+    if (interpolationParameters != null) {
+      interpolationParameters.pending = false;
+    }
 
     initializePropensities();
   }
@@ -343,7 +351,7 @@ protected AmountManager getAmountManager() {
    * @see AmountManager#getAmount(int)
    */
   public double getAmount(int species) {
-    if (interpolateTheta && interpolationParameters != null) {
+    if (interpolateTheta && interpolationParameters != null && interpolationParameters.pending) {
       return NumberTools.interpolateLinear(interpolationParameters.interpolationTheta,
           interpolationParameters.beforeTheta, getTime(),
           (int) interpolationParameters.beforeThetaAmounts[species],
@@ -396,6 +404,7 @@ public Observer addObserver(Observer observer) {
     System.arraycopy(this.observer, 0, n, 0, this.observer.length);
     n[n.length - 1] = observer;
     this.observer = n;
+    buildDispatchArrays();
     return observer;
   }
 
@@ -408,6 +417,26 @@ public void setStochasticSeed(long seed) {
     stochastics.setSeed(seed);
   }
 
+  /**
+   * Gets the random number generators of this simulator.
+   *
+   * @return random number generators
+   */
+  public Stochastics getStochastics() {
+    return stochastics;
+  }
+
+  /**
+   * Sets the random number generators of this simulator, e.g. an instance for a stream of its own
+   * to run simulators in parallel threads reproducibly.
+   *
+   * @param stochastics random number generators
+   * @see Stochastics#Stochastics(long, long)
+   */
+  public void setStochastics(Stochastics stochastics) {
+    this.stochastics = stochastics;
+  }
+
 
   /**
    * Gets the volume of the reaction network.
@@ -464,55 +493,148 @@ public enum FireType {
   }
 
 
+  /**
+   * Collects the observers that declared to need the respective callback.
+   */
+  private void buildDispatchArrays() {
+    int numTrigger = 0;
+    int numStep = 0;
+    int numReaction = 0;
+    for (Observer o : observer) {
+      numTrigger += o instanceof TriggerObserver ? 1 : 0;
+      numStep += o.needsStep() ? 1 : 0;
+      numReaction += o.needsActivateReaction() ? 1 : 0;
+    }
+    triggerObservers = new TriggerObserver[numTrigger];
+    stepObservers = new Observer[numStep];
+    reactionObservers = new Observer[numReaction];
+    numTrigger = numStep = numReaction = 0;
+    for (Observer o : observer) {
+      if (o instanceof TriggerObserver) {
+        triggerObservers[numTrigger++] = (TriggerObserver) o;
+      }
+      if (o.needsStep()) {
+        stepObservers[numStep++] = o;
+      }
+      if (o.needsActivateReaction()) {
+        reactionObservers[numReaction++] = o;
+      }
+    }
+  }
+
+
+  /**
+   * The state before a theta event whose observers are invoked after the step with interpolated
+   * amounts. The buffers are reused by all theta events.
+   */
   private static class DelayedThetaInvocationParameters {
 
+    public boolean pending = false;
     public double beforeTheta = -1;
-    public long[] beforeThetaAmounts = null;
+    public long[] beforeThetaAmounts;
     public double interpolationTheta = 0;
-    public LinkedList<Observer> observers;
+    public Observer[] observers = new Observer[0];
+    public int numObservers = 0;
 
-    public DelayedThetaInvocationParameters(double beforeTheta, long[] beforeThetaAmounts,
-        double interpolationTheta, LinkedList<Observer> observers) {
+    public DelayedThetaInvocationParameters(int numSpecies) {
+      beforeThetaAmounts = new long[numSpecies];
+    }
+
+    public void set(double beforeTheta, double interpolationTheta, Observer[] observers,
+        int numObservers) {
       this.beforeTheta = beforeTheta;
-      this.beforeThetaAmounts = beforeThetaAmounts;
       this.interpolationTheta = interpolationTheta;
-      this.observers = observers;
+      if (this.observers.length < numObservers) {
+        this.observers = new Observer[observers.length];
+      }
+      System.arraycopy(observers, 0, this.observers, 0, numObservers);
+      this.numObservers = numObservers;
+      pending = true;
     }
   }
 
   /**
-   * Manages the registered thetas
+   * Manages the registered thetas in a binary heap, which does not allocate memory once it has
+   * grown to the maximal number of pending thetas.
    *
    * @author Florian Erhard
    */
   private static class ThetaQueue {
 
-    private Map<Double, LinkedList<Observer>> thetas;
-    private double nextTheta = Double.POSITIVE_INFINITY;
+    private double[] thetas = new double[8];
+    private Observer[] observers = new Observer[8];
+    private int size = 0;
+    private Observer[] removed = new Observer[4];
 
-    public ThetaQueue() {
-      thetas = new HashMap<>();
+    public void clear() {
+      Arrays.fill(observers, 0, size, null);
+      size = 0;
     }
 
     public void pushTheta(double theta, Observer obs) {
-      if (!thetas.containsKey(theta)) {
-        thetas.put(theta, new LinkedList<>());
+      if (size == thetas.length) {
+        thetas = Arrays.copyOf(thetas, 2 * size);
+        observers = Arrays.copyOf(observers, 2 * size);
+      }
+      int i = size++;
+      while (i > 0 && thetas[(i - 1) / 2] > theta) {
+        thetas[i] = thetas[(i - 1) / 2];
+        observers[i] = observers[(i - 1) / 2];
+        i = (i - 1) / 2;
       }
-      thetas.get(theta).add(obs);
-      nextTheta = Math.min(nextTheta, theta);
+      thetas[i] = theta;
+      observers[i] = obs;
     }
 
     public double getNextTheta() {
-      return nextTheta;
+      return size == 0 ? Double.POSITIVE_INFINITY : thetas[0];
+    }
+
+    /**
+     * Removes all observers registered for the next theta, which are available by {@link
+     * #getRemoved()} until the next call.
+     *
+     * @return number of removed observers
+     */
+    public int removeNext() {
+      double next = getNextTheta();
+      int n = 0;
+      while (size > 0 && thetas[0] == next) {
+        if (n == removed.length) {
+          removed = Arrays.copyOf(removed, 2 * n);
+        }
+        removed[n++] = observers[0];
+        removeFirst();
+      }
+      return n;
+    }
+
+    public Observer[] getRemoved() {
+      return removed;
     }
 
-    public LinkedList<Observer> getNextObserversAndRemove() {
-      LinkedList<Observer> re = thetas.remove(nextTheta);
-      nextTheta = Double.POSITIVE_INFINITY;
-      for (Double t : thetas.keySet()) {
-        nextTheta = Math.min(nextTheta, t);
+    private void removeFirst() {
+      size--;
+      double theta = thetas[size];
+      Observer obs = observers[size];
+      observers[size] = null;
+      int i = 0;
+      while (2 * i + 1 < size) {
+        int child = 2 * i + 1;
+        if (child + 1 < size && thetas[child + 1] < thetas[child]) {
+          child++;
+        }
+        if (thetas[child] >= theta) {
+          break;
+        }
+        thetas[i] = thetas[child];
+        observers[i] = observers[child];
+        i = child;
+      }
+      if (size > 0) {
+        thetas[i] = theta;
+        observers[i] = obs;
       }
-      return re;
     }
   }
 
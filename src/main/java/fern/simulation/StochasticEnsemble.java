@@ -0,0 +1,185 @@
+package fern.simulation;
+
+import fern.network.Network;
+import fern.simulation.observer.Observer;
+import fern.tools.Stochastics;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Runs an ensemble of trajectories of a stochastic simulation in parallel on a {@link
+ * ForkJoinPool}.
+ * <p>
+ * Networks, amount managers and simulators keep the state of a running simulation, hence each
+ * worker creates a network of its own by the given factory (which also yields its own {@link
+ * fern.network.AmountManager}), a simulator for it and its observers. Each worker simulates a
+ * contiguous block of the trajectories, where trajectory <code>k</code> draws from stream
+ * <code>k</code> of the ensemble's seed (see {@link Stochastics#Stochastics(long, long)}), so each
+ * trajectory is reproducible from the seed and <code>k</code> regardless of the number of workers
+ * and the thread scheduling. At the end, the observers of the workers are merged by {@link
+ * Observer#merge(Observer)} in the order of the blocks.
+ * <p>
+ * Example:
+ * <pre>
+ * StochasticEnsemble ensemble = new StochasticEnsemble(() -&gt; new FernMLNetwork(file),
+ *     GillespieEnhanced::new);
+ * ensemble.addObserver(sim -&gt; new AmountIntervalObserver(sim, 1, 100, "A"));
+ * AmountIntervalObserver obs = (AmountIntervalObserver) ensemble.run(100000, 100)[0];
+ * </pre>
+ *
+ * @author agent
+ */
+public class StochasticEnsemble {
+
+  private Callable<? extends Network> networkFactory;
+  private Function<Network, ? extends Simulator> simulatorFactory;
+  private List<Function<Simulator, ? extends Observer>> observerFactories;
+  private long seed;
+  private int parallelism;
+
+  /**
+   * Creates an ensemble with the current date as seed that uses all available processors.
+   *
+   * @param networkFactory   creates a new network for each worker
+   * @param simulatorFactory creates the simulator of a worker for its network
+   */
+  public StochasticEnsemble(Callable<? extends Network> networkFactory,
+      Function<Network, ? extends Simulator> simulatorFactory) {
+    this.networkFactory = networkFactory;
+    this.simulatorFactory = simulatorFactory;
+    observerFactories = new ArrayList<>();
+    seed = new Date().getTime();
+    parallelism = Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Registers an observer, which is created for the simulator of each worker. The observer is
+   * added to the simulator by the ensemble.
+   *
+   * @param observerFactory creates the observer for the simulator of a worker
+   * @return the index of the observer in the result of {@link #run(int, double)}
+   */
+  public int addObserver(Function<Simulator, ? extends Observer> observerFactory) {
+    observerFactories.add(observerFactory);
+    return observerFactories.size() - 1;
+  }
+
+  /**
+   * Simulates the given number of trajectories up to the given time.
+   *
+   * @param trajectories number of trajectories
+   * @param time         simulation time
+   * @return the merged observers in the order of their registration
+   */
+  public Observer[] run(int trajectories, double time) {
+    int workers = Math.max(1, Math.min(parallelism, trajectories));
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return pool.invoke(new Block(trajectories, time, workers, 0, workers));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Simulates the trajectories of the workers <code>from</code> to <code>to</code> (exclusive)
+   * and merges their observers.
+   */
+  private class Block extends RecursiveTask<Observer[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    private int trajectories;
+    private double time;
+    private int workers;
+    private int from;
+    private int to;
+
+    Block(int trajectories, double time, int workers, int from, int to) {
+      this.trajectories = trajectories;
+      this.time = time;
+      this.workers = workers;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Observer[] compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        Block right = new Block(trajectories, time, workers, middle, to);
+        right.fork();
+        Observer[] observers = new Block(trajectories, time, workers, from, middle).compute();
+        Observer[] rightObservers = right.join();
+        for (int i = 0; i < observers.length; i++) {
+          observers[i].merge(rightObservers[i]);
+        }
+        return observers;
+      }
+
+      Network net;
+      try {
+        net = networkFactory.call();
+      } catch (Exception e) {
+        throw new RuntimeException("The network could not be created", e);
+      }
+      Simulator sim = simulatorFactory.apply(net);
+      Observer[] observers = new Observer[observerFactories.size()];
+      for (int i = 0; i < observers.length; i++) {
+        observers[i] = sim.addObserver(observerFactories.get(i).apply(sim));
+      }
+      long first = (long) trajectories * from / workers;
+      long last = (long) trajectories * to / workers;
+      for (long k = first; k < last; k++) {
+        sim.setStochastics(new Stochastics(seed, k));
+        sim.start(time);
+      }
+      return observers;
+    }
+  }
+
+  /**
+   * Gets the seed of the random number streams.
+   *
+   * @return seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Sets the seed of the random number streams.
+   *
+   * @param seed the seed
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Gets the number of worker threads.
+   *
+   * @return parallelism
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Sets the number of worker threads. Each worker simulates its own network.
+   *
+   * @param parallelism number of workers
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("At least one worker is needed");
+    }
+    this.parallelism = parallelism;
+  }
+
+}
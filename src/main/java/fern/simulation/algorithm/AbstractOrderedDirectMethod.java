@@ -0,0 +1,154 @@
+package fern.simulation.algorithm;
+
+import fern.network.Network;
+import fern.simulation.controller.SimulationController;
+
+
+/**
+ * Base class for variants of the enhanced direct method that search the next firing reaction in a
+ * particular order of the reactions instead of their index order. If reactions with large
+ * propensities come first, the linear search for the next reaction stops early, which pays off for
+ * networks with highly skewed propensity distributions.
+ * <p>
+ * The sum of the propensities is adapted incrementally and recomputed exactly after as many firings
+ * as there are reactions, which bounds the accumulation of rounding errors at constant amortized
+ * cost.
+ *
+ * @author agent
+ * @see OptimizedDirectMethod
+ * @see SortingDirectMethod
+ */
+public abstract class AbstractOrderedDirectMethod extends GillespieEnhanced {
+
+  /**
+   * The reactions in the order they are searched.
+   */
+  protected int[] order = null;
+
+  private int firingsSinceSum = 0;
+
+  public AbstractOrderedDirectMethod(Network net) {
+    super(net);
+  }
+
+  @Override
+  public boolean isEfficientlyAdaptSum() {
+    return true;
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+    if (order == null || order.length != a.length) {
+      order = new int[a.length];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+    }
+    firingsSinceSum = 0;
+  }
+
+  @Override
+  public void performStep(SimulationController control) {
+
+    if (changed) {
+      initializePropensities();
+      computeSum();
+    }
+
+    // obtain mu and tau by the direct method described in chapter 5A page 417ff
+    double tau = directMCTau(a_sum);
+
+    if (!Double.isInfinite(tau)) {
+      changed = false;
+      while (t <= getNextThetaEvent() && t + tau > getNextThetaEvent() && !changed) {
+        thetaEvent();
+      }
+
+      if (changed) {
+        performStep(control);
+        return;
+
+      }
+      int position = searchPosition();
+      int mu = order[position];
+
+      fireReaction(mu, t + tau, FireType.GillespieEnhanced);
+
+      for (int k = dep.getStart(mu), end = dep.getEnd(mu); k < end; k++) {
+        int alpha = dep.getTarget(k);
+        a_sum -= a[alpha];
+        a[alpha] = getPropensityCalculator().calculatePropensity(alpha, getAmountManager(), this);
+        a_sum += a[alpha];
+      }
+      if (++firingsSinceSum >= a.length) {
+        computeSum();
+      }
+      reactionFired(position);
+    }
+
+    // advance in time
+    t += tau;
+
+    if (Double.isInfinite(tau)) {
+      thetaEvent();
+    }
+  }
+
+  /**
+   * Recomputes the sum of the propensities exactly.
+   */
+  private void computeSum() {
+    a_sum = 0;
+    for (int i = 0; i < a.length; i++) {
+      a_sum += a[i];
+    }
+    firingsSinceSum = 0;
+  }
+
+  /**
+   * obtains a random (but following a specific distribution) reaction as described by the direct
+   * method in chapter 5A page 417ff, searching the reactions in the current order
+   *
+   * @return position of the reaction in {@link #order}
+   */
+  private int searchPosition() {
+    double test = stochastics.getUnif() * a_sum;
+
+    double sum = 0;
+    int last = -1;
+    for (int k = 0; k < order.length; k++) {
+      double a_mu = a[order[k]];
+      if (a_mu > 0) {
+        sum += a_mu;
+        last = k;
+        if (sum >= test) {
+          return k;
+        }
+      }
+    }
+    // the adapted sum may slightly exceed the actual one
+    if (last >= 0) {
+      return last;
+    }
+    throw new RuntimeException("No reaction could be selected!");
+  }
+
+  /**
+   * Is called after a reaction has fired and its dependent propensities have been updated, in
+   * order to adapt the search order.
+   *
+   * @param position position of the fired reaction in {@link #order}
+   */
+  protected abstract void reactionFired(int position);
+
+  /**
+   * Gets the reactions in the order they are currently searched.
+   *
+   * @return indices of the reactions
+   */
+  public int[] getOrder() {
+    return order.clone();
+  }
+
+}
@@ -0,0 +1,409 @@
+package fern.simulation.algorithm;
+
+import fern.network.AbstractKineticConstantPropensityCalculator;
+import fern.network.Network;
+import fern.simulation.Simulator;
+import fern.simulation.controller.SimulationController;
+import java.util.Arrays;
+
+
+/**
+ * Base class for the partial-propensity family of exact stochastic simulation algorithms for
+ * networks of elementary mass action reactions, i.e. reactions with at most two reactants.
+ * <p>
+ * The propensity of each reaction is factorized into the population of one of its reactant species
+ * and a partial propensity, which is the rate constant for a reaction of first order and the rate
+ * constant times the population of the other reactant (or half the population minus one for two
+ * molecules of the same species) for a reaction of second order. The partial propensities are
+ * grouped by their factored-out species, yielding one row per species and one row for source
+ * reactions. A reaction is selected by first selecting a row by its total propensity and then a
+ * reaction within this row.
+ * <p>
+ * If a reaction fires, only the partial propensities that depend on a species whose population
+ * changed and the totals of the rows of these species have to be updated, so the cost of a step is
+ * bounded by the number of species the changed species react with, independently of how many
+ * reactions a species participates in. The sums of the rows are adapted incrementally and
+ * recomputed exactly after as many firings as there are reactions.
+ * <p>
+ * For reference see Rajesh Ramaswamy, Nélido González-Segredo and Ivo F. Sbalzarini, A new class of
+ * highly efficient exact stochastic simulation algorithms for chemical reaction networks, J. Chem.
+ * Phys. 130, 244104 (2009)
+ *
+ * @author agent
+ * @see PartialPropensityDirectMethod
+ * @see SortingPartialPropensityDirectMethod
+ * @see PartialPropensityCompositionRejection
+ */
+public abstract class AbstractPartialPropensitySimulator extends Simulator {
+
+  private AbstractKineticConstantPropensityCalculator propensityCalculator;
+
+  /**
+   * Number of rows, i.e. number of species plus one for the source reactions in row 0.
+   */
+  protected int numRows;
+
+  /**
+   * The partial propensities of row i are stored from <code>rowStart[i]</code> to
+   * <code>rowStart[i+1]</code> (exclusive).
+   */
+  protected int[] rowStart;
+  protected int[] reactionAt;
+  protected double[] pi;
+  protected int[] positionOf;
+
+  /**
+   * Sum of the partial propensities of each row.
+   */
+  protected double[] lambda;
+
+  /**
+   * Total propensity of each row, i.e. its population times its <code>lambda</code>.
+   */
+  protected double[] sigma;
+
+  protected double a_sum = 0;
+  protected boolean changed = false;
+
+  private int[] rowOf;
+  private int[] partner;
+  private boolean[] homodimer;
+  private double[] constant;
+
+  /**
+   * The reactions whose partial propensity depends on species i are stored from
+   * <code>dependentStart[i]</code> to <code>dependentStart[i+1]</code> (exclusive).
+   */
+  private int[] dependentStart;
+  private int[] dependentReactions;
+
+  /**
+   * The species that change quantity when reaction i fires are stored from
+   * <code>changeStart[i]</code> to <code>changeStart[i+1]</code> (exclusive).
+   */
+  private int[] changeStart;
+  private int[] changedSpecies;
+
+  private int firingsSinceSum = 0;
+
+  /**
+   * Creates the partial propensity structure for the given network.
+   *
+   * @param net the network
+   * @throws IllegalArgumentException if the network does not consist of elementary mass action
+   *                                  reactions with kinetic constants
+   */
+  public AbstractPartialPropensitySimulator(Network net) {
+    super(net);
+    if (!(net.getPropensityCalculator() instanceof AbstractKineticConstantPropensityCalculator)) {
+      throw new IllegalArgumentException(
+          "Partial propensity methods need an AbstractKineticConstantPropensityCalculator!");
+    }
+    propensityCalculator = (AbstractKineticConstantPropensityCalculator) net
+        .getPropensityCalculator();
+
+    int numReactions = net.getNumReactions();
+    int numSpecies = net.getNumSpecies();
+    numRows = numSpecies + 1;
+    rowOf = new int[numReactions];
+    partner = new int[numReactions];
+    homodimer = new boolean[numReactions];
+    constant = new double[numReactions];
+    rowStart = new int[numRows + 1];
+    dependentStart = new int[numSpecies + 1];
+    for (int r = 0; r < numReactions; r++) {
+      int[] species = propensityCalculator.getReactantSpecies(r);
+      int[] multiplicities = propensityCalculator.getReactantMultiplicities(r);
+      int order = 0;
+      for (int m : multiplicities) {
+        order += m;
+      }
+      partner[r] = -1;
+      if (order == 0) {
+        rowOf[r] = 0;
+      } else if (order == 1) {
+        rowOf[r] = species[0] + 1;
+      } else if (order == 2) {
+        rowOf[r] = species[0] + 1;
+        partner[r] = species.length == 1 ? species[0] : species[1];
+        homodimer[r] = species.length == 1;
+        dependentStart[partner[r] + 1]++;
+      } else {
+        throw new IllegalArgumentException(
+            "Partial propensity methods need reactions with at most two reactants!");
+      }
+      rowStart[rowOf[r] + 1]++;
+    }
+
+    // partial propensity structure
+    for (int i = 0; i < numRows; i++) {
+      rowStart[i + 1] += rowStart[i];
+    }
+    reactionAt = new int[numReactions];
+    positionOf = new int[numReactions];
+    pi = new double[numReactions];
+    int[] fill = new int[numRows];
+    System.arraycopy(rowStart, 0, fill, 0, numRows);
+    for (int r = 0; r < numReactions; r++) {
+      positionOf[r] = fill[rowOf[r]]++;
+      reactionAt[positionOf[r]] = r;
+    }
+    lambda = new double[numRows];
+    sigma = new double[numRows];
+
+    // species -> reactions with a partial propensity depending on it
+    for (int i = 0; i < numSpecies; i++) {
+      dependentStart[i + 1] += dependentStart[i];
+    }
+    dependentReactions = new int[dependentStart[numSpecies]];
+    fill = new int[numSpecies];
+    System.arraycopy(dependentStart, 0, fill, 0, numSpecies);
+    for (int r = 0; r < numReactions; r++) {
+      if (partner[r] >= 0) {
+        dependentReactions[fill[partner[r]]++] = r;
+      }
+    }
+
+    // reaction -> species changing quantity
+    int[] change = new int[numSpecies];
+    changeStart = new int[numReactions + 1];
+    changedSpecies = new int[numReactions];
+    int size = 0;
+    for (int r = 0; r < numReactions; r++) {
+      for (int s : net.getReactants(r)) {
+        change[s]--;
+      }
+      for (int s : net.getProducts(r)) {
+        change[s]++;
+      }
+      for (int[] list : new int[][]{net.getReactants(r), net.getProducts(r)}) {
+        for (int s : list) {
+          if (change[s] != 0) {
+            if (size == changedSpecies.length) {
+              changedSpecies = Arrays.copyOf(changedSpecies, Math.max(2 * size, 4));
+            }
+            changedSpecies[size++] = s;
+            change[s] = 0;
+          }
+        }
+      }
+      changeStart[r + 1] = size;
+    }
+    changedSpecies = Arrays.copyOf(changedSpecies, size);
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+    computePartialPropensities();
+  }
+
+  @Override
+  public void reinitialize() {
+    changed = true;
+  }
+
+  /**
+   * Computes the partial propensities and the sums of all rows from scratch.
+   */
+  protected void computePartialPropensities() {
+    double volume = getVolume();
+    for (int r = 0; r < constant.length; r++) {
+      constant[r] = propensityCalculator.getConstant(r);
+      if (volume > 0) {
+        constant[r] = propensityCalculator
+            .getConstantFromDeterministicRateConstant(constant[r], r, volume);
+      }
+      pi[positionOf[r]] = partialPropensity(r);
+    }
+    computeSums();
+    changed = false;
+  }
+
+  /**
+   * Recomputes the sums of all rows exactly.
+   */
+  private void computeSums() {
+    a_sum = 0;
+    for (int i = 0; i < numRows; i++) {
+      lambda[i] = 0;
+      for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+        lambda[i] += pi[p];
+      }
+      sigma[i] = population(i) * lambda[i];
+      a_sum += sigma[i];
+    }
+    firingsSinceSum = 0;
+    sumsComputed();
+  }
+
+  private double partialPropensity(int reaction) {
+    int j = partner[reaction];
+    if (j < 0) {
+      return constant[reaction];
+    }
+    double n = getAmountManager().getAmount(j);
+    return homodimer[reaction] ? constant[reaction] * (n - 1) / 2 : constant[reaction] * n;
+  }
+
+  /**
+   * Gets the population that is factored out of the partial propensities of a row.
+   *
+   * @param row the row
+   * @return the population of the row's species or 1 for the source reactions
+   */
+  protected double population(int row) {
+    return row == 0 ? 1 : getAmountManager().getAmount(row - 1);
+  }
+
+  @Override
+  public void performStep(SimulationController control) {
+
+    if (changed) {
+      computePartialPropensities();
+    }
+
+    // obtain tau by the direct method described in chapter 5A page 417ff
+    double tau = (1 / a_sum) * Math.log(1 / stochastics.getUnif());
+
+    if (!Double.isInfinite(tau)) {
+      changed = false;
+      while (t <= getNextThetaEvent() && t + tau > getNextThetaEvent() && !changed) {
+        thetaEvent();
+      }
+
+      if (changed) {
+        performStep(control);
+        return;
+
+      }
+      int mu = drawReaction();
+
+      fireReaction(mu, t + tau, FireType.GillespieEnhanced);
+
+      update(mu);
+    }
+
+    // advance in time
+    t += tau;
+
+    if (Double.isInfinite(tau)) {
+      thetaEvent();
+    }
+  }
+
+  /**
+   * Updates the partial propensities and the sums of the rows after a reaction has fired.
+   *
+   * @param mu the fired reaction
+   */
+  private void update(int mu) {
+    for (int k = changeStart[mu]; k < changeStart[mu + 1]; k++) {
+      int s = changedSpecies[k];
+      for (int d = dependentStart[s]; d < dependentStart[s + 1]; d++) {
+        int reaction = dependentReactions[d];
+        int position = positionOf[reaction];
+        int row = rowOf[reaction];
+        double value = partialPropensity(reaction);
+        lambda[row] += value - pi[position];
+        pi[position] = value;
+        setSigma(row, population(row) * lambda[row]);
+      }
+      setSigma(s + 1, population(s + 1) * lambda[s + 1]);
+    }
+    if (++firingsSinceSum >= positionOf.length) {
+      computeSums();
+    }
+  }
+
+  private void setSigma(int row, double value) {
+    double old = sigma[row];
+    sigma[row] = value;
+    a_sum += value - old;
+    sigmaChanged(row, old, value);
+  }
+
+  /**
+   * Selects the reaction to fire with probability proportional to its propensity.
+   *
+   * @return index of the reaction
+   */
+  protected abstract int drawReaction();
+
+  /**
+   * Is called when the total propensity of a row has changed.
+   *
+   * @param row       the row
+   * @param oldValue  the previous total propensity
+   * @param newValue  the new total propensity
+   */
+  protected void sigmaChanged(int row, double oldValue, double newValue) {
+  }
+
+  /**
+   * Is called when the sums of all rows have been recomputed from scratch.
+   */
+  protected void sumsComputed() {
+  }
+
+  /**
+   * Searches a reaction in a row by its cumulative partial propensity.
+   *
+   * @param row  the row
+   * @param test number between 0 and <code>lambda[row]</code>
+   * @return position of the reaction in the partial propensity structure
+   */
+  protected int searchRow(int row, double test) {
+    double sum = 0;
+    int last = -1;
+    for (int p = rowStart[row]; p < rowStart[row + 1]; p++) {
+      if (pi[p] > 0) {
+        sum += pi[p];
+        last = p;
+        if (sum >= test) {
+          return p;
+        }
+      }
+    }
+    // the adapted sum may slightly exceed the actual one
+    if (last >= 0) {
+      return last;
+    }
+    throw new RuntimeException("No reaction could be selected!");
+  }
+
+  /**
+   * Swaps two reactions within the same row of the partial propensity structure.
+   *
+   * @param p first position
+   * @param q second position
+   */
+  protected void swapPositions(int p, int q) {
+    double piP = pi[p];
+    pi[p] = pi[q];
+    pi[q] = piP;
+    int reaction = reactionAt[p];
+    reactionAt[p] = reactionAt[q];
+    reactionAt[q] = reaction;
+    positionOf[reactionAt[p]] = p;
+    positionOf[reactionAt[q]] = q;
+  }
+
+  @Override
+  public double getPropensity(int reaction) {
+    return population(rowOf[reaction]) * Math.max(pi[positionOf[reaction]], 0);
+  }
+
+  @Override
+  public void setVolume(double volume) {
+    super.setVolume(volume);
+    changed = true;
+  }
+
+  @Override
+  public void setAmount(int species, long amount) {
+    super.setAmount(species, amount);
+    changed = true;
+  }
+
+}
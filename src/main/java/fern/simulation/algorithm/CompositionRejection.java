@@ -80,7 +80,8 @@ public void performStep(SimulationController control) {
 
       fireReaction(mu, t + tau, FireType.GillespieEnhanced);
 
-      for (int alpha : dep.getDependent(mu)) {
+      for (int k = dep.getStart(mu), end = dep.getEnd(mu); k < end; k++) {
+        int alpha = dep.getTarget(k);
         double old = a[alpha];
         a[alpha] = getPropensityCalculator().calculatePropensity(alpha, getAmountManager(), this);
         groups.propensityChanged(alpha, old, a[alpha]);
@@ -8,9 +8,9 @@
 
 import fern.network.ComplexDependenciesPropensityCalculator;
 import fern.network.Network;
-import fern.tools.NumberTools;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 /**
  * Implements a dependency graph. It is a directed graph whose vertices are the reactions of a
@@ -19,6 +19,12 @@
  * <p>
  * This definition implies that if a reaction i fires, the propensities of each descendant in the
  * dependency graph has to be recalculated and no other.
+ * <p>
+ * The graph is built from an inverted index that maps each species to the reactions whose
+ * propensity depends on it, hence in time proportional to the number of edges instead of the
+ * square of the number of reactions. It is stored in compressed sparse row format: the descendants
+ * of reaction i are {@code getTarget(k)} for {@code getStart(i) <= k < getEnd(i)}, in ascending
+ * order.
  *
  *
  * <p>
@@ -31,82 +37,208 @@
  */
 public class DependencyGraph {
 
-  private LinkedList<Integer>[] dependsOn = null;
+  /**
+   * The descendants of reaction i are stored in {@link #targets} from {@code offsets[i]} to {@code
+   * offsets[i + 1]} (exclusive).
+   */
+  private int[] offsets = null;
+
+  private int[] targets = null;
 
   /**
    * Creates the dependency graph for a given network
    *
    * @param net the network
    */
-  @SuppressWarnings("unchecked")
   public DependencyGraph(Network net) {
-    dependsOn = new LinkedList[net.getNumReactions()];
+    int numReactions = net.getNumReactions();
+    int numSpecies = net.getNumSpecies();
 
-    Map<Integer, Integer>[] reactants = new Map[net.getNumReactions()];
-    for (int i = 0; i < reactants.length; i++) {
-      reactants[i] = NumberTools.createHistogramAsMap(net.getReactants(i));
+    // inverted index: species -> reactions whose propensity depends on it
+    int[] speciesOffsets = new int[numSpecies + 1];
+    for (int j = 0; j < numReactions; j++) {
+      for (int species : getPropensitySpecies(net, j)) {
+        speciesOffsets[species + 1]++;
+      }
     }
-
-    Map<Integer, Integer>[] products = new Map[net.getNumReactions()];
-    for (int i = 0; i < products.length; i++) {
-      products[i] = NumberTools.createHistogramAsMap(net.getProducts(i));
+    for (int s = 0; s < numSpecies; s++) {
+      speciesOffsets[s + 1] += speciesOffsets[s];
+    }
+    int[] speciesReactions = new int[speciesOffsets[numSpecies]];
+    int[] fill = Arrays.copyOf(speciesOffsets, numSpecies);
+    for (int j = 0; j < numReactions; j++) {
+      for (int species : getPropensitySpecies(net, j)) {
+        speciesReactions[fill[species]++] = j;
+      }
     }
 
-    for (int i = 0; i < dependsOn.length; i++) {
-      dependsOn[i] = new LinkedList();
-      for (int j = 0; j < net.getNumReactions(); j++) {
-        if (haveToCreateEdgeFromTo(i, j, net, reactants, products)) {
-          dependsOn[i].add(j);
-        }
+    offsets = new int[numReactions + 1];
+    targets = new int[numReactions];
+    int size = 0;
+    int[] change = new int[numSpecies];
+    // the reaction that most recently added a vertex, to avoid duplicate edges
+    int[] addedBy = new int[numReactions];
+    Arrays.fill(addedBy, -1);
+    for (int i = 0; i < numReactions; i++) {
+      int[] reactants = net.getReactants(i);
+      int[] products = net.getProducts(i);
+      for (int species : reactants) {
+        change[species]--;
+      }
+      for (int species : products) {
+        change[species]++;
+      }
+      addedBy[i] = i;
+      targets = ensureCapacity(targets, size + 1);
+      targets[size++] = i;
+      size = addDependent(i, reactants, change, speciesOffsets, speciesReactions, addedBy, size);
+      size = addDependent(i, products, change, speciesOffsets, speciesReactions, addedBy, size);
+      for (int species : reactants) {
+        change[species] = 0;
+      }
+      for (int species : products) {
+        change[species] = 0;
       }
+      Arrays.sort(targets, offsets[i], size);
+      offsets[i + 1] = size;
+    }
+    if (targets.length > size) {
+      targets = Arrays.copyOf(targets, size);
     }
   }
 
   /**
-   * Gets the descendants of a reaction in the dependency graph
+   * Adds all reactions that depend on one of the given species, if the species changes quantity
+   * when reaction i fires.
    *
-   * @param reaction index of the reaction
-   * @return list of dependent reactions
+   * @return the new number of edges
    */
-  public LinkedList<Integer> getDependent(int reaction) {
-    return dependsOn[reaction];
+  private int addDependent(int i, int[] species, int[] change, int[] speciesOffsets,
+      int[] speciesReactions, int[] addedBy, int size) {
+    for (int s : species) {
+      if (change[s] == 0) {
+        continue;
+      }
+      for (int k = speciesOffsets[s]; k < speciesOffsets[s + 1]; k++) {
+        int j = speciesReactions[k];
+        if (addedBy[j] != i) {
+          addedBy[j] = i;
+          targets = ensureCapacity(targets, size + 1);
+          targets[size++] = j;
+        }
+      }
+    }
+    return size;
   }
 
-  private boolean haveToCreateEdgeFromTo(int i, int j, Network net,
-      Map<Integer, Integer>[] reactants, Map<Integer, Integer>[] products) {
-    // if and only if there is at least one molecule that:
-    //  1. changes quantity, when i is executed
-    //  2. is reactant of j
-    // or i = j
-    // or we have a ComplexDependenciesPropensityCalculator:
-    // one molecule that
-    //  1. is dependent on j
-    //  2. changes quantitiy
-    if (i == j) {
-      return true;
+  private static int[] ensureCapacity(int[] array, int capacity) {
+    if (array.length >= capacity) {
+      return array;
     }
+    return Arrays.copyOf(array, Math.max(capacity, 2 * array.length));
+  }
 
-    for (int j_reactant : net.getReactants(j)) {
-      int i_reactant = reactants[i].containsKey(j_reactant) ? reactants[i].get(j_reactant) : 0;
-      int i_product = products[i].containsKey(j_reactant) ? products[i].get(j_reactant) : 0;
-      if (i_reactant != i_product) {
-        return true;
+  /**
+   * Gets the species a reaction's propensity depends on, i.e. its reactants and, for a {@link
+   * ComplexDependenciesPropensityCalculator}, the species of its kinetic law. Species may occur
+   * more than once.
+   */
+  static int[] getPropensitySpecies(Network net, int reaction) {
+    int[] reactants = net.getReactants(reaction);
+    if (!(net.getPropensityCalculator() instanceof ComplexDependenciesPropensityCalculator)) {
+      return reactants;
+    }
+    int[] species = Arrays.copyOf(reactants, reactants.length
+        + ((ComplexDependenciesPropensityCalculator) net.getPropensityCalculator())
+        .getKineticLawSpecies(reaction).size());
+    int k = reactants.length;
+    for (int s : ((ComplexDependenciesPropensityCalculator) net.getPropensityCalculator())
+        .getKineticLawSpecies(reaction)) {
+      species[k++] = s;
+    }
+    // a species that occurs more than once would add its reactions more than once
+    Arrays.sort(species);
+    int n = 0;
+    for (int s : species) {
+      if (n == 0 || species[n - 1] != s) {
+        species[n++] = s;
       }
     }
+    return Arrays.copyOf(species, n);
+  }
+
+  /**
+   * Gets the descendants of a reaction in the dependency graph
+   *
+   * @param reaction index of the reaction
+   * @return iterator over the dependent reactions
+   */
+  public PrimitiveIterator.OfInt getDependent(final int reaction) {
+    return new PrimitiveIterator.OfInt() {
+      private int k = offsets[reaction];
+
+      @Override
+      public boolean hasNext() {
+        return k < offsets[reaction + 1];
+      }
 
-    if (net.getPropensityCalculator() instanceof ComplexDependenciesPropensityCalculator) {
-      for (int j_reactant : ((ComplexDependenciesPropensityCalculator) net
-          .getPropensityCalculator()).getKineticLawSpecies(j)) {
-        int i_reactant = reactants[i].containsKey(j_reactant) ? reactants[i].get(j_reactant) : 0;
-        int i_product = products[i].containsKey(j_reactant) ? products[i].get(j_reactant) : 0;
-        if (i_reactant != i_product) {
-          return true;
+      @Override
+      public int nextInt() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
         }
+        return targets[k++];
       }
-    }
+    };
+  }
+
+  /**
+   * Gets the position of the first descendant of a reaction for {@link #getTarget(int)}.
+   *
+   * @param reaction index of the reaction
+   * @return position of the first descendant
+   */
+  public int getStart(int reaction) {
+    return offsets[reaction];
+  }
+
+  /**
+   * Gets the position after the last descendant of a reaction for {@link #getTarget(int)}.
+   *
+   * @param reaction index of the reaction
+   * @return position after the last descendant
+   */
+  public int getEnd(int reaction) {
+    return offsets[reaction + 1];
+  }
 
-    return false;
+  /**
+   * Gets a descendant by its position.
+   *
+   * @param k position between {@link #getStart(int)} and {@link #getEnd(int)}
+   * @return index of the dependent reaction
+   */
+  public int getTarget(int k) {
+    return targets[k];
   }
 
+  /**
+   * Gets the number of descendants of a reaction in the dependency graph
+   *
+   * @param reaction index of the reaction
+   * @return number of dependent reactions
+   */
+  public int getDependentCount(int reaction) {
+    return offsets[reaction + 1] - offsets[reaction];
+  }
+
+  /**
+   * Gets the number of edges of the dependency graph
+   *
+   * @return number of edges
+   */
+  public int getEdgeCount() {
+    return targets.length;
+  }
 
 }
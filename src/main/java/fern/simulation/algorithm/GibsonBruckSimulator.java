@@ -90,7 +90,8 @@ public void performStep(SimulationController control) {
 
       fireReaction(mu, tau, FireType.GibsonBruck);
 
-      for (int alpha : dep.getDependent(mu)) {
+      for (int k = dep.getStart(mu), end = dep.getEnd(mu); k < end; k++) {
+        int alpha = dep.getTarget(k);
         double a_alphaold = a[alpha];
         a[alpha] = getPropensityCalculator().calculatePropensity(alpha, getAmountManager(), this);
 
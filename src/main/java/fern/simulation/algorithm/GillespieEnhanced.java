@@ -91,7 +91,8 @@ public void performStep(SimulationController control) {
 
       fireReaction(mu, t + tau, FireType.GillespieEnhanced);
 
-      for (int alpha : dep.getDependent(mu)) {
+      for (int k = dep.getStart(mu), end = dep.getEnd(mu); k < end; k++) {
+        int alpha = dep.getTarget(k);
         if (efficientlyAdaptSum) {
           a_sum -= a[alpha];
         }
@@ -0,0 +1,99 @@
+package fern.simulation.algorithm;
+
+import fern.network.Network;
+import fern.simulation.controller.SimulationController;
+
+
+/**
+ * This is an enhanced version of the original Direct method developed by Gillespie. Just like the
+ * algorithm of Gibson and Bruck it uses a dependency graph to know what propensities have to be
+ * recalculated. Additionally, the propensities are stored in a {@link SumTree}, so both updating
+ * the propensities and selecting the next firing reaction take logarithmic instead of linear time
+ * in the number of reactions, and the sum of the propensities does not drift numerically.
+ * <p>
+ * For references see Daniel T. Gillespie., A General Method for Numerically Simulating the
+ * Stochastic Time Evolution of Coupled Chemical Reactions, J.Comp.Phys. 22, 403 (1976) and
+ * M.A.Gibson and J.Bruck, Efficient Exact Stochastic Simulation of Chemical Systems with Many
+ * Species and Many Channels, J.Phys.Chem.A., Vol 104, no 9, 2000
+ *
+ * @author agent
+ * @see GillespieEnhanced
+ * @see DependencyGraph
+ * @see SumTree
+ */
+public class GillespieSumTree extends GillespieEnhanced {
+
+  private SumTree tree;
+
+  public GillespieSumTree(Network net) {
+    super(net);
+  }
+
+  @Override
+  public boolean isEfficientlyAdaptSum() {
+    return true;
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+    initializeTree();
+  }
+
+  private void initializeTree() {
+    if (tree == null) {
+      tree = new SumTree(a);
+    } else {
+      tree.initialize(a);
+    }
+    a_sum = tree.getSum();
+  }
+
+  @Override
+  public void performStep(SimulationController control) {
+
+    if (changed) {
+      initializePropensities();
+      initializeTree();
+    }
+
+    // obtain mu and tau by the direct method described in chapter 5A page 417ff
+    double tau = directMCTau(a_sum);
+
+    if (!Double.isInfinite(tau)) {
+      changed = false;
+      while (t <= getNextThetaEvent() && t + tau > getNextThetaEvent() && !changed) {
+        thetaEvent();
+      }
+
+      if (changed) {
+        performStep(control);
+        return;
+
+      }
+      int mu = tree.search(stochastics.getUnif() * a_sum);
+
+      fireReaction(mu, t + tau, FireType.GillespieEnhanced);
+
+      for (int k = dep.getStart(mu), end = dep.getEnd(mu); k < end; k++) {
+        int alpha = dep.getTarget(k);
+        a[alpha] = getPropensityCalculator().calculatePropensity(alpha, getAmountManager(), this);
+        tree.update(alpha, a[alpha]);
+      }
+      a_sum = tree.getSum();
+    }
+
+    // advance in time
+    t += tau;
+
+    if (Double.isInfinite(tau)) {
+      thetaEvent();
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "sum tree Gillespie";
+  }
+
+}
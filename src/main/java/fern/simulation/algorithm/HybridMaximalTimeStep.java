@@ -95,7 +95,8 @@ public void performStep(SimulationController control) {
 
         fireReaction(i, t, t + tau, k, FireType.TauLeapNonCritical);
 
-        for (int alpha : dep.getDependent(i)) {
+        for (int d = dep.getStart(i), end = dep.getEnd(i); d < end; d++) {
+          int alpha = dep.getTarget(d);
           dependent.set(alpha);
         }
       }
@@ -106,7 +107,8 @@ public void performStep(SimulationController control) {
 
       fireReaction(mu, t + tau, FireType.GillespieEnhanced);
 
-      for (int alpha : dep.getDependent(mu)) {
+      for (int d = dep.getStart(mu), end = dep.getEnd(mu); d < end; d++) {
+        int alpha = dep.getTarget(d);
         dependent.set(alpha);
       }
 
@@ -0,0 +1,94 @@
+package fern.simulation.algorithm;
+
+import fern.network.Network;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * Implementation of the Optimized Direct Method of Cao et al. The reactions are searched in
+ * descending order of how often they fired during a presimulation, so that the frequently firing
+ * reactions are found after a few comparisons.
+ * <p>
+ * Instead of separate presimulation runs, the firings of the first {@link
+ * #getPresimulationSteps()} steps of the first simulation are counted and determine the order
+ * for the rest of this and all later simulations.
+ * <p>
+ * For reference see Yang Cao, Hong Li and Linda Petzold, Efficient formulation of the stochastic
+ * simulation algorithm for chemically reacting systems, J. Chem. Phys. 121, 4059 (2004)
+ *
+ * @author agent
+ * @see SortingDirectMethod
+ * @see DependencyGraph
+ */
+public class OptimizedDirectMethod extends AbstractOrderedDirectMethod {
+
+  private int presimulationSteps = 1000;
+  private long[] firings = null;
+  private int steps = 0;
+
+  public OptimizedDirectMethod(Network net) {
+    super(net);
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+    if (firings == null || firings.length != a.length) {
+      firings = new long[a.length];
+      steps = 0;
+    }
+  }
+
+  @Override
+  protected void reactionFired(int position) {
+    if (steps < presimulationSteps) {
+      firings[order[position]]++;
+      if (++steps == presimulationSteps) {
+        sortOrder();
+      }
+    }
+  }
+
+  /**
+   * Sorts the reactions by descending number of firings; reactions that fired equally often keep
+   * their index order.
+   */
+  private void sortOrder() {
+    Integer[] sorted = new Integer[order.length];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = i;
+    }
+    Arrays.sort(sorted, Comparator.comparingLong((Integer i) -> -firings[i]));
+    for (int i = 0; i < sorted.length; i++) {
+      order[i] = sorted[i];
+    }
+  }
+
+  /**
+   * Gets the number of steps whose firings determine the order of the reactions.
+   *
+   * @return number of presimulation steps
+   */
+  public int getPresimulationSteps() {
+    return presimulationSteps;
+  }
+
+  /**
+   * Sets the number of steps whose firings determine the order of the reactions and restarts the
+   * presimulation with the next simulation.
+   *
+   * @param presimulationSteps number of presimulation steps
+   */
+  public void setPresimulationSteps(int presimulationSteps) {
+    this.presimulationSteps = presimulationSteps;
+    firings = null;
+    order = null;
+  }
+
+  @Override
+  public String getName() {
+    return "optimized direct method";
+  }
+
+}
@@ -0,0 +1,147 @@
+package fern.simulation.algorithm;
+
+import fern.network.Network;
+import java.util.Arrays;
+
+
+/**
+ * Implementation of the partial-propensity stochastic simulation algorithm with
+ * composition-rejection sampling (PSSA-CR). The rows of the partial propensity structure are
+ * grouped by the binary exponent of their total propensity, such that the total propensities
+ * within a group differ by at most a factor of two. The row of the next firing reaction is found
+ * by a linear search over the few groups and rejection sampling within the group, which takes
+ * constant expected time, and the reaction by a linear search over the partial propensities of
+ * this row.
+ * <p>
+ * For reference see Rajesh Ramaswamy and Ivo F. Sbalzarini, A partial-propensity variant of the
+ * composition-rejection stochastic simulation algorithm for chemical reaction networks, J. Chem.
+ * Phys. 132, 044102 (2010)
+ *
+ * @author agent
+ * @see AbstractPartialPropensitySimulator
+ * @see CompositionRejection
+ */
+public class PartialPropensityCompositionRejection extends AbstractPartialPropensitySimulator {
+
+  /**
+   * Offset of the binary exponents of positive doubles to the group indices.
+   */
+  private static final int OFFSET = -Double.MIN_EXPONENT + 1;
+
+  private int[][] groups = new int[Double.MAX_EXPONENT + OFFSET + 1][];
+  private int[] groupSizes = new int[groups.length];
+  private double[] groupSums = new double[groups.length];
+  private int[] groupOfRow;
+  private int[] positionOfRow;
+  private int minGroup;
+  private int maxGroup;
+
+  public PartialPropensityCompositionRejection(Network net) {
+    super(net);
+  }
+
+  @Override
+  protected void sumsComputed() {
+    if (groupOfRow == null) {
+      groupOfRow = new int[numRows];
+      positionOfRow = new int[numRows];
+    }
+    Arrays.fill(groupSizes, 0);
+    Arrays.fill(groupSums, 0);
+    Arrays.fill(groupOfRow, -1);
+    minGroup = groups.length;
+    maxGroup = -1;
+    for (int row = 0; row < numRows; row++) {
+      if (sigma[row] > 0) {
+        insert(row, sigma[row]);
+      }
+    }
+  }
+
+  @Override
+  protected void sigmaChanged(int row, double oldValue, double newValue) {
+    int g = groupOfRow[row];
+    int ng = newValue > 0 ? getGroup(newValue) : -1;
+    if (g == ng) {
+      if (g >= 0) {
+        groupSums[g] += newValue - oldValue;
+      }
+      return;
+    }
+    if (g >= 0) {
+      groupSums[g] -= oldValue;
+      int p = positionOfRow[row];
+      int moved = groups[g][--groupSizes[g]];
+      groups[g][p] = moved;
+      positionOfRow[moved] = p;
+      groupOfRow[row] = -1;
+      for (; maxGroup >= minGroup && groupSizes[maxGroup] == 0; maxGroup--) {
+        ;
+      }
+      for (; minGroup <= maxGroup && groupSizes[minGroup] == 0; minGroup++) {
+        ;
+      }
+      if (maxGroup < minGroup) {
+        minGroup = groups.length;
+        maxGroup = -1;
+      }
+    }
+    if (ng >= 0) {
+      insert(row, newValue);
+    }
+  }
+
+  private void insert(int row, double value) {
+    int g = getGroup(value);
+    if (groups[g] == null) {
+      groups[g] = new int[4];
+    } else if (groupSizes[g] == groups[g].length) {
+      groups[g] = Arrays.copyOf(groups[g], 2 * groupSizes[g]);
+    }
+    groupOfRow[row] = g;
+    positionOfRow[row] = groupSizes[g];
+    groups[g][groupSizes[g]++] = row;
+    groupSums[g] += value;
+    minGroup = Math.min(minGroup, g);
+    maxGroup = Math.max(maxGroup, g);
+  }
+
+  private static int getGroup(double value) {
+    return Math.getExponent(value) + OFFSET;
+  }
+
+  @Override
+  protected int drawReaction() {
+    if (maxGroup < 0) {
+      throw new RuntimeException("No reaction could be selected!");
+    }
+    double test = stochastics.getUnif() * a_sum;
+
+    double sum = 0;
+    int group = minGroup;
+    for (int g = maxGroup; g >= minGroup; g--) {
+      if (groupSizes[g] > 0) {
+        group = g;
+        sum += groupSums[g];
+        if (sum >= test) {
+          break;
+        }
+      }
+    }
+
+    // all total propensities of the group are below this bound
+    double bound = Math.scalb(1.0, group - OFFSET + 1);
+    int row;
+    do {
+      row = groups[group][stochastics.getUnif(0, groupSizes[group])];
+    } while (stochastics.getUnif() * bound > sigma[row]);
+
+    return reactionAt[searchRow(row, stochastics.getUnif() * lambda[row])];
+  }
+
+  @Override
+  public String getName() {
+    return "partial propensity composition rejection";
+  }
+
+}
@@ -0,0 +1,76 @@
+package fern.simulation.algorithm;
+
+import fern.network.Network;
+
+
+/**
+ * Implementation of the Partial-Propensity Direct Method (PDM). The row of the next firing
+ * reaction is found by a linear search over the total propensities of the rows and the reaction
+ * by a linear search over the partial propensities of this row, hence the cost of the selection
+ * scales with the number of species instead of the number of reactions.
+ * <p>
+ * For reference see Rajesh Ramaswamy, Nélido González-Segredo and Ivo F. Sbalzarini, A new class of
+ * highly efficient exact stochastic simulation algorithms for chemical reaction networks, J. Chem.
+ * Phys. 130, 244104 (2009)
+ *
+ * @author agent
+ * @see AbstractPartialPropensitySimulator
+ * @see SortingPartialPropensityDirectMethod
+ */
+public class PartialPropensityDirectMethod extends AbstractPartialPropensitySimulator {
+
+  /**
+   * The rows in the order they are searched.
+   */
+  protected int[] rowOrder;
+
+  public PartialPropensityDirectMethod(Network net) {
+    super(net);
+    rowOrder = new int[numRows];
+    for (int i = 0; i < numRows; i++) {
+      rowOrder[i] = i;
+    }
+  }
+
+  @Override
+  protected int drawReaction() {
+    double test = stochastics.getUnif() * a_sum;
+
+    double sum = 0;
+    int last = -1;
+    for (int k = 0; k < numRows; k++) {
+      int row = rowOrder[k];
+      if (sigma[row] > 0) {
+        last = k;
+        if (sum + sigma[row] >= test) {
+          break;
+        }
+        sum += sigma[row];
+      }
+    }
+    if (last < 0) {
+      throw new RuntimeException("No reaction could be selected!");
+    }
+    // the adapted sum may slightly exceed the actual one, then the last row is taken
+    int row = rowOrder[last];
+    int position = searchRow(row, Math.min(test - sum, sigma[row]) / population(row));
+    int mu = reactionAt[position];
+    reactionDrawn(last, position);
+    return mu;
+  }
+
+  /**
+   * Is called after a reaction has been selected, in order to adapt the search order.
+   *
+   * @param rank     position of the reaction's row in {@link #rowOrder}
+   * @param position position of the reaction in the partial propensity structure
+   */
+  protected void reactionDrawn(int rank, int position) {
+  }
+
+  @Override
+  public String getName() {
+    return "partial propensity direct method";
+  }
+
+}
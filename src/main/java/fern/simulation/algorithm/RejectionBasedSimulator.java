@@ -0,0 +1,438 @@
+package fern.simulation.algorithm;
+
+import fern.network.AmountManager;
+import fern.network.Network;
+import fern.simulation.Simulator;
+import fern.simulation.controller.SimulationController;
+import java.util.Arrays;
+
+
+/**
+ * Implementation of the rejection-based stochastic simulation algorithm (RSSA) of Thanh et al. It
+ * is useful for networks whose propensities are expensive to evaluate, e.g. {@link
+ * fern.network.sbml.SBMLNetwork}s whose kinetic laws are arbitrary expressions.
+ * <p>
+ * Each species is assigned a fluctuation interval around its population and each reaction a lower
+ * and an upper bound of its propensity over these intervals. A candidate reaction is selected with
+ * respect to the upper bounds and accepted with probability propensity / upper bound, where the
+ * exact propensity is only evaluated if a uniform random number exceeds the ratio of the lower and
+ * the upper bound. Rejected candidates only advance the time. The bounds are recomputed only for
+ * the reactions that depend on a species that left its interval, and the upper bounds are kept in
+ * a {@link SumTree}, so that selecting a candidate takes logarithmic time in the number of
+ * reactions.
+ * <p>
+ * The bounds are the extreme propensities at the corners of the box spanned by the intervals of
+ * the species a reaction depends on, which is exact if the propensity is monotonic in each of
+ * these species (for reactions depending on more than {@value #MAX_CORNER_SPECIES} species, only
+ * the corners of all lower and all upper limits are used). If an evaluated propensity turns out to
+ * lie outside its bounds, the bounds are widened and the step is restarted. Propensities that
+ * depend explicitly on the time are not supported. If too many candidates in a row are rejected,
+ * the step is finished by the direct method.
+ * <p>
+ * For reference see Vo Hong Thanh, Corrado Priami and Roberto Zunino, Efficient rejection-based
+ * simulation of biochemical reactions with stochastic noise and delays, J. Chem. Phys. 141, 134116
+ * (2014)
+ *
+ * @author agent
+ * @see GillespieEnhanced
+ */
+public class RejectionBasedSimulator extends Simulator {
+
+  /**
+   * Maximal number of species of a reaction for which all corners of the fluctuation box are
+   * evaluated.
+   */
+  public static final int MAX_CORNER_SPECIES = 8;
+
+  private static final int MAX_CONSECUTIVE_REJECTIONS = 100;
+
+  private double fluctuationRate = 0.1;
+  private long minimumFluctuation = 2;
+
+  private long[] lower = null;
+  private long[] upper = null;
+  private double[] aLower = null;
+  private double[] aUpper = null;
+  private SumTree aUpperTree = null;
+  private double aUpperSum = 0;
+
+  /**
+   * The species whose populations a propensity depends on, the reactions whose propensities depend
+   * on a species and the species whose populations change when a reaction fires.
+   */
+  private int[][] reactionSpecies = null;
+  private int[][] speciesReactions = null;
+  private int[][] changedSpecies = null;
+
+  private long[] current = null;
+  private boolean[] stale = null;
+  private int[] staleReactions = null;
+
+  private boolean changed = false;
+  private long propensityEvaluations = 0;
+
+  public RejectionBasedSimulator(Network net) {
+    super(net);
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+
+    if (reactionSpecies == null) {
+      createIndices();
+    }
+    propensityEvaluations = 0;
+    computeAllBounds();
+    changed = false;
+  }
+
+  /**
+   * Creates the index structures that only depend on the network.
+   */
+  private void createIndices() {
+    int numSpecies = getNet().getNumSpecies();
+    int numReactions = getNet().getNumReactions();
+    reactionSpecies = new int[numReactions][];
+    changedSpecies = new int[numReactions][];
+    int[] count = new int[numSpecies];
+    int[] change = new int[numSpecies];
+    for (int j = 0; j < numReactions; j++) {
+      reactionSpecies[j] = DependencyGraph.getPropensitySpecies(getNet(), j);
+      for (int s : reactionSpecies[j]) {
+        count[s]++;
+      }
+
+      int[] reactants = getNet().getReactants(j);
+      int[] products = getNet().getProducts(j);
+      for (int s : reactants) {
+        change[s]--;
+      }
+      for (int s : products) {
+        change[s]++;
+      }
+      int n = 0;
+      int[] species = new int[reactants.length + products.length];
+      for (int s : reactants) {
+        if (change[s] != 0) {
+          species[n++] = s;
+          change[s] = 0;
+        }
+      }
+      for (int s : products) {
+        if (change[s] != 0) {
+          species[n++] = s;
+          change[s] = 0;
+        }
+      }
+      changedSpecies[j] = Arrays.copyOf(species, n);
+    }
+
+    speciesReactions = new int[numSpecies][];
+    for (int s = 0; s < numSpecies; s++) {
+      speciesReactions[s] = new int[count[s]];
+      count[s] = 0;
+    }
+    for (int j = 0; j < numReactions; j++) {
+      for (int s : reactionSpecies[j]) {
+        speciesReactions[s][count[s]++] = j;
+      }
+    }
+
+    lower = new long[numSpecies];
+    upper = new long[numSpecies];
+    current = new long[numSpecies];
+    aLower = new double[numReactions];
+    aUpper = new double[numReactions];
+    stale = new boolean[numReactions];
+    staleReactions = new int[numReactions];
+    aUpperTree = new SumTree(aUpper);
+  }
+
+  /**
+   * Computes the fluctuation intervals of all species and the bounds of all reactions.
+   */
+  private void computeAllBounds() {
+    for (int s = 0; s < lower.length; s++) {
+      computeInterval(s);
+    }
+    for (int j = 0; j < aUpper.length; j++) {
+      computeBounds(j);
+    }
+    aUpperTree.initialize(aUpper);
+    aUpperSum = aUpperTree.getSum();
+  }
+
+  @Override
+  public void reinitialize() {
+    changed = true;
+  }
+
+  @Override
+  public void performStep(SimulationController control) {
+
+    if (changed) {
+      computeAllBounds();
+    }
+    changed = false;
+
+    double tau = 0;
+    int mu = -1;
+    int rejections = 0;
+    while (mu < 0 && aUpperSum > 0) {
+      if (rejections == MAX_CONSECUTIVE_REJECTIONS) {
+        tau += directMethod();
+        mu = directMCReaction();
+        break;
+      }
+      tau += Math.log(1 / stochastics.getUnif()) / aUpperSum;
+      int candidate = selectCandidate();
+      double test = stochastics.getUnif() * aUpper[candidate];
+      if (test <= aLower[candidate]) {
+        mu = candidate;
+        break;
+      }
+      a[candidate] = evaluate(candidate, getAmountManager());
+      if (a[candidate] < aLower[candidate] || a[candidate] > aUpper[candidate]) {
+        // the propensity is not monotonic in the intervals, the previous trials are invalid
+        aLower[candidate] = Math.min(aLower[candidate], a[candidate]);
+        aUpper[candidate] = Math.max(aUpper[candidate], a[candidate]);
+        aUpperTree.update(candidate, aUpper[candidate]);
+        aUpperSum = aUpperTree.getSum();
+        tau = 0;
+        rejections = 0;
+      } else if (test <= a[candidate]) {
+        mu = candidate;
+      } else {
+        rejections++;
+      }
+    }
+    if (mu < 0) {
+      tau = Double.POSITIVE_INFINITY;
+    }
+
+    if (!Double.isInfinite(tau)) {
+      while (t <= getNextThetaEvent() && t + tau > getNextThetaEvent() && !changed) {
+        thetaEvent();
+      }
+
+      if (changed) {
+        performStep(control);
+        return;
+      }
+
+      fireReaction(mu, t + tau, FireType.GillespieEnhanced);
+      updateBounds(mu);
+    }
+    // advance in time
+    t += tau;
+
+    if (Double.isInfinite(tau)) {
+      thetaEvent();
+    }
+  }
+
+  /**
+   * Selects a candidate reaction with a probability proportional to the upper bound of its
+   * propensity in logarithmic time.
+   *
+   * @return index of the candidate
+   */
+  private int selectCandidate() {
+    return aUpperTree.search(stochastics.getUnif() * aUpperSum);
+  }
+
+  /**
+   * Evaluates all propensities and draws the time until the next firing as in the direct method.
+   *
+   * @return tau, which is infinite if no reaction can fire
+   */
+  private double directMethod() {
+    double sum = 0;
+    for (int j = 0; j < a.length; j++) {
+      a[j] = evaluate(j, getAmountManager());
+      sum += a[j];
+    }
+    return Math.log(1 / stochastics.getUnif()) / sum;
+  }
+
+  /**
+   * Selects a reaction with a probability proportional to its exact propensity as computed by
+   * {@link #directMethod()}.
+   *
+   * @return index of the reaction or -1 if no reaction can fire
+   */
+  private int directMCReaction() {
+    double sum = 0;
+    for (int j = 0; j < a.length; j++) {
+      sum += a[j];
+    }
+    double test = stochastics.getUnif() * sum;
+    sum = 0;
+    for (int j = 0; j < a.length; j++) {
+      sum += a[j];
+      if (a[j] > 0 && sum >= test) {
+        return j;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Recomputes the intervals of the species that left their interval when the given reaction fired
+   * and the bounds of the reactions depending on them.
+   *
+   * @param mu the fired reaction
+   */
+  private void updateBounds(int mu) {
+    int numStale = 0;
+    for (int s : changedSpecies[mu]) {
+      long amount = getAmountManager().getAmount(s);
+      if (amount < lower[s] || amount > upper[s]) {
+        computeInterval(s);
+        for (int j : speciesReactions[s]) {
+          if (!stale[j]) {
+            stale[j] = true;
+            staleReactions[numStale++] = j;
+          }
+        }
+      }
+    }
+    for (int k = 0; k < numStale; k++) {
+      int j = staleReactions[k];
+      stale[j] = false;
+      computeBounds(j);
+      aUpperTree.update(j, aUpper[j]);
+    }
+    if (numStale > 0) {
+      aUpperSum = aUpperTree.getSum();
+    }
+  }
+
+  private void computeInterval(int species) {
+    long amount = getAmountManager().getAmount(species);
+    long fluctuation = Math.max((long) (fluctuationRate * amount), minimumFluctuation);
+    lower[species] = Math.max(amount - fluctuation, 0);
+    upper[species] = amount + fluctuation;
+  }
+
+  /**
+   * Computes the bounds of a propensity as its extreme values at the corners of the fluctuation
+   * intervals of the species it depends on. The corners are set in the simulator's own amount
+   * manager, which restores its amounts afterwards, so that amount managers like {@link
+   * fern.network.sbml.SBMLAmountManager} pass on only the changes of these species.
+   */
+  private void computeBounds(int reaction) {
+    int[] species = reactionSpecies[reaction];
+    AmountManager amounts = getAmountManager();
+    double min = Double.POSITIVE_INFINITY;
+    double max = 0;
+    for (int s : species) {
+      current[s] = amounts.getAmount(s);
+    }
+    try {
+      if (species.length <= MAX_CORNER_SPECIES) {
+        for (int mask = 0; mask < 1 << species.length; mask++) {
+          for (int i = 0; i < species.length; i++) {
+            amounts.setAmount(species[i],
+                (mask & (1 << i)) == 0 ? lower[species[i]] : upper[species[i]]);
+          }
+          double propensity = evaluate(reaction, amounts);
+          min = Math.min(min, propensity);
+          max = Math.max(max, propensity);
+        }
+      } else {
+        for (long[] limit : new long[][] {lower, upper}) {
+          for (int s : species) {
+            amounts.setAmount(s, limit[s]);
+          }
+          double propensity = evaluate(reaction, amounts);
+          min = Math.min(min, propensity);
+          max = Math.max(max, propensity);
+        }
+      }
+    } finally {
+      for (int s : species) {
+        amounts.setAmount(s, current[s]);
+      }
+    }
+    aLower[reaction] = min;
+    aUpper[reaction] = max;
+  }
+
+  private double evaluate(int reaction, AmountManager amounts) {
+    propensityEvaluations++;
+    return getPropensityCalculator().calculatePropensity(reaction, amounts, this);
+  }
+
+  @Override
+  public double getPropensity(int reaction) {
+    return getPropensityCalculator().calculatePropensity(reaction, getAmountManager(), this);
+  }
+
+  @Override
+  public void setVolume(double volume) {
+    super.setVolume(volume);
+    changed = true;
+  }
+
+  @Override
+  public void setAmount(int species, long amount) {
+    super.setAmount(species, amount);
+    changed = true;
+  }
+
+  @Override
+  public String getName() {
+    return "rejection-based SSA";
+  }
+
+  /**
+   * Gets the relative half width of the fluctuation intervals of the species populations.
+   *
+   * @return fluctuation rate
+   */
+  public double getFluctuationRate() {
+    return fluctuationRate;
+  }
+
+  /**
+   * Sets the relative half width of the fluctuation intervals of the species populations. Larger
+   * intervals cause fewer recomputations of bounds but more rejections.
+   *
+   * @param fluctuationRate fluctuation rate
+   */
+  public void setFluctuationRate(double fluctuationRate) {
+    this.fluctuationRate = fluctuationRate;
+  }
+
+  /**
+   * Gets the minimal half width of the fluctuation intervals in molecules.
+   *
+   * @return minimal fluctuation
+   */
+  public long getMinimumFluctuation() {
+    return minimumFluctuation;
+  }
+
+  /**
+   * Sets the minimal half width of the fluctuation intervals in molecules, which applies to small
+   * populations.
+   *
+   * @param minimumFluctuation minimal fluctuation
+   */
+  public void setMinimumFluctuation(long minimumFluctuation) {
+    this.minimumFluctuation = minimumFluctuation;
+  }
+
+  /**
+   * Gets the number of propensity evaluations, both exact and for bounds, during the last
+   * simulation.
+   *
+   * @return number of propensity evaluations
+   */
+  public long getPropensityEvaluations() {
+    return propensityEvaluations;
+  }
+
+}
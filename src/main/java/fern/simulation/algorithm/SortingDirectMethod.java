@@ -0,0 +1,39 @@
+package fern.simulation.algorithm;
+
+import fern.network.Network;
+
+
+/**
+ * Implementation of the Sorting Direct Method of McCollum et al. Whenever a reaction fires, it is
+ * swapped with its predecessor in the search order. Thus, frequently firing reactions move towards
+ * the front without a presimulation, and the order adapts when the dynamics of the system change.
+ * <p>
+ * For reference see James M. McCollum, Gregory D. Peterson, Chris D. Cox, Michael L. Simpson and
+ * Nagiza F. Samatova, The sorting direct method for stochastic simulation of biochemical systems
+ * with varying reaction execution behavior, Comput. Biol. Chem. 30, 39 (2006)
+ *
+ * @author agent
+ * @see OptimizedDirectMethod
+ * @see DependencyGraph
+ */
+public class SortingDirectMethod extends AbstractOrderedDirectMethod {
+
+  public SortingDirectMethod(Network net) {
+    super(net);
+  }
+
+  @Override
+  protected void reactionFired(int position) {
+    if (position > 0) {
+      int mu = order[position];
+      order[position] = order[position - 1];
+      order[position - 1] = mu;
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "sorting direct method";
+  }
+
+}
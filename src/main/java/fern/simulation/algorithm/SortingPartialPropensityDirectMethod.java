@@ -0,0 +1,43 @@
+package fern.simulation.algorithm;
+
+import fern.network.Network;
+
+
+/**
+ * Implementation of the Sorting Partial-Propensity Direct Method (SPDM). Like the sorting direct
+ * method, it swaps the row of a selected reaction with its predecessor in the search order, and the
+ * reaction with its predecessor within the row, so that the linear searches of the {@link
+ * PartialPropensityDirectMethod} find frequently firing reactions after a few comparisons.
+ * <p>
+ * For reference see Rajesh Ramaswamy, Nélido González-Segredo and Ivo F. Sbalzarini, A new class of
+ * highly efficient exact stochastic simulation algorithms for chemical reaction networks, J. Chem.
+ * Phys. 130, 244104 (2009)
+ *
+ * @author agent
+ * @see PartialPropensityDirectMethod
+ * @see SortingDirectMethod
+ */
+public class SortingPartialPropensityDirectMethod extends PartialPropensityDirectMethod {
+
+  public SortingPartialPropensityDirectMethod(Network net) {
+    super(net);
+  }
+
+  @Override
+  protected void reactionDrawn(int rank, int position) {
+    int row = rowOrder[rank];
+    if (rank > 0) {
+      rowOrder[rank] = rowOrder[rank - 1];
+      rowOrder[rank - 1] = row;
+    }
+    if (position > rowStart[row]) {
+      swapPositions(position, position - 1);
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "sorting partial propensity direct method";
+  }
+
+}
@@ -0,0 +1,124 @@
+package fern.simulation.algorithm;
+
+import java.util.Arrays;
+
+
+/**
+ * Implements a sum tree. It is a complete binary tree whose leaves are the propensities of the
+ * reactions and whose inner nodes hold the sums of their children, hence the root holds the sum of
+ * all propensities. Changing a propensity and selecting a reaction with probability proportional
+ * to its propensity both take logarithmic time in the number of reactions.
+ * <p>
+ * Each inner node on the path of a changed leaf is recomputed from its children rather than
+ * adapted by the difference of the old and new value, so unlike an incrementally adapted sum,
+ * rounding errors do not accumulate in the course of a simulation.
+ *
+ * @author agent
+ * @see GillespieSumTree
+ */
+public class SumTree {
+
+  /**
+   * Node k has the children 2k and 2k+1, the root is node 1 and leaf i is node capacity+i.
+   */
+  private double[] tree;
+  private int capacity;
+  private int size;
+
+  /**
+   * Creates a <code>SumTree</code> for the given values
+   *
+   * @param values values of the leaves
+   */
+  public SumTree(double[] values) {
+    initialize(values);
+  }
+
+  /**
+   * Sets all leaves to the given values.
+   *
+   * @param values values of the leaves
+   */
+  public void initialize(double[] values) {
+    size = values.length;
+    capacity = 1;
+    while (capacity < size) {
+      capacity <<= 1;
+    }
+    if (tree == null || tree.length != 2 * capacity) {
+      tree = new double[2 * capacity];
+    } else {
+      Arrays.fill(tree, 0);
+    }
+    System.arraycopy(values, 0, tree, capacity, size);
+    for (int k = capacity - 1; k > 0; k--) {
+      tree[k] = tree[2 * k] + tree[2 * k + 1];
+    }
+  }
+
+  /**
+   * Changes the value of a leaf.
+   *
+   * @param i     index of the leaf
+   * @param value new value
+   */
+  public void update(int i, double value) {
+    int k = capacity + i;
+    tree[k] = value;
+    for (k >>= 1; k > 0; k >>= 1) {
+      tree[k] = tree[2 * k] + tree[2 * k + 1];
+    }
+  }
+
+  /**
+   * Gets the value of a leaf.
+   *
+   * @param i index of the leaf
+   * @return value of the leaf
+   */
+  public double get(int i) {
+    return tree[capacity + i];
+  }
+
+  /**
+   * Gets the sum of all leaves.
+   *
+   * @return sum of all leaves
+   */
+  public double getSum() {
+    return tree[1];
+  }
+
+  /**
+   * Gets the number of leaves.
+   *
+   * @return number of leaves
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Searches the leaf i whose value contains the given number in the cumulative sums, i.e. the sum
+   * of the leaves before i is at most <code>test</code> and the sum including leaf i is greater.
+   * Leaves of value zero are never returned.
+   *
+   * @param test number between 0 and {@link #getSum()}
+   * @return index of the leaf
+   */
+  public int search(double test) {
+    int k = 1;
+    while (k < capacity) {
+      int left = 2 * k;
+      // the right subtree might be empty if rounding made test reach the sum
+      if (test < tree[left] || tree[left + 1] == 0) {
+        k = left;
+      } else {
+        test -= tree[left];
+        k = left + 1;
+      }
+    }
+    return k - capacity;
+  }
+
+}
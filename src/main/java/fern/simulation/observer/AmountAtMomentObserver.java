@@ -76,6 +76,11 @@ public boolean goOn(Simulator sim) {
   public void activateReaction(int mu, double tau, FireType fireType, int times) {
   }
 
+  @Override
+  public boolean needsActivateReaction() {
+    return overridesActivateReaction(AmountAtMomentObserver.class);
+  }
+
   /**
    * Records the amounts of the species and puts it into the histogram.
    */
@@ -116,6 +121,11 @@ public void started() {
   public void step() {
   }
 
+  @Override
+  public boolean needsStep() {
+    return overridesStep(AmountAtMomentObserver.class);
+  }
+
   public GnuPlot toGnuplot() throws IOException {
     return toGnuplot(new GnuPlot());
   }
@@ -70,6 +70,11 @@ public void started() {
   public void step() {
   }
 
+  @Override
+  public boolean needsStep() {
+    return overridesStep(FireTypeObserver.class);
+  }
+
   @Override
   public String toString() {
     double sum = 0;
@@ -1,13 +1,14 @@
 package fern.simulation.observer;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 
+import cern.jet.stat.Probability;
 import fern.simulation.Simulator;
 import fern.simulation.Simulator.FireType;
 import fern.tools.NumberTools;
+import fern.tools.QuantileSketch;
 import fern.tools.gnuplot.GnuPlot;
 import fern.tools.gnuplot.TransposedArrayMatrixAxes;
 
@@ -23,20 +24,47 @@
  * <p>
  * Extending classes just have to implement {@link IntervalObserver#getEntityValue(int)} and to
  * pass some indices and names to to constructor.
+ * <p>
+ * Over repeated runs, the mean and the variance of each entity at each interval are accumulated by
+ * Welford's algorithm and, unless switched off by {@link #setQuantiles(boolean)}, its distribution
+ * by a {@link QuantileSketch}. The buffers only grow when a run records more intervals than all
+ * runs before, so repeats do not allocate memory (except for the interpolation of the
+ * <code>step</code> method). The statistics of observers of parallel runs can be combined by {@link
+ * #merge(Observer)}.
  *
  * @author Florian Erhard
  */
 public abstract class IntervalObserver extends Observer implements GnuPlotObserver {
 
+  /**
+   * Accuracy parameter of the quantile sketches.
+   */
+  private static final int SKETCH_SIZE = 200;
+
   private double recentStep;
-  private double[][] avgLog = null;
-  private int[] quality = null;
   private boolean plotQuality = false;
   private boolean thetaMethod = true;
+  private boolean quantiles = true;
   private double interval;
   private String[] entityName;
-  private List<double[]> log;
-  private int duration;
+  private int duration = -1;
+
+  /**
+   * The records of the most recent run, [step][time, entities]; the rows are reused by later runs.
+   */
+  private double[][] log = new double[0][];
+  private int logSize = 0;
+
+  /**
+   * Number of intervals recorded by any run and, for each interval, the number of runs that
+   * reached it, the mean of the time and the entities and the sums of squared deviations
+   * [time, entities][interval] and the quantile sketches [entity][interval].
+   */
+  private int numIntervals = 0;
+  private int[] quality = new int[0];
+  private double[][] mean;
+  private double[][] m2;
+  private QuantileSketch[][] sketches;
 
 
   /**
@@ -56,27 +84,25 @@ public IntervalObserver(Simulator sim, double interval, String[] entityName) {
 
     this.entityName = entityName;
 
-    log = new LinkedList<>();
-
-    avgLog = new double[this.entityName.length + 1][0];
-    quality = new int[0];
+    mean = new double[this.entityName.length + 1][0];
+    m2 = new double[this.entityName.length + 1][0];
+    sketches = new QuantileSketch[this.entityName.length][0];
   }
 
+  /**
+   * Create the observer for a given simulator, a given interval and given names that records at
+   * most <code>duration + 1</code> intervals.
+   *
+   * @param sim        simulator
+   * @param interval   interval
+   * @param duration   number of intervals after the first one
+   * @param entityName names of the entities
+   */
   public IntervalObserver(Simulator sim, double interval, int duration, String[] entityName) {
-    super(sim);
-    this.interval = interval;
+    this(sim, interval, entityName);
     this.duration = duration;
-
-    if (entityName.length == 0) {
-      throw new IllegalArgumentException("At least one entity has to be specified!");
-    }
-
-    this.entityName = entityName;
-
-    log = new LinkedList<>();
-
-    avgLog = new double[this.entityName.length + 1][this.duration + 1];
-    quality = new int[0];
+    ensureCapacity(duration + 1);
+    numIntervals = duration + 1;
   }
 
   /**
@@ -92,7 +118,7 @@ public IntervalObserver(Simulator sim, double interval, int duration, String[] e
    */
   @Override
   public void started() {
-    log.clear();
+    logSize = 0;
     if (thetaMethod) {
       setTheta(0);
     }
@@ -106,59 +132,139 @@ public void started() {
   public void activateReaction(int mu, double tau, FireType fireType, int times) {
   }
 
+  @Override
+  public boolean needsActivateReaction() {
+    return overridesActivateReaction(IntervalObserver.class);
+  }
+
+  @Override
+  public boolean needsStep() {
+    return !thetaMethod || overridesStep(IntervalObserver.class);
+  }
+
   /**
-   * Adds the recorded data to the average data pool. Moreover a linear interpolation is done to the
+   * Adds the recorded data to the statistics. Moreover a linear interpolation is done to the
    * recorded values in order to guarantee that the time axis matches exactly the intervals. If the
    * theta method has been used no interpolation is performed.
    */
   @Override
   public void finished() {
     step();
-    if (log.size() == 0) {
+    if (logSize == 0) {
       return;
     }
 
-    double[][] actLog = getAsArray(log);
-
-    if (!thetaMethod) {
-      for (int i = actLog.length - 1; i >= 0; i--) {
-        actLog[i] = NumberTools.interpolateLinear(interval, actLog[0], actLog[i]);
+    if (thetaMethod) {
+      int n = duration < 0 ? logSize : Math.min(logSize, duration + 1);
+      ensureCapacity(n);
+      for (int j = 0; j < n; j++) {
+        add(j, log[j]);
       }
+      return;
+    }
 
-      // workaround: correct last timeindex
-      if (actLog[0].length > 1) {
-        actLog[0][actLog[0].length - 1] = actLog[0][actLog[0].length - 2] + interval;
+    double[][] actLog = getAsArray();
+    for (int i = actLog.length - 1; i >= 0; i--) {
+      actLog[i] = NumberTools.interpolateLinear(interval, actLog[0], actLog[i]);
+    }
+
+    // workaround: correct last timeindex
+    if (actLog[0].length > 1) {
+      actLog[0][actLog[0].length - 1] = actLog[0][actLog[0].length - 2] + interval;
+    }
+
+    int n = duration < 0 ? actLog[0].length : Math.min(actLog[0].length, duration + 1);
+    ensureCapacity(n);
+    double[] record = new double[actLog.length];
+    for (int j = 0; j < n; j++) {
+      for (int i = 0; i < record.length; i++) {
+        record[i] = actLog[i][j];
       }
+      add(j, record);
     }
+  }
 
-    double[][] newAvgLog = new double[entityName.length + 1][Math
-                                                             .max(avgLog[0].length, actLog[0].length)];
-    for (int i = 0; i < newAvgLog.length; i++) {
-      for (int j = 0; j < newAvgLog[i].length; j++) {
-        if ((j < actLog[i].length) && (j < avgLog[i].length)) {
-          newAvgLog[i][j] =
-              (actLog[i][j] + (avgLog[i][j] * getNumSimulations())) / (getNumSimulations() + 1);
-        } else if (j < actLog[i].length) {
-          newAvgLog[i][j] = actLog[i][j];
-        } else {
-          newAvgLog[i][j] = avgLog[i][j];
-          if ((i == 0) && (j >= 1)) {
-            newAvgLog[i][j] = newAvgLog[i][j - 1] + 1;
-          }
+  /**
+   * Adds the record of one interval of a run to the statistics by Welford's algorithm.
+   *
+   * @param j      index of the interval
+   * @param record time and entity values
+   */
+  private void add(int j, double[] record) {
+    int n = ++quality[j];
+    for (int i = 0; i < record.length; i++) {
+      double delta = record[i] - mean[i][j];
+      mean[i][j] += delta / n;
+      m2[i][j] += delta * (record[i] - mean[i][j]);
+    }
+    if (quantiles) {
+      for (int i = 0; i < entityName.length; i++) {
+        if (sketches[i][j] == null) {
+          sketches[i][j] = new QuantileSketch(SKETCH_SIZE);
         }
+        sketches[i][j].add(record[i + 1]);
       }
     }
-    int[] newQuality = new int[Math.max(avgLog[0].length, actLog[0].length)];
-    System.arraycopy(quality, 0, newQuality, 0, Math.min(newQuality.length, quality.length));
-    for (int i = 0; i < actLog[0].length; i++) {
-      newQuality[i]++;
-    }
+  }
 
-    quality = newQuality;
-    for (int i = 0; i < avgLog.length; i++) {
-      System.arraycopy(newAvgLog[i], 0, avgLog[i], 0, avgLog[0].length);
+  /**
+   * Makes room for the statistics of at least the given number of intervals.
+   *
+   * @param n number of intervals
+   */
+  private void ensureCapacity(int n) {
+    if (n > quality.length) {
+      int capacity = Math.max(n, 2 * quality.length);
+      quality = Arrays.copyOf(quality, capacity);
+      for (int i = 0; i < mean.length; i++) {
+        mean[i] = Arrays.copyOf(mean[i], capacity);
+        m2[i] = Arrays.copyOf(m2[i], capacity);
+      }
+      for (int i = 0; i < sketches.length; i++) {
+        sketches[i] = Arrays.copyOf(sketches[i], capacity);
+      }
     }
+    numIntervals = Math.max(numIntervals, n);
+  }
 
+  /**
+   * Merges the statistics of another interval observer of the same entities. The moments of each
+   * interval are combined by the formula of Chan et al., the quantile sketches by {@link
+   * QuantileSketch#merge(QuantileSketch)}.
+   *
+   * @param other observer of other repeats
+   */
+  @Override
+  public void merge(Observer other) {
+    if (!(other instanceof IntervalObserver)
+        || ((IntervalObserver) other).entityName.length != entityName.length) {
+      throw new IllegalArgumentException("Only observers of the same entities can be merged!");
+    }
+    IntervalObserver o = (IntervalObserver) other;
+    ensureCapacity(o.numIntervals);
+    for (int j = 0; j < o.numIntervals; j++) {
+      int q = quality[j];
+      int qo = o.quality[j];
+      if (qo == 0) {
+        continue;
+      }
+      for (int i = 0; i < mean.length; i++) {
+        double delta = o.mean[i][j] - mean[i][j];
+        mean[i][j] += delta * qo / (q + qo);
+        m2[i][j] += o.m2[i][j] + delta * delta * q / (q + qo) * qo;
+      }
+      for (int i = 0; i < sketches.length; i++) {
+        if (o.sketches[i][j] == null) {
+          continue;
+        }
+        if (sketches[i][j] == null) {
+          sketches[i][j] = new QuantileSketch(SKETCH_SIZE);
+        }
+        sketches[i][j].merge(o.sketches[i][j]);
+      }
+      quality[j] = q + qo;
+    }
+    addNumSimulations(o.getNumSimulations());
   }
 
   /**
@@ -168,12 +274,7 @@ public void finished() {
   public void step() {
     if (!thetaMethod && ((int) (getSimulator().getTime() / interval) > (int) (recentStep
         / interval))) {
-      double[] l = new double[entityName.length + 1];
-      l[0] = getSimulator().getTime();
-      for (int i = 0; i < entityName.length; i++) {
-        l[i + 1] = getEntityValue(i);
-      }
-      log.add(l);
+      record(getSimulator().getTime());
     }
     recentStep = getSimulator().getTime();
   }
@@ -184,16 +285,30 @@ public void step() {
   @Override
   public void theta(double theta) {
     if (thetaMethod) {
-      double[] l = new double[entityName.length + 1];
-      l[0] = theta;
-      for (int i = 0; i < entityName.length; i++) {
-        l[i + 1] = getEntityValue(i);
-      }
-      log.add(l);
+      record(theta);
       setTheta(theta + interval);
     }
   }
 
+  /**
+   * Records the values of the entities into the next row of the log.
+   *
+   * @param time time of the record
+   */
+  private void record(double time) {
+    if (logSize == log.length) {
+      log = Arrays.copyOf(log, Math.max(4, 2 * log.length));
+    }
+    if (log[logSize] == null) {
+      log[logSize] = new double[entityName.length + 1];
+    }
+    double[] l = log[logSize++];
+    l[0] = time;
+    for (int i = 0; i < entityName.length; i++) {
+      l[i + 1] = getEntityValue(i);
+    }
+  }
+
 
   /**
    * Using theta method means that the time intervals are registered at the simulator and the
@@ -224,10 +339,10 @@ public GnuPlot toGnuplot() throws IOException {
 
   @Override
   public GnuPlot toGnuplot(GnuPlot gnuplot) throws IOException {
-    GnuPlot gp = toGnuplot(gnuplot, avgLog);
+    GnuPlot gp = toGnuplot(gnuplot, getAvgLog());
     if (plotQuality) {
       gp.getAxes().get(gp.getAxes().size() - 1).addAxes(new TransposedArrayMatrixAxes(
-        new int[][]{quality},
+        new int[][]{Arrays.copyOf(quality, numIntervals)},
         new String[]{"quality"},
         null
           ));
@@ -241,10 +356,9 @@ public GnuPlot toGnuplot(GnuPlot gnuplot) throws IOException {
    * @return data as double array [step][entity index]
    */
   public double[][] getRecentData() {
-    double[][] re = new double[log.size()][];
-    int index = 0;
-    for (double[] rec : log) {
-      re[index++] = rec;
+    double[][] re = new double[logSize][];
+    for (int i = 0; i < logSize; i++) {
+      re[i] = log[i].clone();
     }
     return re;
   }
@@ -269,7 +383,7 @@ public GnuPlot toGnuplotRecent() throws IOException {
    * @throws IOException if gnuplot could not be accessed
    */
   public GnuPlot toGnuplotRecent(GnuPlot gnuplot) throws IOException {
-    return toGnuplot(gnuplot, new LinkedList<>(log));
+    return toGnuplot(gnuplot, Arrays.asList(getRecentData()));
   }
 
   /**
@@ -301,7 +415,7 @@ public boolean isPlotQuality() {
    * @return last recorded value
    */
   public double getFinalValue(int entityIndex) {
-    return avgLog[entityIndex + 1][avgLog[entityIndex + 1].length - 1];
+    return mean[entityIndex + 1][numIntervals - 1];
   }
 
   @Override
@@ -335,19 +449,98 @@ private GnuPlot toGnuplot(GnuPlot gnuplot, Collection<double[]> values) throws I
   }
 
 
-  private double[][] getAsArray(List<double[]> l) {
-    double[][] re = new double[l.get(0).length][l.size()];
-    int i = 0;
-    for (double[] t : l) {
-      for (int j = 0; j < t.length; j++) {
-        re[j][i] = t[j];
+  private double[][] getAsArray() {
+    double[][] re = new double[entityName.length + 1][logSize];
+    for (int i = 0; i < logSize; i++) {
+      for (int j = 0; j < re.length; j++) {
+        re[j][i] = log[i][j];
       }
-      i++;
     }
     return re;
   }
 
+  /**
+   * Gets the mean time and the mean values of the entities at each interval.
+   *
+   * @return data as double array [time, entities][interval]
+   */
   public double[][] getAvgLog() {
-    return avgLog;
+    double[][] re = new double[mean.length][];
+    for (int i = 0; i < re.length; i++) {
+      re[i] = Arrays.copyOf(mean[i], numIntervals);
+    }
+    return re;
+  }
+
+  /**
+   * Gets the mean time and the sample variances of the entities at each interval. The variance is
+   * NaN for intervals reached by less than two runs.
+   *
+   * @return data as double array [time, entities][interval]
+   */
+  public double[][] getVarianceLog() {
+    double[][] re = new double[mean.length][numIntervals];
+    re[0] = Arrays.copyOf(mean[0], numIntervals);
+    for (int i = 1; i < re.length; i++) {
+      for (int j = 0; j < numIntervals; j++) {
+        re[i][j] = quality[j] < 2 ? Double.NaN : m2[i][j] / (quality[j] - 1);
+      }
+    }
+    return re;
+  }
+
+  /**
+   * Gets the mean time and the half widths of the confidence intervals of the means of the entities
+   * at each interval, based on the normal approximation of the distribution of the mean.
+   *
+   * @param confidence confidence level, e.g. 0.95
+   * @return data as double array [time, entities][interval]
+   */
+  public double[][] getConfidenceIntervalLog(double confidence) {
+    double z = Probability.normalInverse(0.5 + confidence / 2);
+    double[][] re = getVarianceLog();
+    for (int i = 1; i < re.length; i++) {
+      for (int j = 0; j < numIntervals; j++) {
+        re[i][j] = z * Math.sqrt(re[i][j] / quality[j]);
+      }
+    }
+    return re;
+  }
+
+  /**
+   * Gets the mean time and the approximate quantiles of the entities at each interval. The
+   * quantiles are NaN if they are not recorded, see {@link #setQuantiles(boolean)}.
+   *
+   * @param q probability between 0 and 1, e.g. 0.5 for the median
+   * @return data as double array [time, entities][interval]
+   */
+  public double[][] getQuantileLog(double q) {
+    double[][] re = new double[mean.length][numIntervals];
+    re[0] = Arrays.copyOf(mean[0], numIntervals);
+    for (int i = 1; i < re.length; i++) {
+      for (int j = 0; j < numIntervals; j++) {
+        re[i][j] = sketches[i - 1][j] == null ? Double.NaN : sketches[i - 1][j].getQuantile(q);
+      }
+    }
+    return re;
+  }
+
+  /**
+   * Gets whether the distributions of the entities are recorded by quantile sketches.
+   *
+   * @return whether quantiles are recorded
+   */
+  public boolean isQuantiles() {
+    return quantiles;
+  }
+
+  /**
+   * Sets whether the distributions of the entities are recorded by quantile sketches, which needs
+   * memory for a few hundred values per entity and interval.
+   *
+   * @param quantiles whether quantiles are recorded
+   */
+  public void setQuantiles(boolean quantiles) {
+    this.quantiles = quantiles;
   }
 }
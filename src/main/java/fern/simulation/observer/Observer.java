@@ -40,6 +40,13 @@ public abstract class Observer {
    */
   private double theta = Double.POSITIVE_INFINITY;
 
+  /**
+   * Whether the class of this observer overrides the empty <code>step</code> or
+   * <code>activateReaction</code> of one of its superclasses, or <code>null</code> until checked.
+   */
+  private Boolean stepOverridden = null;
+  private Boolean activateReactionOverridden = null;
+
   /**
    * Creates an observer dedicated to one simulator. The observer is NOT registered at the
    * simulator, you have to call {@link Simulator#addObserver(Observer)} in order to do this.
@@ -86,6 +93,77 @@ public Observer(Simulator sim) {
    */
   public abstract void activateReaction(int mu, double tau, FireType fireType, int times);
 
+  /**
+   * Declares whether {@link #step()} has to be called. The simulator only calls the observers that
+   * need it, which is determined in {@link Simulator#preRun()}, hence the result must not change
+   * during a run. Observers with an empty <code>step</code> should override this.
+   * <p>
+   * Observers that are not declared <code>final</code> should return false only if
+   * {@link #overridesStep(Class)} does not hold, because subclasses that implement
+   * <code>step</code> would not be called otherwise. The observers of this library follow this
+   * rule, so a subclass that overrides <code>step</code> is called without overriding this method.
+   *
+   * @return if <code>step</code> has to be called, true by default
+   */
+  public boolean needsStep() {
+    return true;
+  }
+
+  /**
+   * Declares whether {@link #activateReaction(int, double, FireType, int)} has to be called. The
+   * simulator only calls the observers that need it, which is determined in {@link
+   * Simulator#preRun()}, hence the result must not change during a run. Observers with an empty
+   * <code>activateReaction</code> should override this.
+   * <p>
+   * As for {@link #needsStep()}, observers that are not declared <code>final</code> should return
+   * false only if {@link #overridesActivateReaction(Class)} does not hold.
+   *
+   * @return if <code>activateReaction</code> has to be called, true by default
+   */
+  public boolean needsActivateReaction() {
+    return true;
+  }
+
+  /**
+   * Checks whether the class of this observer overrides {@link #step()} of the given superclass.
+   * The result is determined once and then reused.
+   *
+   * @param base the superclass whose <code>step</code> is empty
+   * @return if <code>step</code> is overridden below the given class
+   */
+  protected final boolean overridesStep(Class<? extends Observer> base) {
+    if (stepOverridden == null) {
+      stepOverridden = isOverridden(base, "step");
+    }
+    return stepOverridden;
+  }
+
+  /**
+   * Checks whether the class of this observer overrides
+   * {@link #activateReaction(int, double, FireType, int)} of the given superclass. The result is
+   * determined once and then reused.
+   *
+   * @param base the superclass whose <code>activateReaction</code> is empty
+   * @return if <code>activateReaction</code> is overridden below the given class
+   */
+  protected final boolean overridesActivateReaction(Class<? extends Observer> base) {
+    if (activateReactionOverridden == null) {
+      activateReactionOverridden = isOverridden(base, "activateReaction", int.class, double.class,
+          FireType.class, int.class);
+    }
+    return activateReactionOverridden;
+  }
+
+  private boolean isOverridden(Class<? extends Observer> base, String name,
+      Class<?>... parameterTypes) {
+    try {
+      return getClass().getMethod(name, parameterTypes).getDeclaringClass() != base;
+    } catch (NoSuchMethodException e) {
+      // cannot happen for the public callbacks, keep calling them to be safe
+      return true;
+    }
+  }
+
   /**
    * Gets called after the <code>finish</code> call and prints the results of this observer if a
    * {@link PrintWriter} is registered.
@@ -239,4 +317,29 @@ public int getNumSimulations() {
     return numSimulations;
   }
 
+  /**
+   * Merges the data of another observer of the same kind, which observed other repeats of the
+   * simulation, into this observer, e.g. to combine the observers of parallel workers. Implementing
+   * classes have to merge associatively, i.e. the order in which the observers of a set of repeats
+   * are merged must not matter (up to rounding), and to call {@link #addNumSimulations(int)}.
+   * <p>
+   * Observers do not support merging by default.
+   *
+   * @param other observer of other repeats
+   * @throws UnsupportedOperationException if this observer cannot be merged
+   */
+  public void merge(Observer other) {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be merged");
+  }
+
+  /**
+   * Adds repeats that have been observed by another observer.
+   *
+   * @param numSimulations number of additional repeats
+   * @see #merge(Observer)
+   */
+  protected void addNumSimulations(int numSimulations) {
+    this.numSimulations += numSimulations;
+  }
+
 }
@@ -32,7 +32,7 @@ public class RandomNumberGeneratorCallObserver extends Observer implements GnuPl
    */
   public RandomNumberGeneratorCallObserver(Simulator sim) {
     super(sim);
-    Stochastics.getInstance().setCountGenerations(true);
+    sim.getStochastics().setCountGenerations(true);
     addedTitles = new HashSet<>();
   }
 
@@ -43,15 +43,20 @@ public RandomNumberGeneratorCallObserver(Simulator sim) {
   public void activateReaction(int mu, double tau, FireType fireType, int times) {
   }
 
+  @Override
+  public boolean needsActivateReaction() {
+    return overridesActivateReaction(RandomNumberGeneratorCallObserver.class);
+  }
+
   /**
    * Calculates the average.
    */
   @Override
   public void finished() {
     if (numCalls == null) {
-      numCalls = NumberTools.convertIntToDouble(Stochastics.getInstance().getCounts());
+      numCalls = NumberTools.convertIntToDouble(getSimulator().getStochastics().getCounts());
     } else {
-      int[] act = Stochastics.getInstance().getCounts();
+      int[] act = getSimulator().getStochastics().getCounts();
       for (int i = 0; i < numCalls.length; i++) {
         numCalls[i] =
             (numCalls[i] * (double) getNumSimulations() + act[i]) / ((double) getNumSimulations()
@@ -68,7 +73,8 @@ public void finished() {
    */
   @Override
   public void started() {
-    Stochastics.getInstance().resetCounts();
+    getSimulator().getStochastics().setCountGenerations(true);
+    getSimulator().getStochastics().resetCounts();
   }
 
   /**
@@ -78,6 +84,11 @@ public void started() {
   public void step() {
   }
 
+  @Override
+  public boolean needsStep() {
+    return overridesStep(RandomNumberGeneratorCallObserver.class);
+  }
+
   /**
    * Do nothing.
    */
@@ -100,7 +111,7 @@ public GnuPlot toGnuplot(GnuPlot gnuplot) {
       return null;
     }
     if (!addedTitles.contains(gnuplot)) {
-      gnuplot.addCommand(getTitlesCommand(Stochastics.getInstance().getNames()));
+      gnuplot.addCommand(getTitlesCommand(getSimulator().getStochastics().getNames()));
       addedTitles.add(gnuplot);
     }
 
@@ -112,7 +123,7 @@ public GnuPlot toGnuplot(GnuPlot gnuplot) {
 
   @Override
   public String toString() {
-    String[] rnds = Stochastics.getInstance().getNames();
+    String[] rnds = getSimulator().getStochastics().getNames();
     StringBuilder sb = new StringBuilder();
     sb.append("Random Number Generations - ");
     sb.append(getSimulator().getName() + ":\n");
@@ -58,6 +58,11 @@ public void activateReaction(int mu, double t, FireType fireType, int times) {
     }
   }
 
+  @Override
+  public boolean needsActivateReaction() {
+    return true;
+  }
+
   @Override
   public void started() {
     super.started();
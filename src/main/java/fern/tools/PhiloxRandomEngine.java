@@ -0,0 +1,157 @@
+package fern.tools;
+
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * Counter-based random number generator Philox4x32-10 of Salmon et al. Each block of four random
+ * numbers is a bijective function of a 128 bit counter and a 64 bit key, hence there is no state
+ * besides the counter and any position of any stream can be reached in constant time.
+ * <p>
+ * The key is the seed; the upper half of the counter is the number of the stream and the lower half
+ * the number of the block within the stream. Therefore, the random numbers of stream <code>k</code>
+ * only depend on the seed and <code>k</code> and streams of different numbers never overlap.
+ * <p>
+ * For reference see John K. Salmon, Mark A. Moraes, Ron O. Dror and David E. Shaw, Parallel random
+ * numbers: as easy as 1, 2, 3, Proceedings of the International Conference for High Performance
+ * Computing, Networking, Storage and Analysis (2011)
+ *
+ * @author agent
+ * @see Stochastics
+ */
+public class PhiloxRandomEngine extends RandomEngine {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final long M0 = 0xD2511F53L;
+  private static final long M1 = 0xCD9E8D57L;
+  private static final int W0 = 0x9E3779B9;
+  private static final int W1 = 0xBB67AE85;
+
+  private final long seed;
+  private final long stream;
+  private long block = 0;
+  private final int[] output = new int[4];
+  private int index = output.length;
+
+  /**
+   * Creates the engine for stream <code>0</code> of the given seed.
+   *
+   * @param seed the seed
+   */
+  public PhiloxRandomEngine(long seed) {
+    this(seed, 0);
+  }
+
+  /**
+   * Creates the engine for the given stream of the given seed.
+   *
+   * @param seed   the seed
+   * @param stream the number of the stream
+   */
+  public PhiloxRandomEngine(long seed, long stream) {
+    this.seed = seed;
+    this.stream = stream;
+  }
+
+  /**
+   * Creates an engine for another stream of the same seed, which starts at its beginning.
+   *
+   * @param stream the number of the stream
+   * @return the new engine
+   */
+  public PhiloxRandomEngine split(long stream) {
+    return new PhiloxRandomEngine(seed, stream);
+  }
+
+  /**
+   * Skips the given number of random numbers in constant time.
+   *
+   * @param n number of 32 bit random numbers to skip
+   */
+  public void skip(long n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("Cannot skip a negative number of random numbers");
+    }
+    // the buffered block is block - 1 unless index == 4
+    long position = (block - 1) * output.length + index + n;
+    block = position / output.length;
+    index = (int) (position % output.length);
+    if (index == 0) {
+      index = output.length;
+    } else {
+      generate(block++);
+    }
+  }
+
+  /**
+   * Sets the position to the beginning of the given block of four random numbers. The number of
+   * the block is treated as unsigned.
+   *
+   * @param block number of the block
+   */
+  public void setBlock(long block) {
+    this.block = block;
+    index = output.length;
+  }
+
+  /**
+   * Gets the seed, i.e. the key of the generator.
+   *
+   * @return seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Gets the number of the stream.
+   *
+   * @return stream
+   */
+  public long getStream() {
+    return stream;
+  }
+
+  /* (non-Javadoc)
+   * @see cern.jet.random.engine.RandomEngine#nextInt()
+   */
+  @Override
+  public int nextInt() {
+    if (index == output.length) {
+      generate(block++);
+      index = 0;
+    }
+    return output[index++];
+  }
+
+  /**
+   * Computes the four random numbers of a block of this stream.
+   *
+   * @param block number of the block
+   */
+  private void generate(long block) {
+    int c0 = (int) block;
+    int c1 = (int) (block >>> 32);
+    int c2 = (int) stream;
+    int c3 = (int) (stream >>> 32);
+    int k0 = (int) seed;
+    int k1 = (int) (seed >>> 32);
+    for (int round = 0; round < 10; round++) {
+      long p0 = M0 * (c0 & 0xFFFFFFFFL);
+      long p1 = M1 * (c2 & 0xFFFFFFFFL);
+      int n0 = (int) (p1 >>> 32) ^ c1 ^ k0;
+      int n2 = (int) (p0 >>> 32) ^ c3 ^ k1;
+      c1 = (int) p1;
+      c3 = (int) p0;
+      c0 = n0;
+      c2 = n2;
+      k0 += W0;
+      k1 += W1;
+    }
+    output[0] = c0;
+    output[1] = c1;
+    output[2] = c2;
+    output[3] = c3;
+  }
+
+}
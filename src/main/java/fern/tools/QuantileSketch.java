@@ -0,0 +1,189 @@
+package fern.tools;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile sketch of Karnin, Lang and Liberty (KLL). The values are kept in a hierarchy of
+ * compactors, where a value of level h represents 2^h values of the stream. If the compactors
+ * exceed their capacity, the values of a level are sorted and every other of them is promoted to
+ * the next level. The capacities decrease geometrically from the highest level, so the memory is
+ * bounded by about 3k values while the rank error is about 1.7/k.
+ * <p>
+ * Two sketches can be merged into one that summarizes both streams, so sketches of parallel
+ * workers can be combined. The choice of the promoted half is driven by a generator of fixed seed
+ * to make sketches reproducible.
+ * <p>
+ * For reference see Zohar Karnin, Kevin Lang and Edo Liberty, Optimal Quantile Approximation in
+ * Streams, IEEE 57th Annual Symposium on Foundations of Computer Science (2016)
+ *
+ * @author agent
+ */
+public class QuantileSketch {
+
+  private static final double C = 2.0 / 3.0;
+
+  private int k;
+  private double[][] levels = new double[0][];
+  private int[] sizes = new int[0];
+  private int size = 0;
+  private int maxSize = 0;
+  private long count = 0;
+  private long random = 0x9E3779B97F4A7C15L;
+
+  /**
+   * Creates a sketch with the given accuracy parameter.
+   *
+   * @param k accuracy parameter, the rank error is about 1.7/k
+   */
+  public QuantileSketch(int k) {
+    if (k < 2) {
+      throw new IllegalArgumentException("The accuracy parameter must be at least 2");
+    }
+    this.k = k;
+    grow();
+  }
+
+  /**
+   * Adds a value.
+   *
+   * @param x the value
+   */
+  public void add(double x) {
+    append(0, x);
+    count++;
+    size++;
+    if (size >= maxSize) {
+      compress();
+    }
+  }
+
+  /**
+   * Adds the values summarized by another sketch.
+   *
+   * @param other the other sketch
+   */
+  public void merge(QuantileSketch other) {
+    while (levels.length < other.levels.length) {
+      grow();
+    }
+    for (int h = 0; h < other.levels.length; h++) {
+      for (int i = 0; i < other.sizes[h]; i++) {
+        append(h, other.levels[h][i]);
+      }
+    }
+    count += other.count;
+    size += other.size;
+    while (size >= maxSize) {
+      compress();
+    }
+  }
+
+  /**
+   * Gets the approximate quantile.
+   *
+   * @param q the probability between 0 and 1
+   * @return the value of approximate rank <code>q</code>, or NaN if no value has been added
+   */
+  public double getQuantile(double q) {
+    if (size == 0) {
+      return Double.NaN;
+    }
+    double[] values = new double[size];
+    long[] weights = new long[size];
+    int n = 0;
+    long total = 0;
+    for (int h = 0; h < levels.length; h++) {
+      for (int i = 0; i < sizes[h]; i++) {
+        values[n] = levels[h][i];
+        weights[n++] = 1L << h;
+      }
+      total += (long) sizes[h] << h;
+    }
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+    double rank = q * total;
+    long cumulative = 0;
+    for (int i = 0; i < n; i++) {
+      cumulative += weights[order[i]];
+      if (cumulative >= rank) {
+        return values[order[i]];
+      }
+    }
+    return values[order[n - 1]];
+  }
+
+  /**
+   * Gets the number of values added to this sketch or the merged ones.
+   *
+   * @return number of values
+   */
+  public long getCount() {
+    return count;
+  }
+
+  private int capacity(int h) {
+    return (int) Math.ceil(Math.pow(C, levels.length - h - 1) * k) + 1;
+  }
+
+  private void grow() {
+    levels = Arrays.copyOf(levels, levels.length + 1);
+    sizes = Arrays.copyOf(sizes, sizes.length + 1);
+    levels[levels.length - 1] = new double[4];
+    maxSize = 0;
+    for (int h = 0; h < levels.length; h++) {
+      maxSize += capacity(h);
+    }
+  }
+
+  private void append(int h, double x) {
+    if (sizes[h] == levels[h].length) {
+      levels[h] = Arrays.copyOf(levels[h], 2 * levels[h].length);
+    }
+    levels[h][sizes[h]++] = x;
+  }
+
+  /**
+   * Compacts the lowest levels that exceed their capacity until the sketch fits.
+   */
+  private void compress() {
+    for (int h = 0; h < levels.length; h++) {
+      if (sizes[h] >= capacity(h)) {
+        if (h + 1 >= levels.length) {
+          grow();
+        }
+        compact(h);
+        if (size < maxSize) {
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Promotes every other value of an even number of sorted values of level h to level h+1.
+   */
+  private void compact(int h) {
+    double[] level = levels[h];
+    // an odd value remains at this level
+    int n = sizes[h] & ~1;
+    Arrays.sort(level, 0, sizes[h]);
+    double odd = level[sizes[h] - 1];
+    boolean hasOdd = n < sizes[h];
+    random ^= random << 13;
+    random ^= random >>> 7;
+    random ^= random << 17;
+    int offset = (int) (random & 1);
+    for (int i = offset; i < n; i += 2) {
+      append(h + 1, level[i]);
+    }
+    sizes[h] = 0;
+    if (hasOdd) {
+      level[sizes[h]++] = odd;
+    }
+    size -= n / 2;
+  }
+
+}
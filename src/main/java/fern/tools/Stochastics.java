@@ -14,6 +14,7 @@
 import cern.jet.random.Poisson;
 import cern.jet.random.Uniform;
 import cern.jet.random.engine.MersenneTwister;
+import cern.jet.random.engine.RandomEngine;
 
 /**
  * Manages a random number generators for various distributions. By only using this class for every
@@ -21,6 +22,12 @@
  * <ul><li>it is guaranteed that the most quickest possible generator is used for each drawing</li>
  * <li>one can derandomize the algorithms by using {@link Stochastics#setSeed(Date)}</li>
  * <li>the number of random number generations can easily be counted</li></ul>
+ * <p>
+ * Besides the singleton, which is shared by all simulators by default, independent instances can
+ * be created for numbered streams of a seed by {@link #Stochastics(long, long)}. They are based on
+ * the counter-based {@link PhiloxRandomEngine}, so the random numbers of a stream only depend on
+ * the seed and the number of the stream, which makes simulations in parallel threads reproducible
+ * if each simulator gets a stream of its own. An instance must not be shared between threads.
  *
  * @author Florian Erhard
  */
@@ -30,11 +37,12 @@ public class Stochastics {
   private static Stochastics inst = null;
 
   /**
-   * Singleton pattern method.
+   * Singleton pattern method. It is synchronized because simulators running in parallel threads
+   * obtain the singleton when they are created, even if they get an instance of their own later.
    *
    * @return the singleton object
    */
-  public static Stochastics getInstance() {
+  public static synchronized Stochastics getInstance() {
     if (inst == null) {
       inst = new Stochastics();
     }
@@ -56,10 +64,48 @@ public static Stochastics getInstance() {
 
   private boolean countGenerations = false;
 
+  /**
+   * The number of the stream of a {@link PhiloxRandomEngine}, or -1 for the singleton.
+   */
+  private long stream = -1;
+
   private Stochastics() {
     resetSeed();
   }
 
+  /**
+   * Creates an independent instance drawing from the given stream of the given seed.
+   *
+   * @param seed   the seed
+   * @param stream the nonnegative number of the stream
+   */
+  public Stochastics(long seed, long stream) {
+    if (stream < 0) {
+      throw new IllegalArgumentException("The number of the stream must not be negative");
+    }
+    this.stream = stream;
+    setSeed(seed);
+  }
+
+  /**
+   * Creates an independent instance for another stream of the same seed.
+   *
+   * @param stream the nonnegative number of the stream
+   * @return the new instance
+   */
+  public Stochastics split(long stream) {
+    return new Stochastics(getSeed(), stream);
+  }
+
+  /**
+   * Gets the number of the stream of this instance, which is -1 for the singleton.
+   *
+   * @return number of the stream
+   */
+  public long getStream() {
+    return stream;
+  }
+
   /**
    * Sets the seed to the current date
    */
@@ -91,11 +137,21 @@ public void setSeed(long seed) {
    * @param seed the seed
    */
   public void setSeed(Date seed) {
-    unif = new Uniform(new MersenneTwister(seed));
-    exponential = new Exponential(0, new MersenneTwister(seed));
-    binom = new Binomial(10, 0.5, new MersenneTwister(seed));
-    poisson = new Poisson(1, new MersenneTwister(seed));
-    normal = new Normal(0, 1, new MersenneTwister(seed));
+    if (stream < 0) {
+      unif = new Uniform(new MersenneTwister(seed));
+      exponential = new Exponential(0, new MersenneTwister(seed));
+      binom = new Binomial(10, 0.5, new MersenneTwister(seed));
+      poisson = new Poisson(1, new MersenneTwister(seed));
+      normal = new Normal(0, 1, new MersenneTwister(seed));
+    } else {
+      // all distributions draw from the one stream
+      RandomEngine engine = new PhiloxRandomEngine(seed.getTime(), stream);
+      unif = new Uniform(engine);
+      exponential = new Exponential(0, engine);
+      binom = new Binomial(10, 0.5, engine);
+      poisson = new Poisson(1, engine);
+      normal = new Normal(0, 1, engine);
+    }
     this.seed = seed;
   }
 
@@ -0,0 +1,378 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.MultiTable.Block;
+
+/**
+ * This class writes and reads {@link MultiTable}s in a compact binary format.
+ * A file starts with a header containing the name of the table, the name of
+ * the time column, the time points and, for each {@link Block}, its name,
+ * column identifiers and column names. The header is followed by the values of
+ * all blocks as little-endian doubles in column-major order.
+ * <p>
+ * Files are written through a {@link FileChannel}. When reading, the values
+ * are not loaded into memory: each {@link Block.Column} of the returned
+ * {@link MultiTable} is a read-only view of its own memory-mapped region of the
+ * file. A table can therefore be opened over a file that does not fit into
+ * memory and blocks may have any size. A single column may not exceed
+ * {@link Integer#MAX_VALUE} bytes, because this is the limit of a
+ * {@link java.nio.MappedByteBuffer}.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class BinaryTrajectoryFormat {
+
+  /**
+   * Identifies files in this format ("SBTR").
+   */
+  private static final int MAGIC = 0x53425452;
+
+  /**
+   * The version of the format.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The byte order of all values in the file.
+   */
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /**
+   * The size of the buffer that is used for writing values.
+   */
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  /**
+   * Writes the given table to the file with the given path. An existing file
+   * will be overwritten.
+   *
+   * @param table    the table to be written, all its blocks must contain data.
+   * @param pathname the path of the file to be written.
+   * @throws IOException
+   */
+  public void write(MultiTable table, String pathname) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.CREATE,
+      StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = createHeader(table);
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ORDER);
+      for (int b = 0; b < table.getBlockCount(); b++) {
+        Block block = table.getBlock(b);
+        for (int j = 0; j < block.getColumnCount(); j++) {
+          write(channel, chunk, block.getColumnBuffer(j));
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the given values through the given chunk to the channel.
+   *
+   * @param channel
+   * @param chunk
+   * @param values
+   * @throws IOException
+   */
+  private void write(FileChannel channel, ByteBuffer chunk, DoubleBuffer values)
+      throws IOException {
+    while (values.hasRemaining()) {
+      DoubleBuffer target = chunk.asDoubleBuffer();
+      int count = Math.min(target.remaining(), values.remaining());
+      DoubleBuffer part = values.slice();
+      ((Buffer) part).limit(count);
+      target.put(part);
+      ((Buffer) values).position(values.position() + count);
+      ((Buffer) chunk).limit(count * Double.BYTES);
+      ((Buffer) chunk).position(0);
+      while (chunk.hasRemaining()) {
+        channel.write(chunk);
+      }
+      ((Buffer) chunk).clear();
+    }
+  }
+
+  /**
+   * Opens the file with the given path and creates a {@link MultiTable} view
+   * of its content. Only the header and the time points are read into memory;
+   * all values are mapped from the file and cannot be changed.
+   *
+   * @param pathname the path of a file in this format.
+   * @return a read-only table.
+   * @throws IOException if the file cannot be read or is not in this format.
+   */
+  public MultiTable read(String pathname) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ)) {
+      ByteBuffer prefix = ByteBuffer.allocate(3 * Integer.BYTES).order(ORDER);
+      readFully(channel, prefix, 0);
+      if ((prefix.getInt(0) != MAGIC) || (prefix.getInt(Integer.BYTES) != VERSION)) {
+        throw new IOException("Unsupported file format: " + pathname);
+      }
+      int headerLength = prefix.getInt(2 * Integer.BYTES);
+      if ((headerLength < 0) || (prefix.capacity() + (long) headerLength > channel.size())) {
+        throw new IOException("Invalid header length " + headerLength + ": " + pathname);
+      }
+      ByteBuffer header = ByteBuffer.allocate(headerLength).order(ORDER);
+      readFully(channel, header, prefix.capacity());
+      ((Buffer) header).flip();
+      try {
+        return read(channel, header, prefix.capacity() + headerLength);
+      } catch (BufferUnderflowException exc) {
+        throw new IOException("Truncated header: " + pathname, exc);
+      } catch (IOException exc) {
+        throw new IOException(exc.getMessage() + ": " + pathname, exc);
+      }
+    }
+  }
+
+  /**
+   * Creates the table that is described by the given header.
+   *
+   * @param channel
+   * @param header
+   * @param offset  the position of the first value in the file.
+   * @return a read-only table.
+   * @throws IOException if the header is invalid or does not match the size of the file.
+   */
+  private MultiTable read(FileChannel channel, ByteBuffer header, long offset)
+      throws IOException {
+    MultiTable table = new MultiTable();
+    String name = readString(header);
+    if (name != null) {
+      table.setName(name);
+    }
+    table.setTimeName(readString(header));
+    int rowCount = header.getInt();
+    if ((rowCount < 0) || (rowCount > header.remaining() / Double.BYTES)) {
+      throw new IOException("Invalid number of time points " + rowCount);
+    }
+    if ((long) rowCount * Double.BYTES > Integer.MAX_VALUE) {
+      throw new IOException("The columns exceed the maximal size of a mapped region");
+    }
+    double[] timePoints = new double[rowCount];
+    header.asDoubleBuffer().get(timePoints);
+    ((Buffer) header).position(header.position() + rowCount * Double.BYTES);
+    table.setTimePoints(timePoints);
+
+    long columnSize = (long) rowCount * Double.BYTES;
+    int blockCount = header.getInt();
+    if (blockCount < 0) {
+      throw new IOException("Invalid number of blocks " + blockCount);
+    }
+    for (int b = 0; b < blockCount; b++) {
+      String blockName = readString(header);
+      String[] identifiers = readStrings(header);
+      String[] columnNames = readStrings(header);
+      if (identifiers == null) {
+        throw new IOException("Missing column identifiers of block " + b);
+      }
+      if ((columnNames != null) && (columnNames.length != identifiers.length)) {
+        throw new IOException("Invalid number of column names of block " + b);
+      }
+      DoubleBuffer[] columns = new DoubleBuffer[identifiers.length];
+      for (int j = 0; j < columns.length; j++) {
+        if (offset + columnSize > channel.size()) {
+          throw new IOException("Unexpected end of file");
+        }
+        columns[j] = channel.map(MapMode.READ_ONLY, offset, columnSize).order(ORDER)
+            .asDoubleBuffer();
+        offset += columnSize;
+      }
+      table.addBlock(identifiers, columns);
+      Block block = table.getBlock(b);
+      block.setName(blockName);
+      block.setColumnNames(columnNames);
+    }
+    return table;
+  }
+
+  /**
+   * @param table
+   * @return the header of the given table including the magic number, the
+   * version and the length of the header.
+   */
+  private ByteBuffer createHeader(MultiTable table) {
+    int rowCount = table.getRowCount();
+    int length = sizeOf(table.getName()) + sizeOf(table.getTimeName()) + Integer.BYTES
+        + rowCount * Double.BYTES + Integer.BYTES;
+    for (int b = 0; b < table.getBlockCount(); b++) {
+      Block block = table.getBlock(b);
+      length += sizeOf(block.getName()) + sizeOf(block.getIdentifiers())
+          + sizeOf(block.getColumnNames());
+    }
+    // let the values start at a multiple of eight bytes
+    int padding = (Double.BYTES - ((length + 3 * Integer.BYTES) % Double.BYTES)) % Double.BYTES;
+    length += padding;
+
+    ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES + length).order(ORDER);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(length);
+    writeString(header, table.getName());
+    writeString(header, table.getTimeName());
+    header.putInt(rowCount);
+    for (int i = 0; i < rowCount; i++) {
+      header.putDouble(table.getTimePoint(i));
+    }
+    header.putInt(table.getBlockCount());
+    for (int b = 0; b < table.getBlockCount(); b++) {
+      Block block = table.getBlock(b);
+      writeString(header, block.getName());
+      writeStrings(header, block.getIdentifiers());
+      writeStrings(header, block.getColumnNames());
+    }
+    // the remaining bytes are padding
+    ((Buffer) header).position(header.capacity());
+    ((Buffer) header).flip();
+    return header;
+  }
+
+  /**
+   * @param channel
+   * @param buffer
+   * @param position
+   * @throws IOException
+   */
+  private void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int count = channel.read(buffer, position);
+      if (count < 0) {
+        throw new IOException("Unexpected end of file.");
+      }
+      position += count;
+    }
+  }
+
+  /**
+   * @param s
+   * @return the number of bytes required for the given {@link String}.
+   */
+  private int sizeOf(String s) {
+    return Integer.BYTES + ((s != null) ? s.getBytes(StandardCharsets.UTF_8).length : 0);
+  }
+
+  /**
+   * @param strings
+   * @return the number of bytes required for the given array.
+   */
+  private int sizeOf(String[] strings) {
+    int size = Integer.BYTES;
+    if (strings != null) {
+      for (String s : strings) {
+        size += sizeOf(s);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Writes the length of the given {@link String} (-1 for {@code null})
+   * followed by its UTF-8 encoding.
+   *
+   * @param buffer
+   * @param s
+   */
+  private void writeString(ByteBuffer buffer, String s) {
+    if (s == null) {
+      buffer.putInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    }
+  }
+
+  /**
+   * @param buffer
+   * @param strings
+   */
+  private void writeStrings(ByteBuffer buffer, String[] strings) {
+    if (strings == null) {
+      buffer.putInt(-1);
+    } else {
+      buffer.putInt(strings.length);
+      for (String s : strings) {
+        writeString(buffer, s);
+      }
+    }
+  }
+
+  /**
+   * @param buffer
+   * @return the next {@link String} in the given buffer.
+   * @throws IOException if the length of the {@link String} is invalid.
+   */
+  private String readString(ByteBuffer buffer) throws IOException {
+    int length = buffer.getInt();
+    if (length == -1) {
+      return null;
+    }
+    if ((length < 0) || (length > buffer.remaining())) {
+      throw new IOException("Invalid length of a string " + length);
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param buffer
+   * @return the next array of {@link String}s in the given buffer.
+   * @throws IOException if the length of the array is invalid.
+   */
+  private String[] readStrings(ByteBuffer buffer) throws IOException {
+    int length = buffer.getInt();
+    if (length == -1) {
+      return null;
+    }
+    // each string requires at least the bytes of its length
+    if ((length < 0) || (length > buffer.remaining() / Integer.BYTES)) {
+      throw new IOException("Invalid number of strings " + length);
+    }
+    String[] strings = new String[length];
+    for (int i = 0; i < length; i++) {
+      strings[i] = readString(buffer);
+    }
+    return strings;
+  }
+
+}
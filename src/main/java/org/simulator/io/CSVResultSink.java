@@ -0,0 +1,129 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.io;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.simulator.math.odes.ResultSink;
+
+/**
+ * A {@link ResultSink} that writes each row of a simulation directly to a
+ * character stream in comma-separated format, without keeping any values in
+ * memory. The first line contains the column identifiers, starting with the
+ * time column, so that the file can be read again by the {@link CSVImporter}.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class CSVResultSink implements ResultSink {
+
+  private static final String TIME = "time";
+
+  /**
+   * The separator between two values.
+   */
+  private char separator;
+
+  /**
+   * The stream to write to.
+   */
+  private Writer writer;
+
+  /**
+   * @param writer    the stream to write to, will be closed together with this sink.
+   * @param separator the separator between two values.
+   */
+  public CSVResultSink(Writer writer, char separator) {
+    this.writer = writer;
+    this.separator = separator;
+  }
+
+  /**
+   * @param writer the stream to write to, will be closed together with this sink.
+   */
+  public CSVResultSink(Writer writer) {
+    this(writer, ',');
+  }
+
+  /**
+   * @param pathname The path of the CSV file to be written
+   * @throws IOException
+   */
+  public CSVResultSink(String pathname) throws IOException {
+    this(new BufferedWriter(new FileWriter(pathname)));
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#open(double[], java.lang.String[], java.lang.String[])
+   */
+  @Override
+  public void open(double[] timePoints, String[] identifiers, String[] additionalIdentifiers)
+      throws IOException {
+    writer.write(TIME);
+    for (String id : identifiers) {
+      writer.write(separator);
+      writer.write(id);
+    }
+    if (additionalIdentifiers != null) {
+      for (String id : additionalIdentifiers) {
+        writer.write(separator);
+        writer.write(id);
+      }
+    }
+    writer.write('\n');
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#write(int, double, double[], double[])
+   */
+  @Override
+  public void write(int rowIndex, double time, double[] values, double[] additionalValues)
+      throws IOException {
+    writer.write(Double.toString(time));
+    for (double value : values) {
+      writer.write(separator);
+      writer.write(Double.toString(value));
+    }
+    if (additionalValues != null) {
+      for (double value : additionalValues) {
+        writer.write(separator);
+        writer.write(Double.toString(value));
+      }
+    }
+    writer.write('\n');
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#close()
+   */
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+
+}
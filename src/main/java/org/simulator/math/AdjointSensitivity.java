@@ -0,0 +1,600 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.simulator.io.BinaryTrajectoryFormat;
+import org.simulator.math.odes.DESSolver;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.MultiTable.Block;
+import org.simulator.math.odes.MultiTable.Block.Column;
+import org.simulator.math.odes.ParameterizedDESystem;
+
+/**
+ * Computes the gradient of an objective function that compares a simulation
+ * with measured data with respect to the parameters of a
+ * {@link ParameterizedDESystem} by the adjoint method. The objective is either
+ * the sum of squared residuals or the distance given by a
+ * {@link QualityMeasure}.
+ * <ol>
+ * <li>A forward simulation stores the state at each measurement time point.
+ * These checkpoints can be spilled to disk in the
+ * {@link BinaryTrajectoryFormat}.</li>
+ * <li>Going backwards from the last to the first checkpoint, the trajectory
+ * between two checkpoints is recomputed on a fine grid, and the adjoint
+ * equation d&lambda;/d<i>t</i> = -<i>J<sub>f</sub></i><sup>T</sup> &lambda; is
+ * integrated backwards with the classical Runge-Kutta method. At every
+ * measurement, &lambda; jumps by the derivative of the objective with respect
+ * to the state.</li>
+ * </ol>
+ * The gradient with respect to an initial value is &lambda;(<i>t</i><sub>0</sub>);
+ * for parameters outside of the state vector the integral of
+ * &lambda;<sup>T</sup> &part;<i>f</i>/&part;<i>p</i> is accumulated as well.
+ * <p>
+ * Since the compiled math of a system does not provide reverse-mode
+ * derivatives, the product <i>J<sub>f</sub></i><sup>T</sup> &lambda; is formed
+ * from a sparse difference quotient of the Jacobian: its sparsity pattern is
+ * detected once per gradient at all checkpoints, and columns that do not share
+ * any row are perturbed together. Hence, each evaluation of the adjoint
+ * equation needs one evaluation of the system per group of such columns, which
+ * for reaction networks is about the largest number of state variables a
+ * single rate depends on, plus one evaluation per parameter outside of the
+ * state vector. Parameters that are part of the state vector (such as the
+ * global parameters of an SBML model) do not cause any additional costs.
+ * Dependencies that vanish at all checkpoints (e.g., behind a piecewise
+ * function) are not detected, and events are not considered.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class AdjointSensitivity {
+
+  /**
+   * The square root of the machine precision, which is the relative step width
+   * of all difference quotients.
+   */
+  private static final double SQRT_EPS = Math.sqrt(Math.ulp(1d));
+
+  /**
+   * The system whose parameters are considered.
+   */
+  private final ParameterizedDESystem system;
+
+  /**
+   * Used for the forward simulation and the recomputation between checkpoints.
+   */
+  private final DESSolver solver;
+
+  /**
+   * If not {@code null}, checkpoints are written to a temporary file in this
+   * directory and memory-mapped during the backward pass.
+   */
+  private File checkpointDirectory;
+
+  /**
+   * The value of the objective function in the most recent call of
+   * {@link #gradient(QualityMeasure, double[], MultiTable, String...)}.
+   */
+  private double objective;
+
+  /**
+   * Work arrays of the dimension of the system.
+   */
+  private final double[] f, yPerturbed, fPerturbed, delta;
+
+  /**
+   * The selected parameters of the current gradient.
+   */
+  private ParameterMapping mapping;
+
+  /**
+   * The values of all parameters of the system in the current gradient.
+   */
+  private double[] parameterValues;
+
+  /**
+   * For each column of the Jacobian the rows that may be non-zero.
+   */
+  private int[][] columnRows;
+
+  /**
+   * Groups of columns of the Jacobian without common non-zero rows.
+   */
+  private int[][] columnGroups;
+
+  /**
+   * The positions of the selected parameters outside of the state vector in
+   * the values of all parameters of the system.
+   */
+  private int[] explicitParameters;
+
+  /**
+   * For each parameter outside of the state vector the rows of the derivative
+   * with respect to it that may be non-zero.
+   */
+  private int[][] parameterRows;
+
+  /**
+   * Groups of parameters outside of the state vector without common non-zero
+   * rows, given by their position in {@link #explicitParameters}.
+   */
+  private int[][] parameterGroups;
+
+  /**
+   * Work array for the step widths of the parameters outside of the state
+   * vector.
+   */
+  private double[] parameterDelta;
+
+  /**
+   * @param system the system whose parameters are considered
+   * @param solver the solver for the forward simulation; its step size also
+   *               determines the step size of the backward integration.
+   */
+  public AdjointSensitivity(ParameterizedDESystem system, DESSolver solver) {
+    this.system = system;
+    this.solver = solver;
+    int n = system.getDimension();
+    f = new double[n];
+    yPerturbed = new double[n];
+    fPerturbed = new double[n];
+    delta = new double[n];
+  }
+
+  /**
+   * @return the directory for checkpoint files or {@code null} if checkpoints
+   * are kept in memory.
+   */
+  public File getCheckpointDirectory() {
+    return checkpointDirectory;
+  }
+
+  /**
+   * @param checkpointDirectory the directory for checkpoint files or
+   *                            {@code null} to keep checkpoints in memory.
+   */
+  public void setCheckpointDirectory(File checkpointDirectory) {
+    this.checkpointDirectory = checkpointDirectory;
+  }
+
+  /**
+   * @return the value of the objective function that has been computed by the
+   * most recent call of
+   * {@link #gradient(QualityMeasure, double[], MultiTable, String...)}.
+   */
+  public double getObjective() {
+    return objective;
+  }
+
+  /**
+   * Computes the gradient of the sum of squared residuals between simulation
+   * and data.
+   *
+   * @param initialValues the initial state of the system at time zero
+   * @param data          the measurements, whose column identifiers must be
+   *                      identifiers of the system. {@link Double#NaN} values
+   *                      are ignored.
+   * @param parameterIds  the parameters of interest
+   * @return the derivative of the objective function with respect to each of
+   * the given parameters
+   * @throws DerivativeException
+   * @see #gradient(QualityMeasure, double[], MultiTable, String...)
+   */
+  public double[] gradient(double[] initialValues, MultiTable data, String... parameterIds)
+      throws DerivativeException {
+    return gradient(null, initialValues, data, parameterIds);
+  }
+
+  /**
+   * Computes the gradient of the distance between simulation and data. The
+   * derivative of the distance with respect to the simulated values is
+   * approximated by difference quotients of the given {@link QualityMeasure},
+   * which does not require any further simulations.
+   *
+   * @param measure       the measure whose
+   *                      {@link QualityMeasure#distance(MultiTable, MultiTable)}
+   *                      is the objective function or {@code null} for the sum
+   *                      of squared residuals
+   * @param initialValues the initial state of the system at time zero
+   * @param data          the measurements, whose column identifiers must be
+   *                      identifiers of the system. {@link Double#NaN} values
+   *                      are ignored.
+   * @param parameterIds  the parameters of interest
+   * @return the derivative of the objective function with respect to each of
+   * the given parameters
+   * @throws DerivativeException
+   */
+  public double[] gradient(QualityMeasure measure, double[] initialValues, MultiTable data,
+    String... parameterIds) throws DerivativeException {
+    mapping = new ParameterMapping(system, parameterIds);
+    int n = f.length;
+    int explicitCount = 0;
+    for (int j = 0; j < mapping.size(); j++) {
+      if (mapping.getStateIndex(j) < 0) {
+        explicitCount++;
+      }
+    }
+    explicitParameters = new int[explicitCount];
+    parameterDelta = new double[explicitCount];
+    for (int j = 0, e = 0; j < mapping.size(); j++) {
+      if (mapping.getStateIndex(j) < 0) {
+        explicitParameters[e++] = mapping.getParameterIndex(j);
+      }
+    }
+
+    // forward pass
+    double[] dataTimes = data.getTimePoints();
+    int offset = (dataTimes[0] > 0d) ? 1 : 0;
+    double[] timePoints = new double[dataTimes.length + offset];
+    System.arraycopy(dataTimes, 0, timePoints, offset, dataTimes.length);
+    MultiTable forward = solver.solve(system, initialValues, timePoints);
+    Block checkpoints = forward.getBlock(0);
+    List<Integer> observed = new ArrayList<>();
+    double[][] objectiveDerivatives = objectiveDerivatives(measure, forward.filter(dataTimes),
+      data, observed);
+    File checkpointFile = null;
+    try {
+      if (checkpointDirectory != null) {
+        checkpointFile = spill(forward);
+        checkpoints = new BinaryTrajectoryFormat().read(checkpointFile.getPath()).getBlock(0);
+      }
+      forward = null;
+      parameterValues = system.getParameterValues();
+      detectSparsity(checkpoints, timePoints);
+
+      // backward pass
+      double[] z = new double[n + explicitCount];
+      double[] y = new double[n];
+      for (int k = timePoints.length - 1; k >= 0; k--) {
+        if (k >= offset) {
+          for (int o = 0; o < observed.size(); o++) {
+            z[observed.get(o)] += objectiveDerivatives[k - offset][o];
+          }
+        }
+        if (k > 0) {
+          for (int i = 0; i < n; i++) {
+            y[i] = checkpoints.getValue(k - 1, i);
+          }
+          integrateBackwards(timePoints[k - 1], timePoints[k], y, z);
+        }
+      }
+
+      double[] gradient = new double[mapping.size()];
+      for (int j = 0, e = 0; j < gradient.length; j++) {
+        int i = mapping.getStateIndex(j);
+        gradient[j] = (i >= 0) ? z[i] : z[n + e++];
+      }
+      return gradient;
+    } catch (IOException exc) {
+      throw new DerivativeException(exc);
+    } finally {
+      if ((checkpointFile != null) && !checkpointFile.delete()) {
+        checkpointFile.deleteOnExit();
+      }
+      mapping = null;
+      columnRows = columnGroups = parameterRows = parameterGroups = null;
+      explicitParameters = null;
+      parameterDelta = null;
+    }
+  }
+
+  /**
+   * Writes the states of the forward simulation to a temporary file.
+   *
+   * @param forward
+   * @return the file
+   * @throws IOException
+   */
+  private File spill(MultiTable forward) throws IOException {
+    MultiTable states = new MultiTable();
+    states.setTimePoints(forward.getTimePoints());
+    states.addBlock(forward.getBlock(0).getIdentifiers(), forward.getBlock(0).getValues());
+    File file = File.createTempFile("checkpoints", ".sbtr", checkpointDirectory);
+    new BinaryTrajectoryFormat().write(states, file.getPath());
+    return file;
+  }
+
+  /**
+   * Computes the objective function and its derivatives with respect to the
+   * simulated values of all observed state variables.
+   *
+   * @param measure   the {@link QualityMeasure} or {@code null} for the sum of
+   *                  squared residuals
+   * @param simulated the simulation at the time points of the data, which is
+   *                  changed temporarily
+   * @param data      the measurements
+   * @param observed  receives the positions of the observed state variables
+   * @return for each row of the data the derivatives with respect to the
+   * observed state variables
+   */
+  private double[][] objectiveDerivatives(QualityMeasure measure, MultiTable simulated,
+    MultiTable data, List<Integer> observed) {
+    Block states = simulated.getBlock(0);
+    List<Column> measured = new ArrayList<>();
+    for (int i = 0; i < states.getColumnCount(); i++) {
+      Column column = data.getColumn(states.getColumnIdentifier(i));
+      if (column != null) {
+        observed.add(i);
+        measured.add(column);
+      }
+    }
+    int rows = states.getRowCount();
+    double[][] derivatives = new double[rows][observed.size()];
+    if (measure == null) {
+      objective = 0d;
+      for (int o = 0; o < observed.size(); o++) {
+        for (int k = 0; k < rows; k++) {
+          double residual = states.getValue(k, observed.get(o)) - measured.get(o).getValue(k);
+          if (!Double.isNaN(residual)) {
+            objective += residual * residual;
+            derivatives[k][o] = 2d * residual;
+          }
+        }
+      }
+      return derivatives;
+    }
+    double[] distances = new double[observed.size()];
+    for (int o = 0; o < distances.length; o++) {
+      distances[o] = measure.distance(states.getColumn(observed.get(o)), measured.get(o));
+    }
+    objective = measure.getMeanFunction().computeMean(distances);
+    for (int o = 0; o < distances.length; o++) {
+      // derivative of the mean with respect to the distance of this column
+      double distance = distances[o];
+      double h = SQRT_EPS * Math.max(Math.abs(distance), 1d);
+      distances[o] = distance + h;
+      double meanDerivative = (measure.getMeanFunction().computeMean(distances) - objective) / h;
+      distances[o] = distance;
+      int i = observed.get(o);
+      Column x = states.getColumn(i);
+      for (int k = 0; k < rows; k++) {
+        double value = states.getValue(k, i);
+        if (!Double.isNaN(value) && !Double.isNaN(measured.get(o).getValue(k))) {
+          h = SQRT_EPS * Math.max(Math.abs(value), 1d);
+          states.setValue(value + h, k, i);
+          derivatives[k][o] = meanDerivative * (measure.distance(x, measured.get(o)) - distance) / h;
+          states.setValue(value, k, i);
+        }
+      }
+    }
+    return derivatives;
+  }
+
+  /**
+   * Determines the sparsity pattern of the Jacobian and of the derivatives
+   * with respect to the parameters outside of the state vector at all
+   * checkpoints and groups the columns of both such that no two columns of a
+   * group share a row. Values of zero are replaced by a small positive number,
+   * because they hide dependencies in products such as mass-action rates.
+   *
+   * @param checkpoints the simulated states
+   * @param timePoints  the time points of the checkpoints
+   * @throws DerivativeException
+   */
+  private void detectSparsity(Block checkpoints, double[] timePoints)
+      throws DerivativeException {
+    int n = f.length;
+    BitSet[] pattern = new BitSet[n];
+    for (int j = 0; j < n; j++) {
+      pattern[j] = new BitSet(n);
+    }
+    BitSet[] parameterPattern = new BitSet[explicitParameters.length];
+    for (int e = 0; e < parameterPattern.length; e++) {
+      parameterPattern[e] = new BitSet(n);
+    }
+    double[] y = new double[n];
+    for (int k = 0; k < checkpoints.getRowCount(); k++) {
+      for (int i = 0; i < n; i++) {
+        y[i] = checkpoints.getValue(k, i);
+        if (y[i] == 0d) {
+          y[i] = SQRT_EPS;
+        }
+      }
+      system.computeDerivatives(timePoints[k], y, f);
+      System.arraycopy(y, 0, yPerturbed, 0, n);
+      for (int j = 0; j < n; j++) {
+        yPerturbed[j] = y[j] + SQRT_EPS * Math.max(Math.abs(y[j]), 1d);
+        system.computeDerivatives(timePoints[k], yPerturbed, fPerturbed);
+        yPerturbed[j] = y[j];
+        setChanges(pattern[j]);
+      }
+      for (int e = 0; e < explicitParameters.length; e++) {
+        int p = explicitParameters[e];
+        double value = parameterValues[p];
+        system.setParameterValue(p, value + SQRT_EPS * Math.max(Math.abs(value), 1d));
+        system.computeDerivatives(timePoints[k], y, fPerturbed);
+        system.setParameterValue(p, value);
+        setChanges(parameterPattern[e]);
+      }
+    }
+    columnRows = new int[n][];
+    columnGroups = group(pattern, columnRows);
+    parameterRows = new int[explicitParameters.length][];
+    parameterGroups = group(parameterPattern, parameterRows);
+  }
+
+  /**
+   * Marks the rows in which {@link #fPerturbed} differs from {@link #f}.
+   *
+   * @param rows the rows of one column of a sparsity pattern
+   */
+  private void setChanges(BitSet rows) {
+    for (int r = 0; r < f.length; r++) {
+      // NaN values are counted as well
+      if (!(fPerturbed[r] == f[r])) {
+        rows.set(r);
+      }
+    }
+  }
+
+  /**
+   * Groups the columns of a sparsity pattern such that no two columns of a
+   * group share a row. Columns without any rows are left out.
+   *
+   * @param pattern the rows of each column
+   * @param rows    receives the rows of each column as an array
+   * @return the indices of the columns of each group
+   */
+  private static int[][] group(BitSet[] pattern, int[][] rows) {
+    List<BitSet> groupRows = new ArrayList<>();
+    List<List<Integer>> groups = new ArrayList<>();
+    for (int j = 0; j < pattern.length; j++) {
+      rows[j] = pattern[j].stream().toArray();
+      if (rows[j].length == 0) {
+        continue;
+      }
+      int g = 0;
+      while ((g < groups.size()) && groupRows.get(g).intersects(pattern[j])) {
+        g++;
+      }
+      if (g == groups.size()) {
+        groupRows.add(new BitSet());
+        groups.add(new ArrayList<>());
+      }
+      groupRows.get(g).or(pattern[j]);
+      groups.get(g).add(j);
+    }
+    int[][] columnGroups = new int[groups.size()][];
+    for (int g = 0; g < columnGroups.length; g++) {
+      columnGroups[g] = groups.get(g).stream().mapToInt(Integer::intValue).toArray();
+    }
+    return columnGroups;
+  }
+
+  /**
+   * Recomputes the trajectory between two checkpoints and integrates the
+   * adjoint system backwards from the later to the earlier one.
+   *
+   * @param tStart the time of the earlier checkpoint
+   * @param tEnd   the time of the later checkpoint
+   * @param yStart the state at the earlier checkpoint
+   * @param z      the adjoint vector at the later checkpoint, which is
+   *               replaced by its value at the earlier one.
+   * @throws DerivativeException
+   */
+  private void integrateBackwards(double tStart, double tEnd, double[] yStart, double[] z)
+      throws DerivativeException {
+    int steps = Math.max(1, (int) Math.ceil((tEnd - tStart) / solver.getStepSize() - 1E-9));
+    double h = (tEnd - tStart) / steps;
+    // the recomputed trajectory contains the midpoints of all steps
+    double[] grid = new double[2 * steps + 1];
+    for (int i = 0; i < grid.length; i++) {
+      grid[i] = tStart + i * h / 2d;
+    }
+    grid[grid.length - 1] = tEnd;
+    Block trajectory = solver.solve(system, yStart, grid).getBlock(0);
+    int dim = z.length;
+    double[] y = new double[yStart.length];
+    double[] k1 = new double[dim], k2 = new double[dim], k3 = new double[dim],
+        k4 = new double[dim], zTemp = new double[dim];
+    for (int s = steps; s > 0; s--) {
+      adjointDerivatives(trajectory, 2 * s, grid[2 * s], y, z, k1);
+      for (int i = 0; i < dim; i++) {
+        zTemp[i] = z[i] + h / 2d * k1[i];
+      }
+      adjointDerivatives(trajectory, 2 * s - 1, grid[2 * s - 1], y, zTemp, k2);
+      for (int i = 0; i < dim; i++) {
+        zTemp[i] = z[i] + h / 2d * k2[i];
+      }
+      adjointDerivatives(trajectory, 2 * s - 1, grid[2 * s - 1], y, zTemp, k3);
+      for (int i = 0; i < dim; i++) {
+        zTemp[i] = z[i] + h * k3[i];
+      }
+      adjointDerivatives(trajectory, 2 * s - 2, grid[2 * s - 2], y, zTemp, k4);
+      for (int i = 0; i < dim; i++) {
+        z[i] += h / 6d * (k1[i] + 2d * (k2[i] + k3[i]) + k4[i]);
+      }
+    }
+  }
+
+  /**
+   * Evaluates the adjoint system in reversed time, i.e.,
+   * J<sub>f</sub><sup>T</sup> &lambda; followed by &lambda;<sup>T</sup>
+   * &part;<i>f</i>/&part;<i>p</i> for all parameters outside of the state
+   * vector. Both are approximated by one evaluation of the system per group of
+   * columns.
+   *
+   * @param trajectory the recomputed trajectory
+   * @param row        the row of the current time point in the trajectory
+   * @param t          the current time
+   * @param y          work array for the state
+   * @param z          the current adjoint vector
+   * @param zDot       the derivatives of the adjoint vector
+   * @throws DerivativeException
+   */
+  private void adjointDerivatives(Block trajectory, int row, double t, double[] y, double[] z,
+    double[] zDot) throws DerivativeException {
+    int n = y.length;
+    for (int i = 0; i < n; i++) {
+      y[i] = trajectory.getValue(row, i);
+      zDot[i] = 0d;
+    }
+    system.computeDerivatives(t, y, f);
+    System.arraycopy(y, 0, yPerturbed, 0, n);
+    for (int[] group : columnGroups) {
+      for (int j : group) {
+        yPerturbed[j] = y[j] + SQRT_EPS * Math.max(Math.abs(y[j]), 1d);
+        delta[j] = yPerturbed[j] - y[j];
+      }
+      system.computeDerivatives(t, yPerturbed, fPerturbed);
+      for (int j : group) {
+        yPerturbed[j] = y[j];
+        double sum = 0d;
+        for (int r : columnRows[j]) {
+          sum += z[r] * (fPerturbed[r] - f[r]);
+        }
+        zDot[j] = sum / delta[j];
+      }
+    }
+    for (int e = 0; e < explicitParameters.length; e++) {
+      zDot[n + e] = 0d;
+    }
+    for (int[] group : parameterGroups) {
+      for (int e : group) {
+        int p = explicitParameters[e];
+        double value = parameterValues[p];
+        parameterDelta[e] = SQRT_EPS * Math.max(Math.abs(value), 1d);
+        system.setParameterValue(p, value + parameterDelta[e]);
+      }
+      system.computeDerivatives(t, y, fPerturbed);
+      for (int e : group) {
+        int p = explicitParameters[e];
+        system.setParameterValue(p, parameterValues[p]);
+        double sum = 0d;
+        for (int r : parameterRows[e]) {
+          sum += z[r] * (fPerturbed[r] - f[r]);
+        }
+        zDot[n + e] = sum / parameterDelta[e];
+      }
+    }
+  }
+
+}
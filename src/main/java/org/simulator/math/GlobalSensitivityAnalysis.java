@@ -0,0 +1,860 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.simulator.math.odes.DESSolver;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.ParameterizedDESystem;
+
+/**
+ * Global sensitivity analysis of a {@link ParameterizedDESystem} by the
+ * variance-based method of Sobol (with the sampling scheme of Saltelli) or by
+ * the elementary effects of Morris. Parameters are sampled uniformly within
+ * given bounds. Each sample, i.e., one row of the Saltelli design or one Morris
+ * trajectory, is simulated on a pool of worker threads, each of which owns a
+ * clone of the solver and a system created by the given factory (e.g.,
+ * {@code interpreter::copy}). The simulated trajectories are immediately
+ * reduced to the scalar values of an {@link Output} and accumulated, so that
+ * memory consumption does not depend on the number of samples.
+ * <p>
+ * Long studies can be interrupted and resumed: if a checkpoint file is set,
+ * the accumulated state, including the set of samples already evaluated, is
+ * written to this file at regular intervals and read again when the same
+ * study, i.e., with equal inputs and the same {@link Output#getName()}, is
+ * started another time.
+ * <p>
+ * Samples whose simulation fails are skipped and reported by
+ * {@link Indices#getFailedSampleCount()}; a resumed study evaluates them
+ * again. A study fails only if none of its samples can be evaluated.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class GlobalSensitivityAnalysis implements Closeable {
+
+  /**
+   * A {@link Logger} for this class.
+   */
+  private static final Logger logger =
+      Logger.getLogger(GlobalSensitivityAnalysis.class.getName());
+
+  /**
+   * Reduces a simulated trajectory to the scalar values whose sensitivities
+   * are analyzed, e.g., the value of some species at the last time point.
+   * Implementations are called concurrently.
+   *
+   * @since 2.1
+   */
+  public interface Output {
+
+    /**
+     * @param trajectory the result of one simulation
+     * @return the values of all outputs of interest
+     */
+    double[] evaluate(MultiTable trajectory);
+
+    /**
+     * Identifies this output in checkpoints. The default is the name of its
+     * class, which is not stable across program runs for lambda expressions,
+     * so that studies with such outputs cannot be resumed by another run.
+     *
+     * @return the name of this output
+     */
+    default String getName() {
+      return getClass().getName();
+    }
+  }
+
+  /**
+   * The accumulated state of a study.
+   *
+   * @since 2.1
+   */
+  public abstract static class Indices implements Serializable {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = 6437391405224931522L;
+
+    /**
+     * Identifies the study, so that a checkpoint is only used for the study it
+     * has been written for.
+     */
+    private final String study;
+
+    /**
+     * The samples that have already been accumulated.
+     */
+    private final BitSet done;
+
+    /**
+     * The samples that could not be evaluated.
+     */
+    private final BitSet failed;
+
+    /**
+     * The number of samples that have already been accumulated.
+     */
+    int count;
+
+    /**
+     * The number of outputs and parameters.
+     */
+    final int outputs, parameters;
+
+    /**
+     * @param study
+     * @param outputs
+     * @param parameters
+     */
+    Indices(String study, int outputs, int parameters) {
+      this.study = study;
+      this.outputs = outputs;
+      this.parameters = parameters;
+      done = new BitSet();
+      failed = new BitSet();
+    }
+
+    /**
+     * @return the number of samples that have been evaluated successfully
+     */
+    public int getSampleCount() {
+      return count;
+    }
+
+    /**
+     * @return the number of samples that could not be evaluated and do not
+     * contribute to the indices
+     */
+    public int getFailedSampleCount() {
+      return failed.cardinality();
+    }
+
+    /**
+     * Adds the outputs of one sample.
+     *
+     * @param values the outputs of all simulations of this sample
+     * @param order  the parameter changed in each step of a Morris trajectory
+     */
+    abstract void accumulate(double[][] values, int[] order);
+  }
+
+  /**
+   * First-order and total Sobol indices for each pair of output and parameter.
+   *
+   * @since 2.1
+   */
+  public static class SobolIndices extends Indices {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = -3102986371436045512L;
+
+    private final double[] sumA, sumA2, sumB, sumB2;
+    private final double[][] first, total;
+
+    /**
+     * The outputs of matrix A in the first sample that has been evaluated,
+     * which are subtracted from all outputs. The indices do not change, but the
+     * variance of the estimators is much smaller if the mean of an output is
+     * large compared to its deviation. The first sample is always evaluated
+     * before all other ones.
+     */
+    private double[] shift;
+
+    SobolIndices(String study, int outputs, int parameters) {
+      super(study, outputs, parameters);
+      sumA = new double[outputs];
+      sumA2 = new double[outputs];
+      sumB = new double[outputs];
+      sumB2 = new double[outputs];
+      first = new double[outputs][parameters];
+      total = new double[outputs][parameters];
+    }
+
+    /**
+     * @param values the outputs for A, B and the d matrices in which the
+     *               column of one parameter in A has been replaced by the one
+     *               in B.
+     */
+    @Override
+    void accumulate(double[][] values, int[] order) {
+      if (shift == null) {
+        shift = values[0].clone();
+      }
+      for (int o = 0; o < outputs; o++) {
+        double a = values[0][o] - shift[o], b = values[1][o] - shift[o];
+        sumA[o] += a;
+        sumA2[o] += a * a;
+        sumB[o] += b;
+        sumB2[o] += b * b;
+        for (int j = 0; j < parameters; j++) {
+          double ab = values[j + 2][o] - shift[o];
+          first[o][j] += b * (ab - a);
+          total[o][j] += (a - ab) * (a - ab);
+        }
+      }
+      count++;
+    }
+
+    /**
+     * @param o
+     * @return the variance of the given output over all samples
+     */
+    private double variance(int o) {
+      double mean = (sumA[o] + sumB[o]) / (2d * count);
+      return (sumA2[o] + sumB2[o]) / (2d * count) - mean * mean;
+    }
+
+    /**
+     * @return the first-order indices (estimator of Saltelli et al., 2010)
+     * for each output and parameter
+     */
+    public double[][] getFirstOrderIndices() {
+      double[][] indices = new double[outputs][parameters];
+      for (int o = 0; o < outputs; o++) {
+        for (int j = 0; j < parameters; j++) {
+          indices[o][j] = first[o][j] / count / variance(o);
+        }
+      }
+      return indices;
+    }
+
+    /**
+     * @return the total-effect indices (estimator of Jansen) for each output
+     * and parameter
+     */
+    public double[][] getTotalIndices() {
+      double[][] indices = new double[outputs][parameters];
+      for (int o = 0; o < outputs; o++) {
+        for (int j = 0; j < parameters; j++) {
+          indices[o][j] = total[o][j] / (2d * count) / variance(o);
+        }
+      }
+      return indices;
+    }
+  }
+
+  /**
+   * Statistics of the elementary effects of Morris for each pair of output and
+   * parameter. Effects refer to parameters scaled to the unit interval.
+   *
+   * @since 2.1
+   */
+  public static class MorrisIndices extends Indices {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = 2271805617286207341L;
+
+    private final double delta;
+    private final double[][] sum, sumAbs, sumSquares;
+
+    MorrisIndices(String study, int outputs, int parameters, double delta) {
+      super(study, outputs, parameters);
+      this.delta = delta;
+      sum = new double[outputs][parameters];
+      sumAbs = new double[outputs][parameters];
+      sumSquares = new double[outputs][parameters];
+    }
+
+    /**
+     * @param values the outputs at the base point followed by the outputs
+     *               after changing the parameters in the given order
+     */
+    @Override
+    void accumulate(double[][] values, int[] order) {
+      for (int s = 0; s < order.length; s++) {
+        int j = order[s];
+        for (int o = 0; o < outputs; o++) {
+          double effect = (values[s + 1][o] - values[s][o]) / delta;
+          sum[o][j] += effect;
+          sumAbs[o][j] += Math.abs(effect);
+          sumSquares[o][j] += effect * effect;
+        }
+      }
+      count++;
+    }
+
+    /**
+     * @return the mean elementary effect for each output and parameter
+     */
+    public double[][] getMean() {
+      double[][] mean = new double[outputs][parameters];
+      for (int o = 0; o < outputs; o++) {
+        for (int j = 0; j < parameters; j++) {
+          mean[o][j] = sum[o][j] / count;
+        }
+      }
+      return mean;
+    }
+
+    /**
+     * @return the mean absolute elementary effect (&mu;*) for each output and
+     * parameter
+     */
+    public double[][] getMeanAbsolute() {
+      double[][] mean = new double[outputs][parameters];
+      for (int o = 0; o < outputs; o++) {
+        for (int j = 0; j < parameters; j++) {
+          mean[o][j] = sumAbs[o][j] / count;
+        }
+      }
+      return mean;
+    }
+
+    /**
+     * @return the standard deviation of the elementary effects for each output
+     * and parameter
+     */
+    public double[][] getStandardDeviation() {
+      double[][] sd = new double[outputs][parameters];
+      for (int o = 0; o < outputs; o++) {
+        for (int j = 0; j < parameters; j++) {
+          double mean = sum[o][j] / count;
+          sd[o][j] = Math.sqrt(
+            Math.max(0d, (sumSquares[o][j] - count * mean * mean) / (count - 1)));
+        }
+      }
+      return sd;
+    }
+  }
+
+  /**
+   * Simulates the outputs for one parameter set in the current worker thread.
+   */
+  private interface Run {
+
+    /**
+     * @param unit the parameter values scaled to the unit interval
+     * @return the outputs
+     * @throws DerivativeException
+     */
+    double[] outputs(double[] unit) throws DerivativeException;
+  }
+
+  /**
+   * The private solver and system of one worker thread.
+   */
+  private static class Worker {
+
+    private final DESSolver solver;
+    private final ParameterizedDESystem system;
+    private ParameterMapping mapping;
+    private String[] parameterIds;
+
+    private Worker(DESSolver solver, ParameterizedDESystem system) {
+      this.solver = solver;
+      this.system = system;
+    }
+  }
+
+  /**
+   * The solver that is cloned for each worker thread.
+   */
+  private final DESSolver solver;
+
+  /**
+   * Creates one system for each worker thread.
+   */
+  private final Callable<? extends ParameterizedDESystem> systemFactory;
+
+  /**
+   * The threads of this analysis.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * The {@link Worker} of the current thread.
+   */
+  private final ThreadLocal<Worker> workers;
+
+  /**
+   * The file for checkpoints or {@code null}.
+   */
+  private File checkpointFile;
+
+  /**
+   * The number of samples between two checkpoints.
+   */
+  private int checkpointInterval;
+
+  /**
+   * @param solver        the template for the solvers of all worker threads
+   * @param systemFactory creates an independent system for each worker thread
+   * @param parallelism   the number of worker threads
+   */
+  public GlobalSensitivityAnalysis(DESSolver solver,
+    Callable<? extends ParameterizedDESystem> systemFactory, int parallelism) {
+    this.solver = solver;
+    this.systemFactory = systemFactory;
+    pool = new ForkJoinPool(parallelism);
+    workers = new ThreadLocal<>();
+    checkpointInterval = 1000;
+  }
+
+  /**
+   * Estimates Sobol indices from {@code samples} rows of a Saltelli design,
+   * i.e., with samples &times; (d + 2) simulations for d parameters.
+   *
+   * @param initialValues the initial state of the system
+   * @param timePoints    the time points of each simulation
+   * @param parameterIds  the parameters to be analyzed
+   * @param lowerBounds   the lower bounds of the parameters
+   * @param upperBounds   the upper bounds of the parameters
+   * @param samples       the number of rows of the design
+   * @param seed          the seed of the random samples
+   * @param output        reduces each trajectory to the values of interest
+   * @return the indices
+   * @throws DerivativeException
+   */
+  public SobolIndices sobol(double[] initialValues, double[] timePoints, String[] parameterIds,
+    double[] lowerBounds, double[] upperBounds, int samples, long seed, Output output)
+        throws DerivativeException {
+    int d = parameterIds.length;
+    String study = study("sobol", initialValues, timePoints, parameterIds, lowerBounds,
+      upperBounds, output, samples, seed);
+    return run(study, samples, (outputs) -> new SobolIndices(study, outputs, d),
+      (index, run, order) -> {
+        Random random = random(seed, index);
+        double[] a = new double[d], b = new double[d];
+        for (int j = 0; j < d; j++) {
+          a[j] = random.nextDouble();
+          b[j] = random.nextDouble();
+        }
+        double[][] values = new double[d + 2][];
+        values[0] = run.outputs(a);
+        values[1] = run.outputs(b);
+        for (int j = 0; j < d; j++) {
+          double[] ab = a.clone();
+          ab[j] = b[j];
+          values[j + 2] = run.outputs(ab);
+        }
+        return values;
+      }, initialValues, timePoints, parameterIds, lowerBounds, upperBounds, output);
+  }
+
+  /**
+   * Computes the statistics of the elementary effects along the given number
+   * of Morris trajectories, i.e., with trajectories &times; (d + 1)
+   * simulations for d parameters.
+   *
+   * @param initialValues the initial state of the system
+   * @param timePoints    the time points of each simulation
+   * @param parameterIds  the parameters to be analyzed
+   * @param lowerBounds   the lower bounds of the parameters
+   * @param upperBounds   the upper bounds of the parameters
+   * @param trajectories  the number of trajectories
+   * @param levels        the (even) number of grid levels per parameter
+   * @param seed          the seed of the random trajectories
+   * @param output        reduces each trajectory to the values of interest
+   * @return the statistics of the elementary effects
+   * @throws DerivativeException
+   */
+  public MorrisIndices morris(double[] initialValues, double[] timePoints, String[] parameterIds,
+    double[] lowerBounds, double[] upperBounds, int trajectories, int levels, long seed,
+    Output output) throws DerivativeException {
+    int d = parameterIds.length;
+    double delta = levels / (2d * (levels - 1));
+    String study = study("morris", initialValues, timePoints, parameterIds, lowerBounds,
+      upperBounds, output, trajectories, levels, seed);
+    return run(study, trajectories, (outputs) -> new MorrisIndices(study, outputs, d, delta),
+      (index, run, order) -> {
+        Random random = random(seed, index);
+        double[] x = new double[d];
+        for (int j = 0; j < d; j++) {
+          // base points are restricted to the lower half of the levels, so that x + delta <= 1
+          x[j] = random.nextInt(levels / 2) / (levels - 1d);
+        }
+        for (int j = 0; j < d; j++) {
+          int k = random.nextInt(j + 1);
+          order[j] = order[k];
+          order[k] = j;
+        }
+        double[][] values = new double[d + 1][];
+        values[0] = run.outputs(x);
+        for (int s = 0; s < d; s++) {
+          x[order[s]] += delta;
+          values[s + 1] = run.outputs(x);
+        }
+        return values;
+      }, initialValues, timePoints, parameterIds, lowerBounds, upperBounds, output);
+  }
+
+  /**
+   * Creates the indices of a new study.
+   */
+  private interface IndicesFactory<I extends Indices> {
+
+    /**
+     * @param outputs the number of outputs
+     * @return new indices
+     */
+    I create(int outputs);
+  }
+
+  /**
+   * Computes the outputs of all simulations of one sample.
+   */
+  private interface Design {
+
+    /**
+     * @param index the index of the sample
+     * @param run   simulates one parameter set
+     * @param order receives the order in which the parameters are changed
+     *              (only used by Morris trajectories)
+     * @return the outputs of all simulations of this sample
+     * @throws DerivativeException
+     */
+    double[][] evaluate(int index, Run run, int[] order) throws DerivativeException;
+  }
+
+  /**
+   * Evaluates all samples of a study that have not been evaluated before.
+   *
+   * @param study
+   * @param samples
+   * @param factory
+   * @param design
+   * @param initialValues
+   * @param timePoints
+   * @param parameterIds
+   * @param lowerBounds
+   * @param upperBounds
+   * @param output
+   * @return the accumulated indices
+   * @throws DerivativeException
+   */
+  @SuppressWarnings("unchecked")
+  private <I extends Indices> I run(String study, int samples, IndicesFactory<I> factory,
+    Design design, double[] initialValues, double[] timePoints, String[] parameterIds,
+    double[] lowerBounds, double[] upperBounds, Output output)
+        throws DerivativeException {
+    Indices[] indices = new Indices[1];
+    try {
+      indices[0] = readCheckpoint(study);
+    } catch (IOException | ClassNotFoundException exc) {
+      throw new DerivativeException(exc);
+    }
+    Semaphore pending = new Semaphore(2 * pool.getParallelism());
+    BitSet failed = new BitSet();
+    Throwable failure = null;
+    int first = 0;
+    // without a checkpoint, the first sample that can be evaluated is evaluated alone, so that
+    // it creates the indices independent of the timing of the threads
+    for (; (indices[0] == null) && (first < samples); first++) {
+      final int index = first;
+      int[] order = new int[parameterIds.length];
+      try {
+        double[][] values = pool.submit(() -> evaluate(design, index, order, initialValues,
+          timePoints, parameterIds, lowerBounds, upperBounds, output)).get();
+        indices[0] = factory.create(values[0].length);
+        indices[0].accumulate(values, order);
+        indices[0].done.set(index);
+      } catch (InterruptedException exc) {
+        Thread.currentThread().interrupt();
+        throw new DerivativeException(exc);
+      } catch (ExecutionException exc) {
+        logger.log(Level.WARNING, "Could not evaluate sample " + index, exc.getCause());
+        failed.set(index);
+        failure = exc.getCause();
+      }
+    }
+    if (indices[0] == null) {
+      throw new DerivativeException(failure);
+    }
+    indices[0].failed.or(failed);
+    CountDownLatch done = new CountDownLatch(samples - first);
+    for (int i = first; i < samples; i++) {
+      if (indices[0].done.get(i)) {
+        done.countDown();
+        continue;
+      }
+      try {
+        pending.acquire();
+      } catch (InterruptedException exc) {
+        Thread.currentThread().interrupt();
+        throw new DerivativeException(exc);
+      }
+      final int index = i;
+      pool.execute(() -> {
+        try {
+          int[] order = new int[parameterIds.length];
+          double[][] values = evaluate(design, index, order, initialValues, timePoints,
+            parameterIds, lowerBounds, upperBounds, output);
+          synchronized (indices) {
+            indices[0].accumulate(values, order);
+            indices[0].done.set(index);
+            indices[0].failed.clear(index);
+            if ((checkpointFile != null) && (indices[0].count % checkpointInterval == 0)) {
+              writeCheckpoint(indices[0]);
+            }
+          }
+        } catch (Exception exc) {
+          logger.log(Level.WARNING, "Could not evaluate sample " + index, exc);
+          synchronized (indices) {
+            indices[0].failed.set(index);
+          }
+        } finally {
+          pending.release();
+          done.countDown();
+        }
+      });
+    }
+    try {
+      done.await();
+      if (checkpointFile != null) {
+        writeCheckpoint(indices[0]);
+      }
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new DerivativeException(exc);
+    } catch (IOException exc) {
+      throw new DerivativeException(exc);
+    }
+    if (indices[0].getFailedSampleCount() > 0) {
+      logger.log(Level.WARNING, "{0} of {1} samples could not be evaluated.",
+        new Object[] {indices[0].getFailedSampleCount(), samples});
+    }
+    return (I) indices[0];
+  }
+
+  /**
+   * Evaluates one sample in the current worker thread.
+   *
+   * @param design
+   * @param index
+   * @param order
+   * @param initialValues
+   * @param timePoints
+   * @param parameterIds
+   * @param lowerBounds
+   * @param upperBounds
+   * @param output
+   * @return the outputs of all simulations of the sample
+   * @throws Exception
+   */
+  private double[][] evaluate(Design design, int index, int[] order, double[] initialValues,
+    double[] timePoints, String[] parameterIds, double[] lowerBounds, double[] upperBounds,
+    Output output) throws Exception {
+    Worker worker = getWorker(parameterIds);
+    return design.evaluate(index, (unit) -> {
+      double[] p = new double[unit.length];
+      for (int j = 0; j < p.length; j++) {
+        p[j] = lowerBounds[j] + unit[j] * (upperBounds[j] - lowerBounds[j]);
+      }
+      double[] y0 = worker.mapping.apply(initialValues, p);
+      return output.evaluate(worker.solver.solve(worker.system, y0, timePoints));
+    }, order);
+  }
+
+  /**
+   * Identifies a study by a hash of all of its inputs, so that a checkpoint is
+   * never used for a study with different bounds, time points, initial values,
+   * or outputs.
+   *
+   * @param method
+   * @param initialValues
+   * @param timePoints
+   * @param parameterIds
+   * @param lowerBounds
+   * @param upperBounds
+   * @param output
+   * @param settings      the size of the design and further settings
+   * @return the identifier of the study
+   */
+  private static String study(String method, double[] initialValues, double[] timePoints,
+    String[] parameterIds, double[] lowerBounds, double[] upperBounds, Output output,
+    long... settings) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      try (DataOutputStream out = new DataOutputStream(
+        new DigestOutputStream(new OutputStream() {
+          @Override
+          public void write(int b) {
+          }
+        }, digest))) {
+        out.writeUTF(method);
+        out.writeUTF(output.getName());
+        out.writeInt(parameterIds.length);
+        for (String id : parameterIds) {
+          out.writeUTF(id);
+        }
+        for (double[] values : new double[][] {initialValues, timePoints, lowerBounds,
+          upperBounds}) {
+          out.writeInt(values.length);
+          for (double value : values) {
+            out.writeDouble(value);
+          }
+        }
+        for (long setting : settings) {
+          out.writeLong(setting);
+        }
+      }
+      StringBuilder study = new StringBuilder(method).append(':');
+      for (byte b : digest.digest()) {
+        study.append(String.format("%02x", b));
+      }
+      return study.toString();
+    } catch (NoSuchAlgorithmException | IOException exc) {
+      // every Java platform supports SHA-256 and the stream does not write anything
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  /**
+   * @param seed
+   * @param index
+   * @return an independent random number generator for the given sample
+   */
+  private static Random random(long seed, int index) {
+    return new Random(seed ^ (index * 0x9E3779B97F4A7C15L));
+  }
+
+  /**
+   * @param parameterIds
+   * @return the {@link Worker} of the current thread
+   * @throws Exception
+   */
+  private Worker getWorker(String[] parameterIds) throws Exception {
+    Worker worker = workers.get();
+    if (worker == null) {
+      synchronized (this) {
+        worker = new Worker(solver.clone(), systemFactory.call());
+      }
+      workers.set(worker);
+    }
+    if (worker.parameterIds != parameterIds) {
+      worker.mapping = new ParameterMapping(worker.system, parameterIds);
+      worker.parameterIds = parameterIds;
+    }
+    return worker;
+  }
+
+  /**
+   * @param study
+   * @return the indices stored in the checkpoint file for the given study or
+   * {@code null}
+   * @throws IOException
+   * @throws ClassNotFoundException
+   */
+  private Indices readCheckpoint(String study) throws IOException, ClassNotFoundException {
+    if ((checkpointFile == null) || !checkpointFile.exists()) {
+      return null;
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(checkpointFile))) {
+      Indices indices = (Indices) in.readObject();
+      if (!indices.study.equals(study)) {
+        logger.log(Level.INFO, "Ignoring checkpoint of a different study {0}", indices.study);
+        return null;
+      }
+      return indices;
+    }
+  }
+
+  /**
+   * Writes the given indices to a temporary file, which then replaces the
+   * checkpoint file, so that an interruption never leaves a corrupt
+   * checkpoint.
+   *
+   * @param indices
+   * @throws IOException
+   */
+  private void writeCheckpoint(Indices indices) throws IOException {
+    File temp = new File(checkpointFile.getPath() + ".tmp");
+    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(temp))) {
+      out.writeObject(indices);
+    }
+    Files.move(temp.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * @return the file for checkpoints or {@code null}
+   */
+  public File getCheckpointFile() {
+    return checkpointFile;
+  }
+
+  /**
+   * @param checkpointFile the file in which the state of a study is saved
+   *                       regularly and from which an interrupted study is
+   *                       resumed. {@code null} disables checkpoints.
+   */
+  public void setCheckpointFile(File checkpointFile) {
+    this.checkpointFile = checkpointFile;
+  }
+
+  /**
+   * @return the number of samples between two checkpoints
+   */
+  public int getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  /**
+   * @param checkpointInterval the number of samples between two checkpoints
+   */
+  public void setCheckpointInterval(int checkpointInterval) {
+    this.checkpointInterval = checkpointInterval;
+  }
+
+  /**
+   * Stops all worker threads.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+
+}
@@ -49,6 +49,9 @@
  * <li>lubksb - Performs back substitution on an LU decomposed matrix to solve the
  * linear equation A*x=B for x.
  * </li>
+ * <li>bandec, banbks - Perform the LU decomposition and back substitution for
+ * band diagonal matrices, which are compactly stored.
+ * </li>
  * <li>fdjac - Numerically approximates the jacobian for a system of equations using
  * the method of forward differences.
  * </li>
@@ -244,6 +247,123 @@ public static void lubksb(double[][] a, int[] indx, double[] b) {
     }
   }
 
+  /**
+   * Given an n x n band diagonal matrix A with m1 subdiagonal rows and m2 superdiagonal rows,
+   * compactly stored in the array a[1..n][1..m1+m2+1], this routine constructs an LU decomposition
+   * of a rowwise permutation of A. The diagonal elements are in a[1..n][m1+1], and A(i, j) is
+   * stored in a[i][j-i+m1+1]. The upper triangular matrix replaces a, while the lower triangular
+   * matrix is returned in al[1..n][1..m1]. indx[1..n] is an output vector which records the row
+   * permutation effected by the partial pivoting. This routine is used in combination with banbks
+   * to solve band-diagonal sets of equations.
+   *
+   * @param a    the compactly stored band matrix, replaced by the upper triangular matrix
+   * @param m1   the number of subdiagonals
+   * @param m2   the number of superdiagonals
+   * @param al   the array for the lower triangular matrix
+   * @param indx the array to put the row permutation into
+   * @return +1 or -1 signifying whether the number of row interchanges is even or odd
+   */
+  public static double bandec(double[][] a, int m1, int m2, double[][] al, int[] indx) {
+    int n = a.length;
+    int mm = m1 + m2 + 1;
+    int l = m1;
+    double dum;
+    double d = 1;
+    // rearrange the storage in the top rows
+    for (int i = 0; i < m1; i++) {
+      for (int j = m1 - i; j < mm; j++) {
+        a[i][j - l] = a[i][j];
+      }
+      l--;
+      for (int j = mm - l - 1; j < mm; j++) {
+        a[i][j] = 0.0;
+      }
+    }
+    l = m1;
+    for (int k = 0; k < n; k++) {
+      dum = a[k][0];
+      int i = k;
+      if (l < n) {
+        l++;
+      }
+      // find the pivot element
+      for (int j = k + 1; j < l; j++) {
+        if (Math.abs(a[j][0]) > Math.abs(dum)) {
+          dum = a[j][0];
+          i = j;
+        }
+      }
+      indx[k] = i;
+      if (dum == 0.0) {
+        // matrix is algorithmically singular, but proceed anyway with TINY pivot
+        a[k][0] = TINY;
+      }
+      if (i != k) {
+        d = -d;
+        double[] swap = a[k];
+        a[k] = a[i];
+        a[i] = swap;
+      }
+      // do the elimination
+      for (i = k + 1; i < l; i++) {
+        dum = a[i][0] / a[k][0];
+        al[k][i - k - 1] = dum;
+        for (int j = 1; j < mm; j++) {
+          a[i][j - 1] = a[i][j] - dum * a[k][j];
+        }
+        a[i][mm - 1] = 0.0;
+      }
+    }
+    return d;
+  }
+
+  /**
+   * Given the arrays a, al, and indx as returned from bandec, and given a right-hand side vector
+   * b[1..n], solves the band diagonal linear equations Ax = b. The solution vector x overwrites
+   * b[1..n]. The other input arrays are not modified, and can be left in place for successive
+   * calls with different right-hand sides.
+   *
+   * @param a    the upper triangular matrix returned by bandec
+   * @param m1   the number of subdiagonals
+   * @param m2   the number of superdiagonals
+   * @param al   the lower triangular matrix returned by bandec
+   * @param indx the array returned by bandec
+   * @param b    the right-hand side, replaced by the solution
+   */
+  public static void banbks(double[][] a, int m1, int m2, double[][] al, int[] indx, double[] b) {
+    int n = a.length;
+    int mm = m1 + m2 + 1;
+    int l = m1;
+    double dum;
+    // forward substitution, unscrambling the permuted rows as we go
+    for (int k = 0; k < n; k++) {
+      int i = indx[k];
+      if (i != k) {
+        dum = b[k];
+        b[k] = b[i];
+        b[i] = dum;
+      }
+      if (l < n) {
+        l++;
+      }
+      for (i = k + 1; i < l; i++) {
+        b[i] -= al[k][i - k - 1] * b[k];
+      }
+    }
+    // backsubstitution
+    l = 1;
+    for (int i = n - 1; i >= 0; i--) {
+      dum = b[i];
+      for (int k = 1; k < l; k++) {
+        dum -= a[i][k] * b[k + i];
+      }
+      b[i] = dum / a[i][0];
+      if (l < mm) {
+        l++;
+      }
+    }
+  }
+
   /**
    * Given a matrix a[1..n][1..n], this routine replaces it by a balanced matrix with identical
    * eigenvalues. A symmetric matrix is already balanced and is unaffected by this procedure. The
@@ -0,0 +1,757 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.simulator.math.MatrixOperations.MatrixException;
+import org.simulator.math.odes.DESSolver;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.MultiTable.Block;
+import org.simulator.math.odes.ParameterizedDESystem;
+import org.simulator.math.odes.SensitivityDESystem;
+
+/**
+ * Fits parameters of a {@link ParameterizedDESystem} to measured data, e.g.,
+ * obtained from {@link org.simulator.io.CSVImporter#readMultiTableFromCSV(org.sbml.jsbml.Model,
+ * String)}. By default, the Levenberg-Marquardt method minimizes the sum of
+ * squared residuals between simulation and data, where the Jacobian of the
+ * residuals is obtained from forward sensitivities
+ * ({@link SensitivityDESystem}). For systems with events or rules, or if the
+ * Levenberg-Marquardt iteration fails, the derivative-free Nelder-Mead method
+ * minimizes the distance given by a {@link QualityMeasure} instead.
+ * <p>
+ * Each worker thread compiles its system only once (through the given factory,
+ * e.g., {@code interpreter::copy}) and reuses it for all evaluations. Several
+ * starting points are optimized in parallel. Within each Levenberg-Marquardt
+ * iteration, the sensitivities of several parameters are integrated in
+ * parallel by idle worker threads, whereas trial steps only require the
+ * residuals.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class ParameterEstimator implements Closeable {
+
+  /**
+   * A {@link Logger} for this class.
+   */
+  private static final Logger logger = Logger.getLogger(ParameterEstimator.class.getName());
+
+  /**
+   * The available optimization methods.
+   *
+   * @since 2.1
+   */
+  public enum Method {
+    /**
+     * Gradient-based least-squares optimization with a fallback to
+     * {@link #NELDER_MEAD}.
+     */
+    LEVENBERG_MARQUARDT,
+    /**
+     * Derivative-free simplex search.
+     */
+    NELDER_MEAD;
+  }
+
+  /**
+   * The outcome of one optimization run.
+   *
+   * @since 2.1
+   */
+  public static class Result {
+
+    private final double[] parameters;
+    private final double distance;
+    private final int iterations;
+    private final Method method;
+
+    private Result(double[] parameters, double distance, int iterations, Method method) {
+      this.parameters = parameters;
+      this.distance = distance;
+      this.iterations = iterations;
+      this.method = method;
+    }
+
+    /**
+     * @return the estimated parameter values
+     */
+    public double[] getParameters() {
+      return parameters.clone();
+    }
+
+    /**
+     * @return the distance between simulation and data for the estimated
+     * parameters according to the {@link QualityMeasure} of the estimator.
+     */
+    public double getDistance() {
+      return distance;
+    }
+
+    /**
+     * @return the number of iterations of the optimization method
+     */
+    public int getIterations() {
+      return iterations;
+    }
+
+    /**
+     * @return the method that has produced this result
+     */
+    public Method getMethod() {
+      return method;
+    }
+  }
+
+  /**
+   * The private system and solver of one worker thread.
+   */
+  private static class Worker {
+
+    private final DESSolver solver;
+    private final ParameterizedDESystem system;
+
+    private Worker(DESSolver solver, ParameterizedDESystem system) {
+      this.solver = solver;
+      this.system = system;
+    }
+  }
+
+  /**
+   * The solver that is cloned for each worker thread.
+   */
+  private final DESSolver solver;
+
+  /**
+   * Creates one system for each worker thread.
+   */
+  private final Callable<? extends ParameterizedDESystem> systemFactory;
+
+  /**
+   * The threads evaluating the different starting points.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * The {@link Worker} of the current thread.
+   */
+  private final ThreadLocal<Worker> workers;
+
+  /**
+   * The distance measure for the derivative-free method and for the comparison
+   * of results.
+   */
+  private QualityMeasure qualityMeasure;
+
+  private Method method;
+
+  private int maxIterations;
+
+  /**
+   * Relative improvement of the objective below which an optimization
+   * terminates.
+   */
+  private double tolerance;
+
+  /**
+   * Optional bounds of the parameters ({@code null} if unbounded).
+   */
+  private double[] lowerBounds, upperBounds;
+
+  /**
+   * @param solver        the template for the solvers of all worker threads
+   * @param systemFactory creates an independent system for each worker thread
+   * @param parallelism   the number of worker threads
+   */
+  public ParameterEstimator(DESSolver solver,
+    Callable<? extends ParameterizedDESystem> systemFactory, int parallelism) {
+    this.solver = solver;
+    this.systemFactory = systemFactory;
+    pool = new ForkJoinPool(parallelism);
+    workers = new ThreadLocal<>();
+    qualityMeasure = new EuclideanDistance();
+    method = Method.LEVENBERG_MARQUARDT;
+    maxIterations = 200;
+    tolerance = 1E-10;
+  }
+
+  /**
+   * Optimizes the given parameters starting from each of the given points in
+   * parallel.
+   *
+   * @param initialValues the initial state of the system. The values of all
+   *                      parameters that are part of the state are replaced by
+   *                      the candidate values.
+   * @param data          the measurements, whose column identifiers must be
+   *                      identifiers of the system.
+   * @param parameterIds  the identifiers of the parameters to be estimated
+   * @param starts        one vector of parameter values per starting point
+   * @return the results of all runs, the best one first
+   * @throws DerivativeException if an optimization run fails completely
+   */
+  public List<Result> estimate(double[] initialValues, MultiTable data, String[] parameterIds,
+    double[][] starts) throws DerivativeException {
+    List<Future<Result>> futures = new ArrayList<>(starts.length);
+    for (double[] start : starts) {
+      futures.add(pool.submit(() -> optimize(initialValues, data, parameterIds, start)));
+    }
+    List<Result> results = new ArrayList<>(starts.length);
+    try {
+      for (Future<Result> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new DerivativeException(exc);
+    } catch (ExecutionException exc) {
+      throw new DerivativeException(exc.getCause());
+    }
+    results.sort(Comparator.comparingDouble(Result::getDistance));
+    return results;
+  }
+
+  /**
+   * Optimizes the given parameters from the given number of starting points,
+   * which are drawn uniformly from the bounds of this estimator.
+   *
+   * @param initialValues the initial state of the system
+   * @param data          the measurements
+   * @param parameterIds  the identifiers of the parameters to be estimated
+   * @param startCount    the number of starting points
+   * @param seed          the seed of the random starting points
+   * @return the results of all runs, the best one first
+   * @throws DerivativeException
+   * @see #setBounds(double[], double[])
+   */
+  public List<Result> estimate(double[] initialValues, MultiTable data, String[] parameterIds,
+    int startCount, long seed) throws DerivativeException {
+    if (lowerBounds == null) {
+      // TODO: Localize
+      throw new IllegalStateException("Random starting points require bounds.");
+    }
+    Random random = new Random(seed);
+    double[][] starts = new double[startCount][parameterIds.length];
+    for (double[] start : starts) {
+      for (int j = 0; j < start.length; j++) {
+        start[j] = lowerBounds[j] + random.nextDouble() * (upperBounds[j] - lowerBounds[j]);
+      }
+    }
+    return estimate(initialValues, data, parameterIds, starts);
+  }
+
+  /**
+   * @return the {@link Worker} of the current thread
+   * @throws Exception
+   */
+  private Worker getWorker() throws Exception {
+    Worker worker = workers.get();
+    if (worker == null) {
+      synchronized (this) {
+        worker = new Worker(solver.clone(), systemFactory.call());
+      }
+      workers.set(worker);
+    }
+    return worker;
+  }
+
+  /**
+   * Performs one optimization run in the current worker thread.
+   *
+   * @param initialValues
+   * @param data
+   * @param parameterIds
+   * @param start
+   * @return the result
+   * @throws Exception
+   */
+  private Result optimize(double[] initialValues, MultiTable data, String[] parameterIds,
+    double[] start) throws Exception {
+    Problem problem = new Problem(getWorker(), initialValues, data, parameterIds);
+    Result result = null;
+    // sensitivities are not available for systems with events or rules
+    boolean gradientFree = problem.worker.system.containsEventsOrRules();
+    if ((method == Method.LEVENBERG_MARQUARDT) && !gradientFree) {
+      try {
+        result = levenbergMarquardt(problem, clamp(start.clone()));
+      } catch (DerivativeException | MatrixException exc) {
+        logger.log(Level.FINE, "Levenberg-Marquardt failed, falling back to Nelder-Mead.", exc);
+      }
+    }
+    if (result == null) {
+      result = nelderMead(problem, clamp(start.clone()));
+    }
+    return result;
+  }
+
+  /**
+   * Everything needed to evaluate candidate parameters of one run.
+   */
+  private class Problem {
+
+    private final Worker worker;
+    private final double[] initialValues;
+    private final MultiTable data;
+    private final String[] parameterIds;
+    private final ParameterMapping mapping;
+    private final double[] timePoints;
+    private final int offset;
+    /**
+     * For each measured column the index of the state variable.
+     */
+    private final int[] observed;
+    private final double[][] measurements;
+
+    private Problem(Worker worker, double[] initialValues, MultiTable data,
+      String[] parameterIds) {
+      this.worker = worker;
+      this.initialValues = initialValues.clone();
+      this.data = data;
+      this.parameterIds = parameterIds;
+      mapping = new ParameterMapping(worker.system, parameterIds);
+      List<String> stateIds = Arrays.asList(worker.system.getIdentifiers());
+      double[] dataTimes = data.getTimePoints();
+      offset = (dataTimes[0] > 0d) ? 1 : 0;
+      timePoints = new double[dataTimes.length + offset];
+      System.arraycopy(dataTimes, 0, timePoints, offset, dataTimes.length);
+      List<Integer> columns = new ArrayList<>();
+      List<double[]> values = new ArrayList<>();
+      for (int b = 0; b < data.getBlockCount(); b++) {
+        Block block = data.getBlock(b);
+        for (int c = 0; c < block.getColumnCount(); c++) {
+          int i = stateIds.indexOf(block.getColumnIdentifier(c));
+          if (i >= 0) {
+            columns.add(i);
+            values.add(block.getColumn(c).toArray());
+          }
+        }
+      }
+      observed = new int[columns.size()];
+      measurements = new double[columns.size()][];
+      for (int o = 0; o < observed.length; o++) {
+        observed[o] = columns.get(o);
+        measurements[o] = values.get(o);
+      }
+    }
+
+    /**
+     * @param p
+     * @return the initial state for the given parameter values
+     */
+    private double[] apply(double[] p) {
+      return mapping.apply(initialValues, p);
+    }
+
+    /**
+     * @param p
+     * @return the distance between simulation and data according to the
+     * {@link QualityMeasure}
+     * @throws DerivativeException
+     */
+    private double distance(double[] p) throws DerivativeException {
+      MultiTable simulation = worker.solver.solve(worker.system, apply(p), timePoints);
+      double distance = qualityMeasure.distance(simulation, data);
+      return Double.isNaN(distance) ? Double.POSITIVE_INFINITY : distance;
+    }
+
+    /**
+     * Computes the residuals and, if jacobian is not {@code null}, their
+     * derivatives with respect to all parameters. The sensitivities of
+     * different groups of parameters are integrated in parallel.
+     *
+     * @param p
+     * @param residuals
+     * @param jacobian
+     * @return the sum of squared residuals
+     * @throws DerivativeException
+     */
+    private double residuals(double[] p, List<Double> residuals, List<double[]> jacobian)
+        throws DerivativeException {
+      MultiTable simulation;
+      // the block of each parameter in the corresponding simulation
+      MultiTable[] sensitivities = null;
+      int[] blocks = null;
+      if (jacobian != null) {
+        int groups = Math.min(p.length, pool.getParallelism());
+        List<Future<MultiTable>> futures = new ArrayList<>(groups - 1);
+        for (int g = 1; g < groups; g++) {
+          int from = g * p.length / groups, to = (g + 1) * p.length / groups;
+          futures.add(pool.submit(() -> sensitivities(getWorker(), p, from, to)));
+        }
+        simulation = sensitivities(worker, p, 0, p.length / groups);
+        sensitivities = new MultiTable[p.length];
+        blocks = new int[p.length];
+        for (int g = 0; g < groups; g++) {
+          MultiTable result = simulation;
+          if (g > 0) {
+            try {
+              result = futures.get(g - 1).get();
+            } catch (InterruptedException exc) {
+              Thread.currentThread().interrupt();
+              throw new DerivativeException(exc);
+            } catch (ExecutionException exc) {
+              throw new DerivativeException(exc.getCause());
+            }
+          }
+          for (int j = g * p.length / groups; j < (g + 1) * p.length / groups; j++) {
+            sensitivities[j] = result;
+            blocks[j] = j - g * p.length / groups + 1;
+          }
+        }
+      } else {
+        simulation = worker.solver.solve(worker.system, apply(p), timePoints);
+      }
+      double sum = 0d;
+      for (int o = 0; o < observed.length; o++) {
+        for (int k = 0; k < measurements[o].length; k++) {
+          if (!Double.isNaN(measurements[o][k])) {
+            double r = simulation.getBlock(0).getValue(k + offset, observed[o])
+                - measurements[o][k];
+            sum += r * r;
+            residuals.add(r);
+            if (jacobian != null) {
+              double[] row = new double[p.length];
+              for (int j = 0; j < p.length; j++) {
+                row[j] = sensitivities[j].getBlock(blocks[j]).getValue(k + offset, observed[o]);
+              }
+              jacobian.add(row);
+            }
+          }
+        }
+      }
+      return Double.isNaN(sum) ? Double.POSITIVE_INFINITY : sum;
+    }
+
+    /**
+     * Integrates the state together with its sensitivities with respect to
+     * some of the parameters.
+     *
+     * @param w    the worker of the current thread
+     * @param p    the values of all parameters
+     * @param from the index of the first parameter
+     * @param to   the index after the last parameter
+     * @return the state followed by one block of sensitivities per parameter
+     * @throws DerivativeException
+     */
+    private MultiTable sensitivities(Worker w, double[] p, int from, int to)
+        throws DerivativeException {
+      ParameterMapping m = (w == worker) ? mapping : new ParameterMapping(w.system, parameterIds);
+      return new SensitivityDESystem(w.system, Arrays.copyOfRange(parameterIds, from, to))
+          .solve(w.solver, m.apply(initialValues, p), timePoints);
+    }
+  }
+
+  /**
+   * Minimizes the sum of squared residuals.
+   *
+   * @param problem
+   * @param p the starting point, which is overwritten
+   * @return the result
+   * @throws DerivativeException
+   * @throws MatrixException
+   */
+  private Result levenbergMarquardt(Problem problem, double[] p)
+      throws DerivativeException, MatrixException {
+    int n = p.length;
+    double lambda = 1E-3;
+    List<Double> residuals = new ArrayList<>();
+    List<double[]> jacobian = new ArrayList<>();
+    double cost = problem.residuals(p, residuals, jacobian);
+    double[][] jtj = new double[n][n];
+    double[] jtr = new double[n];
+    double[][] a = new double[n][n];
+    double[] step = new double[n];
+    int[] indx = new int[n];
+    int iteration;
+    for (iteration = 0; iteration < maxIterations; iteration++) {
+      for (int i = 0; i < n; i++) {
+        Arrays.fill(jtj[i], 0d);
+      }
+      Arrays.fill(jtr, 0d);
+      for (int r = 0; r < residuals.size(); r++) {
+        double[] row = jacobian.get(r);
+        for (int i = 0; i < n; i++) {
+          jtr[i] += row[i] * residuals.get(r);
+          for (int j = 0; j < n; j++) {
+            jtj[i][j] += row[i] * row[j];
+          }
+        }
+      }
+      boolean improved = false;
+      while (!improved && (lambda < 1E16)) {
+        for (int i = 0; i < n; i++) {
+          System.arraycopy(jtj[i], 0, a[i], 0, n);
+          a[i][i] += lambda * Math.max(jtj[i][i], MatrixOperations.TINY);
+          step[i] = -jtr[i];
+        }
+        MatrixOperations.ludcmp(a, indx);
+        MatrixOperations.lubksb(a, indx, step);
+        double[] candidate = new double[n];
+        for (int i = 0; i < n; i++) {
+          candidate[i] = p[i] + step[i];
+        }
+        clamp(candidate);
+        // trial steps only need the residuals
+        double newCost = problem.residuals(candidate, new ArrayList<>(), null);
+        if (newCost < cost) {
+          improved = true;
+          boolean converged = (cost - newCost) <= tolerance * cost;
+          System.arraycopy(candidate, 0, p, 0, n);
+          lambda = Math.max(lambda / 10d, 1E-12);
+          if (converged) {
+            return result(problem, p, iteration + 1, Method.LEVENBERG_MARQUARDT);
+          }
+          residuals.clear();
+          jacobian.clear();
+          cost = problem.residuals(p, residuals, jacobian);
+        } else {
+          lambda *= 10d;
+        }
+      }
+      if (!improved) {
+        break;
+      }
+    }
+    return result(problem, p, iteration, Method.LEVENBERG_MARQUARDT);
+  }
+
+  /**
+   * Minimizes the distance according to the {@link QualityMeasure} with the
+   * simplex method of Nelder and Mead.
+   *
+   * @param problem
+   * @param start
+   * @return the result
+   * @throws DerivativeException
+   */
+  private Result nelderMead(Problem problem, double[] start) throws DerivativeException {
+    int n = start.length;
+    double[][] simplex = new double[n + 1][];
+    double[] values = new double[n + 1];
+    simplex[0] = start;
+    for (int i = 0; i < n; i++) {
+      simplex[i + 1] = start.clone();
+      simplex[i + 1][i] += (start[i] != 0d) ? 0.05 * start[i] : 0.00025;
+      clamp(simplex[i + 1]);
+    }
+    for (int i = 0; i <= n; i++) {
+      values[i] = problem.distance(simplex[i]);
+    }
+    Integer[] order = new Integer[n + 1];
+    int iteration;
+    for (iteration = 0; iteration < maxIterations; iteration++) {
+      for (int i = 0; i <= n; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingDouble(i -> values[i]));
+      int best = order[0], worst = order[n], secondWorst = order[n - 1];
+      if (Math.abs(values[worst] - values[best])
+          <= tolerance * (Math.abs(values[best]) + MatrixOperations.TINY)) {
+        break;
+      }
+      double[] centroid = new double[n];
+      for (int i = 0; i <= n; i++) {
+        if (i != worst) {
+          for (int j = 0; j < n; j++) {
+            centroid[j] += simplex[i][j] / n;
+          }
+        }
+      }
+      double[] reflected = affine(centroid, simplex[worst], -1d);
+      double reflectedValue = problem.distance(reflected);
+      if (reflectedValue < values[best]) {
+        double[] expanded = affine(centroid, simplex[worst], -2d);
+        double expandedValue = problem.distance(expanded);
+        if (expandedValue < reflectedValue) {
+          simplex[worst] = expanded;
+          values[worst] = expandedValue;
+        } else {
+          simplex[worst] = reflected;
+          values[worst] = reflectedValue;
+        }
+      } else if (reflectedValue < values[secondWorst]) {
+        simplex[worst] = reflected;
+        values[worst] = reflectedValue;
+      } else {
+        double[] contracted = affine(centroid, simplex[worst], 0.5d);
+        double contractedValue = problem.distance(contracted);
+        if (contractedValue < values[worst]) {
+          simplex[worst] = contracted;
+          values[worst] = contractedValue;
+        } else {
+          for (int i = 0; i <= n; i++) {
+            if (i != best) {
+              simplex[i] = affine(simplex[best], simplex[i], 0.5d);
+              values[i] = problem.distance(simplex[i]);
+            }
+          }
+        }
+      }
+    }
+    int best = 0;
+    for (int i = 1; i <= n; i++) {
+      if (values[i] < values[best]) {
+        best = i;
+      }
+    }
+    return new Result(simplex[best], values[best], iteration, Method.NELDER_MEAD);
+  }
+
+  /**
+   * @param centroid
+   * @param point
+   * @param factor
+   * @return centroid + factor * (point - centroid), restricted to the bounds
+   */
+  private double[] affine(double[] centroid, double[] point, double factor) {
+    double[] result = new double[centroid.length];
+    for (int j = 0; j < result.length; j++) {
+      result[j] = centroid[j] + factor * (point[j] - centroid[j]);
+    }
+    return clamp(result);
+  }
+
+  /**
+   * Restricts the given parameters to the bounds of this estimator.
+   *
+   * @param p
+   * @return p
+   */
+  private double[] clamp(double[] p) {
+    if (lowerBounds != null) {
+      for (int j = 0; j < p.length; j++) {
+        p[j] = Math.min(Math.max(p[j], lowerBounds[j]), upperBounds[j]);
+      }
+    }
+    return p;
+  }
+
+  /**
+   * @param problem
+   * @param p
+   * @param iterations
+   * @param method
+   * @return the result for the given parameters
+   * @throws DerivativeException
+   */
+  private Result result(Problem problem, double[] p, int iterations, Method method)
+      throws DerivativeException {
+    return new Result(p.clone(), problem.distance(p), iterations, method);
+  }
+
+  /**
+   * @return the {@link QualityMeasure} that compares simulation and data
+   */
+  public QualityMeasure getQualityMeasure() {
+    return qualityMeasure;
+  }
+
+  /**
+   * @param qualityMeasure the {@link QualityMeasure} that is minimized by the
+   *                       derivative-free method and ranks the results.
+   */
+  public void setQualityMeasure(QualityMeasure qualityMeasure) {
+    this.qualityMeasure = qualityMeasure;
+  }
+
+  /**
+   * @return the optimization method
+   */
+  public Method getMethod() {
+    return method;
+  }
+
+  /**
+   * @param method the optimization method
+   */
+  public void setMethod(Method method) {
+    this.method = method;
+  }
+
+  /**
+   * @return the maximal number of iterations per run
+   */
+  public int getMaxIterations() {
+    return maxIterations;
+  }
+
+  /**
+   * @param maxIterations the maximal number of iterations per run
+   */
+  public void setMaxIterations(int maxIterations) {
+    this.maxIterations = maxIterations;
+  }
+
+  /**
+   * @return the relative improvement below which a run terminates
+   */
+  public double getTolerance() {
+    return tolerance;
+  }
+
+  /**
+   * @param tolerance the relative improvement below which a run terminates
+   */
+  public void setTolerance(double tolerance) {
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * Restricts all parameters to the given bounds, which are also used to draw
+   * random starting points.
+   *
+   * @param lowerBounds the lower bounds or {@code null} for no bounds
+   * @param upperBounds the upper bounds
+   */
+  public void setBounds(double[] lowerBounds, double[] upperBounds) {
+    if ((lowerBounds != null) && (lowerBounds.length != upperBounds.length)) {
+      // TODO: Localize
+      throw new IllegalArgumentException("Lower and upper bounds must have the same length.");
+    }
+    this.lowerBounds = (lowerBounds != null) ? lowerBounds.clone() : null;
+    this.upperBounds = (upperBounds != null) ? upperBounds.clone() : null;
+  }
+
+  /**
+   * Stops all worker threads.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+
+}
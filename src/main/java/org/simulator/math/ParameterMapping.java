@@ -0,0 +1,125 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.simulator.math.odes.ParameterizedDESystem;
+
+/**
+ * Applies candidate values of selected parameters to a
+ * {@link ParameterizedDESystem}. Parameters that are also part of the state
+ * vector (such as the global parameters of an SBML model) are written into the
+ * initial values of a simulation; all other parameters are set through
+ * {@link ParameterizedDESystem#setParameterValue(int, double)}.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+class ParameterMapping {
+
+  /**
+   * The system whose parameters are changed.
+   */
+  private final ParameterizedDESystem system;
+
+  /**
+   * For each selected parameter its position in the state vector or -1.
+   */
+  private final int[] stateIndices;
+
+  /**
+   * For each selected parameter its position among all parameters of the
+   * system.
+   */
+  private final int[] parameterIndices;
+
+  /**
+   * @param system
+   * @param parameterIds the identifiers of the selected parameters
+   */
+  ParameterMapping(ParameterizedDESystem system, String[] parameterIds) {
+    this.system = system;
+    List<String> stateIds = Arrays.asList(system.getIdentifiers());
+    List<String> allParameterIds = Arrays.asList(system.getParameterIdentifiers());
+    stateIndices = new int[parameterIds.length];
+    parameterIndices = new int[parameterIds.length];
+    for (int j = 0; j < parameterIds.length; j++) {
+      parameterIndices[j] = allParameterIds.indexOf(parameterIds[j]);
+      if (parameterIndices[j] < 0) {
+        // TODO: Localize
+        throw new IllegalArgumentException("Unknown parameter " + parameterIds[j]);
+      }
+      stateIndices[j] = stateIds.indexOf(parameterIds[j]);
+    }
+  }
+
+  /**
+   * @return the number of selected parameters
+   */
+  int size() {
+    return stateIndices.length;
+  }
+
+  /**
+   * @param j the index of a selected parameter
+   * @return the position of this parameter in the state vector or -1 if it is
+   * not part of the state
+   */
+  int getStateIndex(int j) {
+    return stateIndices[j];
+  }
+
+  /**
+   * @param j the index of a selected parameter
+   * @return the position of this parameter among all parameters of the system
+   */
+  int getParameterIndex(int j) {
+    return parameterIndices[j];
+  }
+
+  /**
+   * Sets the given parameter values and returns the corresponding initial
+   * state.
+   *
+   * @param initialValues the initial state, which is not changed
+   * @param p             the values of the selected parameters
+   * @return a copy of the initial state including the values of all selected
+   * parameters that are part of the state
+   */
+  double[] apply(double[] initialValues, double[] p) {
+    double[] y0 = initialValues.clone();
+    for (int j = 0; j < p.length; j++) {
+      if (stateIndices[j] >= 0) {
+        y0[stateIndices[j]] = p[j];
+      } else {
+        system.setParameterValue(parameterIndices[j], p[j]);
+      }
+    }
+    return y0;
+  }
+
+}
@@ -65,8 +65,8 @@ public PearsonCorrelation(double defaultValue) {
   @Override
   public double distance(Column x, Column y, double defaultValue) {
     MeanFunction meanF = new ArithmeticMean();
-    double meanX = meanF.computeMean(x);
-    double meanY = meanF.computeMean(y);
+    double meanX = meanF.computeMean(x.toArray());
+    double meanY = meanF.computeMean(y.toArray());
     double sumNumerator = 0d;
     double sumXSquared = 0d;
     double sumYSquared = 0d;
@@ -26,6 +26,7 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -146,8 +147,7 @@ public double distance(MultiTable x, MultiTable expected) {
       left = x.filter(expected.getTimePoints());
       right = expected.filter(x.getTimePoints());
     }
-    List<Double> distances = new ArrayList<>(getColumnDistances(left, right));
-    return meanFunction.computeMean(distances);
+    return meanFunction.computeMean(columnDistances(left, right));
   }
 
   /**
@@ -162,17 +162,35 @@ public double distance(MultiTable x, MultiTable expected) {
    * @return columnDistances the list of distances for the columns in the blocks
    */
   public List<Double> getColumnDistances(MultiTable x, MultiTable expected) {
-    List<Double> distances = new ArrayList<>();
+    double[] columnDistances = columnDistances(x, expected);
+    List<Double> distances = new ArrayList<>(columnDistances.length);
+    for (double distance : columnDistances) {
+      distances.add(distance);
+    }
+    return distances;
+  }
+
+  /**
+   * Computes the same distances as {@link #getColumnDistances(MultiTable, MultiTable)}, but
+   * without boxing them.
+   *
+   * @param x
+   * @param expected
+   * @return the distances for all columns with matching identifiers
+   */
+  private double[] columnDistances(MultiTable x, MultiTable expected) {
+    double[] distances = new double[x.getColumnCount()];
+    int count = 0;
     for (int block = 0; block < x.getBlockCount(); block++) {
       String[] identifiers = x.getBlock(block).getIdentifiers();
       for (int i = 0; i < identifiers.length; i++) {
-        if ((identifiers[i] != null) && (expected.getColumn(identifiers[i]) != null)) {
-          distances
-          .add(distance(x.getBlock(block).getColumn(i), expected.getColumn(identifiers[i])));
+        Column y = (identifiers[i] != null) ? expected.getColumn(identifiers[i]) : null;
+        if (y != null) {
+          distances[count++] = distance(x.getBlock(block).getColumn(i), y);
         }
       }
     }
-    return distances;
+    return Arrays.copyOf(distances, count);
   }
 
   /**
@@ -0,0 +1,282 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A square matrix in compressed sparse row format whose structure, i.e., the positions of the
+ * entries that may be non-zero, is fixed when it is created. Every change of its values increases
+ * its {@link #getVersion() version}, so that users such as factorizations can tell in constant
+ * time whether they are still valid.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class SparseMatrix {
+
+  /**
+   * The number of rows and columns.
+   */
+  private final int dimension;
+
+  /**
+   * For every row the index of its first entry, followed by the number of entries.
+   */
+  private final int[] rowStart;
+
+  /**
+   * The column of every entry, ascending within each row.
+   */
+  private final int[] columns;
+
+  /**
+   * The value of every entry.
+   */
+  private final double[] values;
+
+  /**
+   * The number of changes of the values.
+   */
+  private long version;
+
+  /**
+   * Creates a matrix whose entries are at the given positions and zero. Positions may be given
+   * more than once.
+   *
+   * @param dimension the number of rows and columns
+   * @param rows      the row of every position
+   * @param columns   the column of every position
+   */
+  public SparseMatrix(int dimension, int[] rows, int[] columns) {
+    if (rows.length != columns.length) {
+      // TODO: Localize
+      throw new IllegalArgumentException("Rows and columns must be of the same length");
+    }
+    long[] positions = new long[rows.length];
+    for (int k = 0; k < rows.length; k++) {
+      if ((rows[k] < 0) || (rows[k] >= dimension) || (columns[k] < 0) || (columns[k] >= dimension)) {
+        // TODO: Localize
+        throw new IllegalArgumentException("Position (" + rows[k] + ", " + columns[k] + ") is out of range");
+      }
+      positions[k] = ((long) rows[k]) * dimension + columns[k];
+    }
+    Arrays.sort(positions);
+    int count = 0;
+    for (int k = 0; k < positions.length; k++) {
+      if ((k == 0) || (positions[k] != positions[k - 1])) {
+        positions[count++] = positions[k];
+      }
+    }
+    this.dimension = dimension;
+    rowStart = new int[dimension + 1];
+    this.columns = new int[count];
+    values = new double[count];
+    for (int k = 0; k < count; k++) {
+      rowStart[(int) (positions[k] / dimension) + 1]++;
+      this.columns[k] = (int) (positions[k] % dimension);
+    }
+    for (int i = 0; i < dimension; i++) {
+      rowStart[i + 1] += rowStart[i];
+    }
+  }
+
+  /**
+   * Creates a matrix with the same structure and the same values.
+   *
+   * @param matrix
+   */
+  public SparseMatrix(SparseMatrix matrix) {
+    dimension = matrix.dimension;
+    rowStart = matrix.rowStart;
+    columns = matrix.columns;
+    values = matrix.values.clone();
+    version = matrix.version;
+  }
+
+  /**
+   * @return the number of rows and columns
+   */
+  public int getDimension() {
+    return dimension;
+  }
+
+  /**
+   * @return the number of entries that may be non-zero
+   */
+  public int getEntryCount() {
+    return values.length;
+  }
+
+  /**
+   * @param row a row or the dimension of this matrix
+   * @return the index of the first entry of the given row, which is also the end of the entries of
+   * the previous row
+   */
+  public int getRowStart(int row) {
+    return rowStart[row];
+  }
+
+  /**
+   * @param entry
+   * @return the column of the given entry
+   */
+  public int getColumn(int entry) {
+    return columns[entry];
+  }
+
+  /**
+   * @param entry
+   * @return the value of the given entry
+   */
+  public double getValue(int entry) {
+    return values[entry];
+  }
+
+  /**
+   * @param row
+   * @param column
+   * @return the index of the entry at the given position or a negative number if the position does
+   * not belong to the structure of this matrix
+   */
+  public int indexOf(int row, int column) {
+    int index = Arrays.binarySearch(columns, rowStart[row], rowStart[row + 1], column);
+    return (index >= 0) ? index : -1;
+  }
+
+  /**
+   * Sets the values of all entries and increases the version of this matrix if any of them
+   * changes.
+   *
+   * @param values the values of all entries in the order of their indices
+   */
+  public void setValues(double[] values) {
+    if (!Arrays.equals(this.values, values)) {
+      System.arraycopy(values, 0, this.values, 0, this.values.length);
+      version++;
+    }
+  }
+
+  /**
+   * @return a number that changes whenever the values of this matrix change
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Computes the product of this matrix and the given vector.
+   *
+   * @param x      the vector
+   * @param result the array for the product, which must be different from x
+   */
+  public void multiply(double[] x, double[] result) {
+    for (int i = 0; i < dimension; i++) {
+      double sum = 0d;
+      for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+        sum += values[k] * x[columns[k]];
+      }
+      result[i] = sum;
+    }
+  }
+
+  /**
+   * Computes a reverse Cuthill-McKee ordering of the rows and columns, which reduces the bandwidth
+   * of the symmetrized structure of this matrix. Each connected component is ordered by a breadth-first
+   * search that starts at one of its rows of lowest degree and visits neighbors in the order of
+   * ascending degree.
+   *
+   * @return for every position in the new order the index of the row and column placed there
+   */
+  public int[] reverseCuthillMcKee() {
+    // symmetric adjacency lists without the diagonal
+    int[] degree = new int[dimension];
+    for (int i = 0; i < dimension; i++) {
+      for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+        if (columns[k] != i) {
+          degree[i]++;
+          degree[columns[k]]++;
+        }
+      }
+    }
+    int[][] neighbors = new int[dimension][];
+    for (int i = 0; i < dimension; i++) {
+      neighbors[i] = new int[degree[i]];
+    }
+    int[] filled = new int[dimension];
+    for (int i = 0; i < dimension; i++) {
+      for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+        int j = columns[k];
+        if (j != i) {
+          neighbors[i][filled[i]++] = j;
+          neighbors[j][filled[j]++] = i;
+        }
+      }
+    }
+    Comparator<Integer> ascendingDegree = (a, b) -> Integer.compare(degree[a], degree[b]);
+    List<Integer> byDegree = new ArrayList<Integer>(dimension);
+    for (int i = 0; i < dimension; i++) {
+      byDegree.add(i);
+    }
+    byDegree.sort(ascendingDegree);
+
+    int[] order = new int[dimension];
+    boolean[] visited = new boolean[dimension];
+    Deque<Integer> queue = new ArrayDeque<Integer>();
+    int count = 0;
+    for (int start : byDegree) {
+      if (visited[start]) {
+        continue;
+      }
+      visited[start] = true;
+      queue.add(start);
+      while (!queue.isEmpty()) {
+        int i = queue.poll();
+        order[count++] = i;
+        List<Integer> next = new ArrayList<Integer>(neighbors[i].length);
+        for (int j : neighbors[i]) {
+          if (!visited[j]) {
+            visited[j] = true;
+            next.add(j);
+          }
+        }
+        next.sort(ascendingDegree);
+        queue.addAll(next);
+      }
+    }
+    for (int i = 0; i < dimension / 2; i++) {
+      int swap = order[i];
+      order[i] = order[dimension - 1 - i];
+      order[dimension - 1 - i] = swap;
+    }
+    return order;
+  }
+
+}
@@ -25,7 +25,8 @@
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -33,11 +34,11 @@
 import java.util.logging.Logger;
 
 import org.apache.commons.math.ode.DerivativeException;
+import org.apache.commons.math.ode.FirstOrderDifferentialEquations;
 import org.apache.commons.math.ode.events.EventException;
 import org.apache.commons.math.ode.events.EventHandler;
 import org.simulator.math.Mathematics;
 import org.simulator.math.odes.MultiTable.Block.Column;
-import org.simulator.sbml.SBMLinterpreter;
 
 /**
  * This Class represents an abstract solver for event-driven DES
@@ -90,6 +91,11 @@ public static long getSerialversionuid() {
    */
   List<PropertyChangeListener> listenerList;
 
+  /**
+   * {@link List} of {@link StepListener}s, which are notified without creating any event objects.
+   */
+  private List<StepListener> stepListeners;
+
   /**
    * Flag to indicate whether or not negative values within the solution should be set to zero.
    */
@@ -107,7 +113,11 @@ public static long getSerialversionuid() {
   private boolean unstableFlag;
 
   /**
-   *
+   * The time series of the current simulation, which is required for the
+   * computation of delayed values. This is either the table of a
+   * {@link MultiTableSink} or, for a {@link DelayedDESystem} whose result is
+   * passed to some other {@link ResultSink}, a table that only contains the
+   * state of the system.
    */
   private MultiTable data;
 
@@ -116,6 +126,46 @@ public static long getSerialversionuid() {
    */
   protected AbstractDESSolver clonedSolver;
 
+  /**
+   * The counters of the current simulation.
+   */
+  private SolverStatistics statistics = new SolverStatistics();
+
+  /**
+   * Passes the evaluations of the right-hand side by an underlying integrator through
+   * {@link #computeDerivatives(DESystem, double, double[], double[])}, see
+   * {@link #instrument(DESystem)}.
+   */
+  private transient InstrumentedSystem instrumentedSystem;
+
+  /**
+   * A view of a {@link DESystem} that counts and times the evaluations of its right-hand side.
+   */
+  private class InstrumentedSystem implements FirstOrderDifferentialEquations {
+
+    /**
+     * The system that is currently evaluated.
+     */
+    private DESystem DES;
+
+    /* (non-Javadoc)
+     * @see org.apache.commons.math.ode.FirstOrderDifferentialEquations#getDimension()
+     */
+    @Override
+    public int getDimension() {
+      return DES.getDimension();
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.commons.math.ode.FirstOrderDifferentialEquations#computeDerivatives(double, double[], double[])
+     */
+    @Override
+    public void computeDerivatives(double t, double[] y, double[] yDot)
+        throws DerivativeException {
+      AbstractDESSolver.this.computeDerivatives(DES, t, y, yDot);
+    }
+  }
+
   /**
    * Key used when informing listeners about progress by this solver.
    */
@@ -136,6 +186,7 @@ public AbstractDESSolver() {
     includeIntermediates = true;
     intervalFactor = 0d;
     listenerList = new LinkedList<>();
+    stepListeners = new ArrayList<>();
   }
 
   /**
@@ -148,6 +199,7 @@ public void reset() {
     includeIntermediates = true;
     intervalFactor = 0d;
     listenerList = new LinkedList<>();
+    stepListeners = new ArrayList<>();
   }
 
   /**
@@ -159,6 +211,7 @@ public AbstractDESSolver(AbstractDESSolver solver) {
     this(solver.getStepSize(), solver.isNonnegative());
     setIncludeIntermediates(solver.isIncludeIntermediates());
     unstableFlag = solver.isUnstable();
+    statistics.setTimingEnabled(solver.statistics.isTimingEnabled());
   }
 
   /**
@@ -182,25 +235,55 @@ public AbstractDESSolver(double stepSize, boolean nonnegative) {
     setNonnegative(nonnegative);
   }
 
+  /**
+   * Evaluates the right-hand side of the given system and updates the {@link SolverStatistics}.
+   * Solvers should evaluate the system through this method.
+   *
+   * @param DES  the differential equation system
+   * @param t    the current time
+   * @param y    the current state
+   * @param yDot the array to be filled with the derivatives
+   * @throws DerivativeException
+   */
+  protected void computeDerivatives(DESystem DES, double t, double[] y, double[] yDot)
+      throws DerivativeException {
+    long start = statistics.start();
+    DES.computeDerivatives(t, y, yDot);
+    statistics.addDerivativeTime(statistics.elapsed(start));
+    statistics.addDerivativeEvaluations(1L);
+  }
+
+  /**
+   * For solvers that pass the system to some underlying integrator: returns a view of the given
+   * system whose evaluations are counted and timed in the {@link SolverStatistics}. The view is
+   * re-used in subsequent calls.
+   *
+   * @param DES the differential equation system
+   * @return the instrumented system
+   */
+  protected FirstOrderDifferentialEquations instrument(DESystem DES) {
+    if (instrumentedSystem == null) {
+      instrumentedSystem = new InstrumentedSystem();
+    }
+    instrumentedSystem.DES = DES;
+    return instrumentedSystem;
+  }
+
   /**
    * Compute additional result values
    *
-   * @param DES      the differential equation system
-   * @param t        the current time
-   * @param yTemp    the vector yTemp
-   * @param data     the data as multi table
-   * @param rowIndex the index of the row
-   * @return an array of additional (intermediate) results.
+   * @param DES   the differential equation system
+   * @param t     the current time
+   * @param yTemp the vector yTemp
+   * @return an array of additional (intermediate) results or {@code null} if
+   * no such results are to be included. The array may be re-used by the given
+   * system in subsequent calls.
    * @throws DerivativeException
    */
-  protected double[] additionalResults(DESystem DES, double t, double[] yTemp, MultiTable data,
-    int rowIndex)
-        throws DerivativeException {
+  protected double[] additionalResults(DESystem DES, double t, double[] yTemp)
+      throws DerivativeException {
     if (includeIntermediates && (DES instanceof RichDESystem)) {
-      MultiTable.Block block = data.getBlock(1);
-      double[] v = ((RichDESystem) DES).getAdditionalValues(t, yTemp).clone();
-      block.setRowData(rowIndex, v);
-      return v;
+      return ((RichDESystem) DES).getAdditionalValues(t, yTemp);
     }
     return null;
   }
@@ -215,6 +298,31 @@ public void addPropertyChangeListener(PropertyChangeListener listener) {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addStepListener(StepListener listener) {
+    if (!stepListeners.contains(listener)) {
+      stepListeners.add(listener);
+    }
+  }
+
+  /**
+   * Registers the given system for the duration of one simulation if it is a {@link StepListener}
+   * that has not already been added to this solver.
+   *
+   * @param DES the system to be solved
+   * @return whether the system has been added and needs to be removed after the simulation
+   */
+  private boolean addSystemAsStepListener(DESystem DES) {
+    if ((DES instanceof StepListener) && !stepListeners.contains(DES)) {
+      stepListeners.add((StepListener) DES);
+      return true;
+    }
+    return false;
+  }
+
   /**
    * If option nonnegative is set all elements of the given vector smaller than zero are set to
    * zero.
@@ -440,6 +548,9 @@ public int eventOccurred(double t, double[] y, boolean increasing)
   @Override
   public void firePropertyChange(double previousTimePoint, double currTimePoint,
     double[] currResult) {
+    for (int i = 0; i < stepListeners.size(); i++) {
+      stepListeners.get(i).onStep(previousTimePoint, currTimePoint, currResult);
+    }
     if (!listenerList.isEmpty()) {
       PropertyChangeEvent evt1 = new PropertyChangeEvent(this, PROGRESS, previousTimePoint,
         currTimePoint);
@@ -518,39 +629,138 @@ protected MultiTable initResultMatrix(DESystem DES, double[] initialValues, doub
    */
   protected MultiTable initResultMatrix(DESystem DES, double[] initialValues, double timeBegin,
     int numSteps) {
-    int dim = DES.getDimension();
-    if (dim != initialValues.length) {
+    checkDimension(DES, initialValues);
+    return initResultMatrix(DES, initialValues, timePoints(timeBegin, numSteps));
+  }
+
+  /**
+   * @param DES
+   * @param initialValues
+   * @param timePoints
+   * @return table the initialized {@link MultiTable}
+   */
+  protected MultiTable initResultMatrix(DESystem DES, double[] initialValues, double[] timePoints) {
+    MultiTableSink sink = new MultiTableSink();
+    sink.open(timePoints, DES.getIdentifiers(), additionalValueIds(DES));
+    data = sink.getTable();
+    record(0, initialValues);
+    unstableFlag = false;
+    return data;
+  }
+
+  /**
+   * @param DES
+   * @param initialValues
+   * @throws IllegalArgumentException if the number of initial values does not match the
+   *                                  dimension of the given system.
+   */
+  private void checkDimension(DESystem DES, double[] initialValues) {
+    if (DES.getDimension() != initialValues.length) {
       // TODO: Localize
       throw new IllegalArgumentException(
           "The number of initial values must equal the dimension of the DE system.");
     }
+  }
+
+  /**
+   * @param timeBegin
+   * @param numSteps
+   * @return equidistant time points using the current step size.
+   */
+  private double[] timePoints(double timeBegin, int numSteps) {
     double[] timePoints = new double[numSteps];
     for (int i = 0; i < timePoints.length; i++) {
       timePoints[i] = timeBegin + (i * stepSize);
     }
-    return initResultMatrix(DES, initialValues, timePoints);
+    return timePoints;
+  }
+
+  /**
+   * @param DES
+   * @return the identifiers of the additional values that are included into the result or
+   * {@code null}.
+   */
+  private String[] additionalValueIds(DESystem DES) {
+    if (includeIntermediates && (DES instanceof RichDESystem)) {
+      return ((RichDESystem) DES).getAdditionalValueIds();
+    }
+    return null;
   }
 
   /**
+   * Opens the given {@link ResultSink} and prepares the time series that is needed for the
+   * computation of delayed values.
+   *
    * @param DES
    * @param initialValues
    * @param timePoints
-   * @return table the initialized {@link MultiTable}
+   * @param sink
+   * @throws DerivativeException if the sink cannot be opened.
    */
-  protected MultiTable initResultMatrix(DESystem DES, double[] initialValues, double[] timePoints) {
-    double[][] result = new double[timePoints.length][initialValues.length];
-    for (int i = 0; i != result.length; i++) {
-      Arrays.fill(result[i], Double.NaN);
+  protected void openResultSink(DESystem DES, double[] initialValues, double[] timePoints,
+    ResultSink sink) throws DerivativeException {
+    checkDimension(DES, initialValues);
+    try {
+      sink.open(timePoints, DES.getIdentifiers(), additionalValueIds(DES));
+    } catch (IOException exc) {
+      throw new DerivativeException(exc);
     }
-    System.arraycopy(initialValues, 0, result[0], 0, initialValues.length);
-    data = new MultiTable(timePoints, result, DES.getIdentifiers());
-    data.getBlock(0).setName("Values");
-    if (includeIntermediates && (DES instanceof RichDESystem)) {
-      data.addBlock(((RichDESystem) DES).getAdditionalValueIds());
-      data.getBlock(data.getBlockCount() - 1).setName("Additional values");
+    if (sink instanceof MultiTableSink) {
+      data = ((MultiTableSink) sink).getTable();
+    } else if (DES instanceof DelayedDESystem) {
+      MultiTableSink history = new MultiTableSink();
+      history.open(timePoints, DES.getIdentifiers(), null);
+      data = history.getTable();
+    } else {
+      data = null;
     }
+    record(0, initialValues);
     unstableFlag = false;
-    return data;
+    statistics.reset();
+  }
+
+  /**
+   * Memorizes the given state in the time series that is used for the computation of delayed
+   * values.
+   *
+   * @param rowIndex
+   * @param y
+   */
+  private void record(int rowIndex, double[] y) {
+    if (data != null) {
+      data.getBlock(0).setRowData(rowIndex, y);
+    }
+  }
+
+  /**
+   * Passes one row of the result to the given {@link ResultSink}.
+   *
+   * @param sink
+   * @param rowIndex
+   * @param t
+   * @param y
+   * @param v
+   * @throws DerivativeException if the sink cannot be written.
+   */
+  private void emit(ResultSink sink, int rowIndex, double t, double[] y, double[] v)
+      throws DerivativeException {
+    try {
+      sink.write(rowIndex, t, y, v);
+    } catch (IOException exc) {
+      throw new DerivativeException(exc);
+    }
+  }
+
+  /**
+   * @param sink
+   * @throws DerivativeException if the sink cannot be closed.
+   */
+  private void closeResultSink(ResultSink sink) throws DerivativeException {
+    try {
+      sink.close();
+    } catch (IOException exc) {
+      throw new DerivativeException(exc);
+    }
   }
 
   /* (non-Javadoc)
@@ -576,6 +786,14 @@ public boolean isUnstable() {
     return unstableFlag;
   }
 
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESSolver#getStatistics()
+   */
+  @Override
+  public SolverStatistics getStatistics() {
+    return statistics;
+  }
+
   /**
    * Checks if there was any change between the old values and new values.
    *
@@ -631,6 +849,7 @@ public boolean processEvents(EventDESystem EDES, double time, double previousTim
       throws DerivativeException {
     boolean hasNewEvents = false;
     EventInProgress event;
+    statistics.addEventChecks(1L);
     event = EDES.getNextEventAssignments(time, previousTime, yTemp);
     if (event != null) {
       hasNewEvents = true;
@@ -649,9 +868,8 @@ public boolean processEvents(EventDESystem EDES, double time, double previousTim
           System.arraycopy(result, 0, yTemp, 0, yTemp.length);
         }
       }
-      for (int index : event.getAssignments().keySet()) {
-        yTemp[index] = event.getAssignments().get(index);
-      }
+      event.applyAssignments(yTemp);
+      statistics.addEventFirings(1L);
       event = EDES.getNextEventAssignments(time, previousTime, yTemp);
     }
     return hasNewEvents;
@@ -713,6 +931,14 @@ public void removePropertyChangeListener(PropertyChangeListener listener) {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void removeStepListener(StepListener listener) {
+    stepListeners.remove(listener);
+  }
+
   /* (non-Javadoc)
    * @see org.apache.commons.math.ode.events.EventHandler#resetState(double, double[])
    */
@@ -771,59 +997,80 @@ public MultiTable solve(DESystem DES, double[] initialValues, double timeBegin,
   public MultiTable solve(DESystem DES, double[] initialValues, double timeBegin, double timeEnd,
     PropertyChangeListener propertyChangeListener)
         throws DerivativeException {
+    MultiTableSink sink = new MultiTableSink();
+    solve(DES, initialValues, timeBegin, timeEnd, sink, propertyChangeListener);
+    return sink.getTable();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void solve(DESystem DES, double[] initialValues, double timeBegin, double timeEnd,
+    ResultSink sink, PropertyChangeListener propertyChangeListener)
+        throws DerivativeException {
     if (DES instanceof DelayedDESystem) {
       ((DelayedDESystem) DES).registerDelayValueHolder(this);
     }
     intervalFactor = 100d / (timeEnd - timeBegin);
-    MultiTable data = initResultMatrix(DES, initialValues, timeBegin, timeEnd);
-    double[][] result = data.getBlock(0).getData();
-    double[] change = new double[initialValues.length];
-    double[] yTemp = new double[initialValues.length];
-    double[] yPrev = new double[initialValues.length];
-    double t = timeBegin;
-    double[] v = additionalResults(DES, t, result[0], data, 0);
-    boolean fastFlag = false;
-    if (DES instanceof FastProcessDESystem) {
-      fastFlag = ((FastProcessDESystem) DES).containsFastProcesses();
-    }
-    if (fastFlag) {
-      result[0] = computeSteadyState(((FastProcessDESystem) DES), result[0], timeBegin);
-    }
-
-    addPropertyChangeListener((SBMLinterpreter) DES);
-
-    // execute events that trigger at 0.0 and process rules on changes due to the events
-    processEventsAndRules(true, DES, 0d, 0d, result[0]);
-    System.arraycopy(result[0], 0, yTemp, 0, yTemp.length);
-    if (propertyChangeListener != null) {
-      propertyChangeListener.propertyChange(new PropertyChangeEvent(this, PROGRESS, -stepSize, 0d));
-      propertyChangeListener
-      .propertyChange(new PropertyChangeEvent(this, RESULT, result[0], result[0]));
-    }
-    firePropertyChange(-stepSize, 0d, result[0]);
-    for (int i = 1; (i < result.length) && (!Thread.currentThread().isInterrupted()); i++) {
-      double oldT = t;
-      System.arraycopy(yTemp, 0, yPrev, 0, yTemp.length);
-      t = computeNextState(DES, t, stepSize, yPrev, change, yTemp, true, false);
-      System.arraycopy(yTemp, 0, result[i], 0, yTemp.length);
-      if (i == 1) {
-        System.arraycopy(yPrev, 0, result[0], 0, yPrev.length);
+    double[] timePoints = timePoints(timeBegin, numSteps(timeBegin, timeEnd));
+    openResultSink(DES, initialValues, timePoints, sink);
+    boolean systemAdded = addSystemAsStepListener(DES);
+    try {
+      double[] y0 = initialValues.clone();
+      double[] change = new double[initialValues.length];
+      double[] yTemp = new double[initialValues.length];
+      double[] yPrev = new double[initialValues.length];
+      double t = timeBegin;
+      double[] v0 = additionalResults(DES, t, y0);
+      if (v0 != null) {
+        v0 = v0.clone();
+      }
+      boolean fastFlag = false;
+      if (DES instanceof FastProcessDESystem) {
+        fastFlag = ((FastProcessDESystem) DES).containsFastProcesses();
       }
       if (fastFlag) {
-        yTemp = computeSteadyState(((FastProcessDESystem) DES), result[i], timeBegin);
-        System.arraycopy(yTemp, 0, result[i], 0, yTemp.length);
+        y0 = computeSteadyState(((FastProcessDESystem) DES), y0, timeBegin);
       }
+
+      // execute events that trigger at 0.0 and process rules on changes due to the events
+      processEventsAndRules(true, DES, 0d, 0d, y0);
+      record(0, y0);
+      System.arraycopy(y0, 0, yTemp, 0, yTemp.length);
       if (propertyChangeListener != null) {
-        propertyChangeListener.propertyChange(new PropertyChangeEvent(this, PROGRESS, oldT, t));
-        propertyChangeListener.propertyChange(new PropertyChangeEvent(this, RESULT, yTemp, yTemp));
+        propertyChangeListener.propertyChange(new PropertyChangeEvent(this, PROGRESS, -stepSize, 0d));
+        propertyChangeListener.propertyChange(new PropertyChangeEvent(this, RESULT, y0, y0));
+      }
+      firePropertyChange(-stepSize, 0d, y0);
+      int i;
+      for (i = 1; (i < timePoints.length) && (!Thread.currentThread().isInterrupted()); i++) {
+        double oldT = t;
+        System.arraycopy(yTemp, 0, yPrev, 0, yTemp.length);
+        t = computeNextState(DES, t, stepSize, yPrev, change, yTemp, true, false);
+        if (i == 1) {
+          emit(sink, 0, timePoints[0], yPrev, v0);
+        }
+        if (fastFlag) {
+          yTemp = computeSteadyState(((FastProcessDESystem) DES), yTemp, timeBegin);
+        }
+        record(i, yTemp);
+        if (propertyChangeListener != null) {
+          propertyChangeListener.propertyChange(new PropertyChangeEvent(this, PROGRESS, oldT, t));
+          propertyChangeListener.propertyChange(new PropertyChangeEvent(this, RESULT, yTemp, yTemp));
+        }
+        emit(sink, i, t, yTemp, additionalResults(DES, t, yTemp));
+        firePropertyChange(oldT, t, yTemp);
+      }
+      if (i == 1) {
+        emit(sink, 0, timePoints[0], y0, v0);
+      }
+    } finally {
+      if (systemAdded) {
+        removeStepListener((StepListener) DES);
       }
-      v = additionalResults(DES, t, result[i], data, i);
-      //			if (logger.getLevel().intValue() < Level.INFO.intValue()) {
-      //				logger.fine("additional results: " + Arrays.toString(v));
-      //			}
-      firePropertyChange(oldT, t, yTemp);
+      closeResultSink(sink);
     }
-    return data;
   }
 
   /**
@@ -863,63 +1110,89 @@ public MultiTable solve(DESystem DES, double[] initialValues, double[] timepoint
    */
   @Override
   public MultiTable solve(DESystem DES, double[] initialValues, double[] timePoints,
+    PropertyChangeListener propertyChangeListener)
+        throws DerivativeException {
+    MultiTableSink sink = new MultiTableSink();
+    solve(DES, initialValues, timePoints, sink, propertyChangeListener);
+    return sink.getTable();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void solve(DESystem DES, double[] initialValues, double[] timePoints, ResultSink sink,
     PropertyChangeListener propertyChangeListener)
         throws DerivativeException {
     if (DES instanceof DelayedDESystem) {
       ((DelayedDESystem) DES).registerDelayValueHolder(this);
     }
-    MultiTable data = initResultMatrix(DES, initialValues, timePoints);
-    double[][] result = data.getBlock(0).getData();
-    double[] change = new double[initialValues.length];
-    double[] yPrev = new double[initialValues.length];
-    double[] yTemp = new double[initialValues.length];
-    double[] steady = new double[initialValues.length];
-    double t = timePoints[0];
-    double h = stepSize;
-    boolean fastFlag = false;
-    double[] v = additionalResults(DES, t, result[0], data, 0);
-    if (DES instanceof FastProcessDESystem) {
-      fastFlag = ((FastProcessDESystem) DES).containsFastProcesses();
-    }
-    if (fastFlag) {
-      result[0] = computeSteadyState(((FastProcessDESystem) DES), result[0], timePoints[0]);
-    }
-
-    addPropertyChangeListener((SBMLinterpreter) DES);
-    // execute events that trigger at 0.0 and process rules on changes due to the events
-    processEventsAndRules(true, DES, 0d, 0d, result[0]);
-    System.arraycopy(result[0], 0, yTemp, 0, result[0].length);
-    firePropertyChange(-stepSize, 0d, result[0]);
-    for (int i = 1; (i < timePoints.length) && (!Thread.currentThread().isInterrupted()); i++) {
-      h = stepSize;
-      // h = h / 10;
-      int steps = inBetweenSteps(timePoints[i - 1], timePoints[i], h);
-      for (int j = 1; j <= steps; j++) {
-        System.arraycopy(yTemp, 0, yPrev, 0, yTemp.length);
-        t = computeNextState(DES, t, h, yPrev, change, yTemp, true, false);
-        if ((i == 1) && (j == 1)) {
-          System.arraycopy(yPrev, 0, result[0], 0, yPrev.length);
-        }
+    openResultSink(DES, initialValues, timePoints, sink);
+    boolean systemAdded = addSystemAsStepListener(DES);
+    try {
+      double[] y0 = initialValues.clone();
+      double[] change = new double[initialValues.length];
+      double[] yPrev = new double[initialValues.length];
+      double[] yTemp = new double[initialValues.length];
+      double[] steady;
+      double t = timePoints[0];
+      double h = stepSize;
+      boolean fastFlag = false;
+      double[] v0 = additionalResults(DES, t, y0);
+      if (v0 != null) {
+        v0 = v0.clone();
       }
-      h = timePoints[i] - t;
-      if (h > 1E-14) {
-        System.arraycopy(yTemp, 0, yPrev, 0, yTemp.length);
-        t = computeNextState(DES, t, h, yTemp, change, yTemp, true, false);
+      if (DES instanceof FastProcessDESystem) {
+        fastFlag = ((FastProcessDESystem) DES).containsFastProcesses();
       }
-      System.arraycopy(yTemp, 0, result[i], 0, yTemp.length);
       if (fastFlag) {
-        steady = computeSteadyState(((FastProcessDESystem) DES), result[i], timePoints[0]);
-        System.arraycopy(steady, 0, result[i], 0, yTemp.length);
-        System.arraycopy(steady, 0, yTemp, 0, yTemp.length);
+        y0 = computeSteadyState(((FastProcessDESystem) DES), y0, timePoints[0]);
       }
-      v = additionalResults(DES, t, yTemp, data, i);
-      //			if (logger.getLevel().intValue() < Level.INFO.intValue()) {
-      //				logger.fine("additional results: " + Arrays.toString(v));
-      //			}
-      firePropertyChange(timePoints[i - 1], timePoints[i], yTemp);
-      t = timePoints[i];
+      // execute events that trigger at 0.0 and process rules on changes due to the events
+      processEventsAndRules(true, DES, 0d, 0d, y0);
+      record(0, y0);
+      System.arraycopy(y0, 0, yTemp, 0, y0.length);
+      firePropertyChange(-stepSize, 0d, y0);
+      boolean firstRowWritten = false;
+      for (int i = 1; (i < timePoints.length) && (!Thread.currentThread().isInterrupted()); i++) {
+        h = stepSize;
+        // h = h / 10;
+        int steps = inBetweenSteps(timePoints[i - 1], timePoints[i], h);
+        for (int j = 1; j <= steps; j++) {
+          System.arraycopy(yTemp, 0, yPrev, 0, yTemp.length);
+          t = computeNextState(DES, t, h, yPrev, change, yTemp, true, false);
+          if ((i == 1) && (j == 1)) {
+            emit(sink, 0, timePoints[0], yPrev, v0);
+            firstRowWritten = true;
+          }
+        }
+        if (!firstRowWritten) {
+          emit(sink, 0, timePoints[0], y0, v0);
+          firstRowWritten = true;
+        }
+        h = timePoints[i] - t;
+        if (h > 1E-14) {
+          System.arraycopy(yTemp, 0, yPrev, 0, yTemp.length);
+          t = computeNextState(DES, t, h, yTemp, change, yTemp, true, false);
+        }
+        if (fastFlag) {
+          steady = computeSteadyState(((FastProcessDESystem) DES), yTemp, timePoints[0]);
+          System.arraycopy(steady, 0, yTemp, 0, yTemp.length);
+        }
+        record(i, yTemp);
+        emit(sink, i, t, yTemp, additionalResults(DES, t, yTemp));
+        firePropertyChange(timePoints[i - 1], timePoints[i], yTemp);
+        t = timePoints[i];
+      }
+      if (!firstRowWritten) {
+        emit(sink, 0, timePoints[0], y0, v0);
+      }
+    } finally {
+      if (systemAdded) {
+        removeStepListener((StepListener) DES);
+      }
+      closeResultSink(sink);
     }
-    return data;
   }
 
   /**
@@ -938,10 +1211,21 @@ public MultiTable solve(DESystem DES, MultiTable.Block timeSeriesInitConditions,
   public MultiTable solve(DESystem DES, MultiTable.Block initConditions, double[] initialValues,
     PropertyChangeListener propertyChangeListener)
         throws DerivativeException {
+    MultiTableSink sink = new MultiTableSink();
+    solve(DES, initConditions, initialValues, sink, propertyChangeListener);
+    return sink.getTable();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void solve(DESystem DES, MultiTable.Block initConditions, double[] initialValues,
+    ResultSink sink, PropertyChangeListener propertyChangeListener)
+        throws DerivativeException {
     if (DES instanceof DelayedDESystem) {
       ((DelayedDESystem) DES).registerDelayValueHolder(this);
     }
-    addPropertyChangeListener((SBMLinterpreter) DES);
     double[] timePoints = initConditions.getTimePoints();
 
     // of items to be simulated, this will cause a problem!
@@ -964,49 +1248,50 @@ public MultiTable solve(DESystem DES, MultiTable.Block initConditions, double[]
         }
       }
     }
-    MultiTable data = initResultMatrix(DES, initialValues, timePoints);
-    double[][] result = data.getBlock(0).getData();
-    double[] yTemp = new double[DES.getDimension()];
-    double[] change = new double[DES.getDimension()];
-    double t = timePoints[0];
-    double[] v = additionalResults(DES, t, result[0], data, 0);
-    firePropertyChange(-stepSize, 0d, result[0]);
-    for (i = 1; (i < timePoints.length) && (!Thread.currentThread().isInterrupted()); i++) {
-      double h = stepSize;
-      if (!missingIds.isEmpty()) {
-        for (k = 0; k < initConditions.getColumnCount(); k++) {
-          yTemp[idIndex.get(initConditions.getColumnIdentifier(k))] = initConditions
-              .getValueAt(i - 1, k + 1);
+    openResultSink(DES, initialValues, timePoints, sink);
+    boolean systemAdded = addSystemAsStepListener(DES);
+    try {
+      // values of missing identifiers are carried over from the previous row
+      double[] yTemp = initialValues.clone();
+      double[] change = new double[DES.getDimension()];
+      double t = timePoints[0];
+      emit(sink, 0, t, yTemp, additionalResults(DES, t, yTemp));
+      firePropertyChange(-stepSize, 0d, yTemp);
+      for (i = 1; (i < timePoints.length) && (!Thread.currentThread().isInterrupted()); i++) {
+        double h = stepSize;
+        if (!missingIds.isEmpty()) {
+          for (k = 0; k < initConditions.getColumnCount(); k++) {
+            yTemp[idIndex.get(initConditions.getColumnIdentifier(k))] = initConditions
+                .getValueAt(i - 1, k + 1);
+          }
+        } else {
+          System.arraycopy(initConditions.getRow(i - 1), 0, yTemp, 0, yTemp.length);
         }
-        for (String key : missingIds) {
-          k = idIndex.get(key);
-          yTemp[k] = result[i - 1][k];
+        for (j = 0; j < inBetweenSteps(timePoints[i - 1], timePoints[i], h); j++) {
+          computeChange(DES, yTemp, t, h, change, false);
+          checkSolution(change, yTemp);
+          Mathematics.vvAdd(yTemp, change, yTemp);
+          t += h;
         }
-      } else {
-        System.arraycopy(initConditions.getRow(i - 1), 0, yTemp, 0, yTemp.length);
-      }
-      for (j = 0; j < inBetweenSteps(timePoints[i - 1], timePoints[i], h); j++) {
-        computeChange(DES, yTemp, t, h, change, false);
-        checkSolution(change, yTemp);
-        Mathematics.vvAdd(yTemp, change, yTemp);
-        t += h;
+        h = timePoints[i] - t;
+        if (h > 1E-14d) {
+          computeChange(DES, yTemp, t, h, change, false);
+          checkSolution(change);
+          Mathematics.vvAdd(yTemp, change, yTemp);
+        }
+        checkNonNegativity(yTemp);
+        record(i, yTemp);
+        emit(sink, i, t, yTemp, additionalResults(DES, t, yTemp));
+        firePropertyChange(timePoints[i - 1] * intervalFactor, timePoints[i] * intervalFactor,
+          yTemp);
+        t = timePoints[i];
       }
-      h = timePoints[i] - t;
-      if (h > 1E-14d) {
-        computeChange(DES, yTemp, t, h, change, false);
-        checkSolution(change);
-        Mathematics.vvAdd(yTemp, change, yTemp);
+    } finally {
+      if (systemAdded) {
+        removeStepListener((StepListener) DES);
       }
-      checkNonNegativity(yTemp);
-      System.arraycopy(yTemp, 0, result[i], 0, yTemp.length);
-      v = additionalResults(DES, t, yTemp, data, i);
-      //			if ((logger != null) && (logger.getLevel().intValue() < Level.INFO.intValue())) {
-      //				logger.fine("additional results: " + Arrays.toString(v));
-      //			}
-      firePropertyChange(timePoints[i - 1] * intervalFactor, timePoints[i] * intervalFactor, yTemp);
-      t = timePoints[i];
+      closeResultSink(sink);
     }
-    return data;
   }
 
   /*
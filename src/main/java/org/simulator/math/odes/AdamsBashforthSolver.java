@@ -56,7 +56,6 @@ public AdamsBashforthSolver() {
    */
   public AdamsBashforthSolver(AdamsBashforthSolver adamsSolver) {
     super(adamsSolver);
-    integrator = adamsSolver.getIntegrator();
   }
 
   /**
@@ -88,8 +87,14 @@ public AdamsBashforthSolver clone() {
    */
   @Override
   public void createIntegrator() {
-    integrator = new AdamsBashforthIntegrator(5, Math.min(1e-8d, Math.min(1d, getStepSize())),
-        Math.min(1d, getStepSize()), getAbsTol(), getRelTol());
+    double maxStep = Math.min(1d, getStepSize());
+    double minStep = Math.min(1e-8d, maxStep);
+    if (getAbsTolerances() != null) {
+      integrator = new AdamsBashforthIntegrator(5, minStep, maxStep,
+          getAbsTolerances(), getRelTolerances());
+    } else {
+      integrator = new AdamsBashforthIntegrator(5, minStep, maxStep, getAbsTol(), getRelTol());
+    }
   }
 
   /* (non-Javadoc)
@@ -56,7 +56,6 @@ public AdamsMoultonSolver() {
    */
   public AdamsMoultonSolver(AdamsMoultonSolver adamsSolver) {
     super(adamsSolver);
-    integrator = adamsSolver.getIntegrator();
   }
 
   /**
@@ -88,8 +87,14 @@ public AdamsMoultonSolver clone() {
    */
   @Override
   protected void createIntegrator() {
-    integrator = new AdamsMoultonIntegrator(5, Math.min(1e-8, Math.min(1.0, getStepSize())),
-        Math.min(1.0, getStepSize()), getAbsTol(), getRelTol());
+    double maxStep = Math.min(1.0, getStepSize());
+    double minStep = Math.min(1e-8, maxStep);
+    if (getAbsTolerances() != null) {
+      integrator = new AdamsMoultonIntegrator(5, minStep, maxStep,
+          getAbsTolerances(), getRelTolerances());
+    } else {
+      integrator = new AdamsMoultonIntegrator(5, minStep, maxStep, getAbsTol(), getRelTol());
+    }
   }
 
   /* (non-Javadoc)
@@ -24,9 +24,18 @@
  */
 package org.simulator.math.odes;
 
+import org.apache.commons.math.ode.DerivativeException;
+
 /**
  * This is an abstract class for solvers with adaptive stepsizes and given relative and absolute
  * tolerances.
+ * <p>
+ * Besides scalar tolerances, which apply to all variables, tolerances can be given for each
+ * variable separately, e.g., when species with very different orders of magnitude are part of the
+ * same model. Alternatively, or in addition, the absolute tolerances can be scaled automatically by
+ * the magnitude of the initial value of each variable. The tolerances that are actually used are
+ * determined at the beginning of each simulation and are available to subclasses through
+ * {@link #getAbsTolerances()} and {@link #getRelTolerances()}.
  *
  * @author Andreas Dr&auml;ger
  * @version $Rev$
@@ -49,6 +58,30 @@ public abstract class AdaptiveStepsizeIntegrator extends AbstractDESSolver {
    */
   protected double relTol = 1E-6d;
 
+  /**
+   * Absolute tolerances for each variable or {@code null} if {@link #absTol} applies to all
+   * variables.
+   */
+  private double[] absTolVector;
+
+  /**
+   * Relative tolerances for each variable or {@code null} if {@link #relTol} applies to all
+   * variables.
+   */
+  private double[] relTolVector;
+
+  /**
+   * If {@code true}, the absolute tolerance of each variable with a non-zero initial value is
+   * multiplied by the magnitude of this value.
+   */
+  private boolean scaleAbsTol;
+
+  /**
+   * The absolute and relative tolerances of the current simulation, or {@code null} if only the
+   * scalar tolerances are used.
+   */
+  private double[] absTolerances, relTolerances;
+
   /**
    *
    */
@@ -65,6 +98,13 @@ public AdaptiveStepsizeIntegrator(AdaptiveStepsizeIntegrator adaptiveStepSizeInt
     super(adaptiveStepSizeIntegrator);
     absTol = adaptiveStepSizeIntegrator.getAbsTol();
     relTol = adaptiveStepSizeIntegrator.getRelTol();
+    absTolVector = adaptiveStepSizeIntegrator.absTolVector;
+    relTolVector = adaptiveStepSizeIntegrator.relTolVector;
+    scaleAbsTol = adaptiveStepSizeIntegrator.scaleAbsTol;
+    if (adaptiveStepSizeIntegrator.absTolerances != null) {
+      absTolerances = adaptiveStepSizeIntegrator.absTolerances.clone();
+      relTolerances = adaptiveStepSizeIntegrator.relTolerances.clone();
+    }
   }
 
   /**
@@ -98,16 +138,140 @@ public double getRelTol() {
   }
 
   /**
-   * @param absTol the absolute tolerance to set
+   * @return the absolute tolerances for each variable or {@code null} if the scalar absolute
+   * tolerance applies to all variables
+   */
+  public double[] getAbsTolVector() {
+    return absTolVector;
+  }
+
+  /**
+   * @return the relative tolerances for each variable or {@code null} if the scalar relative
+   * tolerance applies to all variables
+   */
+  public double[] getRelTolVector() {
+    return relTolVector;
+  }
+
+  /**
+   * @return the absolute tolerances of the current simulation or {@code null} if the scalar
+   * tolerances apply to all variables
+   */
+  protected double[] getAbsTolerances() {
+    return absTolerances;
+  }
+
+  /**
+   * @return the relative tolerances of the current simulation or {@code null} if the scalar
+   * tolerances apply to all variables
+   */
+  protected double[] getRelTolerances() {
+    return relTolerances;
+  }
+
+  /**
+   * @return whether the absolute tolerances are scaled by the magnitudes of the initial values
+   */
+  public boolean isScaleAbsTol() {
+    return scaleAbsTol;
+  }
+
+  /**
+   * @param absTol the absolute tolerance to set for all variables
    */
   public void setAbsTol(double absTol) {
     this.absTol = absTol;
+    absTolVector = null;
+    tolerancesChanged();
+  }
+
+  /**
+   * @param absTol the absolute tolerance of each variable. {@code null} restores the scalar
+   *               absolute tolerance.
+   */
+  public void setAbsTol(double[] absTol) {
+    absTolVector = (absTol != null) ? absTol.clone() : null;
+    tolerancesChanged();
   }
 
   /**
-   * @param relTol the relative tolerance to set
+   * @param relTol the relative tolerance to set for all variables
    */
   public void setRelTol(double relTol) {
     this.relTol = relTol;
+    relTolVector = null;
+    tolerancesChanged();
+  }
+
+  /**
+   * @param relTol the relative tolerance of each variable. {@code null} restores the scalar
+   *               relative tolerance.
+   */
+  public void setRelTol(double[] relTol) {
+    relTolVector = (relTol != null) ? relTol.clone() : null;
+    tolerancesChanged();
+  }
+
+  /**
+   * Switches the automatic scaling of absolute tolerances on or off. If switched on, the absolute
+   * tolerance of each variable with a non-zero initial value is multiplied by the magnitude of this
+   * value, so that, e.g., species in the nanomolar range are computed as accurately as those in
+   * the millimolar range.
+   *
+   * @param scaleAbsTol
+   */
+  public void setScaleAbsTol(boolean scaleAbsTol) {
+    this.scaleAbsTol = scaleAbsTol;
+    tolerancesChanged();
+  }
+
+  /**
+   * Determines the tolerances of each variable for a simulation starting from the given initial
+   * values.
+   *
+   * @param initialValues
+   */
+  protected void initTolerances(double[] initialValues) {
+    if ((absTolVector == null) && (relTolVector == null) && !scaleAbsTol) {
+      if (absTolerances != null) {
+        absTolerances = relTolerances = null;
+        tolerancesChanged();
+      }
+      return;
+    }
+    int n = initialValues.length;
+    if (((absTolVector != null) && (absTolVector.length != n))
+        || ((relTolVector != null) && (relTolVector.length != n))) {
+      // TODO: Localize
+      throw new IllegalArgumentException(
+          "The number of tolerances must equal the dimension of the DE system.");
+    }
+    absTolerances = new double[n];
+    relTolerances = new double[n];
+    for (int i = 0; i < n; i++) {
+      absTolerances[i] = (absTolVector != null) ? absTolVector[i] : absTol;
+      relTolerances[i] = (relTolVector != null) ? relTolVector[i] : relTol;
+      if (scaleAbsTol && (initialValues[i] != 0d) && Double.isFinite(initialValues[i])) {
+        absTolerances[i] *= Math.abs(initialValues[i]);
+      }
+    }
+    tolerancesChanged();
+  }
+
+  /**
+   * Called whenever the tolerances have been changed. Subclasses that pass the tolerances to some
+   * underlying integrator should override this method.
+   */
+  protected void tolerancesChanged() {
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#openResultSink(org.simulator.math.odes.DESystem, double[], double[], org.simulator.math.odes.ResultSink)
+   */
+  @Override
+  protected void openResultSink(DESystem DES, double[] initialValues, double[] timePoints,
+    ResultSink sink) throws DerivativeException {
+    super.openResultSink(DES, initialValues, timePoints, sink);
+    initTolerances(initialValues);
   }
 }
@@ -0,0 +1,562 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.simulator.math.MatrixOperations;
+import org.simulator.math.MatrixOperations.MatrixException;
+
+/**
+ * A solver that detects whether a system is stiff and integrates it with an explicit method
+ * ({@link DormandPrince54Solver}) while it is not, and with an implicit method
+ * ({@link RosenbrockSolver}) while it is. Stiffness may change in the course of a simulation,
+ * e.g., when a fast reaction is switched on by an event, so the choice is revised regularly.
+ * <p>
+ * Stiffness is judged from the spectral radius &rho; of the dissipative part of the Jacobian
+ * matrix, i.e., the largest magnitude of its eigenvalues with negative real part. An explicit
+ * method needs about &rho; h / 3.3 steps within an interval of length h just to remain stable,
+ * hence the system is considered stiff for the current step size h if &rho; h exceeds the
+ * {@link #getStiffnessThreshold() stiffness threshold}. The eigenvalues are computed from a
+ * finite-difference approximation of the Jacobian with
+ * {@link MatrixOperations#balance(double[][])}, {@link MatrixOperations#elmhes(double[][])} and
+ * {@link MatrixOperations#hqr(double[][], double[], double[])}. For large systems, the dominant
+ * eigenvalue is estimated by power iteration instead.
+ * <p>
+ * Each interval that is integrated with the explicit method also serves as a trial: if the
+ * explicit method reaches the {@link #getExplicitStepLimit() step limit} or becomes unstable, it
+ * stops and the interval is repeated with the implicit method. The {@link SolverStatistics} of
+ * this solver include those of both methods.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class AutomaticSolver extends AdaptiveStepsizeIntegrator {
+
+  /**
+   * Generated serial version identifier.
+   */
+  private static final long serialVersionUID = 4378126599346131740L;
+
+  /**
+   * A {@link Logger} for this class.
+   */
+  private static final Logger logger = Logger.getLogger(AutomaticSolver.class.getName());
+
+  /**
+   * The square root of the machine precision, used for finite differences.
+   */
+  private static final double SQRT_EPS = Math.sqrt(Math.ulp(1d));
+
+  /**
+   * The number of iterations of the power method.
+   */
+  private static final int POWER_ITERATIONS = 30;
+
+  /**
+   * The explicit and the implicit method.
+   */
+  private AdaptiveStepsizeIntegrator explicitSolver, implicitSolver;
+
+  /**
+   * The method that integrates the current interval or {@code null} before the first interval.
+   */
+  private AdaptiveStepsizeIntegrator current;
+
+  /**
+   * The threshold for &rho; h above which a system is considered stiff.
+   */
+  private double stiffnessThreshold;
+
+  /**
+   * The number of intervals after which stiffness is assessed again.
+   */
+  private int checkInterval;
+
+  /**
+   * The number of steps within one interval above which the explicit method is abandoned.
+   */
+  private long explicitStepLimit;
+
+  /**
+   * The dimension above which the spectral radius is estimated by power iteration.
+   */
+  private int eigenvalueDimensionLimit;
+
+  /**
+   * The number of intervals since stiffness has been assessed.
+   */
+  private int intervalsSinceCheck;
+
+  /**
+   * The most recent estimate of the spectral radius.
+   */
+  private double spectralRadius;
+
+  /**
+   * Work arrays for the Jacobian matrix and the derivatives.
+   */
+  private transient double[][] jacobian;
+  private transient double[] f0, f1, yPerturbed, v;
+
+  /**
+   * Creates a new solver with default settings.
+   */
+  public AutomaticSolver() {
+    super();
+    init();
+  }
+
+  /**
+   * @param stepSize
+   */
+  public AutomaticSolver(double stepSize) {
+    super(stepSize);
+    init();
+  }
+
+  /**
+   * @param stepSize
+   * @param nonnegative the nonnegative flag of the super class
+   * @see AbstractDESSolver
+   */
+  public AutomaticSolver(double stepSize, boolean nonnegative) {
+    super(stepSize, nonnegative);
+    init();
+  }
+
+  /**
+   * clone constructor
+   *
+   * @param solver
+   */
+  public AutomaticSolver(AutomaticSolver solver) {
+    super(solver);
+    init();
+    stiffnessThreshold = solver.getStiffnessThreshold();
+    checkInterval = solver.getCheckInterval();
+    explicitStepLimit = solver.getExplicitStepLimit();
+    eigenvalueDimensionLimit = solver.getEigenvalueDimensionLimit();
+  }
+
+  /**
+   * Creates both methods and applies the default settings.
+   */
+  private void init() {
+    explicitSolver = new DormandPrince54Solver(getStepSize(), isNonnegative());
+    implicitSolver = new RosenbrockSolver(2, getStepSize());
+    implicitSolver.setNonnegative(isNonnegative());
+    stiffnessThreshold = 50d;
+    checkInterval = 10;
+    explicitStepLimit = 500L;
+    eigenvalueDimensionLimit = 100;
+    tolerancesChanged();
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#clone()
+   */
+  @Override
+  public AutomaticSolver clone() {
+    return new AutomaticSolver(this);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#setStepSize(double)
+   */
+  @Override
+  public void setStepSize(double stepSize) {
+    super.setStepSize(stepSize);
+    // called by the super constructor before both methods exist
+    if (explicitSolver != null) {
+      explicitSolver.setStepSize(stepSize);
+      implicitSolver.setStepSize(stepSize);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#setNonnegative(boolean)
+   */
+  @Override
+  public void setNonnegative(boolean nonnegative) {
+    super.setNonnegative(nonnegative);
+    if (explicitSolver != null) {
+      explicitSolver.setNonnegative(nonnegative);
+      implicitSolver.setNonnegative(nonnegative);
+    }
+  }
+
+  /**
+   * Passes the tolerances to both methods.
+   *
+   * @see org.simulator.math.odes.AdaptiveStepsizeIntegrator#tolerancesChanged()
+   */
+  @Override
+  protected void tolerancesChanged() {
+    if (explicitSolver == null) {
+      return;
+    }
+    for (AdaptiveStepsizeIntegrator solver : new AdaptiveStepsizeIntegrator[] {explicitSolver, implicitSolver}) {
+      solver.setAbsTol(getAbsTol());
+      solver.setRelTol(getRelTol());
+      solver.setAbsTol(getAbsTolVector());
+      solver.setRelTol(getRelTolVector());
+      solver.setScaleAbsTol(isScaleAbsTol());
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AdaptiveStepsizeIntegrator#openResultSink(org.simulator.math.odes.DESystem, double[], double[], org.simulator.math.odes.ResultSink)
+   */
+  @Override
+  protected void openResultSink(DESystem DES, double[] initialValues, double[] timePoints,
+    ResultSink sink) throws DerivativeException {
+    super.openResultSink(DES, initialValues, timePoints, sink);
+    explicitSolver.initTolerances(initialValues);
+    implicitSolver.initTolerances(initialValues);
+    current = null;
+    intervalsSinceCheck = 0;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#computeChange(org.simulator.math.odes.DESystem, double[], double, double, double[], boolean)
+   */
+  @Override
+  public double[] computeChange(DESystem DES, double[] y, double t, double stepSize,
+    double[] change, boolean steadyState) throws DerivativeException {
+    if ((current == null) || (intervalsSinceCheck >= checkInterval)) {
+      boolean stiff = isStiff(DES, t, y, stepSize);
+      intervalsSinceCheck = 0;
+      select(stiff ? implicitSolver : explicitSolver);
+    }
+    intervalsSinceCheck++;
+    delegate(DES, y, t, stepSize, change, steadyState);
+    if (current == explicitSolver) {
+      // exceeding the step limit aborts the trial and sets the unstable flag
+      if (explicitSolver.isUnstable()) {
+        logger.log(Level.FINE, "Explicit method struggles at t = {0}, switching to implicit method", t);
+        select(implicitSolver);
+        intervalsSinceCheck = 0;
+        delegate(DES, y, t, stepSize, change, steadyState);
+      }
+    }
+    return change;
+  }
+
+  /**
+   * Integrates one interval with the current method and accumulates its statistics.
+   */
+  private void delegate(DESystem DES, double[] y, double t, double stepSize, double[] change,
+    boolean steadyState) throws DerivativeException {
+    current.getStatistics().reset();
+    current.setUnstableFlag(false);
+    if (current instanceof FirstOrderSolver) {
+      // the integrator is created anew whenever the step size or the tolerances change
+      ((FirstOrderSolver) current).getIntegrator().setMaxEvaluations(getExplicitEvaluationLimit());
+    }
+    current.computeChange(DES, y, t, stepSize, change, steadyState);
+    getStatistics().add(current.getStatistics());
+    if (current.isUnstable()) {
+      setUnstableFlag(true);
+    }
+  }
+
+  /**
+   * @return the number of evaluations of the system within one interval at which the explicit
+   * method stops, i.e., six evaluations for each of the {@link #getExplicitStepLimit()} steps
+   * of the Dormand-Prince method plus those for the initial step size
+   */
+  private int getExplicitEvaluationLimit() {
+    return (int) Math.min(Integer.MAX_VALUE, 6L * Math.min(explicitStepLimit, Integer.MAX_VALUE) + 2L);
+  }
+
+  /**
+   * @param solver the method for the next intervals
+   */
+  private void select(AdaptiveStepsizeIntegrator solver) {
+    if ((current != null) && (current != solver)) {
+      getStatistics().addMethodSwitches(1L);
+    }
+    current = solver;
+  }
+
+  /**
+   * @param DES
+   * @param t
+   * @param y
+   * @param stepSize
+   * @return whether the system is stiff in the given state for the given step size
+   * @throws DerivativeException
+   */
+  private boolean isStiff(DESystem DES, double t, double[] y, double stepSize)
+      throws DerivativeException {
+    spectralRadius = estimateSpectralRadius(DES, t, y);
+    double stiffness = spectralRadius * Math.abs(stepSize);
+    // hysteresis: leave the implicit method only if the system is clearly no longer stiff
+    if (current == implicitSolver) {
+      return stiffness > stiffnessThreshold / 4d;
+    }
+    return stiffness > stiffnessThreshold;
+  }
+
+  /**
+   * Estimates the spectral radius of the dissipative part of the Jacobian matrix of the given
+   * system in the given state, i.e., the largest magnitude of its eigenvalues with negative real
+   * part. For systems with more than {@link #getEigenvalueDimensionLimit()} variables, the
+   * magnitude of the dominant eigenvalue is estimated by power iteration.
+   *
+   * @param DES the differential equation system
+   * @param t   the current time
+   * @param y   the current state
+   * @return the estimated spectral radius
+   * @throws DerivativeException
+   */
+  public double estimateSpectralRadius(DESystem DES, double t, double[] y)
+      throws DerivativeException {
+    int n = y.length;
+    if ((f0 == null) || (f0.length != n)) {
+      f0 = new double[n];
+      f1 = new double[n];
+      yPerturbed = new double[n];
+      v = new double[n];
+      jacobian = null;
+    }
+    computeDerivatives(DES, t, y, f0);
+    if (n > eigenvalueDimensionLimit) {
+      return powerIteration(DES, t, y);
+    }
+    if (jacobian == null) {
+      jacobian = new double[n][n];
+    }
+    // variables that are zero are perturbed relative to the magnitude of the whole state
+    double floor = 1E-6d;
+    for (int j = 0; j < n; j++) {
+      floor = Math.max(floor, 1E-3d * Math.abs(y[j]));
+    }
+    System.arraycopy(y, 0, yPerturbed, 0, n);
+    for (int j = 0; j < n; j++) {
+      double delta = SQRT_EPS * Math.max(Math.abs(y[j]), floor);
+      yPerturbed[j] = y[j] + delta;
+      computeDerivatives(DES, t, yPerturbed, f1);
+      yPerturbed[j] = y[j];
+      for (int i = 0; i < n; i++) {
+        jacobian[i][j] = (f1[i] - f0[i]) / delta;
+      }
+    }
+    getStatistics().addJacobianEvaluations(1L);
+    long start = getStatistics().start();
+    double[] wr = new double[n], wi = new double[n];
+    try {
+      MatrixOperations.balance(jacobian);
+      MatrixOperations.elmhes(jacobian);
+      MatrixOperations.hqr(jacobian, wr, wi);
+    } catch (MatrixException exc) {
+      logger.log(Level.FINE, "Eigenvalues did not converge, using power iteration", exc);
+      return powerIteration(DES, t, y);
+    } finally {
+      getStatistics().addLinearAlgebraTime(getStatistics().elapsed(start));
+    }
+    double radius = 0d;
+    for (int i = 0; i < n; i++) {
+      if (wr[i] < 0d) {
+        radius = Math.max(radius, Math.hypot(wr[i], wi[i]));
+      }
+    }
+    return radius;
+  }
+
+  /**
+   * Estimates the magnitude of the dominant eigenvalue of the Jacobian matrix with directional
+   * finite differences, which requires one evaluation of the system per iteration. The derivatives
+   * in the given state must be in {@link #f0}.
+   *
+   * @param DES
+   * @param t
+   * @param y
+   * @return the estimated magnitude of the dominant eigenvalue
+   * @throws DerivativeException
+   */
+  private double powerIteration(DESystem DES, double t, double[] y) throws DerivativeException {
+    int n = y.length;
+    double yNorm = 0d;
+    for (int i = 0; i < n; i++) {
+      // alternating signs avoid starting orthogonal to the dominant eigenvector in conservation laws
+      v[i] = ((i % 2) == 0 ? 1d : -1d) / Math.sqrt(n);
+      yNorm = Math.max(yNorm, Math.abs(y[i]));
+    }
+    double delta = SQRT_EPS * Math.max(yNorm, 1E-6d);
+    double radius = 0d;
+    for (int k = 0; k < POWER_ITERATIONS; k++) {
+      for (int i = 0; i < n; i++) {
+        yPerturbed[i] = y[i] + delta * v[i];
+      }
+      computeDerivatives(DES, t, yPerturbed, f1);
+      double norm = 0d;
+      for (int i = 0; i < n; i++) {
+        v[i] = (f1[i] - f0[i]) / delta;
+        norm += v[i] * v[i];
+      }
+      norm = Math.sqrt(norm);
+      if (norm == 0d) {
+        return 0d;
+      }
+      radius = norm;
+      for (int i = 0; i < n; i++) {
+        v[i] /= norm;
+      }
+    }
+    return radius;
+  }
+
+  /**
+   * @return {@code true} if the current (or last) interval has been integrated with the implicit
+   * method
+   */
+  public boolean isStiff() {
+    return current == implicitSolver;
+  }
+
+  /**
+   * @return the most recent estimate of the spectral radius of the dissipative part of the
+   * Jacobian matrix
+   */
+  public double getSpectralRadius() {
+    return spectralRadius;
+  }
+
+  /**
+   * @return the method that integrates the current (or last) interval or {@code null} before the
+   * first simulation
+   */
+  public AdaptiveStepsizeIntegrator getCurrentSolver() {
+    return current;
+  }
+
+  /**
+   * @return the explicit method
+   */
+  public AdaptiveStepsizeIntegrator getExplicitSolver() {
+    return explicitSolver;
+  }
+
+  /**
+   * @return the implicit method
+   */
+  public AdaptiveStepsizeIntegrator getImplicitSolver() {
+    return implicitSolver;
+  }
+
+  /**
+   * @return the threshold for the product of spectral radius and step size above which a system
+   * is considered stiff
+   */
+  public double getStiffnessThreshold() {
+    return stiffnessThreshold;
+  }
+
+  /**
+   * @param stiffnessThreshold the threshold for the product of spectral radius and step size
+   *                           above which a system is considered stiff
+   */
+  public void setStiffnessThreshold(double stiffnessThreshold) {
+    this.stiffnessThreshold = stiffnessThreshold;
+  }
+
+  /**
+   * @return the number of intervals after which stiffness is assessed again
+   */
+  public int getCheckInterval() {
+    return checkInterval;
+  }
+
+  /**
+   * @param checkInterval the number of intervals after which stiffness is assessed again
+   */
+  public void setCheckInterval(int checkInterval) {
+    this.checkInterval = checkInterval;
+  }
+
+  /**
+   * @return the number of steps within one interval above which the explicit method is abandoned
+   */
+  public long getExplicitStepLimit() {
+    return explicitStepLimit;
+  }
+
+  /**
+   * @param explicitStepLimit the number of steps within one interval above which the explicit
+   *                          method is abandoned
+   */
+  public void setExplicitStepLimit(long explicitStepLimit) {
+    this.explicitStepLimit = explicitStepLimit;
+  }
+
+  /**
+   * @return the dimension above which the spectral radius is estimated by power iteration
+   */
+  public int getEigenvalueDimensionLimit() {
+    return eigenvalueDimensionLimit;
+  }
+
+  /**
+   * @param eigenvalueDimensionLimit the dimension above which the spectral radius is estimated by
+   *                                 power iteration
+   */
+  public void setEigenvalueDimensionLimit(int eigenvalueDimensionLimit) {
+    this.eigenvalueDimensionLimit = eigenvalueDimensionLimit;
+  }
+
+  /**
+   * Events are always processed between the intervals, independent of the method in use. The
+   * implicit method additionally processes events within an interval, after which they are no
+   * longer triggered at its end.
+   *
+   * @see org.simulator.math.odes.AbstractDESSolver#hasSolverEventProcessing()
+   */
+  @Override
+  protected boolean hasSolverEventProcessing() {
+    return false;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#getName()
+   */
+  @Override
+  public String getName() {
+    return "Automatic stiffness-detecting solver";
+  }
+
+  /**
+   * @return the KiSAO term of the method currently in use or that of the explicit method before
+   * the first simulation
+   * @see org.simulator.math.odes.DESSolver#getKiSAOterm()
+   */
+  @Override
+  public int getKiSAOterm() {
+    return (current != null) ? current.getKiSAOterm() : explicitSolver.getKiSAOterm();
+  }
+}
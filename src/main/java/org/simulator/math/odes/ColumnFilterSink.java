@@ -0,0 +1,148 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A {@link ResultSink} that only passes a subset of all columns to another
+ * {@link ResultSink}. Identifiers can refer to state variables as well as to
+ * additional (intermediate) values; identifiers that do not occur in the
+ * result are ignored.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class ColumnFilterSink implements ResultSink {
+
+  /**
+   * The identifiers of all columns to be kept.
+   */
+  private Set<String> selection;
+
+  /**
+   * The sink that receives the filtered rows.
+   */
+  private ResultSink target;
+
+  /**
+   * Positions of the selected state variables and additional values.
+   */
+  private int[] index, additionalIndex;
+
+  /**
+   * Buffers for the filtered rows, re-used in each call of
+   * {@link #write(int, double, double[], double[])}.
+   */
+  private double[] row, additionalRow;
+
+  /**
+   * @param target      the sink that receives the filtered rows.
+   * @param identifiers the identifiers of all columns to be kept.
+   */
+  public ColumnFilterSink(ResultSink target, String... identifiers) {
+    this.target = target;
+    selection = new HashSet<>(Arrays.asList(identifiers));
+  }
+
+  /**
+   * @param identifiers
+   * @return the positions of all selected elements within the given array.
+   */
+  private int[] select(String[] identifiers) {
+    int[] positions = new int[identifiers.length];
+    int count = 0;
+    for (int i = 0; i < identifiers.length; i++) {
+      if (selection.contains(identifiers[i])) {
+        positions[count++] = i;
+      }
+    }
+    return Arrays.copyOf(positions, count);
+  }
+
+  /**
+   * @param identifiers
+   * @param positions
+   * @return the identifiers at the given positions.
+   */
+  private static String[] subset(String[] identifiers, int[] positions) {
+    String[] ids = new String[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      ids[i] = identifiers[positions[i]];
+    }
+    return ids;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#open(double[], java.lang.String[], java.lang.String[])
+   */
+  @Override
+  public void open(double[] timePoints, String[] identifiers, String[] additionalIdentifiers)
+      throws IOException {
+    index = select(identifiers);
+    row = new double[index.length];
+    String[] additionalIds = null;
+    if (additionalIdentifiers != null) {
+      additionalIndex = select(additionalIdentifiers);
+      additionalRow = new double[additionalIndex.length];
+      additionalIds = subset(additionalIdentifiers, additionalIndex);
+    } else {
+      additionalIndex = null;
+      additionalRow = null;
+    }
+    target.open(timePoints, subset(identifiers, index), additionalIds);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#write(int, double, double[], double[])
+   */
+  @Override
+  public void write(int rowIndex, double time, double[] values, double[] additionalValues)
+      throws IOException {
+    for (int i = 0; i < index.length; i++) {
+      row[i] = values[index[i]];
+    }
+    double[] additional = null;
+    if ((additionalValues != null) && (additionalIndex != null)) {
+      for (int i = 0; i < additionalIndex.length; i++) {
+        additionalRow[i] = additionalValues[additionalIndex[i]];
+      }
+      additional = additionalRow;
+    }
+    target.write(rowIndex, time, row, additional);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#close()
+   */
+  @Override
+  public void close() throws IOException {
+    target.close();
+  }
+
+}
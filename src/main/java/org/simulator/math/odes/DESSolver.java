@@ -46,6 +46,20 @@ public interface DESSolver extends Cloneable, Serializable {
    */
   void addPropertyChangeListener(PropertyChangeListener listener);
 
+  /**
+   * Adds a {@link StepListener} that is notified after every output step of this solver. If the
+   * system to be solved is itself a {@link StepListener}, it is notified while it is being solved
+   * without being added. Solvers that do not support {@link StepListener}s keep the default
+   * implementation, which throws an {@link UnsupportedOperationException}.
+   *
+   * @param listener
+   */
+  default void addStepListener(StepListener listener) {
+    // TODO: Localize
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support step listeners.");
+  }
+
   /**
    * @return the cloned solver
    */
@@ -54,7 +68,8 @@ public interface DESSolver extends Cloneable, Serializable {
   /**
    * Tell each listener that property value changed. CurrTime is the current time point of
    * simulation, respectively. CurrResult is the row of the result at the current time point of
-   * simulation.
+   * simulation. {@link StepListener}s are called directly, whereas event objects are only created
+   * if {@link PropertyChangeListener}s are registered.
    *
    * @param previousTimePoint
    * @param currTimePoint
@@ -95,6 +110,19 @@ void firePropertyChange(double previousTimePoint, double currTimePoint,
    */
   boolean isUnstable();
 
+  /**
+   * The counters of the last (or current) simulation, e.g., the number of steps and of evaluations
+   * of the right-hand side. Solvers that do not count keep the default implementation, which
+   * throws an {@link UnsupportedOperationException}.
+   *
+   * @return the statistics of this solver
+   */
+  default SolverStatistics getStatistics() {
+    // TODO: Localize
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not provide solver statistics.");
+  }
+
   /**
    * remove PropertyChangedListener to this Solver
    *
@@ -102,6 +130,18 @@ void firePropertyChange(double previousTimePoint, double currTimePoint,
    */
   void removePropertyChangeListener(PropertyChangeListener listener);
 
+  /**
+   * Removes the given {@link StepListener} from this solver. The default implementation throws an
+   * {@link UnsupportedOperationException} like {@link #addStepListener(StepListener)}.
+   *
+   * @param listener
+   */
+  default void removeStepListener(StepListener listener) {
+    // TODO: Localize
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support step listeners.");
+  }
+
   /**
    * Allows switching whether or not intermediate results should be included into the {@link
    * MultiTable} of the result.
@@ -146,6 +186,27 @@ MultiTable solve(DESystem DES, double[] initialValues, double timeBegin, double
   MultiTable solve(DESystem DES, double[] initialValues, double timeBegin, double timeEnd)
       throws DerivativeException;
 
+  /**
+   * Solves the given differential equation system and passes each row of the result to the given
+   * {@link ResultSink} as soon as it has been computed. The default implementation passes the
+   * result of {@link #solve(DESystem, double[], double, double, PropertyChangeListener)} to the
+   * sink after the simulation.
+   *
+   * @param DES                    The differential equation system to be solved.
+   * @param initialValues          Return value at the start point.
+   * @param timeBegin
+   * @param timeEnd
+   * @param sink                   Receives the simulation results.
+   * @param propertyChangeListener Instance of class which is to be signalled on changed property.
+   * @throws DerivativeException if something's wrong...
+   */
+  default void solve(DESystem DES, double[] initialValues, double timeBegin, double timeEnd,
+      ResultSink sink, PropertyChangeListener propertyChangeListener)
+      throws DerivativeException {
+    MultiTableSink.copy(solve(DES, initialValues, timeBegin, timeEnd, propertyChangeListener),
+      sink);
+  }
+
   /**
    * Solves the given differential equation system with the step size h and the number of steps as
    * given starting at the value x.
@@ -208,6 +269,26 @@ MultiTable solve(DESystem DES, double[] initialValues, double[] timepoints,
   MultiTable solve(DESystem DES, double[] initialValues, double[] timepoints)
       throws DerivativeException;
 
+  /**
+   * Solves the given differential equation system and passes the result at each of the given time
+   * points to the given {@link ResultSink} as soon as it has been computed. The default
+   * implementation passes the result of
+   * {@link #solve(DESystem, double[], double[], PropertyChangeListener)} to the sink after the
+   * simulation.
+   *
+   * @param DES                    The differential equation system to be solved.
+   * @param initialValues          Return value at the start point.
+   * @param timepoints             The timepoints for which the result should be returned
+   * @param sink                   Receives the simulation results.
+   * @param propertyChangeListener Instance of class which is to be signalled on changed property.
+   * @throws DerivativeException if something's wrong...
+   */
+  default void solve(DESystem DES, double[] initialValues, double[] timepoints, ResultSink sink,
+      PropertyChangeListener propertyChangeListener)
+      throws DerivativeException {
+    MultiTableSink.copy(solve(DES, initialValues, timepoints, propertyChangeListener), sink);
+  }
+
   /**
    * Solves the given {@link DESystem} using new initial conditions in each time step. The given
    * {@link MultiTable} contains the expected solution of the solver at certain time points. The
@@ -257,4 +338,28 @@ MultiTable solve(DESystem DES, MultiTable.Block timeSeriesInitConditions,
   MultiTable solve(DESystem DES, MultiTable.Block timeSeriesInitConditions,
       double[] initialValues)
       throws DerivativeException;
+
+  /**
+   * Solves the given {@link DESystem} using new initial conditions in each time step as in
+   * {@link #solve(DESystem, Block, double[], PropertyChangeListener)}, but passes each row of the
+   * result to the given {@link ResultSink} instead of gathering all rows in a {@link MultiTable}.
+   * The default implementation passes the result of
+   * {@link #solve(DESystem, Block, double[], PropertyChangeListener)} to the sink after the
+   * simulation.
+   *
+   * @param DES                      The {@link DESystem} to be simulated.
+   * @param timeSeriesInitConditions A time series of initial conditions for each time point.
+   * @param initialValues            An array of all initial values, whose length must equal the
+   *                                 dimension of the given {@link DESystem}.
+   * @param sink                     Receives the simulation results.
+   * @param propertyChangeListener   Instance of class which is to be signalled on changed
+   *                                 property.
+   * @throws DerivativeException
+   */
+  default void solve(DESystem DES, MultiTable.Block timeSeriesInitConditions,
+      double[] initialValues, ResultSink sink, PropertyChangeListener propertyChangeListener)
+      throws DerivativeException {
+    MultiTableSink.copy(
+      solve(DES, timeSeriesInitConditions, initialValues, propertyChangeListener), sink);
+  }
 }
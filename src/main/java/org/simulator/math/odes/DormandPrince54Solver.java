@@ -56,7 +56,6 @@ public DormandPrince54Solver() {
    */
   public DormandPrince54Solver(DormandPrince54Solver solver) {
     super(solver);
-    integrator = solver.getIntegrator();
   }
 
   /**
@@ -88,8 +87,14 @@ public DormandPrince54Solver clone() {
    */
   @Override
   protected void createIntegrator() {
-    integrator = new DormandPrince54Integrator(Math.min(1e-8, Math.min(1.0, getStepSize())),
-        Math.min(1.0, getStepSize()), getAbsTol(), getRelTol());
+    double maxStep = Math.min(1.0, getStepSize());
+    double minStep = Math.min(1e-8, maxStep);
+    if (getAbsTolerances() != null) {
+      integrator = new DormandPrince54Integrator(minStep, maxStep,
+          getAbsTolerances(), getRelTolerances());
+    } else {
+      integrator = new DormandPrince54Integrator(minStep, maxStep, getAbsTol(), getRelTol());
+    }
   }
 
   /* (non-Javadoc)
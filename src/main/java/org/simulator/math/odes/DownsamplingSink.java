@@ -0,0 +1,116 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.io.IOException;
+
+/**
+ * A {@link ResultSink} that only passes every n-th row to another
+ * {@link ResultSink}. The first and the last row are always kept, so that a
+ * stride of at least the number of time points reduces the output to the
+ * initial and the final state of the system.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class DownsamplingSink implements ResultSink {
+
+  /**
+   * The number of rows between two subsequent rows that are kept.
+   */
+  private int stride;
+
+  /**
+   * The sink that receives the reduced rows.
+   */
+  private ResultSink target;
+
+  /**
+   * The index of the last row in the original time series.
+   */
+  private int lastRow;
+
+  /**
+   * @param target the sink that receives the reduced rows.
+   * @param stride only every stride-th row is kept, must be positive.
+   */
+  public DownsamplingSink(ResultSink target, int stride) {
+    if (stride < 1) {
+      // TODO: Localize
+      throw new IllegalArgumentException("The stride must be a positive number.");
+    }
+    this.target = target;
+    this.stride = stride;
+  }
+
+  /**
+   * @param rowIndex
+   * @return whether or not the row with the given index is kept.
+   */
+  private boolean isKept(int rowIndex) {
+    return (rowIndex % stride == 0) || (rowIndex == lastRow);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#open(double[], java.lang.String[], java.lang.String[])
+   */
+  @Override
+  public void open(double[] timePoints, String[] identifiers, String[] additionalIdentifiers)
+      throws IOException {
+    lastRow = timePoints.length - 1;
+    int count = (lastRow / stride) + 1;
+    if (lastRow % stride != 0) {
+      count++;
+    }
+    double[] reduced = new double[count];
+    for (int i = 0, j = 0; i < timePoints.length; i++) {
+      if (isKept(i)) {
+        reduced[j++] = timePoints[i];
+      }
+    }
+    target.open(reduced, identifiers, additionalIdentifiers);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#write(int, double, double[], double[])
+   */
+  @Override
+  public void write(int rowIndex, double time, double[] values, double[] additionalValues)
+      throws IOException {
+    if (isKept(rowIndex)) {
+      int reducedIndex = (rowIndex + stride - 1) / stride;
+      target.write(reducedIndex, time, values, additionalValues);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#close()
+   */
+  @Override
+  public void close() throws IOException {
+    target.close();
+  }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Simulates many independent trajectories of the same system in parallel.
+ * Neither {@link AbstractDESSolver}s nor {@link DESystem}s such as
+ * {@link org.simulator.sbml.SBMLinterpreter} may be shared between threads,
+ * because both keep the state of the current integration in fields. This class
+ * therefore gives each worker thread its own clone of the solver and its own
+ * system, created by the given factory (e.g., {@code interpreter::copy}). Runs
+ * are scheduled on a work-stealing {@link ForkJoinPool} and each result is
+ * passed to a {@link Callback} as soon as it is available. At most a fixed
+ * number of runs is pending at any time, so that memory consumption does not
+ * grow with the size of the ensemble as long as the callback does not retain
+ * the results.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class EnsembleRunner implements Closeable {
+
+  /**
+   * Receives the outcome of the individual runs of an ensemble. Methods of
+   * this interface are called concurrently from the worker threads.
+   *
+   * @since 2.1
+   */
+  public interface Callback {
+
+    /**
+     * Exceptions thrown by this method are not passed to
+     * {@link #failed(int, double[], Exception)}.
+     *
+     * @param index         the index of the run within the ensemble
+     * @param initialValues the initial values of this run
+     * @param result        the simulated trajectory
+     */
+    void completed(int index, double[] initialValues, MultiTable result);
+
+    /**
+     * @param index         the index of the run within the ensemble
+     * @param initialValues the initial values of this run
+     * @param exc           the reason for the failure
+     */
+    void failed(int index, double[] initialValues, Exception exc);
+  }
+
+  /**
+   * The private solver and system of one worker thread.
+   */
+  private static class Worker {
+
+    private final DESSolver solver;
+    private final DESystem system;
+
+    private Worker(DESSolver solver, DESystem system) {
+      this.solver = solver;
+      this.system = system;
+    }
+  }
+
+  /**
+   * The solver that is cloned for each worker thread.
+   */
+  private final DESSolver solver;
+
+  /**
+   * Creates one {@link DESystem} for each worker thread.
+   */
+  private final Callable<? extends DESystem> systemFactory;
+
+  /**
+   * The threads of this runner.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Limits the number of runs that have been submitted but not yet completed.
+   */
+  private final Semaphore pending;
+
+  /**
+   * The {@link Worker} of the current thread.
+   */
+  private final ThreadLocal<Worker> workers;
+
+  /**
+   * Creates a runner with one thread per available processor.
+   *
+   * @param solver        the template for the solvers of all worker threads
+   * @param systemFactory creates an independent system for each worker thread
+   */
+  public EnsembleRunner(DESSolver solver, Callable<? extends DESystem> systemFactory) {
+    this(solver, systemFactory, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a runner that allows twice as many pending runs as threads.
+   *
+   * @param solver        the template for the solvers of all worker threads
+   * @param systemFactory creates an independent system for each worker thread
+   * @param parallelism   the number of worker threads
+   */
+  public EnsembleRunner(DESSolver solver, Callable<? extends DESystem> systemFactory,
+    int parallelism) {
+    this(solver, systemFactory, parallelism, 2 * parallelism);
+  }
+
+  /**
+   * @param solver          the template for the solvers of all worker threads
+   * @param systemFactory   creates an independent system for each worker thread
+   * @param parallelism     the number of worker threads
+   * @param maxPendingRuns  the maximal number of runs whose result has not yet
+   *                        been delivered. Submitting further runs blocks until
+   *                        earlier runs complete.
+   */
+  public EnsembleRunner(DESSolver solver, Callable<? extends DESystem> systemFactory,
+    int parallelism, int maxPendingRuns) {
+    if (maxPendingRuns < 1) {
+      // TODO: Localize
+      throw new IllegalArgumentException("The number of pending runs must be positive.");
+    }
+    this.solver = solver;
+    this.systemFactory = systemFactory;
+    pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null,
+      true);
+    pending = new Semaphore(maxPendingRuns);
+    workers = new ThreadLocal<>();
+  }
+
+  /**
+   * Simulates one trajectory for each of the given initial values and waits
+   * until all results have been passed to the callback.
+   *
+   * @param initialValues one vector of initial values per run
+   * @param timePoints    the time points of all runs
+   * @param callback      receives the result of each run as soon as it is
+   *                      available
+   * @throws InterruptedException if the calling thread is interrupted while
+   *                              waiting. Runs that have already been submitted
+   *                              still complete.
+   */
+  public void run(double[][] initialValues, double[] timePoints, Callback callback)
+      throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(initialValues.length);
+    for (int k = 0; k < initialValues.length; k++) {
+      pending.acquire();
+      final int index = k;
+      pool.execute(() -> {
+        try {
+          MultiTable result;
+          try {
+            Worker worker = getWorker();
+            result = worker.solver.solve(worker.system, initialValues[index], timePoints);
+          } catch (Exception exc) {
+            callback.failed(index, initialValues[index], exc);
+            return;
+          }
+          callback.completed(index, initialValues[index], result);
+        } finally {
+          pending.release();
+          done.countDown();
+        }
+      });
+    }
+    done.await();
+  }
+
+  /**
+   * @return the {@link Worker} of the current thread, which is created on the
+   * first call.
+   * @throws Exception if the system factory fails
+   */
+  private Worker getWorker() throws Exception {
+    Worker worker = workers.get();
+    if (worker == null) {
+      // neither the template solver nor the factory need to be thread-safe
+      synchronized (this) {
+        worker = new Worker(solver.clone(), systemFactory.call());
+      }
+      workers.set(worker);
+    }
+    return worker;
+  }
+
+  /**
+   * @return the number of worker threads
+   */
+  public int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * Stops all worker threads after the runs that have already been submitted.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+
+}
@@ -88,8 +88,9 @@ public String getName() {
   public double[] computeChange(DESystem DES, double[] yPrev, double t, double stepSize,
       double[] change, boolean steadyState)
       throws DerivativeException {
-    DES.computeDerivatives(t, yPrev, change);
+    computeDerivatives(DES, t, yPrev, change);
     Mathematics.scale(stepSize, change);
+    getStatistics().addAcceptedSteps(1L);
     return change;
   }
 
@@ -65,12 +65,15 @@ boolean processAssignmentRules(double t, double[] Y)
       throws DerivativeException;
 
   /**
-   * Returns a list with event assignments for the events triggered either by the time t or by the
-   * concentrations of the species stored in Y.
+   * Returns the event assignments for the events triggered either by the time t or by the
+   * concentrations of the species stored in Y. The assignments are stored in the parallel arrays
+   * {@link EventInProgress#getAssignmentTargets()} and {@link EventInProgress#getAssignmentValues()},
+   * which are reused for every execution of the event, so that callers must process them before
+   * calling this method again.
    *
    * @param t The current simulation time.
    * @param Y The current change of the system.
-   * @return Returns a list with event assignments for the events triggered
+   * @return Returns the event with the assignments for the events triggered
    * @throws DerivativeException
    */
   EventInProgress getNextEventAssignments(double t, double previousTime, double[] Y)
@@ -24,9 +24,8 @@
  */
 package org.simulator.math.odes;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.Map;
 
 /**
  * This class represents a compilation of the values and execution times during simulation
@@ -42,8 +41,23 @@ public class EventInProgress {
   protected double lastTimeRecovered;
   protected double lastTimeExecuted;
   protected LinkedList<Double> execTimes;
-  protected LinkedList<Double[]> values;
-  protected Map<Integer, Double> assignments;
+  protected LinkedList<double[]> values;
+
+  /**
+   * The indices of the variables that are changed by the current execution of the event. Only the
+   * first {@link #assignmentCount} entries are valid; the array is reused for all executions.
+   */
+  protected int[] assignmentTargets;
+
+  /**
+   * The new values of the variables in {@link #assignmentTargets}.
+   */
+  protected double[] assignmentValues;
+
+  /**
+   * The number of valid entries in {@link #assignmentTargets} and {@link #assignmentValues}.
+   */
+  protected int assignmentCount;
 
   /**
    * Creates a new EventInProcess with the given boolean value indicating whether or not it can fire
@@ -58,7 +72,9 @@ public EventInProgress(boolean fired) {
     lastTimeFired = -1;
     lastTimeRecovered = -1;
     lastTimeExecuted = -1;
-    assignments = new HashMap<>();
+    assignmentTargets = new int[4];
+    assignmentValues = new double[4];
+    assignmentCount = 0;
   }
 
   /**
@@ -71,7 +87,7 @@ public void refresh(boolean fired) {
     lastTimeFired = -1;
     lastTimeRecovered = -1;
     lastTimeExecuted = -1;
-    assignments = new HashMap<>();
+    assignmentCount = 0;
   }
 
   /**
@@ -90,7 +106,7 @@ public void aborted(double time) {
    * @param values
    * @param time
    */
-  public void addValues(Double[] values, double time) {
+  public void addValues(double[] values, double time) {
     execTimes.add(time);
     this.values.add(values);
   }
@@ -158,7 +174,7 @@ public boolean hasExecutionTime() {
    *
    * @return values
    */
-  public Double[] getValues() {
+  public double[] getValues() {
     return values.peek();
   }
 
@@ -214,25 +230,64 @@ public void refresh(double currentTime) {
    * Clears all event assignments.
    */
   public void clearAssignments() {
-    assignments.clear();
+    assignmentCount = 0;
   }
 
   /**
-   * Adds an event assignment.
+   * Adds an event assignment. If the same index is assigned more than once, the last value wins.
    *
    * @param index
    * @param value
    */
   public void addAssignment(int index, double value) {
-    assignments.put(index, value);
+    if (assignmentCount == assignmentTargets.length) {
+      assignmentTargets = Arrays.copyOf(assignmentTargets, 2 * assignmentCount);
+      assignmentValues = Arrays.copyOf(assignmentValues, 2 * assignmentCount);
+    }
+    assignmentTargets[assignmentCount] = index;
+    assignmentValues[assignmentCount] = value;
+    assignmentCount++;
+  }
+
+  /**
+   * Returns the number of event assignments, i.e., the number of valid entries in
+   * {@link #getAssignmentTargets()} and {@link #getAssignmentValues()}.
+   *
+   * @return assignmentCount
+   */
+  public int getAssignmentCount() {
+    return assignmentCount;
+  }
+
+  /**
+   * Returns the indices of the variables that are assigned by this event. The array is reused and
+   * may be longer than {@link #getAssignmentCount()}.
+   *
+   * @return assignmentTargets
+   */
+  public int[] getAssignmentTargets() {
+    return assignmentTargets;
   }
 
   /**
-   * Returns all event assignments as a map.
+   * Returns the values that are assigned by this event, in the same order as
+   * {@link #getAssignmentTargets()}. The array is reused and may be longer than
+   * {@link #getAssignmentCount()}.
    *
-   * @return assignments
+   * @return assignmentValues
    */
-  public Map<Integer, Double> getAssignments() {
-    return assignments;
+  public double[] getAssignmentValues() {
+    return assignmentValues;
+  }
+
+  /**
+   * Performs all event assignments on the given vector.
+   *
+   * @param y
+   */
+  public void applyAssignments(double[] y) {
+    for (int i = 0; i < assignmentCount; i++) {
+      y[assignmentTargets[i]] = assignmentValues[i];
+    }
   }
 }
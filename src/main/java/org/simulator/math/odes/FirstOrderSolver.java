@@ -28,6 +28,8 @@
 
 import org.apache.commons.math.ode.AbstractIntegrator;
 import org.apache.commons.math.ode.DerivativeException;
+import org.apache.commons.math.ode.sampling.StepHandler;
+import org.apache.commons.math.ode.sampling.StepInterpolator;
 import org.apache.commons.math.util.FastMath;
 import org.simulator.math.Mathematics;
 
@@ -116,6 +118,22 @@ public FirstOrderSolver(FirstOrderSolver firstOrderSolver) {
    */
   private void addHandler() {
     integrator.addEventHandler(this, 1, 1, 1);
+    integrator.addStepHandler(new StepHandler() {
+
+      @Override
+      public boolean requiresDenseOutput() {
+        return false;
+      }
+
+      @Override
+      public void reset() {
+      }
+
+      @Override
+      public void handleStep(StepInterpolator interpolator, boolean isLast) {
+        getStatistics().addAcceptedSteps(1L);
+      }
+    });
   }
 
   /* (non-Javadoc)
@@ -143,7 +161,7 @@ public double[] computeChange(DESystem DES, double[] y, double t, double stepSiz
       }
     } else {
       try {
-        integrator.integrate(DES, tstart, y, tend, integrationResult);
+        integrator.integrate(instrument(DES), tstart, y, tend, integrationResult);
         Mathematics.vvSub(integrationResult, y, change);
       } catch (Exception e) {
         setUnstableFlag(true);
@@ -153,6 +171,17 @@ public double[] computeChange(DESystem DES, double[] y, double t, double stepSiz
     return change;
   }
 
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AdaptiveStepsizeIntegrator#tolerancesChanged()
+   */
+  @Override
+  protected void tolerancesChanged() {
+    if (integrator != null) {
+      createIntegrator();
+      addHandler();
+    }
+  }
+
   /**
    * initialization function of the integrator
    */
@@ -72,7 +72,6 @@ public GraggBulirschStoerSolver(double stepSize, boolean nonnegative) {
    */
   public GraggBulirschStoerSolver(GraggBulirschStoerSolver solver) {
     super(solver);
-    integrator = solver.getIntegrator();
   }
 
   /* (non-Javadoc)
@@ -88,8 +87,14 @@ public GraggBulirschStoerSolver clone() {
    */
   @Override
   protected void createIntegrator() {
-    integrator = new GraggBulirschStoerIntegrator(Math.min(1e-8, Math.min(1.0, getStepSize())),
-        Math.min(1.0, getStepSize()), getAbsTol(), getRelTol());
+    double maxStep = Math.min(1.0, getStepSize());
+    double minStep = Math.min(1e-8, maxStep);
+    if (getAbsTolerances() != null) {
+      integrator = new GraggBulirschStoerIntegrator(minStep, maxStep,
+          getAbsTolerances(), getRelTolerances());
+    } else {
+      integrator = new GraggBulirschStoerIntegrator(minStep, maxStep, getAbsTol(), getRelTol());
+    }
   }
 
   /* (non-Javadoc)
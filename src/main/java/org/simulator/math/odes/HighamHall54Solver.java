@@ -78,7 +78,6 @@ public HighamHall54Solver(double stepSize, boolean nonnegative) {
    */
   public HighamHall54Solver(HighamHall54Solver solver) {
     super(solver);
-    integrator = solver.getIntegrator();
   }
 
   /* (non-Javadoc)
@@ -94,8 +93,14 @@ public HighamHall54Solver clone() {
    */
   @Override
   protected void createIntegrator() {
-    integrator = new HighamHall54Integrator(Math.min(1e-8, Math.min(1.0, getStepSize())),
-        Math.min(1.0, getStepSize()), getAbsTol(), getRelTol());
+    double maxStep = Math.min(1.0, getStepSize());
+    double minStep = Math.min(1e-8, maxStep);
+    if (getAbsTolerances() != null) {
+      integrator = new HighamHall54Integrator(minStep, maxStep,
+          getAbsTolerances(), getRelTolerances());
+    } else {
+      integrator = new HighamHall54Integrator(minStep, maxStep, getAbsTol(), getRelTol());
+    }
   }
 
   /* (non-Javadoc)
@@ -0,0 +1,335 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.util.Arrays;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.simulator.math.MatrixOperations;
+import org.simulator.math.SparseMatrix;
+
+/**
+ * An implicit-explicit (IMEX) Runge-Kutta method for systems whose right-hand side is the sum of a
+ * stiff linear part and a nonlinear remainder, see {@link SplitDESystem}. The linear part is
+ * integrated with an L-stable, stiffly accurate diagonally implicit method and the remainder with
+ * an explicit method, both of order two (scheme ARS(2,2,2) of Ascher, Ruuth, and Spiteri, 1997).
+ * <p>
+ * Both implicit stages share the matrix I - &gamma; h L, so each step needs at most one LU
+ * decomposition, which is reused as long as neither the linear part nor the step size change.
+ * The linear part is a {@link SparseMatrix}, whose version tells whether it has changed. Its
+ * variables are reordered by the reverse Cuthill-McKee method, so that the decomposition is that
+ * of a band matrix, which is cheap for the chains and compartment networks of transport processes.
+ * Hence, large linear degradation and transport processes do not limit the step size, which is
+ * only restricted by the accuracy and stability of the explicit treatment of the nonlinear part.
+ * Systems that do not implement {@link SplitDESystem} are integrated with the explicit method
+ * only.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class IMEXRungeKuttaSolver extends AbstractDESSolver {
+
+  /**
+   * Generated serial version identifier.
+   */
+  private static final long serialVersionUID = -5311606263719838512L;
+
+  /**
+   * The diagonal coefficient of the implicit method.
+   */
+  private static final double GAMMA = 1d - 1d / Math.sqrt(2d);
+
+  /**
+   * The coefficient of the first stage in the last explicit stage.
+   */
+  private static final double DELTA = 1d - 1d / (2d * GAMMA);
+
+  /**
+   * The linear part of the current system.
+   */
+  private transient SparseMatrix linearPart;
+
+  /**
+   * The system the linear part belongs to.
+   */
+  private transient SplitDESystem linearSystem;
+
+  /**
+   * The bandwidth-reducing order of the variables and, for every variable, its position in this
+   * order.
+   */
+  private transient int[] order, position;
+
+  /**
+   * The number of sub- and superdiagonals of the reordered matrix I - &gamma; h L.
+   */
+  private transient int lowerBandwidth, upperBandwidth;
+
+  /**
+   * The upper and lower triangular factors of the band LU decomposition of the reordered matrix
+   * I - &gamma; h L.
+   */
+  private transient double[][] upper, lower;
+
+  /**
+   * The row permutation of the LU decomposition.
+   */
+  private transient int[] indx;
+
+  /**
+   * The version of the linear part and the step size that belong to the current LU decomposition.
+   */
+  private transient long factorizedVersion;
+  private transient double factorizedStepSize;
+
+  /**
+   * Stage values, nonlinear parts of the derivatives, and work arrays.
+   */
+  private transient double[] y2, n1, n2, rhs, ly, work;
+
+  /**
+   * default constructor
+   */
+  public IMEXRungeKuttaSolver() {
+    super();
+  }
+
+  /**
+   * @param stepSize
+   */
+  public IMEXRungeKuttaSolver(double stepSize) {
+    super(stepSize);
+  }
+
+  /**
+   * @param stepSize
+   * @param nonnegative the nonnegative flag of the super class
+   * @see AbstractDESSolver
+   */
+  public IMEXRungeKuttaSolver(double stepSize, boolean nonnegative) {
+    super(stepSize, nonnegative);
+  }
+
+  /**
+   * clone constructor
+   *
+   * @param solver
+   */
+  public IMEXRungeKuttaSolver(IMEXRungeKuttaSolver solver) {
+    super(solver);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#getName()
+   */
+  @Override
+  public String getName() {
+    return "IMEX Runge-Kutta method";
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#openResultSink(org.simulator.math.odes.DESystem, double[], double[], org.simulator.math.odes.ResultSink)
+   */
+  @Override
+  protected void openResultSink(DESystem DES, double[] initialValues, double[] timePoints,
+    ResultSink sink) throws DerivativeException {
+    super.openResultSink(DES, initialValues, timePoints, sink);
+    // the structure of the linear part may have changed with a new initialization of the system
+    linearPart = null;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#computeChange(org.simulator.math.odes.DESystem, double[], double, double, double[], boolean)
+   */
+  @Override
+  public double[] computeChange(DESystem DES, double[] yPrev, double t, double stepSize,
+    double[] change, boolean steadyState) throws DerivativeException {
+    int n = yPrev.length;
+    if ((y2 == null) || (y2.length != n)) {
+      y2 = new double[n];
+      n1 = new double[n];
+      n2 = new double[n];
+      rhs = new double[n];
+      ly = new double[n];
+      work = new double[n];
+    }
+    boolean split = (DES instanceof SplitDESystem) && ((SplitDESystem) DES).hasLinearPart();
+    if (split) {
+      SplitDESystem system = (SplitDESystem) DES;
+      if ((linearPart == null) || (linearSystem != system) || (linearPart.getDimension() != n)) {
+        linearPart = system.createLinearPart();
+        linearSystem = system;
+        analyze();
+      }
+      system.computeLinearPart(t, yPrev, linearPart);
+      getStatistics().addJacobianEvaluations(1L);
+      factorize(stepSize);
+    }
+
+    // first stage: explicit only
+    computeDerivatives(DES, t, yPrev, n1);
+    if (split) {
+      subtractLinearPart(yPrev, n1);
+    }
+
+    // second stage
+    for (int i = 0; i < n; i++) {
+      y2[i] = yPrev[i] + stepSize * GAMMA * n1[i];
+    }
+    if (split) {
+      solve(y2);
+    }
+    computeDerivatives(DES, t + GAMMA * stepSize, y2, n2);
+    if (split) {
+      subtractLinearPart(y2, n2);
+    }
+
+    // third stage, which is also the solution
+    for (int i = 0; i < n; i++) {
+      rhs[i] = yPrev[i] + stepSize * (DELTA * n1[i] + (1d - DELTA) * n2[i]);
+    }
+    if (split) {
+      linearPart.multiply(y2, ly);
+      for (int i = 0; i < n; i++) {
+        rhs[i] += stepSize * (1d - GAMMA) * ly[i];
+      }
+      solve(rhs);
+    }
+    for (int i = 0; i < n; i++) {
+      change[i] = rhs[i] - yPrev[i];
+    }
+    getStatistics().addAcceptedSteps(1L);
+    return change;
+  }
+
+  /**
+   * Orders the variables such that the bandwidth of the linear part is small and allocates the
+   * arrays for the band LU decomposition.
+   */
+  private void analyze() {
+    int n = linearPart.getDimension();
+    order = linearPart.reverseCuthillMcKee();
+    position = new int[n];
+    for (int i = 0; i < n; i++) {
+      position[order[i]] = i;
+    }
+    lowerBandwidth = 0;
+    upperBandwidth = 0;
+    for (int i = 0; i < n; i++) {
+      for (int k = linearPart.getRowStart(i); k < linearPart.getRowStart(i + 1); k++) {
+        int offset = position[linearPart.getColumn(k)] - position[i];
+        lowerBandwidth = Math.max(lowerBandwidth, -offset);
+        upperBandwidth = Math.max(upperBandwidth, offset);
+      }
+    }
+    upper = new double[n][lowerBandwidth + upperBandwidth + 1];
+    lower = new double[n][lowerBandwidth];
+    indx = new int[n];
+    factorizedVersion = -1L;
+  }
+
+  /**
+   * Computes the band LU decomposition of the reordered matrix I - &gamma; h L unless the current
+   * one already belongs to the given step size and the current version of the linear part.
+   *
+   * @param stepSize
+   */
+  private void factorize(double stepSize) {
+    if ((factorizedVersion == linearPart.getVersion()) && (factorizedStepSize == stepSize)) {
+      return;
+    }
+    long start = getStatistics().start();
+    int n = linearPart.getDimension();
+    for (int i = 0; i < n; i++) {
+      Arrays.fill(upper[i], 0d);
+      upper[i][lowerBandwidth] = 1d;
+    }
+    for (int i = 0; i < n; i++) {
+      int row = position[i];
+      for (int k = linearPart.getRowStart(i); k < linearPart.getRowStart(i + 1); k++) {
+        int column = position[linearPart.getColumn(k)];
+        upper[row][column - row + lowerBandwidth] -= GAMMA * stepSize * linearPart.getValue(k);
+      }
+    }
+    MatrixOperations.bandec(upper, lowerBandwidth, upperBandwidth, lower, indx);
+    factorizedVersion = linearPart.getVersion();
+    factorizedStepSize = stepSize;
+    getStatistics().addLUDecompositions(1L);
+    getStatistics().addLinearAlgebraTime(getStatistics().elapsed(start));
+  }
+
+  /**
+   * Solves (I - &gamma; h L) x = b with the current decomposition.
+   *
+   * @param b the right-hand side, which is replaced by the solution
+   */
+  private void solve(double[] b) {
+    for (int i = 0; i < b.length; i++) {
+      work[i] = b[order[i]];
+    }
+    MatrixOperations.banbks(upper, lowerBandwidth, upperBandwidth, lower, indx, work);
+    for (int i = 0; i < b.length; i++) {
+      b[order[i]] = work[i];
+    }
+  }
+
+  /**
+   * Turns the derivatives into their nonlinear part by subtracting L y.
+   *
+   * @param y
+   * @param yDot
+   */
+  private void subtractLinearPart(double[] y, double[] yDot) {
+    linearPart.multiply(y, ly);
+    for (int i = 0; i < yDot.length; i++) {
+      yDot[i] -= ly[i];
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#clone()
+   */
+  @Override
+  public IMEXRungeKuttaSolver clone() {
+    return new IMEXRungeKuttaSolver(this);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.AbstractDESSolver#hasSolverEventProcessing()
+   */
+  @Override
+  protected boolean hasSolverEventProcessing() {
+    return false;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESSolver#getKISAOTerm()
+   */
+  @Override
+  public int getKiSAOterm() {
+    // there is no specific term for IMEX methods, hence: ODE solver
+    return 694;
+  }
+}
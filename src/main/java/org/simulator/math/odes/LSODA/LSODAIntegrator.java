@@ -11,6 +11,7 @@
 import org.simulator.math.odes.DESystem;
 import org.simulator.math.odes.EventDESystem;
 import org.simulator.math.odes.FastProcessDESystem;
+import org.simulator.math.odes.SolverStatistics;
 import org.simulator.math.odes.exception.*;
 
 public class LSODAIntegrator extends AdaptiveStepsizeIntegrator {
@@ -70,6 +71,11 @@ public class LSODAIntegrator extends AdaptiveStepsizeIntegrator {
      */
     private boolean defaultTol = false;
 
+    /*
+     * Boolean to indicate whether the options hold the tolerances of each variable
+     */
+    private boolean componentTolerances = false;
+
     /**
      * Precision for fast reaction timing
      */
@@ -139,6 +145,45 @@ public AbstractDESSolver clone() {
         return new LSODAIntegrator(this);
     }
 
+    /**
+     * Adds the counters of the last call of {@code lsoda}, which starts with fresh counters, to
+     * the {@link SolverStatistics}. Each evaluation of the Jacobian is followed by an LU
+     * decomposition. A method switch makes {@code lsoda} return with the new method in
+     * {@code meth} and the method of the last step in {@code mused}.
+     */
+    private void updateStatistics() {
+        LSODACommon common = ctx.getCommon();
+        SolverStatistics statistics = getStatistics();
+        statistics.addAcceptedSteps(common.getNst());
+        statistics.addJacobianEvaluations(common.getNje());
+        statistics.addLUDecompositions(common.getNje());
+        if ((common.getMused() != 0) && (common.getMeth() != common.getMused())) {
+            statistics.addMethodSwitches(1L);
+        }
+    }
+
+    /**
+     * Passes the tolerances of each variable, if any, to the {@link LSODAOptions}.
+     */
+    @Override
+    protected void tolerancesChanged() {
+        if (opt == null) {
+            return;
+        }
+        double[] atol = getAbsTolerances();
+        if (atol != null) {
+            opt.setAtol(atol.clone());
+            opt.setRtol(getRelTolerances().clone());
+            defaultTol = false;
+            componentTolerances = true;
+        } else if (componentTolerances) {
+            // back to the scalar tolerances, which prepare expands to all variables
+            opt.setAtol(new double[] {getAbsTol()});
+            opt.setRtol(new double[] {getRelTol()});
+            componentTolerances = false;
+        }
+    }
+
     @Override
     public int getKiSAOterm() {
         return 88; // https://identifiers.org/biomodels.kisao:KISAO_0000088
@@ -157,7 +202,7 @@ protected boolean hasSolverEventProcessing() {
     @Override
     public double[] computeChange(DESystem DES, double[] y2, double time, double stepSize, double[] change, boolean steadyState) throws DerivativeException {
 
-        this.prepare(DES, 1e-16d, getStepSize(), 1, 1, 1, 10000);
+        this.prepare(instrument(DES), 1e-16d, getStepSize(), 1, 1, 1, 10000);
         
         opt.setHmax(stepSize);
         double step = opt.getHmax();
@@ -197,6 +242,7 @@ public double[] computeChange(DESystem DES, double[] y2, double time, double ste
             if(hasDerivatives) {
                 ctx.setState(1);
                 flag = lsoda(ctx, y, new double[] {t}, t+step);
+                updateStatistics();
             }
 
             if(flag>=0 && !stop) {
@@ -2426,7 +2472,7 @@ public LSODAContext getContext(){
 
     @Override
     public void setAbsTol(double absTol) {
-        this.absTol = absTol;
+        super.setAbsTol(absTol);
         double[] atol = {absTol};
         opt.setAtol(atol);
         defaultTol = false;
@@ -2434,7 +2480,7 @@ public void setAbsTol(double absTol) {
 
     @Override
     public void setRelTol(double relTol) {
-        this.relTol = relTol;
+        super.setRelTol(relTol);
         double[] rtol = {relTol};
         opt.setRtol(rtol);
         defaultTol = false;
@@ -24,12 +24,15 @@
  */
 package org.simulator.math.odes;
 
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Hashtable;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.table.AbstractTableModel;
 
@@ -53,8 +56,9 @@ public class MultiTable extends AbstractTableModel
 implements Iterable<Iterable<Double>> {
 
   /**
-   * A {@link Block} is a data structure with a two-dimensional double array of actual data together
-   * with identifiers for each column.
+   * A {@link Block} is a data structure with a two-dimensional matrix of actual data together with
+   * identifiers for each column. The matrix is stored in column-major order, i.e., all values of
+   * one column are contiguous in memory.
    *
    * @author Andreas Dr&auml;ger
    */
@@ -84,6 +88,17 @@ private Column(int columnIndex) {
         this.columnIndex = columnIndex;
       }
 
+      /**
+       * Provides direct access to the values of this column without copying or boxing them. The
+       * position of the returned buffer is zero and its limit is the number of rows; changes of
+       * the values are written through to the {@link Block}.
+       *
+       * @return a view of the values in this column.
+       */
+      public DoubleBuffer getBuffer() {
+        return getColumnBuffer(columnIndex);
+      }
+
       /**
        * Returns the human-readable name for this column if there is any, otherwise this will return
        * the same value as {@link #getId()}.
@@ -117,7 +132,7 @@ public String getName() {
        * @return rowCount the number of rows
        */
       public int getRowCount() {
-        return data.length;
+        return rowCount;
       }
 
       /**
@@ -127,10 +142,13 @@ public int getRowCount() {
        * @return value the value at the given row
        */
       public double getValue(int rowIndex) {
-        return data[rowIndex][columnIndex];
+        return columns[columnIndex].get(checkRow(rowIndex));
       }
 
-      /* (non-Javadoc)
+      /**
+       * Iterates over all values in this column. Note that each value is boxed; use
+       * {@link #getValue(int)}, {@link #getBuffer()} or {@link #toArray()} for efficient access.
+       *
        * @see java.lang.Iterable#iterator()
        */
       @Override
@@ -177,7 +195,16 @@ public void remove() {
        * @param doubleValue The new value.
        */
       public void setValue(double doubleValue, int rowIndex) {
-        data[rowIndex][columnIndex] = doubleValue;
+        columns[columnIndex].put(checkRow(rowIndex), doubleValue);
+      }
+
+      /**
+       * @return a copy of all values in this column.
+       */
+      public double[] toArray() {
+        double[] values = new double[rowCount];
+        getBuffer().get(values);
+        return values;
       }
 
       /* (non-Javadoc)
@@ -215,9 +242,23 @@ public String toString() {
     private String[] columnNames;
 
     /**
-     * The matrix of actual data. Must have an equal number of rows as the time points array.
+     * The matrix of actual data in column-major order, i.e., all values of the first column are
+     * followed by all values of the second column and so forth. Unless this buffer has been mapped
+     * from a file, it wraps one contiguous double array. Must have an equal number of rows as the
+     * time points array. This is {@code null} if the columns have been set separately.
+     */
+    private DoubleBuffer data;
+
+    /**
+     * The values of each column with position zero and a limit of {@link #rowCount}. If
+     * {@link #data} is set, these are slices of it.
      */
-    private double[][] data;
+    private DoubleBuffer[] columns;
+
+    /**
+     * The dimension of the data matrix.
+     */
+    private int rowCount, columnCount;
 
     /**
      * These are the column names for all columns in the data matrix. This array does not include
@@ -226,9 +267,9 @@ public String toString() {
     private String[] identifiers;
 
     /**
-     * This {@link Hashtable} memorizes the column indices of all identifiers.
+     * This {@link Map} memorizes the column indices of all identifiers.
      */
-    private Hashtable<String, Integer> idHash;
+    private Map<String, Integer> idHash;
 
     /**
      * Pointer to the containing table.
@@ -256,7 +297,7 @@ private Block(double[][] data, String[] identifiers, String[] names, MultiTable
      */
     private Block(MultiTable parent) {
       this.parent = parent;
-      idHash = new Hashtable<>();
+      idHash = new HashMap<>();
     }
 
     /**
@@ -292,6 +333,21 @@ public Column getColumn(String identfier) {
       return new Column(idHash.get(identfier));
     }
 
+    /**
+     * Provides direct access to the values of the given column without copying or boxing them.
+     * The position of the returned buffer is zero and its limit is the number of rows; changes of
+     * the values are written through to this {@link Block}.
+     *
+     * @param columnIndex The index of the column (excluding the time column)
+     * @return a view of the values in the given column.
+     */
+    public DoubleBuffer getColumnBuffer(int columnIndex) {
+      if ((columnIndex < 0) || (columnCount <= columnIndex)) {
+        throw new IndexOutOfBoundsException(Integer.toString(columnIndex));
+      }
+      return columns[columnIndex].duplicate();
+    }
+
     /* (non-Javadoc)
      * @see javax.swing.table.TableModel#getColumnCount()
      */
@@ -308,6 +364,16 @@ public String getColumnIdentifier(int column) {
       return identifiers[column];
     }
 
+    /**
+     * @param identifier
+     * @return the index of the column with the given identifier within this {@link Block} or -1 if
+     * there is no such column.
+     */
+    public int getColumnIndex(String identifier) {
+      Integer index = idHash.get(identifier);
+      return index != null ? index.intValue() : -1;
+    }
+
     /* (non-Javadoc)
      * @see javax.swing.table.AbstractTableModel#getColumnName(int)
      */
@@ -325,10 +391,21 @@ public String[] getColumnNames() {
     }
 
     /**
+     * Creates a copy of the data matrix in row-major order. Changes to the returned matrix are not
+     * reflected in this {@link Block}.
+     *
      * @return the data
+     * @see #getValues()
      */
     public double[][] getData() {
-      return data;
+      if (columns == null) {
+        return null;
+      }
+      double[][] matrix = new double[rowCount][];
+      for (int i = 0; i < rowCount; i++) {
+        matrix[i] = getRow(i);
+      }
+      return matrix;
     }
 
     /**
@@ -346,13 +423,18 @@ public String getName() {
     }
 
     /**
-     * Delivers the given row of the data matrix as an array of doubles only, i.e., no time points.
+     * Delivers a copy of the given row of the data matrix as an array of doubles only, i.e., no
+     * time points.
      *
      * @param rowIndex The index of the row to be delivered.
      * @return An array of double values from the encapsulated data matrix.
      */
     public double[] getRow(int rowIndex) {
-      return data[rowIndex];
+      double[] row = new double[columnCount];
+      for (int j = 0; j < columnCount; j++) {
+        row[j] = columns[j].get(checkRow(rowIndex));
+      }
+      return row;
     }
 
     /* (non-Javadoc)
@@ -372,6 +454,17 @@ public double[] getTimePoints() {
       return parent.getTimePoints();
     }
 
+    /**
+     * Primitive access to one element of the data matrix.
+     *
+     * @param rowIndex
+     * @param columnIndex The index of the column (excluding the time column)
+     * @return the value at the given position.
+     */
+    public double getValue(int rowIndex, int columnIndex) {
+      return columns[columnIndex].get(checkRow(rowIndex));
+    }
+
     /* (non-Javadoc)
      * @see javax.swing.table.TableModel#getValueAt(int, int)
      */
@@ -380,7 +473,38 @@ public Double getValueAt(int rowIndex, int columnIndex) {
       if (columnIndex == 0) {
         return getTimePoint(rowIndex);
       }
-      return data[rowIndex][columnIndex - 1];
+      return getValue(rowIndex, columnIndex - 1);
+    }
+
+    /**
+     * Provides direct access to the complete data matrix in column-major order. Changes of the
+     * values are written through to this {@link Block}.
+     *
+     * @return a view of all values in this {@link Block} with position zero and a limit of
+     * {@link #getRowCount()} times {@link #getColumnCount()}.
+     * @throws IllegalStateException if the columns of this {@link Block} have been set separately
+     *                               by {@link #setColumns(DoubleBuffer[], int)}, so that they are
+     *                               not stored in one buffer; use
+     *                               {@link #getColumnBuffer(int)} in this case.
+     */
+    public DoubleBuffer getValues() {
+      if ((data == null) && (columns != null)) {
+        throw new IllegalStateException("The columns of this block are not stored contiguously.");
+      }
+      DoubleBuffer view = data.duplicate();
+      ((Buffer) view).rewind();
+      return view;
+    }
+
+    /**
+     * @param rowIndex
+     * @return the given row index if it is within the bounds of the data matrix.
+     */
+    private int checkRow(int rowIndex) {
+      if ((rowIndex < 0) || (rowIndex >= rowCount)) {
+        throw new IndexOutOfBoundsException(Integer.toString(rowIndex));
+      }
+      return rowIndex;
     }
 
     /**
@@ -389,7 +513,7 @@ public Double getValueAt(int rowIndex, int columnIndex) {
      * @return dataSet?
      */
     public boolean isSetData() {
-      return data != null;
+      return columns != null;
     }
 
     /**
@@ -400,6 +524,8 @@ public void setColumnNames(String[] columnNames) {
     }
 
     /**
+     * Copies the given row-major matrix into this {@link Block}.
+     *
      * @param data the data to set
      */
     public void setData(double[][] data) {
@@ -407,16 +533,83 @@ public void setData(double[][] data) {
         throw new IllegalArgumentException(
           String.format(UNEQUAL_DATA_AND_TIME_POINTS, data.length, timePoints.length));
       }
-      this.data = data;
+      int columns = data.length > 0 ? data[0].length : 0;
+      double[] values = new double[data.length * columns];
+      for (int i = 0; i < data.length; i++) {
+        if (data[i].length != columns) {
+          throw new IllegalArgumentException(
+            String.format(UNEQUAL_COLUMNS_AND_IDENTIFIERS, data[i].length, columns));
+        }
+        for (int j = 0; j < columns; j++) {
+          values[(j * data.length) + i] = data[i][j];
+        }
+      }
+      setValues(DoubleBuffer.wrap(values), data.length, columns);
+    }
+
+    /**
+     * Directly sets the data matrix of this {@link Block} without copying it.
+     *
+     * @param values   the matrix in column-major order.
+     * @param rowCount the number of rows in the matrix.
+     * @param columns  the number of columns in the matrix.
+     */
+    public void setValues(DoubleBuffer values, int rowCount, int columns) {
+      if (isSetTimePoints() && (rowCount != getRowCount())) {
+        throw new IllegalArgumentException(
+          String.format(UNEQUAL_DATA_AND_TIME_POINTS, rowCount, timePoints.length));
+      }
+      if (values.remaining() != rowCount * columns) {
+        throw new IllegalArgumentException(
+          String.format(UNEQUAL_COLUMNS_AND_IDENTIFIERS, values.remaining(), rowCount * columns));
+      }
+      data = values.slice();
+      this.columns = new DoubleBuffer[columns];
+      for (int j = 0; j < columns; j++) {
+        DoubleBuffer view = data.duplicate();
+        ((Buffer) view).position(j * rowCount);
+        ((Buffer) view).limit((j + 1) * rowCount);
+        this.columns[j] = view.slice();
+      }
+      this.rowCount = rowCount;
+      columnCount = columns;
+    }
+
+    /**
+     * Directly sets the columns of the data matrix of this {@link Block} without copying them.
+     * In contrast to {@link #setValues(DoubleBuffer, int, int)}, the columns do not need to be
+     * stored in one buffer, e.g., if they are mapped from a file and exceed the size of one
+     * mapping together. {@link #getValues()} cannot be used for such a {@link Block}.
+     *
+     * @param columns  the values of each column.
+     * @param rowCount the number of rows in the matrix.
+     */
+    public void setColumns(DoubleBuffer[] columns, int rowCount) {
+      if (isSetTimePoints() && (rowCount != getRowCount())) {
+        throw new IllegalArgumentException(
+          String.format(UNEQUAL_DATA_AND_TIME_POINTS, rowCount, timePoints.length));
+      }
+      DoubleBuffer[] slices = new DoubleBuffer[columns.length];
+      for (int j = 0; j < columns.length; j++) {
+        if (columns[j].remaining() != rowCount) {
+          throw new IllegalArgumentException(
+            String.format(UNEQUAL_DATA_AND_TIME_POINTS, columns[j].remaining(), rowCount));
+        }
+        slices[j] = columns[j].slice();
+      }
+      data = null;
+      this.columns = slices;
+      this.rowCount = rowCount;
+      columnCount = columns.length;
     }
 
     /**
      * @param identifiers the identifiers to set
      */
     public void setIdentifiers(String[] identifiers) {
-      if (isSetData() && (identifiers.length != data[0].length)) {
+      if (isSetData() && (rowCount > 0) && (identifiers.length != columnCount)) {
         throw new IllegalArgumentException(
-          String.format(UNEQUAL_COLUMNS_AND_IDENTIFIERS, data[0].length, identifiers.length));
+          String.format(UNEQUAL_COLUMNS_AND_IDENTIFIERS, columnCount, identifiers.length));
       }
       this.identifiers = identifiers;
       idHash.clear();
@@ -433,8 +626,8 @@ public void setName(String name) {
     }
 
     /**
-     * Sets the given array as the new row in the given position of the data matrix, but requires
-     * that the number of values in the array equal the number of columns in the matrix.
+     * Copies the given array into the given row of the data matrix, but requires that the number
+     * of values in the array equal the number of columns in the matrix.
      *
      * @param rowIndex The index of the row to be replaced by the new array.
      * @param array    An array of length {@link #getColumnCount()} - 1.
@@ -444,7 +637,20 @@ public void setRowData(int rowIndex, double[] array) {
         throw new IllegalArgumentException(
           String.format(UNEQUAL_COLUMNS_AND_IDENTIFIERS, array.length, identifiers.length));
       }
-      data[rowIndex] = array;
+      for (int j = 0; j < array.length; j++) {
+        columns[j].put(checkRow(rowIndex), array[j]);
+      }
+    }
+
+    /**
+     * Primitive access to change one element of the data matrix.
+     *
+     * @param value
+     * @param rowIndex
+     * @param columnIndex The index of the column (excluding the time column)
+     */
+    public void setValue(double value, int rowIndex, int columnIndex) {
+      columns[columnIndex].put(checkRow(rowIndex), value);
     }
 
     /* (non-Javadoc)
@@ -458,7 +664,7 @@ public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
       if (columnIndex == 0) {
         timePoints[rowIndex] = (Double) aValue;
       } else {
-        data[rowIndex][columnIndex - 1] = (Double) aValue;
+        setValue((Double) aValue, rowIndex, columnIndex - 1);
       }
     }
 
@@ -588,8 +794,43 @@ public void addBlock(String[] identifiers) {
     Block block = new Block(this);
     block.setIdentifiers(identifiers);
     if (isSetTimePoints()) {
-      block.setData(new double[timePoints.length][identifiers.length]);
+      block.setValues(DoubleBuffer.wrap(new double[timePoints.length * identifiers.length]),
+        timePoints.length, identifiers.length);
+    }
+    listOfBlocks.add(block);
+  }
+
+  /**
+   * Adds a new {@link MultiTable.Block} whose values are given in column-major order without
+   * copying them. This can, for instance, be used for data that are mapped from some file. The
+   * time points of this table must have been set before.
+   *
+   * @param identifiers The column identifiers of the new block.
+   * @param values      The values of the new block in column-major order.
+   */
+  public void addBlock(String[] identifiers, DoubleBuffer values) {
+    Block block = new Block(this);
+    block.setValues(values, getRowCount(), identifiers.length);
+    block.setIdentifiers(identifiers);
+    listOfBlocks.add(block);
+  }
+
+  /**
+   * Adds a new {@link MultiTable.Block} whose columns are given as separate buffers without
+   * copying them. The time points of this table must have been set before.
+   *
+   * @param identifiers The column identifiers of the new block.
+   * @param columns     The values of each column of the new block.
+   * @see Block#setColumns(DoubleBuffer[], int)
+   */
+  public void addBlock(String[] identifiers, DoubleBuffer[] columns) {
+    if (identifiers.length != columns.length) {
+      throw new IllegalArgumentException(
+        String.format(UNEQUAL_COLUMNS_AND_IDENTIFIERS, columns.length, identifiers.length));
     }
+    Block block = new Block(this);
+    block.setColumns(columns, getRowCount());
+    block.setIdentifiers(identifiers);
     listOfBlocks.add(block);
   }
 
@@ -619,13 +860,15 @@ public MultiTable filter(double[] timepoints) {
     }
     filtered.setTimePoints(filteredTimepoints);
     for (int block = 0; block != getBlockCount(); block++) {
-      filtered.addBlock(getBlock(block).getIdentifiers());
-      filtered.getBlock(block)
-      .setData(new double[rowIndices.size()][getBlock(block).getIdentifiers().length]);
-      int rowCounter = 0;
-      for (int rowIndex : rowIndices) {
-        filtered.getBlock(block).setRowData(rowCounter, getBlock(block).getRow(rowIndex));
-        rowCounter++;
+      Block source = getBlock(block);
+      filtered.addBlock(source.getIdentifiers());
+      Block target = filtered.getBlock(block);
+      for (int col = 0; col < source.getColumnCount(); col++) {
+        int rowCounter = 0;
+        for (int rowIndex : rowIndices) {
+          target.setValue(source.getValue(rowIndex, col), rowCounter, col);
+          rowCounter++;
+        }
       }
     }
     return filtered;
@@ -674,8 +917,13 @@ public Column getColumn(int column) {
    * @return A {@link Column} object for this identifier or null if no such {@link Column} exists.
    */
   public Column getColumn(String identifier) {
-    int index = getColumnIndex(identifier);
-    return index > -1 ? getColumn(index) : null;
+    for (Block b : listOfBlocks) {
+      int index = b.getColumnIndex(identifier);
+      if (index > -1) {
+        return b.getColumn(index);
+      }
+    }
+    return null;
   }
 
   /**
@@ -685,12 +933,13 @@ public Column getColumn(String identifier) {
    * @return index the index of the column
    */
   public int getColumnIndex(String identifier) {
-    String id;
-    for (int i = 1; i < getColumnCount(); i++) {
-      id = getColumnIdentifier(i);
-      if (id.equals(identifier)) {
-        return i;
+    int offset = 1;
+    for (Block b : listOfBlocks) {
+      int index = b.getColumnIndex(identifier);
+      if (index > -1) {
+        return offset + index;
       }
+      offset += b.getColumnCount();
     }
     return -1;
   }
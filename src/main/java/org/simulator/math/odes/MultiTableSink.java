@@ -0,0 +1,128 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+
+import org.apache.commons.math.ode.DerivativeException;
+
+/**
+ * A {@link ResultSink} that gathers all rows in a {@link MultiTable}. This is
+ * the behavior of the {@link MultiTable}-returning {@code solve} methods of
+ * {@link DESSolver}: all values are initialized with {@link Double#NaN} and the
+ * first block is named "Values", an optional second block "Additional values".
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class MultiTableSink implements ResultSink {
+
+  /**
+   * The table that is filled by this sink.
+   */
+  private MultiTable table;
+
+  /**
+   * Creates a new sink. The {@link MultiTable} will be created when the sink
+   * is opened.
+   */
+  public MultiTableSink() {
+    super();
+  }
+
+  /**
+   * @return the {@link MultiTable} that has been filled by this sink or
+   *         {@code null} if this sink has not yet been opened.
+   */
+  public MultiTable getTable() {
+    return table;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#open(double[], java.lang.String[], java.lang.String[])
+   */
+  @Override
+  public void open(double[] timePoints, String[] identifiers, String[] additionalIdentifiers) {
+    table = new MultiTable();
+    table.setTimePoints(timePoints);
+    table.addBlock(identifiers);
+    DoubleBuffer values = table.getBlock(0).getValues();
+    for (int i = 0; i < values.limit(); i++) {
+      values.put(i, Double.NaN);
+    }
+    table.getBlock(0).setName("Values");
+    if (additionalIdentifiers != null) {
+      table.addBlock(additionalIdentifiers);
+      table.getBlock(table.getBlockCount() - 1).setName("Additional values");
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#write(int, double, double[], double[])
+   */
+  @Override
+  public void write(int rowIndex, double time, double[] values, double[] additionalValues) {
+    table.getBlock(0).setRowData(rowIndex, values);
+    if ((additionalValues != null) && (table.getBlockCount() > 1)) {
+      table.getBlock(1).setRowData(rowIndex, additionalValues);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.ResultSink#close()
+   */
+  @Override
+  public void close() {
+  }
+
+  /**
+   * Passes all rows of the given table to the given sink, i.e., the opposite
+   * of gathering the rows of a simulation in a {@link MultiTable}.
+   *
+   * @param table a table whose first block contains the state and whose
+   *              optional second block contains additional values.
+   * @param sink  receives the rows of the table and is closed afterwards.
+   * @throws DerivativeException if the sink fails.
+   */
+  static void copy(MultiTable table, ResultSink sink) throws DerivativeException {
+    MultiTable.Block additional = (table.getBlockCount() > 1) ? table.getBlock(1) : null;
+    try {
+      try {
+        sink.open(table.getTimePoints(), table.getBlock(0).getIdentifiers(),
+          (additional != null) ? additional.getIdentifiers() : null);
+        for (int i = 0; i < table.getRowCount(); i++) {
+          sink.write(i, table.getTimePoint(i), table.getBlock(0).getRow(i),
+            (additional != null) ? additional.getRow(i) : null);
+        }
+      } finally {
+        sink.close();
+      }
+    } catch (IOException exc) {
+      throw new DerivativeException(exc);
+    }
+  }
+
+}
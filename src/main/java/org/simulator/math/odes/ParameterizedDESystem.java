@@ -84,4 +84,21 @@ public interface ParameterizedDESystem extends DESystem {
    * @see #getParameterCount()
    */
   void setParameters(double[] values);
+
+  /**
+   * Changes the value of a single parameter. In contrast to {@link #setParameters(double[])},
+   * implementing classes may restrict this method to the evaluation of the system, i.e., skip any
+   * updates of an underlying model or any re-initialization, so that it can be called in each
+   * evaluation of the system, for instance, to compute difference quotients. The default
+   * implementation delegates to {@link #setParameters(double[])}.
+   *
+   * @param index the position of the parameter in {@link #getParameterIdentifiers()}
+   * @param value the new value of the parameter
+   * @see #setParameters(double[])
+   */
+  default void setParameterValue(int index, double value) {
+    double[] values = getParameterValues();
+    values[index] = value;
+    setParameters(values);
+  }
 }
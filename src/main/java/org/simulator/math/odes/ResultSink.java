@@ -0,0 +1,82 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.io.IOException;
+
+/**
+ * A {@link ResultSink} receives the rows of a numerical integration one after
+ * the other while a {@link DESSolver} proceeds in time. In contrast to
+ * returning a completely pre-allocated {@link MultiTable}, a sink may keep
+ * only parts of the result, reduce it on the fly, or pass it directly to some
+ * output stream, so that memory consumption no longer depends on the number of
+ * time points.
+ * <p>
+ * A solver calls {@link #open(double[], String[], String[])} once, then
+ * {@link #write(int, double, double[], double[])} exactly once for each time
+ * point in increasing order, and finally {@link #close()}. The arrays passed to
+ * {@link #write(int, double, double[], double[])} may be reused by the solver,
+ * so that implementations that need to keep the values must copy them.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public interface ResultSink {
+
+  /**
+   * Announces the layout of the upcoming result.
+   *
+   * @param timePoints            all time points for which a row will be written.
+   * @param identifiers           the identifiers of the state variables.
+   * @param additionalIdentifiers the identifiers of additional (intermediate)
+   *                              values or {@code null} if no such values will
+   *                              be written.
+   * @throws IOException
+   */
+  void open(double[] timePoints, String[] identifiers, String[] additionalIdentifiers)
+      throws IOException;
+
+  /**
+   * Receives the result for one time point.
+   *
+   * @param rowIndex         the index of the time point in the array that has
+   *                         been passed to {@link #open(double[], String[], String[])}.
+   * @param time             the time point of this row.
+   * @param values           the current state of the system.
+   * @param additionalValues the additional (intermediate) values or
+   *                         {@code null}.
+   * @throws IOException
+   */
+  void write(int rowIndex, double time, double[] values, double[] additionalValues)
+      throws IOException;
+
+  /**
+   * Signals that no further rows will be written.
+   *
+   * @throws IOException
+   */
+  void close() throws IOException;
+
+}
@@ -112,6 +112,11 @@ public class RosenbrockSolver extends AdaptiveStepsizeIntegrator {
    */
   double sk;
 
+  /**
+   * the smallest relative tolerance that is used, see {@link #RELMIN}
+   */
+  private double relMin = RELMIN;
+
   /**
    * factor used for adjusting the step size, divide current step size by hAdap to get new step
    * size
@@ -292,19 +297,21 @@ public RosenbrockSolver clone() {
    * @throws DerivativeException
    */
   public double step(DESystem DES) throws DerivativeException {
+    SolverStatistics statistics = getStatistics();
     double largestError = 0;
-    DES.computeDerivatives(t, y, g0);
+    computeDerivatives(DES, t, y, g0);
     for (int j = 0; j < numEqn; j++) {
       System.arraycopy(y, 0, ya, 0, numEqn);
       ya[j] += h;
       System.arraycopy(y, 0, yb, 0, numEqn);
       yb[j] += 2 * h;
-      DES.computeDerivatives(t, ya, g1);
-      DES.computeDerivatives(t, yb, g2);
+      computeDerivatives(DES, t, ya, g1);
+      computeDerivatives(DES, t, yb, g2);
       for (int q = 0; q < numEqn; q++) {
         JAC[q][j] = (-3 * g0[q] + 4 * g1[q] - g2[q]) / (2 * h);
       }
     }
+    statistics.addJacobianEvaluations(1L);
     for (int i = 0; i < numEqn; i++) {
       for (int j = 0; j < numEqn; j++) {
         FAC[i][j] = I[i][j] / (gam * h) - JAC[i][j];
@@ -312,70 +319,89 @@ public double step(DESystem DES) throws DerivativeException {
     }
     // Forward difference approx for derivative of f
     // WRT the independent variable
-    DES.computeDerivatives(t + h, y, g1x);
-    DES.computeDerivatives(t + 2 * h, y, g2x);
+    computeDerivatives(DES, t + h, y, g1x);
+    computeDerivatives(DES, t + 2 * h, y, g2x);
     for (int i = 0; i < numEqn; i++) {
       DFDX[i] = g0[i] * -3 / (2 * h) + g1x[i] * 2 / h + g2x[i] * -1 / (2 * h);
     }
     // Here the work of taking the step begins
     // It uses the derivatives calculated above
-    DES.computeDerivatives(t, yTemp, f1);
+    computeDerivatives(DES, t, yTemp, f1);
     for (int i = 0; i < numEqn; i++) {
       k1[i] = f1[i] + DFDX[i] * h * d1;
     }
+    long start = statistics.start();
     try {
       MatrixOperations.ludcmp(FAC, indx);
     } catch (MatrixException e) {
       throw new DerivativeException("Rosenbrock solver returns an error due to singular matrix.");
     }
+    statistics.addLUDecompositions(1L);
     MatrixOperations.lubksb(FAC, indx, k1);
+    statistics.addLinearAlgebraTime(statistics.elapsed(start));
     for (int i = 0; i < numEqn; i++) {
       yTemp[i] = y[i] + k1[i] * a21;
     }
-    DES.computeDerivatives(t + c2 * h, yTemp, f2);
+    computeDerivatives(DES, t + c2 * h, yTemp, f2);
     for (int i = 0; i < numEqn; i++) {
       k2[i] = f2[i] + DFDX[i] * h * d2 + k1[i] * c21 / h;
     }
+    start = statistics.start();
     MatrixOperations.lubksb(FAC, indx, k2);
+    statistics.addLinearAlgebraTime(statistics.elapsed(start));
     for (int i = 0; i < numEqn; i++) {
       yTemp[i] = y[i] + k1[i] * a31 + k2[i] * a32;
     }
-    DES.computeDerivatives(t + c3 * h, yTemp, f3);
+    computeDerivatives(DES, t + c3 * h, yTemp, f3);
     for (int i = 0; i < numEqn; i++) {
       k3[i] = f3[i] + DFDX[i] * h * d3 + k1[i] * c31 / h + k2[i] * c32 / h;
     }
+    start = statistics.start();
     MatrixOperations.lubksb(FAC, indx, k3);
+    statistics.addLinearAlgebraTime(statistics.elapsed(start));
     for (int i = 0; i < numEqn; i++) {
       yTemp[i] = y[i] + k1[i] * a41 + k2[i] * a42 + k3[i] * a43;
     }
-    DES.computeDerivatives(t + c4 * h, yTemp, f4);
+    computeDerivatives(DES, t + c4 * h, yTemp, f4);
     for (int i = 0; i < numEqn; i++) {
       k4[i] = f4[i] + DFDX[i] * h * d4 + k1[i] * c41 / h + k2[i] * c42 / h + k3[i] * c43 / h;
     }
+    start = statistics.start();
     MatrixOperations.lubksb(FAC, indx, k4);
+    statistics.addLinearAlgebraTime(statistics.elapsed(start));
     for (int i = 0; i < numEqn; i++) {
       yTemp[i] = y[i] + k1[i] * a51 + k2[i] * a52 + k3[i] * a53 + k4[i] * a54;
     }
-    DES.computeDerivatives(t + h, yTemp, f5);
+    computeDerivatives(DES, t + h, yTemp, f5);
     for (int i = 0; i < numEqn; i++) {
       k5[i] = f5[i] + k1[i] * c51 / h + k2[i] * c52 / h + k3[i] * c53 / h + k4[i] * c54 / h;
     }
+    start = statistics.start();
     MatrixOperations.lubksb(FAC, indx, k5);
+    statistics.addLinearAlgebraTime(statistics.elapsed(start));
     for (int i = 0; i < numEqn; i++) {
       yTemp[i] += k5[i];
     }
-    DES.computeDerivatives(t + h, yTemp, f6);
+    computeDerivatives(DES, t + h, yTemp, f6);
     for (int i = 0; i < numEqn; i++) {
       yerr[i] = f6[i] + k1[i] * c61 / h + k2[i] * c62 / h + k3[i] * c63 / h + k4[i] * c64 / h
           + k5[i] * c65 / h;
     }
+    start = statistics.start();
     MatrixOperations.lubksb(FAC, indx, yerr);
+    statistics.addLinearAlgebraTime(statistics.elapsed(start));
     for (int i = 0; i < numEqn; i++) {
       yNew[i] = yTemp[i] + yerr[i];
     }
+    double[] absTols = getAbsTolerances(), relTols = getRelTolerances();
     for (int i = 0; i < numEqn; i++) {
       if (!ignoreNaN[i]) {
-        sk = absTol + relTol * Math.max(Math.abs(y[i]), Math.abs(yNew[i]));
+        if (absTols != null) {
+          sk = absTols[i]
+              + Math.max(relTols[i], relMin) * Math.max(Math.abs(y[i]), Math.abs(yNew[i]));
+        } else {
+          sk = absTol + relTol * Math.max(Math.abs(y[i]), Math.abs(yNew[i]));
+        }
         largestError += Math.pow(yerr[i] / sk, 2);
         if ((Double.isInfinite(yTemp[i]) || Double.isNaN(yTemp[i]))) {
           return -1;
@@ -458,7 +484,7 @@ public double[] computeChange(DESystem DES, double[] y2, double time, double cur
       // Restrict relative error tolerance to be at least as large as
       // 2*eps+RELMIN to avoid limiting precision difficulties arising
       // from impossible accuracy requests
-      double relMin = 2.0d * eps + RELMIN;
+      relMin = 2.0d * eps + RELMIN;
       if (relTol < relMin) {
         relTol = relMin;
       }
@@ -574,6 +600,7 @@ public double[] computeChange(DESystem DES, double[] y2, double time, double cur
                 h = precisionTimingEventsAndRules;
               }
               System.arraycopy(oldY, 0, y, 0, numEqn);
+              getStatistics().addRejectedSteps(1L);
             } else {
               System.arraycopy(yTemp, 0, y, 0, numEqn);
               t = Math.min(newTime, timeEnd);
@@ -581,10 +608,12 @@ public double[] computeChange(DESystem DES, double[] y2, double time, double cur
                 h = timeEnd - t;
               }
               lastStepSuccessful = true;
+              getStatistics().addAcceptedSteps(1L);
             }
           } else {
             System.arraycopy(yTemp, 0, y, 0, numEqn);
             t = Math.min(newTime, timeEnd);
+            getStatistics().addAcceptedSteps(1L);
             // change stepsize (see Rodas.f) require 0.2<=hnew/h<=6
             hAdap = Math.max(fac1, Math.min(fac2, Math.pow(localError, PWR) / SAFETY));
             h = h / hAdap;
@@ -594,6 +623,7 @@ public double[] computeChange(DESystem DES, double[] y2, double time, double cur
             lastStepSuccessful = true;
           }
         } else {
+          getStatistics().addRejectedSteps(1L);
           // if we just tried to use the minimum stepsize and still
           // failed to achieve the desired accuracy, it's useless to
           // continue, so we stop
@@ -158,6 +158,7 @@ private validMethod parseValidMethodOrDefault(String method) throws UnsupportedM
   public double[] computeChange(DESystem DES, double[] yTemp, double t, double h, double[] change,
       boolean steadyState)
       throws DerivativeException, UnsupportedMethodException {
+        getStatistics().addAcceptedSteps(1L);
         switch(method) {
           case RK2:
             return computeRK2(DES, yTemp, t, h, change);
@@ -196,12 +197,12 @@ public double[] computeRK2(DESystem DES, double[] yTemp, double t, double h, dou
         double[] kTemp = new double[dim];
          
         // k0 = h * f(t, yTemp)
-        DES.computeDerivatives(t, yTemp, kValues[0]);
+        computeDerivatives(DES, t, yTemp, kValues[0]);
         Mathematics.svMult(h, kValues[0], kValues[0]);
 
         // k1 = h * f(t + h, yTemp + k0)
         Mathematics.vvAdd(kValues[0], yTemp, kTemp);
-        DES.computeDerivatives(t + h, kTemp, kValues[1]);
+        computeDerivatives(DES, t + h, kTemp, kValues[1]);
         Mathematics.svMult(h, kValues[1], kValues[1]);
 
         // Combine all k's
@@ -246,22 +247,22 @@ public double[] computeRK4(DESystem DES, double[] yTemp, double t, double h, dou
       double tEnd = t + h;
 
       // k0 = h * f(t, yTemp)
-      DES.computeDerivatives(t, yTemp, kVals[0]);
+      computeDerivatives(DES, t, yTemp, kVals[0]);
       Mathematics.svMult(h, kVals[0], kVals[0]);
 
       // k1 = h * f(t + h/2, y + k0/2)
       Mathematics.svvAddScaled(0.5, kVals[0], yTemp, kHelp);
-      DES.computeDerivatives(tMid, kHelp, kVals[1]);
+      computeDerivatives(DES, tMid, kHelp, kVals[1]);
       Mathematics.svMult(h, kVals[1], kVals[1]);
 
       // k2 = h * f(t + h/2, y + k1/2)
       Mathematics.svvAddScaled(0.5, kVals[1], yTemp, kHelp);
-      DES.computeDerivatives(tMid, kHelp, kVals[2]);
+      computeDerivatives(DES, tMid, kHelp, kVals[2]);
       Mathematics.svMult(h, kVals[2], kVals[2]);
 
       // k3 = h * f(t + h, y + k2)
       Mathematics.vvAdd(yTemp, kVals[2], kHelp);
-      DES.computeDerivatives(tEnd, kHelp, kVals[3]);
+      computeDerivatives(DES, tEnd, kHelp, kVals[3]);
       Mathematics.svMult(h, kVals[3], kVals[3]);
 
       // combining all k's
@@ -0,0 +1,333 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+import org.apache.commons.math.ode.DerivativeException;
+
+/**
+ * Extends a {@link ParameterizedDESystem} by its forward sensitivity equations,
+ * so that the sensitivities
+ * <i>s<sub>j</sub></i> = d<i>y</i>/d<i>p<sub>j</sub></i> of all state
+ * variables with respect to the selected parameters can be integrated together
+ * with the state by any {@link DESSolver}:
+ * <p>
+ * d<i>s<sub>j</sub></i>/d<i>t</i> = <i>J</i> <i>s<sub>j</sub></i> +
+ * &part;<i>f</i>/&part;<i>p<sub>j</sub></i>
+ * <p>
+ * The product of the Jacobian <i>J</i> with <i>s<sub>j</sub></i> is computed
+ * as a directional difference quotient, which needs a single evaluation of the
+ * original system per parameter and does not require the full Jacobian.
+ * Parameters that are also part of the state vector (such as the global
+ * parameters of an SBML model, which the {@link org.simulator.sbml.SBMLinterpreter}
+ * integrates together with all other quantities) are treated as initial
+ * values, i.e., their sensitivity starts with one in their own position and
+ * they have no explicit influence on <i>f</i>. For all other parameters,
+ * &part;<i>f</i>/&part;<i>p<sub>j</sub></i> is approximated by a forward
+ * difference through {@link ParameterizedDESystem#setParameterValue(int, double)}.
+ * <p>
+ * Events and rules are not forwarded to the original system, hence systems
+ * that contain any of them are rejected.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class SensitivityDESystem implements DESystem {
+
+  /**
+   * Generated serial version identifier.
+   */
+  private static final long serialVersionUID = -2379468510244581873L;
+
+  /**
+   * The square root of the machine precision, which is the relative step width
+   * of all difference quotients.
+   */
+  private static final double SQRT_EPS = Math.sqrt(Math.ulp(1d));
+
+  /**
+   * The system whose sensitivities are computed.
+   */
+  private final ParameterizedDESystem system;
+
+  /**
+   * The identifiers of the selected parameters.
+   */
+  private final String[] parameterIds;
+
+  /**
+   * For each selected parameter its position among all parameters of
+   * {@link #system}.
+   */
+  private final int[] parameterIndices;
+
+  /**
+   * For each selected parameter its position in the state vector or -1 if it
+   * is not part of the state.
+   */
+  private final int[] stateIndices;
+
+  /**
+   * The dimension of the original system.
+   */
+  private final int dimension;
+
+  /**
+   * Work arrays.
+   */
+  private final double[] y, f, yPerturbed, fPerturbed;
+
+  /**
+   * @param system the system, whose sensitivities with respect to all of its
+   *               parameters are to be computed.
+   */
+  public SensitivityDESystem(ParameterizedDESystem system) {
+    this(system, system.getParameterIdentifiers());
+  }
+
+  /**
+   * @param system       the system, whose sensitivities are to be computed.
+   * @param parameterIds the identifiers of those parameters of the system with
+   *                     respect to which sensitivities are computed.
+   * @throws IllegalArgumentException if the system contains events or rules
+   *                                  or one of the parameters is unknown.
+   */
+  public SensitivityDESystem(ParameterizedDESystem system, String... parameterIds) {
+    if (system.containsEventsOrRules()) {
+      // TODO: Localize
+      throw new IllegalArgumentException(
+        "Sensitivities cannot be computed for systems with events or rules.");
+    }
+    this.system = system;
+    this.parameterIds = parameterIds.clone();
+    dimension = system.getDimension();
+    parameterIndices = new int[parameterIds.length];
+    stateIndices = new int[parameterIds.length];
+    String[] allParameterIds = system.getParameterIdentifiers();
+    String[] stateIds = system.getIdentifiers();
+    for (int j = 0; j < parameterIds.length; j++) {
+      parameterIndices[j] = indexOf(allParameterIds, parameterIds[j]);
+      if (parameterIndices[j] < 0) {
+        // TODO: Localize
+        throw new IllegalArgumentException("Unknown parameter " + parameterIds[j]);
+      }
+      stateIndices[j] = indexOf(stateIds, parameterIds[j]);
+    }
+    y = new double[dimension];
+    f = new double[dimension];
+    yPerturbed = new double[dimension];
+    fPerturbed = new double[dimension];
+  }
+
+  /**
+   * @param ids
+   * @param id
+   * @return the position of id in ids or -1
+   */
+  private static int indexOf(String[] ids, String id) {
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i].equals(id)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Creates the initial values of the extended system, i.e., the given initial
+   * state followed by the initial sensitivities of all selected parameters.
+   *
+   * @param initialValues the initial state of the original system
+   * @return the initial values of this system
+   */
+  public double[] getInitialValues(double[] initialValues) {
+    double[] z = Arrays.copyOf(initialValues, getDimension());
+    for (int j = 0; j < stateIndices.length; j++) {
+      if (stateIndices[j] >= 0) {
+        z[(j + 1) * dimension + stateIndices[j]] = 1d;
+      }
+    }
+    return z;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESystem#computeDerivatives(double, double[], double[])
+   */
+  @Override
+  public void computeDerivatives(double t, double[] z, double[] zDot)
+      throws DerivativeException {
+    System.arraycopy(z, 0, y, 0, dimension);
+    system.computeDerivatives(t, y, f);
+    double yNorm = 0d;
+    for (int i = 0; i < dimension; i++) {
+      yNorm = Math.max(yNorm, Math.abs(y[i]));
+    }
+    double[] parameterValues = null;
+    for (int j = 0; j < parameterIds.length; j++) {
+      int offset = (j + 1) * dimension;
+      // Jacobian times the current sensitivity
+      double sNorm = 0d;
+      for (int i = 0; i < dimension; i++) {
+        sNorm = Math.max(sNorm, Math.abs(z[offset + i]));
+      }
+      if (sNorm == 0d) {
+        Arrays.fill(zDot, offset, offset + dimension, 0d);
+      } else {
+        double eps = SQRT_EPS * (1d + yNorm) / sNorm;
+        for (int i = 0; i < dimension; i++) {
+          yPerturbed[i] = y[i] + eps * z[offset + i];
+        }
+        system.computeDerivatives(t, yPerturbed, fPerturbed);
+        for (int i = 0; i < dimension; i++) {
+          zDot[offset + i] = (fPerturbed[i] - f[i]) / eps;
+        }
+      }
+      // explicit dependency on the parameter
+      if (stateIndices[j] < 0) {
+        if (parameterValues == null) {
+          parameterValues = system.getParameterValues();
+        }
+        int p = parameterIndices[j];
+        double value = parameterValues[p];
+        double delta = SQRT_EPS * Math.max(Math.abs(value), 1d);
+        system.setParameterValue(p, value + delta);
+        system.computeDerivatives(t, y, fPerturbed);
+        system.setParameterValue(p, value);
+        for (int i = 0; i < dimension; i++) {
+          zDot[offset + i] += (fPerturbed[i] - f[i]) / delta;
+        }
+      }
+    }
+    System.arraycopy(f, 0, zDot, 0, dimension);
+  }
+
+  /**
+   * Integrates the state together with its sensitivities and splits the result
+   * into several blocks: the first {@link MultiTable.Block} contains the state
+   * and is followed by one block per parameter that contains the sensitivities
+   * of all state variables with respect to this parameter. All blocks share the
+   * same underlying buffer.
+   *
+   * @param solver        the solver to be used
+   * @param initialValues the initial state of the original system
+   * @param timePoints    the time points of the result
+   * @return the state and its sensitivities
+   * @throws DerivativeException
+   */
+  public MultiTable solve(DESSolver solver, double[] initialValues, double[] timePoints)
+      throws DerivativeException {
+    MultiTable extended = solver.solve(this, getInitialValues(initialValues), timePoints);
+    MultiTable result = new MultiTable();
+    result.setTimePoints(extended.getTimePoints());
+    result.setTimeName(extended.getTimeName());
+    int rows = extended.getRowCount();
+    DoubleBuffer values = extended.getBlock(0).getValues();
+    String[] stateIds = system.getIdentifiers();
+    for (int j = 0; j <= parameterIds.length; j++) {
+      ((Buffer) values).limit((j + 1) * dimension * rows);
+      ((Buffer) values).position(j * dimension * rows);
+      if (j == 0) {
+        result.addBlock(stateIds, values);
+        result.getBlock(0).setName("Values");
+      } else {
+        result.addBlock(sensitivityIds(stateIds, parameterIds[j - 1]), values);
+        result.getBlock(j).setName("Sensitivities with respect to " + parameterIds[j - 1]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param stateIds
+   * @param parameterId
+   * @return the identifiers of the sensitivities of all state variables with
+   * respect to the given parameter.
+   */
+  private static String[] sensitivityIds(String[] stateIds, String parameterId) {
+    String[] ids = new String[stateIds.length];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = "d" + stateIds[i] + "/d" + parameterId;
+    }
+    return ids;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESystem#getDimension()
+   */
+  @Override
+  public int getDimension() {
+    return dimension * (parameterIds.length + 1);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESystem#getIdentifiers()
+   */
+  @Override
+  public String[] getIdentifiers() {
+    String[] stateIds = system.getIdentifiers();
+    String[] ids = Arrays.copyOf(stateIds, getDimension());
+    for (int j = 0; j < parameterIds.length; j++) {
+      System.arraycopy(sensitivityIds(stateIds, parameterIds[j]), 0, ids, (j + 1) * dimension,
+        dimension);
+    }
+    return ids;
+  }
+
+  /**
+   * @return the identifiers of the parameters with respect to which
+   * sensitivities are computed.
+   */
+  public String[] getParameterIdentifiers() {
+    return parameterIds.clone();
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESystem#containsEventsOrRules()
+   */
+  @Override
+  public boolean containsEventsOrRules() {
+    return false;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESystem#getPositiveValueCount()
+   */
+  @Override
+  public int getPositiveValueCount() {
+    return system.getPositiveValueCount();
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.DESystem#setDelaysIncluded(boolean)
+   */
+  @Override
+  public void setDelaysIncluded(boolean delaysIncluded) {
+    system.setDelaysIncluded(delaysIncluded);
+  }
+
+}
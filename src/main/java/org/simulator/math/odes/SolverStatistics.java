@@ -0,0 +1,347 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters that a {@link DESSolver} updates while solving a system, e.g., the number of accepted
+ * and rejected steps, of evaluations of the right-hand side and of the Jacobian matrix, and the time
+ * spent in these evaluations and in linear algebra. The counters are set to zero at the beginning
+ * of each simulation, so that they describe the last (or current) simulation. Counters that are
+ * not applicable to a solver, e.g., LU decompositions in an explicit method, remain zero.
+ * <p>
+ * Measuring times costs two calls of {@link System#nanoTime()} per evaluation of the right-hand
+ * side, which is noticeable for small systems, hence times are only measured after
+ * {@link #setTimingEnabled(boolean) setTimingEnabled(true)}.
+ * <p>
+ * For long simulations, the counters can be published as a JMX MBean with
+ * {@link #register(String)}. The counters are updated without synchronization, hence values read
+ * from another thread may lag slightly behind.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public class SolverStatistics implements SolverStatisticsMBean, Serializable {
+
+  /**
+   * Generated serial version identifier.
+   */
+  private static final long serialVersionUID = -1482094634283741620L;
+
+  /**
+   * The domain of the JMX names of all statistics.
+   */
+  public static final String JMX_DOMAIN = "org.simulator";
+
+  private long acceptedSteps, rejectedSteps;
+  private long derivativeEvaluations, jacobianEvaluations, luDecompositions;
+  private long eventChecks, eventFirings, methodSwitches;
+  private long derivativeTime, linearAlgebraTime;
+
+  /**
+   * Whether times are measured.
+   */
+  private boolean timingEnabled;
+
+  /**
+   * The name under which these statistics are registered or {@code null}.
+   */
+  private transient ObjectName objectName;
+
+  /**
+   * Creates new statistics, which do not measure times.
+   */
+  public SolverStatistics() {
+    timingEnabled = false;
+  }
+
+  /**
+   * @param steps
+   */
+  public void addAcceptedSteps(long steps) {
+    acceptedSteps += steps;
+  }
+
+  /**
+   * @param steps
+   */
+  public void addRejectedSteps(long steps) {
+    rejectedSteps += steps;
+  }
+
+  /**
+   * @param evaluations
+   */
+  public void addDerivativeEvaluations(long evaluations) {
+    derivativeEvaluations += evaluations;
+  }
+
+  /**
+   * @param evaluations
+   */
+  public void addJacobianEvaluations(long evaluations) {
+    jacobianEvaluations += evaluations;
+  }
+
+  /**
+   * @param decompositions
+   */
+  public void addLUDecompositions(long decompositions) {
+    luDecompositions += decompositions;
+  }
+
+  /**
+   * @param checks
+   */
+  public void addEventChecks(long checks) {
+    eventChecks += checks;
+  }
+
+  /**
+   * @param firings
+   */
+  public void addEventFirings(long firings) {
+    eventFirings += firings;
+  }
+
+  /**
+   * @param switches
+   */
+  public void addMethodSwitches(long switches) {
+    methodSwitches += switches;
+  }
+
+  /**
+   * @param nanos the time of some evaluations of the right-hand side
+   */
+  public void addDerivativeTime(long nanos) {
+    derivativeTime += nanos;
+  }
+
+  /**
+   * @param nanos the time of some linear algebra operations
+   */
+  public void addLinearAlgebraTime(long nanos) {
+    linearAlgebraTime += nanos;
+  }
+
+  /**
+   * Adds all counters of the given statistics to these, e.g., those of a solver to which some
+   * computation has been delegated.
+   *
+   * @param statistics
+   */
+  public void add(SolverStatistics statistics) {
+    acceptedSteps += statistics.acceptedSteps;
+    rejectedSteps += statistics.rejectedSteps;
+    derivativeEvaluations += statistics.derivativeEvaluations;
+    jacobianEvaluations += statistics.jacobianEvaluations;
+    luDecompositions += statistics.luDecompositions;
+    eventChecks += statistics.eventChecks;
+    eventFirings += statistics.eventFirings;
+    methodSwitches += statistics.methodSwitches;
+    derivativeTime += statistics.derivativeTime;
+    linearAlgebraTime += statistics.linearAlgebraTime;
+  }
+
+  /**
+   * @return the current value of {@link System#nanoTime()} if times are measured, zero otherwise.
+   * This is the start for {@link #addDerivativeTime(long)} and
+   * {@link #addLinearAlgebraTime(long)}, which receive the elapsed time as
+   * {@code elapsed(start)}.
+   */
+  public long start() {
+    return timingEnabled ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * @param start the value of {@link #start()}
+   * @return the time elapsed since the start or zero if times are not measured
+   */
+  public long elapsed(long start) {
+    return timingEnabled ? System.nanoTime() - start : 0L;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getAcceptedSteps()
+   */
+  @Override
+  public long getAcceptedSteps() {
+    return acceptedSteps;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getRejectedSteps()
+   */
+  @Override
+  public long getRejectedSteps() {
+    return rejectedSteps;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getDerivativeEvaluations()
+   */
+  @Override
+  public long getDerivativeEvaluations() {
+    return derivativeEvaluations;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getJacobianEvaluations()
+   */
+  @Override
+  public long getJacobianEvaluations() {
+    return jacobianEvaluations;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getLUDecompositions()
+   */
+  @Override
+  public long getLUDecompositions() {
+    return luDecompositions;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getEventChecks()
+   */
+  @Override
+  public long getEventChecks() {
+    return eventChecks;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getEventFirings()
+   */
+  @Override
+  public long getEventFirings() {
+    return eventFirings;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getMethodSwitches()
+   */
+  @Override
+  public long getMethodSwitches() {
+    return methodSwitches;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getDerivativeTime()
+   */
+  @Override
+  public long getDerivativeTime() {
+    return derivativeTime;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#getLinearAlgebraTime()
+   */
+  @Override
+  public long getLinearAlgebraTime() {
+    return linearAlgebraTime;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#isTimingEnabled()
+   */
+  @Override
+  public boolean isTimingEnabled() {
+    return timingEnabled;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#setTimingEnabled(boolean)
+   */
+  @Override
+  public void setTimingEnabled(boolean timingEnabled) {
+    this.timingEnabled = timingEnabled;
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SolverStatisticsMBean#reset()
+   */
+  @Override
+  public void reset() {
+    acceptedSteps = rejectedSteps = 0L;
+    derivativeEvaluations = jacobianEvaluations = luDecompositions = 0L;
+    eventChecks = eventFirings = methodSwitches = 0L;
+    derivativeTime = linearAlgebraTime = 0L;
+  }
+
+  /**
+   * Registers these statistics with the platform MBean server.
+   *
+   * @param name the name of the solver or simulation, which distinguishes these statistics from
+   *             those of other solvers
+   * @return the name under which the statistics have been registered
+   * @throws JMException if the statistics cannot be registered, e.g., because the name is already
+   *                     in use
+   */
+  public synchronized ObjectName register(String name) throws JMException {
+    unregister();
+    ObjectName objectName = new ObjectName(
+      JMX_DOMAIN + ":type=" + SolverStatistics.class.getSimpleName() + ",name=" + ObjectName.quote(name));
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    server.registerMBean(this, objectName);
+    this.objectName = objectName;
+    return objectName;
+  }
+
+  /**
+   * Removes these statistics from the platform MBean server if they have been registered.
+   *
+   * @throws JMException
+   */
+  public synchronized void unregister() throws JMException {
+    if (objectName != null) {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      objectName = null;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + " [acceptedSteps=" + acceptedSteps
+        + ", rejectedSteps=" + rejectedSteps
+        + ", derivativeEvaluations=" + derivativeEvaluations
+        + ", jacobianEvaluations=" + jacobianEvaluations
+        + ", luDecompositions=" + luDecompositions
+        + ", eventChecks=" + eventChecks
+        + ", eventFirings=" + eventFirings
+        + ", methodSwitches=" + methodSwitches
+        + ", derivativeTime=" + derivativeTime
+        + ", linearAlgebraTime=" + linearAlgebraTime + "]";
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+/**
+ * The management interface of {@link SolverStatistics}, through which the counters of a running
+ * solver can be observed with any JMX client.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public interface SolverStatisticsMBean {
+
+  /**
+   * @return the number of accepted integration steps
+   */
+  long getAcceptedSteps();
+
+  /**
+   * @return the number of rejected integration steps
+   */
+  long getRejectedSteps();
+
+  /**
+   * @return the number of evaluations of the right-hand side of the system
+   */
+  long getDerivativeEvaluations();
+
+  /**
+   * @return the number of evaluations of the Jacobian matrix
+   */
+  long getJacobianEvaluations();
+
+  /**
+   * @return the number of LU decompositions
+   */
+  long getLUDecompositions();
+
+  /**
+   * @return the number of times the system has been checked for events
+   */
+  long getEventChecks();
+
+  /**
+   * @return the number of events that have been fired
+   */
+  long getEventFirings();
+
+  /**
+   * @return the number of switches between a non-stiff and a stiff method
+   */
+  long getMethodSwitches();
+
+  /**
+   * @return the time spent in the evaluation of the right-hand side in nanoseconds or zero if
+   * times are not measured
+   */
+  long getDerivativeTime();
+
+  /**
+   * @return the time spent in linear algebra in nanoseconds or zero if times are not measured
+   */
+  long getLinearAlgebraTime();
+
+  /**
+   * @return whether the time spent in the evaluation of the right-hand side and in linear algebra
+   * is measured, which is off by default
+   */
+  boolean isTimingEnabled();
+
+  /**
+   * @param timingEnabled whether to measure the time spent in the evaluation of the right-hand
+   *                      side and in linear algebra
+   */
+  void setTimingEnabled(boolean timingEnabled);
+
+  /**
+   * Sets all counters to zero.
+   */
+  void reset();
+}
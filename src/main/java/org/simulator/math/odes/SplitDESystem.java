@@ -0,0 +1,68 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.simulator.math.SparseMatrix;
+
+/**
+ * A differential equation system whose right-hand side f(t, y) = L y + N(t, y) can be split into
+ * a linear part L y, which often contains the fast first-order processes such as degradation and
+ * transport, and a nonlinear remainder N(t, y). Solvers such as the {@link IMEXRungeKuttaSolver}
+ * treat the linear part implicitly and only the remainder explicitly.
+ * <p>
+ * Solvers compute the remainder as f(t, y) - L y, so the matrix L only needs to capture the stiff
+ * linear processes, not all of them.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public interface SplitDESystem extends DESystem {
+
+  /**
+   * @return {@code true} if the linear part of this system is not empty.
+   */
+  boolean hasLinearPart();
+
+  /**
+   * @return a new matrix with the structure of the linear part of this system, i.e., with entries
+   * at all positions whose coefficients may be non-zero
+   */
+  SparseMatrix createLinearPart();
+
+  /**
+   * Computes the matrix of the linear part of this system at the given time and state. The
+   * coefficients may depend on time or on the state, e.g., when a rate constant is changed by an
+   * event, in which case they are assumed to be constant within one step. The
+   * {@link SparseMatrix#getVersion() version} of the matrix only changes if a coefficient does.
+   *
+   * @param t          the current time
+   * @param y          the current state
+   * @param linearPart a matrix created by {@link #createLinearPart()}, whose values are set to the
+   *                   coefficients of the linear part
+   * @throws DerivativeException
+   */
+  void computeLinearPart(double t, double[] y, SparseMatrix linearPart) throws DerivativeException;
+}
@@ -0,0 +1,49 @@
+/*
+ * ---------------------------------------------------------------------
+ * This file is part of Simulation Core Library, a Java-based library
+ * for efficient numerical simulation of biological models.
+ *
+ * Copyright (C) 2007-2022 jointly by the following organizations:
+ * 1. University of Tuebingen, Germany
+ * 2. Keio University, Japan
+ * 3. Harvard University, USA
+ * 4. The University of Edinburgh, UK
+ * 5. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 6. The University of California, San Diego, La Jolla, CA, USA
+ * 7. The Babraham Institute, Cambridge, UK
+ * 8. Duke University, Durham, NC, US
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package org.simulator.math.odes;
+
+/**
+ * Receives the state of the numerical integration after every output step of a
+ * {@link DESSolver}. In contrast to a {@link java.beans.PropertyChangeListener},
+ * this listener is called directly with primitive arguments, so that notifying
+ * it neither creates event objects nor boxes the time points.
+ *
+ * @author agent
+ * @version $Rev$
+ * @since 2.1
+ */
+public interface StepListener {
+
+  /**
+   * Called by the solver after each output step.
+   *
+   * @param previousTime the time point of the previous step
+   * @param time         the time point that has just been reached
+   * @param y            the current state of the system. This array is owned by
+   *                     the solver and may be changed after this method
+   *                     returns.
+   */
+  void onStep(double previousTime, double time, double[] y);
+
+}
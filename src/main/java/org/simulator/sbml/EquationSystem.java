@@ -43,6 +43,7 @@
 import org.simulator.math.odes.EventDESystem;
 import org.simulator.math.odes.FastProcessDESystem;
 import org.simulator.math.odes.RichDESystem;
+import org.simulator.math.odes.StepListener;
 import org.simulator.sbml.astnode.ASTNodeInterpreter;
 import org.simulator.sbml.astnode.ASTNodeValue;
 import org.simulator.sbml.astnode.AssignmentRuleValue;
@@ -71,7 +72,7 @@
  */
 public abstract class EquationSystem
 implements SBMLValueHolder, DelayedDESystem, EventDESystem,
-FastProcessDESystem, RichDESystem, PropertyChangeListener {
+FastProcessDESystem, RichDESystem, PropertyChangeListener, StepListener {
 
   /**
    * Generated serial version identifier.
@@ -1844,6 +1845,16 @@ public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
 
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onStep(double previousTime, double time, double[] y) {
+    setPreviousTimePoint(previousTime);
+    setLatestTimePoint(time);
+    setLatestTimePointResult(y);
+  }
+
   /**
    * Chooses an event of a list randomly.
    *
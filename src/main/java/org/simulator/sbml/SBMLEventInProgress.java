@@ -26,7 +26,6 @@
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.simulator.math.odes.EventInProgress;
 import org.simulator.sbml.astnode.ASTNodeValue;
@@ -48,11 +47,6 @@ public class SBMLEventInProgress extends EventInProgress {
    */
   protected double priority;
 
-  /**
-   * The event assignments
-   */
-  protected Map<Integer, Double> assignments;
-
   /**
    * The trigger of the event
    */
@@ -45,7 +45,7 @@ public class SBMLEventInProgressWithDelay extends SBMLEventInProgress {
   /**
    * The previous values with which the event has been executed
    */
-  private LinkedList<Double[]> previousExecutionValues;
+  private LinkedList<double[]> previousExecutionValues;
 
   /**
    * Creates a new SBMLEventInProcessWithDelay with the given boolean value indicating whether or
@@ -82,10 +82,10 @@ public void aborted(double time) {
 
   /*
    * (non-Javadoc)
-   * @see org.simulator.math.odes.SBMLEventInProcess#addValues(java.lang.Double[], double)
+   * @see org.simulator.math.odes.SBMLEventInProcess#addValues(double[], double)
    */
   @Override
-  public void addValues(Double[] values, double time) {
+  public void addValues(double[] values, double time) {
     int index;
     index = insertTime(time);
     execTimes.add(index, time);
@@ -24,8 +24,11 @@
  */
 package org.simulator.sbml;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -35,18 +38,28 @@
 import fern.network.AmountManager;
 import org.apache.commons.math.ode.DerivativeException;
 import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Compartment;
 import org.sbml.jsbml.Event;
 import org.sbml.jsbml.InitialAssignment;
 import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.LocalParameter;
 import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.SBase;
 import org.sbml.jsbml.Species;
 import org.sbml.jsbml.validator.ModelOverdeterminedException;
+import org.simulator.math.SparseMatrix;
 import org.simulator.math.odes.AbstractDESSolver;
 import org.simulator.math.odes.DESystem;
 import org.simulator.math.odes.EventInProgress;
+import org.simulator.math.odes.ParameterizedDESystem;
+import org.simulator.math.odes.SplitDESystem;
 import org.simulator.sbml.astnode.ASTNodeValue;
 import org.simulator.sbml.astnode.AssignmentRuleValue;
+import org.simulator.sbml.astnode.LocalParameterValue;
 
 /**
  * <p>
@@ -64,7 +77,8 @@
  * @version $Rev$
  * @since 0.9
  */
-public class SBMLinterpreter extends EquationSystem {
+public class SBMLinterpreter extends EquationSystem implements ParameterizedDESystem,
+    SplitDESystem {
 
   /**
    * A {@link Logger}.
@@ -76,6 +90,75 @@ public class SBMLinterpreter extends EquationSystem {
    */
   private static final long serialVersionUID = 3453063382705340995L;
 
+  /**
+   * The default values this interpreter has last been initialized with (needed by {@link #copy()}).
+   */
+  private double defaultSpeciesValue, defaultParameterValue, defaultCompartmentValue;
+
+  /**
+   * The amount hash this interpreter has last been initialized with (needed by {@link #copy()}).
+   */
+  private Map<String, Boolean> amountHash;
+
+  /**
+   * The values that have been set by {@link #setParameterValue(int, double)} for local parameters,
+   * which are only known to the syntax tree but not written to the {@link Model}, or {@code null}.
+   */
+  private Map<LocalParameter, Double> overriddenValues;
+
+  /**
+   * The local parameters of all kinetic laws in the order of {@link #getParameterIdentifiers()},
+   * i.e., the local parameter at position {@code i} has the index {@code i +
+   * model.getParameterCount()}; {@code null} until first requested.
+   *
+   * @see #indexLocalParameters()
+   */
+  private LocalParameter[] localParameters;
+
+  /**
+   * For every local parameter in {@link #localParameters}, the nodes of the syntax tree that refer
+   * to it.
+   */
+  private LocalParameterValue[][] localParameterNodes;
+
+  /**
+   * For every local parameter in {@link #localParameters}, the nodes of the syntax tree whose value
+   * depends on it and which might have cached this value as a constant.
+   */
+  private ASTNodeValue[][] dependentNodes;
+
+  /**
+   * For every reaction, the index of the species its first-order mass-action kinetic law depends
+   * on, or -1 if the kinetic law is not of this kind; {@code null} until first requested.
+   *
+   * @see #computeLinearPart(double, double[], SparseMatrix)
+   */
+  private int[] linearSpecies;
+
+  /**
+   * The rate coefficients of the first-order reactions.
+   */
+  private double[] linearCoefficients;
+
+  /**
+   * The structure of the linear part, for every reactant and product of a first-order reaction the
+   * index of its entry in this structure or -1, and the values of all entries.
+   */
+  private SparseMatrix linearStructure;
+  private int[] linearEntries;
+  private double[] linearValues;
+
+  /**
+   * For every {@link Species} of the model, in the order of the model, its index in the Y array.
+   */
+  private int[] speciesIndices;
+
+  /**
+   * The {@link AmountManager} whose amounts are currently held in the Y array and which reports
+   * each of its changes by {@link #updateSpeciesAmount(int, long)}, or {@code null}.
+   */
+  private AmountManager synchronizedAmountManager;
+
   /**
    * <p>
    * This constructs a new {@link DESystem} for the given SBML {@link Model}. Note that only a
@@ -130,6 +213,40 @@ public SBMLinterpreter(Model model, double defaultSpeciesValue, double defaultPa
     init(true, defaultSpeciesValue, defaultParameterValue, defaultCompartmentValue, amountHash);
   }
 
+  /**
+   * Creates an independent interpreter for a deep copy of the underlying {@link Model}, initialized
+   * with the same default values and the current parameter, initial and state values of this
+   * interpreter. The compiled syntax tree caches intermediate results and the
+   * interpreter stores its own state vectors, so an interpreter must not be shared between threads;
+   * instead, every thread should work on its own copy.
+   *
+   * @return a new interpreter that does not share any mutable state with this one
+   * @throws ModelOverdeterminedException
+   * @throws SBMLException
+   */
+  public SBMLinterpreter copy() throws ModelOverdeterminedException, SBMLException {
+    Model copy;
+    synchronized (model) {
+      SBMLDocument doc = model.getSBMLDocument();
+      copy = (doc != null) ? doc.clone().getModel() : model.clone();
+    }
+    SBMLinterpreter interpreter = new SBMLinterpreter(copy, defaultSpeciesValue,
+        defaultParameterValue, defaultCompartmentValue,
+        (amountHash != null) ? new HashMap<String, Boolean>(amountHash) : null);
+    if ((overriddenValues != null) && !overriddenValues.isEmpty()) {
+      double[] values = getParameterValues();
+      for (int i = model.getParameterCount(); i < values.length; i++) {
+        if (overriddenValues.containsKey(getLocalParameter(i))) {
+          interpreter.setParameterValue(i, values[i]);
+        }
+      }
+    }
+    // the initial and current values may differ from those derived from the model
+    System.arraycopy(initialValues, 0, interpreter.initialValues, 0, initialValues.length);
+    System.arraycopy(Y, 0, interpreter.Y, 0, Y.length);
+    return interpreter;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -162,7 +279,7 @@ public EventInProgress getNextEventAssignments(double t, double previousTime, do
     currentTime = t;
     Double priority, execTime = 0d;
     astNodeTime += 0.01;
-    Double[] triggerTimeValues;
+    double[] triggerTimeValues;
     Event ev;
     int i = 0, index;
     Boolean persistent, aborted;
@@ -271,7 +388,7 @@ public EventInProgress getNextEventAssignments(double t, double previousTime, do
                 // execution
                 List<AssignmentRuleValue> ruleObjects = events[i].getRuleObjects();
                 if (ruleObjects != null) {
-                  triggerTimeValues = new Double[ruleObjects.size()];
+                  triggerTimeValues = new double[ruleObjects.size()];
                   int j = 0;
                   for (AssignmentRuleValue obj : ruleObjects) {
                     obj.processRule(Y, astNodeTime, false);
@@ -439,8 +556,20 @@ public void init(boolean renewTree, double defaultSpeciesValue, double defaultPa
   public void init(boolean renewTree, double defaultSpeciesValue, double defaultParameterValue,
       double defaultCompartmentValue, Map<String, Boolean> amountHash)
       throws ModelOverdeterminedException, SBMLException {
+    this.defaultSpeciesValue = defaultSpeciesValue;
+    this.defaultParameterValue = defaultParameterValue;
+    this.defaultCompartmentValue = defaultCompartmentValue;
+    this.amountHash = amountHash;
+    linearSpecies = null;
+    localParameters = null;
+    synchronizedAmountManager = null;
     super.init(renewTree, defaultSpeciesValue, defaultParameterValue, defaultCompartmentValue,
         amountHash);
+    applyOverriddenValues();
+    speciesIndices = new int[model.getSpeciesCount()];
+    for (int i = 0; i < speciesIndices.length; i++) {
+      speciesIndices[i] = symbolHash.get(model.getSpecies(i).getId());
+    }
     /*
      * Initial assignments
      */
@@ -576,7 +705,7 @@ private SBMLEventInProgress processNextEvent(HashSet<Double> priorities, double[
       } else {
         // event uses values from trigger time -> get stored values
         // from the HashMap
-        Double[] triggerTimeValues = events[index].getValues();
+        double[] triggerTimeValues = events[index].getValues();
         if (events[index].getRuleObjects() != null) {
           int j = 0;
           for (AssignmentRuleValue obj : events[index].getRuleObjects()) {
@@ -777,6 +906,56 @@ protected void processVelocities(double[] changeRate, double time)
   }
 
 
+  /**
+   * Returns the identifiers of all global parameters followed by those of the local parameters of
+   * all kinetic laws, which are given in the form {@code reactionId.parameterId}. This is the order
+   * expected by {@link #setParameters(double[])}.
+   *
+   * @return the identifiers of all parameters in the model
+   */
+  @Override
+  public String[] getParameterIdentifiers() {
+    String[] ids = new String[getParameterCount()];
+    int i = 0;
+    for (; i < model.getParameterCount(); i++) {
+      ids[i] = model.getParameter(i).getId();
+    }
+    for (int r = 0; r < model.getReactionCount(); r++) {
+      KineticLaw law = model.getReaction(r).getKineticLaw();
+      if (law != null) {
+        for (LocalParameter lp : law.getListOfLocalParameters()) {
+          ids[i++] = model.getReaction(r).getId() + '.' + lp.getId();
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Returns the current values of all parameters in the order of {@link
+   * #getParameterIdentifiers()}.
+   *
+   * @return the values of all parameters in the model
+   */
+  @Override
+  public double[] getParameterValues() {
+    double[] values = new double[getParameterCount()];
+    int i = 0;
+    for (; i < model.getParameterCount(); i++) {
+      values[i] = model.getParameter(i).getValue();
+    }
+    for (int r = 0; r < model.getReactionCount(); r++) {
+      KineticLaw law = model.getReaction(r).getKineticLaw();
+      if (law != null) {
+        for (LocalParameter lp : law.getListOfLocalParameters()) {
+          Double value = (overriddenValues != null) ? overriddenValues.get(lp) : null;
+          values[i++] = (value != null) ? value : lp.getValue();
+        }
+      }
+    }
+    return values;
+  }
+
   /**
    * This method allows us to set the parameters of the model to the specified values in the given
    * array.
@@ -787,6 +966,7 @@ protected void processVelocities(double[] changeRate, double time)
    */
   // TODO changing the model directly not allowed / does this method still
   // make sense?
+  @Override
   public void setParameters(double[] params) {
     // TODO consider local parameters as well.
     // if (params.length != model.getParameterCount())
@@ -804,7 +984,11 @@ public void setParameters(double[] params) {
       if (law != null) {
         for (localPnum = 0;
             (localPnum < law.getLocalParameterCount()) && (paramNum < params.length); localPnum++) {
-          law.getLocalParameter(localPnum).setValue(params[paramNum++]);
+          LocalParameter lp = law.getLocalParameter(localPnum);
+          lp.setValue(params[paramNum++]);
+          if (overriddenValues != null) {
+            overriddenValues.remove(lp);
+          }
           updateSyntaxGraph = true;
         }
         law.getMath()
@@ -815,6 +999,9 @@ public void setParameters(double[] params) {
             model.getReaction(reactionNum).getId());
       }
     }
+    if (updateSyntaxGraph) {
+      applyOverriddenValues();
+    }
     if ((model.getInitialAssignmentCount() > 0) || (model.getEventCount() > 0)) {
       try {
         init();
@@ -835,6 +1022,147 @@ public void setParameters(double[] params) {
     }
   }
 
+  /**
+   * Changes the value of a single parameter. The value of a local parameter is only replaced in the
+   * compiled syntax tree, i.e., neither the {@link Model} is changed nor is this system
+   * re-initialized, so that this method is cheap enough to be called between two evaluations of
+   * {@link #computeDerivatives(double, double[], double[])}. The new value is reported by {@link
+   * #getParameterValues()} and kept until the parameter is changed by {@link
+   * #setParameters(double[])}. Global parameters are part of the state vector and are changed
+   * through {@link #setParameters(double[])}.
+   *
+   * @param index the position of the parameter in {@link #getParameterIdentifiers()}
+   * @param value the new value of the parameter
+   */
+  @Override
+  public void setParameterValue(int index, double value) {
+    LocalParameter lp = getLocalParameter(index);
+    if (lp == null) {
+      ParameterizedDESystem.super.setParameterValue(index, value);
+      return;
+    }
+    if (overriddenValues == null) {
+      overriddenValues = new IdentityHashMap<>();
+    }
+    overriddenValues.put(lp, value);
+    int local = index - model.getParameterCount();
+    for (LocalParameterValue node : localParameterNodes[local]) {
+      node.setValue(value);
+    }
+    for (ASTNodeValue node : dependentNodes[local]) {
+      node.reset();
+    }
+  }
+
+  /**
+   * @param index the position of a parameter in {@link #getParameterIdentifiers()}
+   * @return the local parameter at this position or {@code null} for a global parameter
+   */
+  private LocalParameter getLocalParameter(int index) {
+    int local = index - model.getParameterCount();
+    if (local < 0) {
+      return null;
+    }
+    if (localParameters == null) {
+      indexLocalParameters();
+    }
+    if (local >= localParameters.length) {
+      throw new IndexOutOfBoundsException("No parameter at position " + index);
+    }
+    return localParameters[local];
+  }
+
+  /**
+   * Collects the local parameters of all kinetic laws together with the nodes of the syntax tree
+   * that refer to them and all nodes above those, so that {@link #setParameterValue(int, double)}
+   * only needs to visit the nodes affected by a change.
+   */
+  private void indexLocalParameters() {
+    List<LocalParameter> parameters = new ArrayList<>();
+    Map<LocalParameter, Integer> positions = new IdentityHashMap<>();
+    for (Reaction r : model.getListOfReactions()) {
+      KineticLaw law = r.getKineticLaw();
+      if (law != null) {
+        for (LocalParameter lp : law.getListOfLocalParameters()) {
+          positions.put(lp, parameters.size());
+          parameters.add(lp);
+        }
+      }
+    }
+    // equal subtrees are merged, so that a node may have several parents
+    Map<ASTNode, List<ASTNode>> parents = new IdentityHashMap<>();
+    for (ASTNode node : nodes) {
+      for (ASTNode child : node.getChildren()) {
+        List<ASTNode> list = parents.get(child);
+        if (list == null) {
+          list = new ArrayList<>(1);
+          parents.put(child, list);
+        }
+        list.add(node);
+      }
+    }
+    List<List<LocalParameterValue>> references = new ArrayList<>(parameters.size());
+    List<Map<ASTNode, ASTNodeValue>> dependents = new ArrayList<>(parameters.size());
+    for (int i = 0; i < parameters.size(); i++) {
+      references.add(new ArrayList<LocalParameterValue>());
+      dependents.add(new IdentityHashMap<ASTNode, ASTNodeValue>());
+    }
+    List<ASTNode> stack = new ArrayList<>();
+    for (ASTNode node : nodes) {
+      Object nodeValue = node.getUserObject(TEMP_VALUE);
+      if (!(nodeValue instanceof LocalParameterValue)) {
+        continue;
+      }
+      Integer position = positions.get(((LocalParameterValue) nodeValue).getLocalParameter());
+      if (position == null) {
+        continue;
+      }
+      references.get(position).add((LocalParameterValue) nodeValue);
+      Map<ASTNode, ASTNodeValue> dependent = dependents.get(position);
+      stack.add(node);
+      while (!stack.isEmpty()) {
+        List<ASTNode> list = parents.get(stack.remove(stack.size() - 1));
+        if (list != null) {
+          for (ASTNode parent : list) {
+            if (!dependent.containsKey(parent)) {
+              dependent.put(parent, (ASTNodeValue) parent.getUserObject(TEMP_VALUE));
+              stack.add(parent);
+            }
+          }
+        }
+      }
+    }
+    localParameterNodes = new LocalParameterValue[parameters.size()][];
+    dependentNodes = new ASTNodeValue[parameters.size()][];
+    for (int i = 0; i < parameters.size(); i++) {
+      localParameterNodes[i] = references.get(i).toArray(new LocalParameterValue[0]);
+      dependentNodes[i] = dependents.get(i).values().toArray(new ASTNodeValue[0]);
+    }
+    localParameters = parameters.toArray(new LocalParameter[0]);
+  }
+
+  /**
+   * Passes the values set by {@link #setParameterValue(int, double)} to the nodes of all local
+   * parameters in the syntax tree.
+   */
+  private void applyOverriddenValues() {
+    if (overriddenValues == null) {
+      return;
+    }
+    for (ASTNode node : nodes) {
+      Object nodeValue = node.getUserObject(TEMP_VALUE);
+      if (nodeValue instanceof LocalParameterValue) {
+        LocalParameterValue lpValue = (LocalParameterValue) nodeValue;
+        Double value = overriddenValues.get(lpValue.getLocalParameter());
+        if (value != null) {
+          lpValue.setValue(value);
+        } else {
+          lpValue.unsetValue();
+        }
+      }
+    }
+  }
+
   /**
    * Updates the concentration of species due to a change in the size of their compartment (also at
    * events)
@@ -885,13 +1213,56 @@ private void updateSpeciesConcentrationByCompartmentRateRule(int compartmentInde
   }
 
   /**
-   * Updates the species concentration as per the updated values in the AmountManager.
+   * Updates the species concentration as per the updated values in the AmountManager. Nothing has
+   * to be copied if the Y array is kept up to date for this AmountManager, see {@link
+   * #synchronizeSpeciesAmounts(AmountManager)}.
    *
    * @param amountManager
    */
   public void updateSpeciesConcentration(AmountManager amountManager) {
-    for (int i = 0; i < model.getSpeciesCount(); i++) {
-      Y[symbolHash.get(model.getSpecies(i).getId())] = amountManager.getAmount(i);
+    if (amountManager != synchronizedAmountManager) {
+      copySpeciesAmounts(amountManager);
+      synchronizedAmountManager = null;
+    }
+  }
+
+  /**
+   * Copies the amounts of all species from the given AmountManager. From now on, the
+   * AmountManager has to report each change by {@link #updateSpeciesAmount(int, long)} as long as
+   * {@link #isSynchronized(AmountManager)} holds, which lets {@link
+   * #updateSpeciesConcentration(AmountManager)} skip the copying.
+   *
+   * @param amountManager
+   */
+  public void synchronizeSpeciesAmounts(AmountManager amountManager) {
+    copySpeciesAmounts(amountManager);
+    synchronizedAmountManager = amountManager;
+  }
+
+  /**
+   * Checks whether the Y array is kept up to date for the given AmountManager. This ends as soon as
+   * the amounts of another AmountManager are copied.
+   *
+   * @param amountManager
+   * @return whether the AmountManager has to report its changes
+   */
+  public boolean isSynchronized(AmountManager amountManager) {
+    return amountManager == synchronizedAmountManager;
+  }
+
+  /**
+   * Sets the amount of a single species in the Y array.
+   *
+   * @param species the index of the species in the model
+   * @param amount  the new amount
+   */
+  public void updateSpeciesAmount(int species, long amount) {
+    Y[speciesIndices[species]] = amount;
+  }
+
+  private void copySpeciesAmounts(AmountManager amountManager) {
+    for (int i = 0; i < speciesIndices.length; i++) {
+      Y[speciesIndices[i]] = amountManager.getAmount(i);
     }
   }
 
@@ -918,6 +1289,168 @@ private void refreshSpeciesAmount(int compartmentIndex, double[] Y, double oldCo
     }
   }
 
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SplitDESystem#hasLinearPart()
+   */
+  @Override
+  public boolean hasLinearPart() {
+    for (int s : getLinearSpecies()) {
+      if (s >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The linear part consists of all reactions that are not fast and whose kinetic law is a product
+   * of numbers, local parameters, parameters and compartments not determined by rules, and exactly
+   * one species (divisions by such constant factors are allowed as well), i.e., of the first-order
+   * mass-action kinetics of degradation and transport processes.
+   *
+   * @see org.simulator.math.odes.SplitDESystem#computeLinearPart(double, double[], org.simulator.math.SparseMatrix)
+   */
+  @Override
+  public void computeLinearPart(double t, double[] y, SparseMatrix linearPart) {
+    int[] species = getLinearSpecies();
+    Arrays.fill(linearValues, 0d);
+    if (!noDerivatives) {
+      currentTime = t;
+      System.arraycopy(y, 0, Y, 0, y.length);
+      astNodeTime += 0.01d;
+      for (int i = 0; i != stoichiometryValues.length; i++) {
+        // stoichiometries may depend on the state as in processVelocities
+        if ((linearEntries[i] >= 0) && (!constantStoichiometry[i] || !stoichiometrySet[i])) {
+          stoichiometry[i] = stoichiometryValues[i].compileDouble(astNodeTime);
+          stoichiometrySet[i] = stoichiometryValues[i].getStoichiometrySet();
+        }
+      }
+      // the velocity of a first-order reaction at unit value of its species is its rate coefficient
+      for (int r = 0; r < species.length; r++) {
+        if (species[r] >= 0) {
+          Y[species[r]] = 1d;
+          astNodeTime += 0.01d;
+          linearCoefficients[r] = kineticLawRoots[r].compileDouble(astNodeTime, 0d);
+          Y[species[r]] = y[species[r]];
+        }
+      }
+      for (int i = 0; i != stoichiometryValues.length; i++) {
+        if (linearEntries[i] < 0) {
+          continue;
+        }
+        int row = speciesIndex[i];
+        double value = stoichiometry[i] * linearCoefficients[reactionIndex[i]];
+        if (isReactant[i]) {
+          value = -value;
+        }
+        if (inConcentrationValues[row]) {
+          value /= y[compartmentIndexes[row]];
+        }
+        linearValues[linearEntries[i]] += value * conversionFactors[row];
+      }
+    }
+    linearPart.setValues(linearValues);
+  }
+
+  /* (non-Javadoc)
+   * @see org.simulator.math.odes.SplitDESystem#createLinearPart()
+   */
+  @Override
+  public SparseMatrix createLinearPart() {
+    getLinearSpecies();
+    return new SparseMatrix(linearStructure);
+  }
+
+  /**
+   * @return for every reaction the index of the species its first-order kinetic law depends on or
+   * -1
+   */
+  private int[] getLinearSpecies() {
+    if (linearSpecies == null) {
+      int[] species = new int[model.getReactionCount()];
+      for (int r = 0; r < species.length; r++) {
+        Reaction reaction = model.getReaction(r);
+        species[r] = -1;
+        if (reactionFast[r] || !reaction.isSetKineticLaw() || !reaction.getKineticLaw().isSetMath()) {
+          continue;
+        }
+        List<Species> factors = new ArrayList<Species>(1);
+        KineticLaw law = reaction.getKineticLaw();
+        if (isFirstOrderProduct(law, law.getMath(), true, factors)
+            && (factors.size() == 1)) {
+          Integer index = symbolHash.get(factors.get(0).getId());
+          if (index != null) {
+            species[r] = index.intValue();
+          }
+        }
+      }
+      int[] rows = new int[stoichiometryValues.length], columns = new int[rows.length];
+      int count = 0;
+      for (int i = 0; i != stoichiometryValues.length; i++) {
+        if ((species[reactionIndex[i]] >= 0) && !zeroChange[i]) {
+          rows[count] = speciesIndex[i];
+          columns[count++] = species[reactionIndex[i]];
+        }
+      }
+      linearStructure = new SparseMatrix(Y.length, Arrays.copyOf(rows, count), Arrays.copyOf(columns, count));
+      linearEntries = new int[stoichiometryValues.length];
+      for (int i = 0; i != stoichiometryValues.length; i++) {
+        linearEntries[i] = ((species[reactionIndex[i]] >= 0) && !zeroChange[i])
+            ? linearStructure.indexOf(speciesIndex[i], species[reactionIndex[i]]) : -1;
+      }
+      linearValues = new double[linearStructure.getEntryCount()];
+      linearCoefficients = new double[species.length];
+      linearSpecies = species;
+    }
+    return linearSpecies;
+  }
+
+  /**
+   * @param law       the kinetic law
+   * @param node      its math or one of its sub-trees
+   * @param numerator whether the node contributes to the numerator
+   * @param species   collects the species in the numerator
+   * @return {@code true} if the given node is a product or quotient of constant factors and
+   * species, where species only occur in the numerator
+   */
+  private boolean isFirstOrderProduct(KineticLaw law, ASTNode node, boolean numerator,
+    List<Species> species) {
+    switch (node.getType()) {
+    case TIMES:
+      for (ASTNode child : node.getChildren()) {
+        if (!isFirstOrderProduct(law, child, numerator, species)) {
+          return false;
+        }
+      }
+      return true;
+    case DIVIDE:
+      return (node.getChildCount() == 2)
+          && isFirstOrderProduct(law, node.getChild(0), numerator, species)
+          && isFirstOrderProduct(law, node.getChild(1), false, species);
+    case NAME:
+      // look the name up because the formulas of Level 1 models are not linked to their variables
+      String name = node.getName();
+      SBase variable = law.getLocalParameter(name);
+      if (variable == null) {
+        variable = model.findNamedSBase(name);
+      }
+      if (variable instanceof LocalParameter) {
+        return true;
+      }
+      // values changed by events are fine because the linear part is evaluated in every step
+      if ((variable instanceof Parameter) || (variable instanceof Compartment)) {
+        return model.getRuleByVariable(name) == null;
+      }
+      if (numerator && (variable instanceof Species)) {
+        species.add((Species) variable);
+        return true;
+      }
+      return false;
+    default:
+      return node.isNumber();
+    }
+  }
+
   /**
    * @param reactionIndex index of the reaction
    * @return the current reaction velocity of a specific reaction
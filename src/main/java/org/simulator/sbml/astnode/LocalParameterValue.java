@@ -42,6 +42,16 @@ public class LocalParameterValue extends ASTNodeValue {
    */
   protected LocalParameter lp;
 
+  /**
+   * Whether the value of the local parameter is replaced by {@link #value}
+   */
+  protected boolean overridden;
+
+  /**
+   * The value that is used instead of the value of the local parameter
+   */
+  protected double value;
+
   /**
    * @param interpreter
    * @param node
@@ -55,6 +65,32 @@ public LocalParameterValue(ASTNodeInterpreter interpreter, ASTNode node, LocalPa
     isConstant = true;
   }
 
+  /**
+   * @return the corresponding local parameter
+   */
+  public LocalParameter getLocalParameter() {
+    return lp;
+  }
+
+  /**
+   * Uses the given value instead of the value of the local parameter without changing the latter.
+   *
+   * @param value
+   */
+  public void setValue(double value) {
+    this.value = value;
+    overridden = true;
+    reset();
+  }
+
+  /**
+   * Uses the value of the local parameter again.
+   */
+  public void unsetValue() {
+    overridden = false;
+    reset();
+  }
+
   /* (non-Javadoc)
    * @see org.simulator.sbml.astnode.ASTNodeValue#compileDouble(double)
    */
@@ -62,7 +98,7 @@ public LocalParameterValue(ASTNodeInterpreter interpreter, ASTNode node, LocalPa
   public double compileDouble(double time, double delay) {
     this.time = time;
     if (alreadyProcessed == false) {
-      doubleValue = lp.getValue();
+      doubleValue = overridden ? value : lp.getValue();
       alreadyProcessed = true;
     }
     return doubleValue;
@@ -65,6 +65,7 @@
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.simulator.math.odes.AbstractDESSolver;
+import org.simulator.math.odes.AutomaticSolver;
 import org.simulator.math.odes.DormandPrince54Solver;
 import org.simulator.math.odes.EulerMethod;
 import org.simulator.math.odes.MultiTable;
@@ -109,6 +110,15 @@ public class SedMLSBMLSimulatorExecutor extends AbstractSedmlExecutor {
       "KISAO:0000019"   // CVODE
   };
 
+  /**
+   * KISAO Ids that do not specify a particular algorithm. Simulations that request one of these
+   * are run with an {@link AutomaticSolver}, which chooses between an explicit and an implicit
+   * method depending on the stiffness of the model.
+   */
+  final static String[] GENERIC_KISAO_IDS = new String[]{"KISAO:0000000",  // modelling and simulation algorithm
+      "KISAO:0000694"   // ODE solver
+  };
+
   /**
    * Information for SBML interpreter about the species that an amount should be calculated for
    */
@@ -610,7 +620,9 @@ protected boolean supportsLanguage(String language) {
    * Simple factory to return a solver based on the KISAO ID.
    */
   AbstractDESSolver getSolverForKisaoID(String id) {
-    if (SUPPORTED_KISAO_IDS[0].equals(id)) {
+    if (Arrays.asList(GENERIC_KISAO_IDS).contains(id)) {
+      return new AutomaticSolver();
+    } else if (SUPPORTED_KISAO_IDS[0].equals(id)) {
       return new RosenbrockSolver();
     } else if (SUPPORTED_KISAO_IDS[1].equals(id)) {
       return new EulerMethod();
@@ -0,0 +1,152 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.Species;
+import org.simulator.TestUtils;
+import org.simulator.math.AdjointSensitivity;
+import org.simulator.math.EuclideanDistance;
+import org.simulator.math.QualityMeasure;
+import org.simulator.math.RelativeEuclideanDistance;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RungeKutta_EventSolver;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class AdjointSensitivityTest {
+
+    private static final double[] TIME_POINTS = {0.5d, 1d, 2d, 3d};
+
+    private static final double DELTA = 1E-5;
+
+    @TempDir
+    File tempDir;
+
+    /**
+     * @return the sum of squared residuals if measure is null and the distance according to the
+     * measure otherwise
+     */
+    private double objective(SBMLinterpreter interpreter, QualityMeasure measure, double[] initialValues, MultiTable data) throws Exception {
+        double[] timePoints = new double[TIME_POINTS.length + 1];
+        System.arraycopy(TIME_POINTS, 0, timePoints, 1, TIME_POINTS.length);
+        MultiTable result = new RungeKutta_EventSolver(0.01).solve(interpreter, initialValues, timePoints).filter(TIME_POINTS);
+        if (measure != null) {
+            return measure.distance(result, data);
+        }
+        List<Double> distances = new EuclideanDistance().getColumnDistances(result, data);
+        double sum = 0d;
+        for (double d : distances) {
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    private void assertGlobalParameter(File checkpointDirectory) throws Exception {
+        SBMLinterpreter interpreter = TestUtils.createInterpreter(TestUtils.SBML_00001);
+        double[] init = interpreter.getInitialValues().clone();
+        int s1 = interpreter.getSymbolHash().get("S1"), k1 = interpreter.getSymbolHash().get("k1");
+        MultiTable data = TestUtils.createDecayData("S1", init[s1], 1.5d, TIME_POINTS);
+
+        AdjointSensitivity adjoint = new AdjointSensitivity(interpreter, new RungeKutta_EventSolver(0.01));
+        adjoint.setCheckpointDirectory(checkpointDirectory);
+        double[] gradient = adjoint.gradient(init, data, "k1");
+        double objective = objective(interpreter, null, init, data);
+        assertEquals(objective, adjoint.getObjective(), objective * 1E-12);
+
+        double[] plus = init.clone(), minus = init.clone();
+        plus[k1] += DELTA;
+        minus[k1] -= DELTA;
+        double expected = (objective(interpreter, null, plus, data) - objective(interpreter, null, minus, data)) / (2d * DELTA);
+        assertEquals(expected, gradient[0], Math.abs(expected) * 1E-4);
+    }
+
+    /**
+     * Compares the adjoint gradient with respect to the local parameter k of the decay model with a
+     * central difference quotient.
+     */
+    private void assertLocalParameter(QualityMeasure measure) throws Exception {
+        SBMLinterpreter interpreter = new SBMLinterpreter(TestUtils.createDecayModel(1d, 0.5d));
+        double[] init = interpreter.getInitialValues().clone();
+        MultiTable data = TestUtils.createDecayData("A", 1d, 1.5d, TIME_POINTS);
+
+        AdjointSensitivity adjoint = new AdjointSensitivity(interpreter, new RungeKutta_EventSolver(0.01));
+        double[] gradient = adjoint.gradient(measure, init, data, "r.k");
+        double objective = objective(interpreter, measure, init, data);
+        assertEquals(objective, adjoint.getObjective(), objective * 1E-12);
+        // the parameter itself is not changed by the gradient
+        assertEquals(0.5d, interpreter.getParameterValues()[0], 0d);
+
+        interpreter.setParameterValue(0, 0.5d + DELTA);
+        double plus = objective(interpreter, measure, init, data);
+        interpreter.setParameterValue(0, 0.5d - DELTA);
+        double minus = objective(interpreter, measure, init, data);
+        double expected = (plus - minus) / (2d * DELTA);
+        assertEquals(expected, gradient[0], Math.abs(expected) * 1E-4);
+    }
+
+    @Test
+    void localParametersOfIndependentReactions() throws Exception {
+        // A decays in r with r.k, B in r2 with r2.k, so that both parameters are perturbed together
+        Model model = TestUtils.createDecayModel(1d, 0.5d);
+        Species b = model.createSpecies("B", model.getCompartment("c"));
+        b.setInitialAmount(2d);
+        b.setHasOnlySubstanceUnits(true);
+        b.setBoundaryCondition(false);
+        b.setConstant(false);
+        Reaction r2 = model.createReaction("r2");
+        r2.setReversible(false);
+        r2.createReactant(b).setStoichiometry(1d);
+        r2.getReactant(0).setConstant(true);
+        KineticLaw law = r2.createKineticLaw();
+        law.createLocalParameter("k").setValue(0.25d);
+        law.setMath(ASTNode.parseFormula("k * B"));
+        SBMLinterpreter interpreter = new SBMLinterpreter(model);
+        double[] init = interpreter.getInitialValues().clone();
+        double[][] values = new double[TIME_POINTS.length][2];
+        for (int i = 0; i < TIME_POINTS.length; i++) {
+            values[i][0] = Math.exp(-1.5d * TIME_POINTS[i]);
+            values[i][1] = 2d * Math.exp(-0.1d * TIME_POINTS[i]);
+        }
+        MultiTable data = new MultiTable(TIME_POINTS, values, new String[] {"A", "B"});
+
+        double[] gradient = new AdjointSensitivity(interpreter, new RungeKutta_EventSolver(0.01)).gradient(init, data, "r.k", "r2.k");
+        double[] k = {0.5d, 0.25d};
+        for (int p = 0; p < k.length; p++) {
+            interpreter.setParameterValue(p, k[p] + DELTA);
+            double plus = objective(interpreter, null, init, data);
+            interpreter.setParameterValue(p, k[p] - DELTA);
+            double minus = objective(interpreter, null, init, data);
+            interpreter.setParameterValue(p, k[p]);
+            double expected = (plus - minus) / (2d * DELTA);
+            assertEquals(expected, gradient[p], Math.abs(expected) * 1E-4);
+        }
+    }
+
+    @Test
+    void globalParameterInMemory() throws Exception {
+        assertGlobalParameter(null);
+    }
+
+    @Test
+    void globalParameterWithCheckpointsOnDisk() throws Exception {
+        assertGlobalParameter(tempDir);
+        assertEquals(0, tempDir.listFiles().length);
+    }
+
+    @Test
+    void localParameter() throws Exception {
+        assertLocalParameter(null);
+    }
+
+    @Test
+    void localParameterWithQualityMeasure() throws Exception {
+        assertLocalParameter(new RelativeEuclideanDistance());
+    }
+
+}
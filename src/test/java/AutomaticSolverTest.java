@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.simulator.TestUtils;
+import org.simulator.math.odes.AutomaticSolver;
+import org.simulator.math.odes.DESystem;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RosenbrockSolver;
+import org.simulator.math.odes.SolverStatistics;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class AutomaticSolverTest {
+
+    private static final double FAST = 1E4d;
+
+    /**
+     * A linear system with the eigenvalues -1 and -10000, in which the second variable quickly
+     * follows the first one.
+     */
+    private static class StiffSystem implements DESystem {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int getDimension() {
+            return 2;
+        }
+
+        @Override
+        public void computeDerivatives(double t, double[] y, double[] yDot) {
+            yDot[0] = -y[0];
+            yDot[1] = FAST * (y[0] - y[1]);
+        }
+
+        @Override
+        public String[] getIdentifiers() {
+            return new String[] {"y1", "y2"};
+        }
+
+        @Override
+        public boolean containsEventsOrRules() {
+            return false;
+        }
+
+        @Override
+        public int getPositiveValueCount() {
+            return 0;
+        }
+
+        @Override
+        public void setDelaysIncluded(boolean delaysIncluded) {
+        }
+    }
+
+    private static double[] timePoints() {
+        double[] timePoints = new double[11];
+        for (int i = 0; i < timePoints.length; i++) {
+            timePoints[i] = 0.5d * i;
+        }
+        return timePoints;
+    }
+
+    private static void assertSolution(MultiTable result) {
+        for (int i = 0; i < result.getRowCount(); i++) {
+            double t = result.getTimePoint(i);
+            assertEquals(Math.exp(-t), result.getValueAt(i, 1), 1E-4);
+            double y2 = FAST / (FAST - 1d) * (Math.exp(-t) - Math.exp(-FAST * t));
+            assertEquals(y2, result.getValueAt(i, 2), 1E-4);
+        }
+    }
+
+    @Test
+    void spectralRadius() throws Exception {
+        AutomaticSolver solver = new AutomaticSolver();
+        assertEquals(FAST, solver.estimateSpectralRadius(new StiffSystem(), 0d, new double[] {1d, 0d}), 1d);
+        solver.setEigenvalueDimensionLimit(1);
+        assertEquals(FAST, solver.estimateSpectralRadius(new StiffSystem(), 0d, new double[] {1d, 0d}), 10d);
+    }
+
+    @Test
+    void stiffSystemUsesImplicitMethod() throws Exception {
+        AutomaticSolver solver = new AutomaticSolver(0.5d);
+        MultiTable result = solver.solve(new StiffSystem(), new double[] {1d, 0d}, timePoints());
+        assertTrue(solver.isStiff());
+        assertTrue(solver.getCurrentSolver() instanceof RosenbrockSolver);
+        assertEquals(solver.getImplicitSolver().getKiSAOterm(), solver.getKiSAOterm());
+        assertSolution(result);
+        SolverStatistics statistics = solver.getStatistics();
+        assertTrue(statistics.getAcceptedSteps() > 0L);
+        // one Jacobian matrix per stiffness check and the remainder from the implicit method
+        assertTrue(statistics.getJacobianEvaluations() > 1L);
+        assertEquals(0L, statistics.getMethodSwitches());
+    }
+
+    @Test
+    void nonStiffSystemUsesExplicitMethod() throws Exception {
+        SBMLinterpreter interpreter = TestUtils.createInterpreter(TestUtils.SBML_00001);
+        AutomaticSolver solver = new AutomaticSolver(0.1d);
+        solver.solve(interpreter, interpreter.getInitialValues(), 0d, 5d);
+        assertFalse(solver.isStiff());
+        assertEquals(0L, solver.getStatistics().getMethodSwitches());
+    }
+
+    @Test
+    void trialIntegrationSwitchesToImplicitMethod() throws Exception {
+        AutomaticSolver solver = new AutomaticSolver(0.5d);
+        // never classify the system as stiff in advance
+        solver.setStiffnessThreshold(Double.POSITIVE_INFINITY);
+        MultiTable result = solver.solve(new StiffSystem(), new double[] {1d, 0d}, timePoints());
+        assertTrue(solver.isStiff());
+        assertTrue(solver.getStatistics().getMethodSwitches() > 0L);
+        assertSolution(result);
+    }
+
+    @Test
+    void explicitTrialStopsAtStepLimit() throws Exception {
+        AutomaticSolver solver = new AutomaticSolver(0.5d);
+        solver.setStiffnessThreshold(Double.POSITIVE_INFINITY);
+        solver.setExplicitStepLimit(20L);
+        MultiTable result = solver.solve(new StiffSystem(), new double[] {1d, 0d}, timePoints());
+        assertTrue(solver.isStiff());
+        // the last trial of the explicit method has been aborted at the limit
+        assertTrue(solver.getExplicitSolver().getStatistics().getAcceptedSteps() <= 20L);
+        assertSolution(result);
+    }
+
+}
@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.simulator.io.BinaryTrajectoryFormat;
+import org.simulator.math.odes.MultiTable;
+
+public class BinaryTrajectoryFormatTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void writeAndMap() throws IOException {
+        double[] timePoints = {0d, 0.5d, 1d};
+        double[][] data = {{1d, 10d}, {2d, 20d}, {3d, 30d}};
+        MultiTable table = new MultiTable(timePoints, data, new String[] {"a", "b"});
+        table.setName("test");
+        table.getBlock(0).setName("Values");
+        table.addBlock(new String[] {"v"});
+        table.getBlock(1).setRowData(2, new double[] {7d});
+
+        String path = new File(folder, "table.bin").getPath();
+        BinaryTrajectoryFormat format = new BinaryTrajectoryFormat();
+        format.write(table, path);
+        MultiTable mapped = format.read(path);
+
+        assertEquals("test", mapped.getName());
+        assertEquals(table.getTimeName(), mapped.getTimeName());
+        assertArrayEquals(timePoints, mapped.getTimePoints(), 0d);
+        assertEquals(2, mapped.getBlockCount());
+        assertEquals("Values", mapped.getBlock(0).getName());
+        assertArrayEquals(new double[] {10d, 20d, 30d}, mapped.getColumn("b").toArray(), 0d);
+        assertArrayEquals(new double[] {0d, 0d, 7d}, mapped.getColumn("v").toArray(), 0d);
+        assertEquals(3, mapped.getColumn("a").getBuffer().remaining());
+        assertThrows(ReadOnlyBufferException.class, () -> mapped.getColumn("a").setValue(1d, 0));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        File file = new File(folder, "other.bin");
+        java.nio.file.Files.write(file.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertThrows(IOException.class, () -> new BinaryTrajectoryFormat().read(file.getPath()));
+    }
+
+    @Test
+    void rejectsCorruptHeaders() throws IOException {
+        MultiTable table = new MultiTable(new double[] {0d, 1d}, new double[][] {{1d}, {2d}},
+            new String[] {"a"});
+        table.setName("test");
+        String path = new File(folder, "corrupt.bin").getPath();
+        BinaryTrajectoryFormat format = new BinaryTrajectoryFormat();
+        // the prefix, the name and the name of the time column precede the number of rows
+        long rowCountPosition = 12 + 4 + 4 + 4
+            + table.getTimeName().getBytes(StandardCharsets.UTF_8).length;
+        for (int value : new int[] {-1, Integer.MAX_VALUE}) {
+            format.write(table, path);
+            try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+                file.seek(rowCountPosition);
+                file.writeInt(Integer.reverseBytes(value));
+            }
+            assertThrows(IOException.class, () -> format.read(path));
+        }
+        format.write(table, path);
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.seek(8);
+            file.writeInt(Integer.reverseBytes(Integer.MAX_VALUE));
+        }
+        assertThrows(IOException.class, () -> format.read(path));
+        format.write(table, path);
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        assertThrows(IOException.class, () -> format.read(path));
+    }
+
+    @Test
+    void rewriteMappedTable() throws IOException {
+        MultiTable table = new MultiTable(new double[] {0d, 1d}, new double[][] {{1d, 3d}, {2d, 4d}},
+            new String[] {"a", "b"});
+        BinaryTrajectoryFormat format = new BinaryTrajectoryFormat();
+        String path = new File(folder, "first.bin").getPath();
+        format.write(table, path);
+        MultiTable mapped = format.read(path);
+        // the columns are mapped separately
+        assertThrows(IllegalStateException.class, () -> mapped.getBlock(0).getValues());
+        String copy = new File(folder, "second.bin").getPath();
+        format.write(mapped, copy);
+        assertArrayEquals(new double[] {3d, 4d}, format.read(copy).getColumn("b").toArray(), 0d);
+    }
+
+}
@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.ComplexDependenciesPropensityCalculator;
+import fern.network.Network;
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.algorithm.DependencyGraph;
+
+public class DependencyGraphTest {
+
+  /**
+   * Builds the dependency graph from its definition by testing all pairs of reactions.
+   */
+  private static List<List<Integer>> reference(Network net) {
+    List<List<Integer>> graph = new ArrayList<>();
+    for (int i = 0; i < net.getNumReactions(); i++) {
+      int[] change = new int[net.getNumSpecies()];
+      for (int s : net.getReactants(i)) {
+        change[s]--;
+      }
+      for (int s : net.getProducts(i)) {
+        change[s]++;
+      }
+      List<Integer> dependent = new ArrayList<>();
+      for (int j = 0; j < net.getNumReactions(); j++) {
+        List<Integer> species = new ArrayList<>();
+        for (int s : net.getReactants(j)) {
+          species.add(s);
+        }
+        if (net.getPropensityCalculator() instanceof ComplexDependenciesPropensityCalculator) {
+          species.addAll(((ComplexDependenciesPropensityCalculator) net.getPropensityCalculator()).getKineticLawSpecies(j));
+        }
+        boolean edge = (i == j);
+        for (int s : species) {
+          edge |= change[s] != 0;
+        }
+        if (edge) {
+          dependent.add(j);
+        }
+      }
+      graph.add(dependent);
+    }
+    return graph;
+  }
+
+  private static void assertGraph(Network net) {
+    DependencyGraph dep = new DependencyGraph(net);
+    List<List<Integer>> reference = reference(net);
+    int edges = 0;
+    for (int i = 0; i < net.getNumReactions(); i++) {
+      List<Integer> dependent = new ArrayList<>();
+      for (int k = dep.getStart(i); k < dep.getEnd(i); k++) {
+        dependent.add(dep.getTarget(k));
+      }
+      assertEquals(reference.get(i), dependent);
+      assertEquals(dependent.size(), dep.getDependentCount(i));
+      PrimitiveIterator.OfInt iterator = dep.getDependent(i);
+      for (int j : dependent) {
+        assertEquals(j, iterator.nextInt());
+      }
+      assertFalse(iterator.hasNext());
+      edges += dependent.size();
+    }
+    assertEquals(edges, dep.getEdgeCount());
+  }
+
+  @Test
+  void reversibleReactions() throws Exception {
+    assertGraph(new SBMLNetwork(new File("src/test/resources/sbml/00002/00002-sbml-l2v4.xml"), true));
+  }
+
+  @Test
+  void kineticLawSpecies() throws Exception {
+    // in the repressilator, transcription depends on repressors that are no reactants
+    assertGraph(new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true));
+  }
+
+}
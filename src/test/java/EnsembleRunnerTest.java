@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.simulator.TestUtils;
+import org.simulator.math.odes.AbstractDESSolver;
+import org.simulator.math.odes.EnsembleRunner;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RosenbrockSolver;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class EnsembleRunnerTest {
+
+    private static final double[] TIME_POINTS = {0d, 1d, 2d, 3d, 4d, 5d};
+
+    private SBMLinterpreter interpreter() throws Exception {
+        return TestUtils.createInterpreter(TestUtils.SBML_00001);
+    }
+
+    @Test
+    void copyIsIndependent() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        SBMLinterpreter copy = interpreter.copy();
+        assertNotSame(interpreter.getModel(), copy.getModel());
+        assertArrayEquals(interpreter.getInitialValues(), copy.getInitialValues(), 0d);
+        MultiTable expected = new RosenbrockSolver().solve(interpreter, interpreter.getInitialValues(), TIME_POINTS);
+        MultiTable actual = new RosenbrockSolver().solve(copy, copy.getInitialValues(), TIME_POINTS);
+        for (int i = 0; i < TIME_POINTS.length; i++) {
+            assertArrayEquals(expected.getBlock(0).getRow(i), actual.getBlock(0).getRow(i), 0d);
+        }
+    }
+
+    @Test
+    void copyKeepsChangedValues() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        interpreter.setParameters(new double[] {2d});
+        interpreter.getInitialValues()[1] *= 2d;
+        SBMLinterpreter copy = interpreter.copy();
+        assertArrayEquals(interpreter.getParameterValues(), copy.getParameterValues(), 0d);
+        assertArrayEquals(interpreter.getInitialValues(), copy.getInitialValues(), 0d);
+    }
+
+    @Test
+    void callbackExceptionsAreNotFailures() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        try (EnsembleRunner runner = new EnsembleRunner(new RosenbrockSolver(), interpreter::copy, 2, 2)) {
+            runner.run(new double[][] {interpreter.getInitialValues(), interpreter.getInitialValues()},
+                TIME_POINTS, new EnsembleRunner.Callback() {
+                    @Override
+                    public void completed(int index, double[] init, MultiTable result) {
+                        completed.incrementAndGet();
+                        throw new IllegalStateException("callback failure");
+                    }
+
+                    @Override
+                    public void failed(int index, double[] init, Exception exc) {
+                        failed.incrementAndGet();
+                    }
+                });
+        }
+        assertEquals(2, completed.get());
+        assertEquals(0, failed.get());
+    }
+
+    @Test
+    void parallelRunsEqualSequentialRuns() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        AbstractDESSolver solver = new RosenbrockSolver();
+        double[][] initialValues = new double[16][];
+        for (int k = 0; k < initialValues.length; k++) {
+            initialValues[k] = interpreter.getInitialValues().clone();
+            initialValues[k][1] *= 1d + k / 4d;
+        }
+        Map<Integer, MultiTable> results = new ConcurrentHashMap<>();
+        try (EnsembleRunner runner = new EnsembleRunner(solver, interpreter::copy, 4, 3)) {
+            runner.run(initialValues, TIME_POINTS, new EnsembleRunner.Callback() {
+                @Override
+                public void completed(int index, double[] init, MultiTable result) {
+                    results.put(index, result);
+                }
+
+                @Override
+                public void failed(int index, double[] init, Exception exc) {
+                    throw new AssertionError(exc);
+                }
+            });
+        }
+        assertEquals(initialValues.length, results.size());
+        for (int k = 0; k < initialValues.length; k++) {
+            MultiTable expected = solver.clone().solve(interpreter, initialValues[k], TIME_POINTS);
+            for (int i = 0; i < TIME_POINTS.length; i++) {
+                assertArrayEquals(expected.getBlock(0).getRow(i), results.get(k).getBlock(0).getRow(i), 1E-12);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Event;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.RateRule;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Trigger;
+import org.simulator.math.odes.EventInProgress;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RungeKutta_EventSolver;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class EventAssignmentTest {
+
+    @Test
+    void assignmentsAreReused() {
+        EventInProgress event = new EventInProgress(false);
+        for (int i = 0; i < 10; i++) {
+            event.addAssignment(i, i + 0.5d);
+        }
+        event.addAssignment(3, -1d);
+        assertEquals(11, event.getAssignmentCount());
+        double[] y = new double[10];
+        event.applyAssignments(y);
+        assertEquals(-1d, y[3], 0d);
+        assertEquals(9.5d, y[9], 0d);
+        int[] targets = event.getAssignmentTargets();
+        event.clearAssignments();
+        event.addAssignment(0, 42d);
+        assertEquals(1, event.getAssignmentCount());
+        assertEquals(targets, event.getAssignmentTargets());
+        event.applyAssignments(y);
+        assertArrayEquals(new double[] {42d, 1.5d, 2.5d, -1d}, Arrays.copyOf(y, 4), 0d);
+    }
+
+    @Test
+    void eventResetsParameter() throws Exception {
+        Model model = new SBMLDocument(3, 1).createModel("m");
+        for (String id : new String[] {"p", "q"}) {
+            Parameter parameter = model.createParameter(id);
+            parameter.setValue(0d);
+            parameter.setConstant(false);
+        }
+        RateRule rule = model.createRateRule();
+        rule.setVariable("p");
+        rule.setMath(ASTNode.parseFormula("1"));
+        Event event = model.createEvent("e");
+        event.setUseValuesFromTriggerTime(true);
+        Trigger trigger = event.createTrigger(false, true, ASTNode.parseFormula("time >= 0.5"));
+        event.setTrigger(trigger);
+        event.createEventAssignment("q", ASTNode.parseFormula("p + 1"));
+        event.createEventAssignment("p", ASTNode.parseFormula("0"));
+
+        SBMLinterpreter interpreter = new SBMLinterpreter(model);
+        MultiTable result = new RungeKutta_EventSolver(0.01).solve(interpreter,
+            interpreter.getInitialValues(), new double[] {0d, 0.25d, 1d});
+        int p = result.getColumnIndex("p") - 1, q = result.getColumnIndex("q") - 1;
+        assertEquals(0.25d, result.getBlock(0).getValue(1, p), 1E-9);
+        assertEquals(0d, result.getBlock(0).getValue(1, q), 0d);
+        assertEquals(0.5d, result.getBlock(0).getValue(2, p), 0.02d);
+        assertEquals(1.5d, result.getBlock(0).getValue(2, q), 0.02d);
+    }
+
+}
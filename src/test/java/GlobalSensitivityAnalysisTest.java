@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.simulator.TestUtils;
+import org.simulator.math.GlobalSensitivityAnalysis;
+import org.simulator.math.GlobalSensitivityAnalysis.MorrisIndices;
+import org.simulator.math.GlobalSensitivityAnalysis.Output;
+import org.simulator.math.GlobalSensitivityAnalysis.SobolIndices;
+import org.simulator.math.odes.RungeKutta_EventSolver;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class GlobalSensitivityAnalysisTest {
+
+    private static final double[] TIME_POINTS = {0d, 2.5d, 5d};
+
+    private static final String[] IDS = {"k1", "k2"};
+
+    private static final double[] LOWER = {0.5d, 0.5d};
+
+    private static final double[] UPPER = {1.5d, 1.5d};
+
+    /**
+     * The amount of S2 at the last time point.
+     */
+    private static final Output S2_AT_END = (trajectory) -> new double[] {
+        trajectory.getValueAt(trajectory.getRowCount() - 1, trajectory.getColumnIndex("S2"))};
+
+    private SBMLinterpreter interpreter() throws Exception {
+        return TestUtils.createInterpreter(TestUtils.SBML_00002);
+    }
+
+    @Test
+    void sobolIndices() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        try (GlobalSensitivityAnalysis analysis = new GlobalSensitivityAnalysis(new RungeKutta_EventSolver(0.01), interpreter::copy, 2)) {
+            SobolIndices indices = analysis.sobol(interpreter.getInitialValues(), TIME_POINTS, IDS, LOWER, UPPER, 200, 1L, S2_AT_END);
+            assertEquals(200, indices.getSampleCount());
+            double[] first = indices.getFirstOrderIndices()[0];
+            double[] total = indices.getTotalIndices()[0];
+            // S2(5) is close to the equilibrium S1(0) * k1 / (k1 + k2), to which both
+            // rate constants contribute equally and almost additively
+            for (int j = 0; j < IDS.length; j++) {
+                assertEquals(0.5d, first[j], 0.15d);
+                assertEquals(0.5d, total[j], 0.1d);
+            }
+        }
+    }
+
+    @Test
+    void sobolIndicesDoNotDependOnThreads() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        double[][] first = new double[2][];
+        for (int parallelism = 1; parallelism <= 2; parallelism++) {
+            try (GlobalSensitivityAnalysis analysis = new GlobalSensitivityAnalysis(new RungeKutta_EventSolver(0.01), interpreter::copy, 2 * parallelism - 1)) {
+                first[parallelism - 1] = analysis.sobol(interpreter.getInitialValues(), TIME_POINTS, IDS, LOWER, UPPER, 50, 3L, S2_AT_END).getFirstOrderIndices()[0];
+            }
+        }
+        assertArrayEquals(first[0], first[1], 1E-12);
+    }
+
+    @Test
+    void failedSamplesAreCounted() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        Output failing = (trajectory) -> {
+            double[] values = S2_AT_END.evaluate(trajectory);
+            if (values[0] > interpreter.getInitialValues()[interpreter.getSymbolHash().get("S1")] * 0.55d) {
+                throw new IllegalStateException("output out of range");
+            }
+            return values;
+        };
+        try (GlobalSensitivityAnalysis analysis = new GlobalSensitivityAnalysis(new RungeKutta_EventSolver(0.01), interpreter::copy, 2)) {
+            SobolIndices indices = analysis.sobol(interpreter.getInitialValues(), TIME_POINTS, IDS, LOWER, UPPER, 50, 1L, failing);
+            assertTrue(indices.getFailedSampleCount() > 0);
+            assertTrue(indices.getSampleCount() > 0);
+            assertEquals(50, indices.getSampleCount() + indices.getFailedSampleCount());
+        }
+    }
+
+    @Test
+    void morrisElementaryEffects() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        try (GlobalSensitivityAnalysis analysis = new GlobalSensitivityAnalysis(new RungeKutta_EventSolver(0.01), interpreter::copy, 2)) {
+            MorrisIndices indices = analysis.morris(interpreter.getInitialValues(), TIME_POINTS, IDS, LOWER, UPPER, 20, 4, 1L, S2_AT_END);
+            assertEquals(20, indices.getSampleCount());
+            double[] mean = indices.getMean()[0];
+            double[] meanAbsolute = indices.getMeanAbsolute()[0];
+            // S1 -> S2 with k1 and S2 -> S1 with k2
+            assertTrue(mean[0] > 0d);
+            assertTrue(mean[1] < 0d);
+            assertEquals(mean[0], meanAbsolute[0], 1E-15);
+            assertEquals(-mean[1], meanAbsolute[1], 1E-15);
+        }
+    }
+
+    @Test
+    void resumeFromCheckpoint(@TempDir File directory) throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        double[] init = interpreter.getInitialValues();
+        File checkpoint = new File(directory, "sobol.ser");
+        SobolIndices indices;
+        try (GlobalSensitivityAnalysis analysis = new GlobalSensitivityAnalysis(new RungeKutta_EventSolver(0.01), interpreter::copy, 2)) {
+            analysis.setCheckpointFile(checkpoint);
+            analysis.setCheckpointInterval(10);
+            indices = analysis.sobol(init, TIME_POINTS, IDS, LOWER, UPPER, 50, 2L, S2_AT_END);
+        }
+        assertTrue(checkpoint.exists());
+        // a completed study is restored without running a single simulation
+        try (GlobalSensitivityAnalysis analysis = new GlobalSensitivityAnalysis(new RungeKutta_EventSolver(0.01), () -> {
+            throw new IllegalStateException();
+        }, 2)) {
+            analysis.setCheckpointFile(checkpoint);
+            SobolIndices resumed = analysis.sobol(init, TIME_POINTS, IDS, LOWER, UPPER, 50, 2L, S2_AT_END);
+            assertEquals(50, resumed.getSampleCount());
+            assertArrayEquals(indices.getFirstOrderIndices()[0], resumed.getFirstOrderIndices()[0], 0d);
+            // the checkpoint does not belong to a study with other bounds or initial values
+            double[] upper = {1.5d, 2d};
+            assertThrows(DerivativeException.class, () -> analysis.sobol(init, TIME_POINTS, IDS, LOWER, upper, 50, 2L, S2_AT_END));
+            double[] otherInit = init.clone();
+            otherInit[interpreter.getSymbolHash().get("S1")] *= 2d;
+            assertThrows(DerivativeException.class, () -> analysis.sobol(otherInit, TIME_POINTS, IDS, LOWER, UPPER, 50, 2L, S2_AT_END));
+        }
+    }
+
+}
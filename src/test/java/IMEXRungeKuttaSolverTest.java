@@ -0,0 +1,183 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.simulator.TestUtils;
+import org.simulator.math.MatrixOperations;
+import org.simulator.math.SparseMatrix;
+import org.simulator.math.odes.IMEXRungeKuttaSolver;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RosenbrockSolver;
+import org.simulator.math.odes.SplitDESystem;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class IMEXRungeKuttaSolverTest {
+
+    private static final double FAST = 1E4d;
+
+    /**
+     * A fast linear exchange between two variables together with a slow nonlinear consumption of the
+     * first one.
+     */
+    private static class SplitSystem implements SplitDESystem {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int getDimension() {
+            return 2;
+        }
+
+        @Override
+        public void computeDerivatives(double t, double[] y, double[] yDot) {
+            yDot[0] = FAST * (y[1] - y[0]) - y[0] * y[0];
+            yDot[1] = FAST * (y[0] - y[1]);
+        }
+
+        @Override
+        public boolean hasLinearPart() {
+            return true;
+        }
+
+        @Override
+        public SparseMatrix createLinearPart() {
+            return new SparseMatrix(2, new int[] {0, 0, 1, 1}, new int[] {0, 1, 0, 1});
+        }
+
+        @Override
+        public void computeLinearPart(double t, double[] y, SparseMatrix linearPart) {
+            linearPart.setValues(new double[] {-FAST, FAST, FAST, -FAST});
+        }
+
+        @Override
+        public String[] getIdentifiers() {
+            return new String[] {"y1", "y2"};
+        }
+
+        @Override
+        public boolean containsEventsOrRules() {
+            return false;
+        }
+
+        @Override
+        public int getPositiveValueCount() {
+            return 0;
+        }
+
+        @Override
+        public void setDelaysIncluded(boolean delaysIncluded) {
+        }
+    }
+
+    @Test
+    void linearPartOfMassActionKinetics() throws Exception {
+        SBMLinterpreter interpreter = TestUtils.createInterpreter(TestUtils.SBML_00002);
+        assertTrue(interpreter.hasLinearPart());
+        double[] y = interpreter.getInitialValues().clone();
+        int n = y.length;
+        SparseMatrix linearPart = interpreter.createLinearPart();
+        interpreter.computeLinearPart(0d, y, linearPart);
+        long version = linearPart.getVersion();
+        // both reactions are of first order, hence the linear part reproduces the derivatives
+        double[] yDot = new double[n], ly = new double[n];
+        y[1] = 0.3d;
+        y[2] = 0.7d;
+        interpreter.computeDerivatives(0d, y, yDot);
+        linearPart.multiply(y, ly);
+        for (int i = 0; i < n; i++) {
+            assertEquals(yDot[i], ly[i], 1E-12);
+        }
+        // the coefficients do not depend on the state
+        interpreter.computeLinearPart(1d, y, linearPart);
+        assertEquals(version, linearPart.getVersion());
+    }
+
+    @Test
+    void bandedLinearPart() throws Exception {
+        // a chain of transport reactions in a scrambled order, whose reordered matrix has one sub-
+        // and one superdiagonal
+        int n = 40;
+        int[] rows = new int[3 * n - 2], columns = new int[rows.length];
+        double[] values = new double[rows.length];
+        int[] chain = new int[n];
+        for (int i = 0; i < n; i++) {
+            // a permutation because 7 and n are coprime
+            chain[i] = (7 * i) % n;
+        }
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            rows[count] = chain[i];
+            columns[count++] = chain[i];
+            if (i > 0) {
+                rows[count] = chain[i];
+                columns[count++] = chain[i - 1];
+                rows[count] = chain[i - 1];
+                columns[count++] = chain[i];
+            }
+        }
+        SparseMatrix matrix = new SparseMatrix(n, rows, columns);
+        assertEquals(3 * n - 2, matrix.getEntryCount());
+        int[] order = matrix.reverseCuthillMcKee();
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[order[i]] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int k = matrix.getRowStart(i); k < matrix.getRowStart(i + 1); k++) {
+                assertTrue(Math.abs(position[matrix.getColumn(k)] - position[i]) <= 1);
+            }
+        }
+
+        // the band decomposition solves the reordered system
+        double[][] band = new double[n][3], lower = new double[n][1];
+        double[][] dense = new double[n][n];
+        double[] b = new double[n], x = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int k = matrix.getRowStart(i); k < matrix.getRowStart(i + 1); k++) {
+                int j = matrix.getColumn(k);
+                double value = (i == j) ? 4d + i : -1d - 0.1d * j;
+                dense[position[i]][position[j]] = value;
+                band[position[i]][position[j] - position[i] + 1] = value;
+            }
+            b[i] = Math.sin(i);
+            x[i] = b[i];
+        }
+        int[] indx = new int[n];
+        MatrixOperations.bandec(band, 1, 1, lower, indx);
+        MatrixOperations.banbks(band, 1, 1, lower, indx, x);
+        MatrixOperations.ludcmp(dense, indx);
+        MatrixOperations.lubksb(dense, indx, b);
+        for (int i = 0; i < n; i++) {
+            assertEquals(b[i], x[i], 1E-12);
+        }
+    }
+
+    @Test
+    void sbmlModel() throws Exception {
+        SBMLinterpreter interpreter = TestUtils.createInterpreter(TestUtils.SBML_00002);
+        IMEXRungeKuttaSolver solver = new IMEXRungeKuttaSolver(0.01d);
+        MultiTable result = solver.solve(interpreter, interpreter.getInitialValues(), 0d, 5d);
+        MultiTable reference = new RosenbrockSolver(2, 0.01d).solve(interpreter, interpreter.getInitialValues(), 0d, 5d);
+        for (int i = 0; i < result.getRowCount(); i++) {
+            for (int j = 1; j < result.getColumnCount(); j++) {
+                assertEquals(reference.getValueAt(i, j), result.getValueAt(i, j), 1E-7);
+            }
+        }
+        // the linear part does not change, hence one decomposition suffices
+        assertEquals(1L, solver.getStatistics().getLUDecompositions());
+    }
+
+    @Test
+    void stiffLinearPart() throws Exception {
+        IMEXRungeKuttaSolver solver = new IMEXRungeKuttaSolver(0.01d);
+        // an explicit method would need step sizes below 1E-4
+        MultiTable result = solver.solve(new SplitSystem(), new double[] {1d, 1d}, 0d, 1d);
+        MultiTable reference = new RosenbrockSolver(2, 0.01d).solve(new SplitSystem(), new double[] {1d, 1d}, 0d, 1d);
+        int last = result.getRowCount() - 1;
+        // both variables equilibrate and decay like y' = -y^2 / 2, i.e., y = 1 / (1 + t / 2)
+        assertEquals(2d / 3d, result.getValueAt(last, 1), 1E-3);
+        assertEquals(reference.getValueAt(last, 1), result.getValueAt(last, 1), 1E-3);
+        assertEquals(reference.getValueAt(last, 2), result.getValueAt(last, 2), 1E-3);
+    }
+
+}
@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.StochasticEnsemble;
+import fern.simulation.algorithm.GillespieEnhanced;
+import fern.simulation.observer.AmountIntervalObserver;
+import fern.tools.QuantileSketch;
+import fern.tools.Stochastics;
+
+public class IntervalObserverTest {
+
+  private static final int RUNS = 200;
+
+  private static SBMLNetwork network() throws Exception {
+    return new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true);
+  }
+
+  private static void assertRank(double[] sorted, double q, double value) {
+    // the rank error of the sketch is far below 2 percent
+    int low = (int) Math.floor(Math.max(0, q - 0.02) * (sorted.length - 1));
+    int high = (int) Math.ceil(Math.min(1, q + 0.02) * (sorted.length - 1));
+    assertTrue(sorted[low] <= value && value <= sorted[high], q + ": " + value);
+  }
+
+  @Test
+  void quantileSketch() {
+    Random random = new Random(1L);
+    QuantileSketch sketch = new QuantileSketch(200);
+    QuantileSketch other = new QuantileSketch(200);
+    double[] values = new double[100000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextGaussian();
+      (i % 3 == 0 ? other : sketch).add(values[i]);
+    }
+    sketch.merge(other);
+    assertEquals(values.length, sketch.getCount());
+    Arrays.sort(values);
+    for (double q : new double[] {0.01, 0.25, 0.5, 0.75, 0.99}) {
+      assertRank(values, q, sketch.getQuantile(q));
+    }
+  }
+
+  @Test
+  void statistics() throws Exception {
+    Simulator sim = new GillespieEnhanced(network());
+    AmountIntervalObserver obs = (AmountIntervalObserver) sim.addObserver(
+      new AmountIntervalObserver(sim, 1, 10, "PX", "X"));
+    double[][][] runs = new double[RUNS][][];
+    for (int k = 0; k < RUNS; k++) {
+      sim.setStochastics(new Stochastics(11L, k));
+      sim.start(10);
+      runs[k] = obs.getRecentData();
+    }
+
+    double[][] mean = obs.getAvgLog();
+    double[][] variance = obs.getVarianceLog();
+    double[][] median = obs.getQuantileLog(0.5);
+    double[][] confidence = obs.getConfidenceIntervalLog(0.95);
+    assertEquals(11, mean[0].length);
+    for (int j = 0; j < 11; j++) {
+      assertEquals(j, mean[0][j], 1E-12);
+      for (int i = 1; i <= 2; i++) {
+        double[] values = new double[RUNS];
+        double sum = 0;
+        for (int k = 0; k < RUNS; k++) {
+          values[k] = runs[k][j][i];
+          sum += values[k];
+        }
+        double expectedMean = sum / RUNS;
+        double squares = 0;
+        for (double value : values) {
+          squares += (value - expectedMean) * (value - expectedMean);
+        }
+        double expectedVariance = squares / (RUNS - 1);
+        assertEquals(expectedMean, mean[i][j], 1E-9 * Math.max(1, expectedMean));
+        assertEquals(expectedVariance, variance[i][j], 1E-9 * Math.max(1, expectedVariance));
+        assertEquals(1.959964 * Math.sqrt(expectedVariance / RUNS), confidence[i][j], 1E-4);
+        Arrays.sort(values);
+        assertRank(values, 0.5, median[i][j]);
+      }
+    }
+  }
+
+  @Test
+  void merge() throws Exception {
+    int[] parallelism = {1, 4};
+    double[][][] results = new double[parallelism.length][][];
+    for (int p = 0; p < parallelism.length; p++) {
+      StochasticEnsemble ensemble = new StochasticEnsemble(IntervalObserverTest::network,
+        GillespieEnhanced::new);
+      ensemble.setSeed(11L);
+      ensemble.setParallelism(parallelism[p]);
+      ensemble.addObserver(sim -> new AmountIntervalObserver(sim, 1, 10, "PX", "X"));
+      AmountIntervalObserver obs = (AmountIntervalObserver) ensemble.run(RUNS / 4, 10)[0];
+      results[p] = obs.getVarianceLog();
+    }
+    for (int i = 0; i < results[0].length; i++) {
+      for (int j = 0; j < results[0][i].length; j++) {
+        assertEquals(results[0][i][j], results[1][i][j], 1E-9 * Math.max(1, results[0][i][j]));
+      }
+    }
+  }
+
+}
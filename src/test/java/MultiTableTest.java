@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.DoubleBuffer;
+
+import org.junit.jupiter.api.Test;
+import org.simulator.math.EuclideanDistance;
+import org.simulator.math.odes.MultiTable;
+
+public class MultiTableTest {
+
+    private MultiTable createTable() {
+        double[] timePoints = {0d, 1d, 2d};
+        double[][] data = {{1d, 10d}, {2d, 20d}, {3d, 30d}};
+        return new MultiTable(timePoints, data, new String[] {"a", "b"});
+    }
+
+    @Test
+    void columnMajorStorage() {
+        MultiTable table = createTable();
+        DoubleBuffer values = table.getBlock(0).getValues();
+        double[] all = new double[values.remaining()];
+        values.get(all);
+        assertArrayEquals(new double[] {1d, 2d, 3d, 10d, 20d, 30d}, all, 0d);
+        assertArrayEquals(new double[] {10d, 20d, 30d}, table.getColumn("b").toArray(), 0d);
+        assertArrayEquals(new double[] {2d, 20d}, table.getBlock(0).getRow(1), 0d);
+        assertEquals(2, table.getColumnIndex("b"));
+        assertNull(table.getColumn("c"));
+    }
+
+    @Test
+    void columnBufferWritesThrough() {
+        MultiTable table = createTable();
+        DoubleBuffer b = table.getColumn("b").getBuffer();
+        assertEquals(3, b.limit());
+        b.put(2, 42d);
+        assertEquals(42d, table.getBlock(0).getValue(2, 1), 0d);
+        table.getBlock(0).setRowData(0, new double[] {-1d, -10d});
+        assertEquals(-10d, table.getColumn("b").getValue(0), 0d);
+    }
+
+    @Test
+    void filterAndDistance() {
+        MultiTable table = createTable();
+        MultiTable filtered = table.filter(new double[] {0d, 2d});
+        assertArrayEquals(new double[] {0d, 2d}, filtered.getTimePoints(), 0d);
+        assertArrayEquals(new double[] {1d, 3d}, filtered.getColumn("a").toArray(), 0d);
+        MultiTable other = createTable();
+        other.getBlock(0).setValue(5d, 1, 0);
+        // only a differs at time 1 by 3, the mean over both columns is 1.5
+        assertEquals(1.5d, new EuclideanDistance().distance(table, other), 1E-12);
+    }
+
+}
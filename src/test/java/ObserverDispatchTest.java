@@ -0,0 +1,222 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.AbstractNetworkImpl;
+import fern.network.AnnotationManagerImpl;
+import fern.network.ArrayKineticConstantPropensityCalculator;
+import fern.network.DefaultAmountManager;
+import fern.simulation.Simulator;
+import fern.simulation.Simulator.FireType;
+import fern.simulation.algorithm.GillespieEnhanced;
+import fern.simulation.observer.AmountAtMomentObserver;
+import fern.simulation.observer.AmountIntervalObserver;
+import fern.simulation.observer.Observer;
+import fern.tools.Stochastics;
+
+public class ObserverDispatchTest {
+
+  /**
+   * Production and degradation of one species with a mean of 100 molecules.
+   */
+  private static class BirthDeathNetwork extends AbstractNetworkImpl {
+
+    BirthDeathNetwork() {
+      super("birth-death");
+      createAnnotationManager();
+      createSpeciesMapping();
+      createAdjacencyLists();
+      createAmountManager();
+      createPropensityCalculator();
+    }
+
+    @Override
+    protected void createAnnotationManager() {
+      annotationManager = new AnnotationManagerImpl();
+    }
+
+    @Override
+    protected void createSpeciesMapping() {
+      indexToSpeciesId = new String[] {"A"};
+      speciesIdToIndex = new HashMap<>();
+      speciesIdToIndex.put("A", 0);
+    }
+
+    @Override
+    protected void createAdjacencyLists() {
+      adjListRea = new int[][] {{}, {0}};
+      adjListPro = new int[][] {{0}, {}};
+    }
+
+    @Override
+    protected void createAmountManager() {
+      amountManager = new DefaultAmountManager(this);
+    }
+
+    @Override
+    protected void createPropensityCalculator() {
+      propensitiyCalculator = new ArrayKineticConstantPropensityCalculator(adjListRea,
+        new double[] {100, 1});
+    }
+
+    @Override
+    public long getInitialAmount(int species) {
+      return 100;
+    }
+
+    @Override
+    public void setInitialAmount(int species, long value) {
+    }
+  }
+
+  /**
+   * Counts the callbacks and registers a theta at each full time unit.
+   */
+  private static class CountingObserver extends Observer {
+
+    private boolean reactions;
+    private int steps = 0;
+    private int firings = 0;
+    private List<Double> thetas = new ArrayList<>();
+
+    CountingObserver(Simulator sim, boolean reactions) {
+      super(sim);
+      this.reactions = reactions;
+    }
+
+    @Override
+    public void started() {
+      setTheta(1);
+    }
+
+    @Override
+    public void step() {
+      steps++;
+    }
+
+    @Override
+    public void finished() {
+    }
+
+    @Override
+    public void theta(double theta) {
+      thetas.add(theta);
+      setTheta(theta + 1);
+    }
+
+    @Override
+    public void activateReaction(int mu, double tau, FireType fireType, int times) {
+      firings += times;
+    }
+
+    @Override
+    public boolean needsStep() {
+      return false;
+    }
+
+    @Override
+    public boolean needsActivateReaction() {
+      return reactions;
+    }
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  @Test
+  void eventLoopDoesNotAllocate() {
+    Simulator sim = new GillespieEnhanced(new BirthDeathNetwork());
+    sim.setStochastics(new Stochastics(3, 0));
+    AmountIntervalObserver obs = (AmountIntervalObserver) sim.addObserver(
+        new AmountIntervalObserver(sim, 1, "A"));
+    obs.setQuantiles(false);
+    sim.addObserver(new AmountAtMomentObserver(sim, 50, "A"));
+    // the first runs grow the buffers and compile the loop
+    for (int run = 0; run < 5; run++) {
+      sim.start(100);
+    }
+
+    long before = allocatedBytes();
+    sim.start(100);
+    long allocated = allocatedBytes() - before;
+    // about 20000 steps and 100 thetas; only the controller and the per run arrays are created
+    assertTrue(allocated < 4096, "allocated " + allocated + " bytes");
+    assertEquals(6, obs.getNumSimulations());
+    assertEquals(100, obs.getAvgLog()[1][100], 30);
+  }
+
+  @Test
+  void onlyDeclaredCallbacksAreDispatched() {
+    Simulator sim = new GillespieEnhanced(new BirthDeathNetwork());
+    CountingObserver silent = (CountingObserver) sim.addObserver(new CountingObserver(sim, false));
+    CountingObserver counting = (CountingObserver) sim.addObserver(new CountingObserver(sim, true));
+    sim.start(10);
+
+    assertEquals(0, silent.steps);
+    assertEquals(0, silent.firings);
+    assertEquals(0, counting.steps);
+    assertTrue(counting.firings > 0);
+    // both observers registered the same thetas and are invoked for each of them
+    for (CountingObserver o : new CountingObserver[] {silent, counting}) {
+      assertEquals(10, o.thetas.size());
+      for (int i = 0; i < o.thetas.size(); i++) {
+        assertEquals(i + 1, o.thetas.get(i), 0);
+      }
+    }
+  }
+
+  @Test
+  void overriddenCallbacksOfObserversAreDispatched() {
+    Simulator sim = new GillespieEnhanced(new BirthDeathNetwork());
+    int[] steps = new int[1];
+    int[] firings = new int[1];
+    AmountIntervalObserver plain = (AmountIntervalObserver) sim.addObserver(
+        new AmountIntervalObserver(sim, 1, "A"));
+    sim.addObserver(new AmountIntervalObserver(sim, 1, "A") {
+      @Override
+      public void step() {
+        super.step();
+        steps[0]++;
+      }
+    });
+    sim.addObserver(new AmountAtMomentObserver(sim, 5, "A") {
+      @Override
+      public void activateReaction(int mu, double tau, FireType fireType, int times) {
+        firings[0] += times;
+      }
+    });
+    sim.start(10);
+
+    // the observers of the library opt out unless a subclass overrides the empty callback
+    assertFalse(plain.needsStep());
+    assertFalse(plain.needsActivateReaction());
+    assertTrue(steps[0] > 0);
+    assertTrue(firings[0] > 0);
+  }
+
+  @Test
+  void interpolatedThetas() {
+    Simulator sim = new GillespieEnhanced(new BirthDeathNetwork());
+    sim.setInterpolateTheta(true);
+    AmountIntervalObserver obs = (AmountIntervalObserver) sim.addObserver(
+        new AmountIntervalObserver(sim, 0.5, "A"));
+    CountingObserver counting = (CountingObserver) sim.addObserver(new CountingObserver(sim, true));
+    for (int run = 0; run < 20; run++) {
+      sim.start(20);
+    }
+
+    assertFalse(Double.isNaN(obs.getAvgLog()[1][40]));
+    assertEquals(100, obs.getAvgLog()[1][40], 10);
+    assertEquals(20 * 20, counting.thetas.size());
+  }
+
+}
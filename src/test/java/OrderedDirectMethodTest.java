@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.Network;
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.algorithm.AbstractOrderedDirectMethod;
+import fern.simulation.algorithm.GillespieEnhanced;
+import fern.simulation.algorithm.OptimizedDirectMethod;
+import fern.simulation.algorithm.SortingDirectMethod;
+import fern.tools.NumberTools;
+import fern.tools.Stochastics;
+
+public class OrderedDirectMethodTest {
+
+  private static Network network() throws Exception {
+    return new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true);
+  }
+
+  private static double[] simulate(Simulator sim, long seed) {
+    Stochastics.getInstance().setSeed(seed);
+    sim.start(20);
+    double[] state = new double[sim.getNet().getNumSpecies() + 1];
+    for (int i = 0; i < sim.getNet().getNumSpecies(); i++) {
+      state[i] = sim.getAmount(i);
+    }
+    state[state.length - 1] = sim.getTime();
+    return state;
+  }
+
+  private static void assertPermutation(AbstractOrderedDirectMethod sim) {
+    int[] order = sim.getOrder();
+    int[] sorted = order.clone();
+    Arrays.sort(sorted);
+    assertArrayEquals(NumberTools.getNumbersTo(order.length - 1), sorted);
+    assertFalse(Arrays.equals(sorted, order));
+  }
+
+  @Test
+  void optimizedDirectMethod() throws Exception {
+    Network net = network();
+    OptimizedDirectMethod sim = new OptimizedDirectMethod(net);
+    // in index order until the presimulation is finished, hence as the direct method
+    sim.setPresimulationSteps(Integer.MAX_VALUE);
+    double[] expected = simulate(new GillespieEnhanced(net), 42L);
+    double[] actual = simulate(sim, 42L);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], actual[i], 1E-9 * Math.abs(expected[i]));
+    }
+    sim.setPresimulationSteps(100);
+    simulate(sim, 42L);
+    assertPermutation(sim);
+  }
+
+  @Test
+  void sortingDirectMethod() throws Exception {
+    SortingDirectMethod sim = new SortingDirectMethod(network());
+    double[] state = simulate(sim, 42L);
+    assertTrue(state[state.length - 1] >= 20d);
+    assertPermutation(sim);
+  }
+
+}
@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.Species;
+import org.simulator.TestUtils;
+import org.simulator.math.ParameterEstimator;
+import org.simulator.math.ParameterEstimator.Method;
+import org.simulator.math.ParameterEstimator.Result;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RungeKutta_EventSolver;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class ParameterEstimatorTest {
+
+    private static final double[] TIME_POINTS = {0.5d, 1d, 2d, 3d};
+
+    private SBMLinterpreter interpreter() throws Exception {
+        return TestUtils.createInterpreter(TestUtils.SBML_00001);
+    }
+
+    @Test
+    void levenbergMarquardt() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        double[] init = interpreter.getInitialValues();
+        try (ParameterEstimator estimator = new ParameterEstimator(new RungeKutta_EventSolver(0.001), interpreter::copy, 2)) {
+            List<Result> results = estimator.estimate(init, TestUtils.createDecayData("S1", init[1], 1.5d, TIME_POINTS), new String[] {"k1"}, new double[][] {{1d}, {0.2d}});
+            assertEquals(2, results.size());
+            for (Result result : results) {
+                assertEquals(Method.LEVENBERG_MARQUARDT, result.getMethod());
+                assertEquals(1.5d, result.getParameters()[0], 1E-4);
+            }
+        }
+    }
+
+    /**
+     * @return the decay model extended by the decay of B in the reaction r2, whose rate constant is
+     * the local parameter k of r2
+     */
+    private Model twoDecays() throws Exception {
+        Model model = TestUtils.createDecayModel(1d, 0.5d);
+        Species b = model.createSpecies("B", model.getCompartment("c"));
+        b.setInitialAmount(2d);
+        b.setHasOnlySubstanceUnits(true);
+        b.setBoundaryCondition(false);
+        b.setConstant(false);
+        Reaction r = model.createReaction("r2");
+        r.setReversible(false);
+        r.createReactant(b).setStoichiometry(1d);
+        r.getReactant(0).setConstant(true);
+        KineticLaw law = r.createKineticLaw();
+        law.createLocalParameter("k").setValue(0.5d);
+        law.setMath(ASTNode.parseFormula("k * B"));
+        return model;
+    }
+
+    /**
+     * Measurements of A and B that have been generated with the rate constants 1.5 and 0.3.
+     */
+    private MultiTable twoDecaysData() {
+        double[][] values = new double[TIME_POINTS.length][2];
+        for (int i = 0; i < TIME_POINTS.length; i++) {
+            values[i][0] = Math.exp(-1.5d * TIME_POINTS[i]);
+            values[i][1] = 2d * Math.exp(-0.3d * TIME_POINTS[i]);
+        }
+        return new MultiTable(TIME_POINTS, values, new String[] {"A", "B"});
+    }
+
+    @Test
+    void levenbergMarquardtWithLocalParameters() throws Exception {
+        SBMLinterpreter interpreter = new SBMLinterpreter(twoDecays());
+        double[] init = interpreter.getInitialValues();
+        // both parameters are integrated in parallel within each iteration
+        try (ParameterEstimator estimator = new ParameterEstimator(new RungeKutta_EventSolver(0.001), interpreter::copy, 2)) {
+            List<Result> results = estimator.estimate(init, twoDecaysData(), new String[] {"r.k", "r2.k"}, new double[][] {{1d, 1d}});
+            assertEquals(Method.LEVENBERG_MARQUARDT, results.get(0).getMethod());
+            assertArrayEquals(new double[] {1.5d, 0.3d}, results.get(0).getParameters(), 1E-4);
+        }
+    }
+
+    @Test
+    void rulesRequireNelderMead() throws Exception {
+        Model model = twoDecays();
+        Parameter total = model.createParameter("total");
+        total.setConstant(false);
+        AssignmentRule rule = model.createAssignmentRule();
+        rule.setVariable("total");
+        rule.setMath(ASTNode.parseFormula("A + B"));
+        SBMLinterpreter interpreter = new SBMLinterpreter(model);
+        try (ParameterEstimator estimator = new ParameterEstimator(new RungeKutta_EventSolver(0.001), interpreter::copy, 1)) {
+            List<Result> results = estimator.estimate(interpreter.getInitialValues(), twoDecaysData(), new String[] {"r.k", "r2.k"}, new double[][] {{1d, 1d}});
+            assertEquals(Method.NELDER_MEAD, results.get(0).getMethod());
+            assertArrayEquals(new double[] {1.5d, 0.3d}, results.get(0).getParameters(), 1E-2);
+        }
+    }
+
+    @Test
+    void nelderMeadWithRandomStarts() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        double[] init = interpreter.getInitialValues();
+        try (ParameterEstimator estimator = new ParameterEstimator(new RungeKutta_EventSolver(0.001), interpreter::copy, 2)) {
+            estimator.setMethod(Method.NELDER_MEAD);
+            estimator.setBounds(new double[] {0.1d}, new double[] {5d});
+            List<Result> results = estimator.estimate(init, TestUtils.createDecayData("S1", init[1], 1.5d, TIME_POINTS), new String[] {"k1"}, 3, 1L);
+            Result best = results.get(0);
+            assertEquals(Method.NELDER_MEAD, best.getMethod());
+            assertEquals(1.5d, best.getParameters()[0], 1E-3);
+            assertEquals(results.get(0).getDistance(), Math.min(results.get(1).getDistance(), results.get(2).getDistance()), 1E-15);
+        }
+    }
+
+}
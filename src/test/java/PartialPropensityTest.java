@@ -0,0 +1,137 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.AbstractNetworkImpl;
+import fern.network.AnnotationManagerImpl;
+import fern.network.ArrayKineticConstantPropensityCalculator;
+import fern.network.DefaultAmountManager;
+import fern.network.Network;
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.algorithm.AbstractPartialPropensitySimulator;
+import fern.simulation.algorithm.GillespieEnhanced;
+import fern.simulation.algorithm.PartialPropensityCompositionRejection;
+import fern.simulation.algorithm.PartialPropensityDirectMethod;
+import fern.simulation.algorithm.SortingPartialPropensityDirectMethod;
+import fern.tools.Stochastics;
+
+public class PartialPropensityTest {
+
+  /**
+   * Production, degradation, heterodimerization and homodimerization of three species.
+   */
+  private static class DimerizationNetwork extends AbstractNetworkImpl {
+
+    private static final long[] INITIAL = {50, 20, 0};
+
+    DimerizationNetwork() {
+      super("dimerization");
+      createAnnotationManager();
+      createSpeciesMapping();
+      createAdjacencyLists();
+      createAmountManager();
+      createPropensityCalculator();
+    }
+
+    @Override
+    protected void createAnnotationManager() {
+      annotationManager = new AnnotationManagerImpl();
+    }
+
+    @Override
+    protected void createSpeciesMapping() {
+      indexToSpeciesId = new String[] {"A", "B", "C"};
+      speciesIdToIndex = new HashMap<>();
+      for (int i = 0; i < indexToSpeciesId.length; i++) {
+        speciesIdToIndex.put(indexToSpeciesId[i], i);
+      }
+    }
+
+    @Override
+    protected void createAdjacencyLists() {
+      adjListRea = new int[][] {{}, {0}, {0, 1}, {2}, {0, 0}, {1}};
+      adjListPro = new int[][] {{0}, {}, {2}, {0, 1}, {1}, {}};
+    }
+
+    @Override
+    protected void createAmountManager() {
+      amountManager = new DefaultAmountManager(this);
+    }
+
+    @Override
+    protected void createPropensityCalculator() {
+      propensitiyCalculator = new ArrayKineticConstantPropensityCalculator(adjListRea,
+        new double[] {10, 0.1, 0.01, 1, 0.005, 0.1});
+    }
+
+    @Override
+    public long getInitialAmount(int species) {
+      return INITIAL[species];
+    }
+
+    @Override
+    public void setInitialAmount(int species, long value) {
+      INITIAL[species] = value;
+    }
+  }
+
+  private static void assertPropensities(Simulator sim) {
+    for (int r = 0; r < sim.getNet().getNumReactions(); r++) {
+      Simulator reference = new GillespieEnhanced(sim.getNet());
+      double expected = sim.getNet().getPropensityCalculator().calculatePropensity(r, sim.getNet().getAmountManager(), reference);
+      assertEquals(expected, sim.getPropensity(r), 1E-9 * Math.max(1, expected));
+    }
+  }
+
+  private static double[] meanAmounts(Simulator sim, int runs) {
+    double[] mean = new double[sim.getNet().getNumSpecies()];
+    for (int run = 0; run < runs; run++) {
+      sim.start(5);
+      for (int i = 0; i < mean.length; i++) {
+        mean[i] += sim.getAmount(i) / runs;
+      }
+    }
+    return mean;
+  }
+
+  private static void assertSimulator(AbstractPartialPropensitySimulator sim) {
+    Stochastics.getInstance().setSeed(7L);
+    for (double time : new double[] {0.5, 2, 10}) {
+      sim.start(time);
+      assertPropensities(sim);
+    }
+    double[] expected = meanAmounts(new GillespieEnhanced(sim.getNet()), 400);
+    double[] actual = meanAmounts(sim, 400);
+    for (int i = 0; i < expected.length; i++) {
+      // the populations fluctuate by less than 10 molecules
+      assertEquals(expected[i], actual[i], 2);
+    }
+  }
+
+  @Test
+  void partialPropensityDirectMethod() {
+    assertSimulator(new PartialPropensityDirectMethod(new DimerizationNetwork()));
+  }
+
+  @Test
+  void sortingPartialPropensityDirectMethod() {
+    assertSimulator(new SortingPartialPropensityDirectMethod(new DimerizationNetwork()));
+  }
+
+  @Test
+  void partialPropensityCompositionRejection() {
+    assertSimulator(new PartialPropensityCompositionRejection(new DimerizationNetwork()));
+  }
+
+  @Test
+  void unsupportedNetwork() throws Exception {
+    Network net = new SBMLNetwork(new File("src/test/resources/sbml/00002/00002-sbml-l2v4.xml"), true);
+    assertThrows(IllegalArgumentException.class, () -> new PartialPropensityDirectMethod(net));
+  }
+
+}
@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.Network;
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.algorithm.GillespieEnhanced;
+import fern.simulation.algorithm.RejectionBasedSimulator;
+import fern.tools.Stochastics;
+
+public class RejectionBasedSimulatorTest {
+
+  private static final int RUNS = 200;
+
+  private static Network network() throws Exception {
+    return new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true);
+  }
+
+  /**
+   * Gets the means and the variances of the species populations at time 10.
+   */
+  private static double[][] moments(Simulator sim) {
+    Stochastics.getInstance().setSeed(1L);
+    int n = sim.getNet().getNumSpecies();
+    double[][] moments = new double[2][n];
+    for (int run = 0; run < RUNS; run++) {
+      sim.start(10);
+      for (int i = 0; i < n; i++) {
+        moments[0][i] += sim.getAmount(i) / RUNS;
+        moments[1][i] += sim.getAmount(i) * sim.getAmount(i) / RUNS;
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      moments[1][i] -= moments[0][i] * moments[0][i];
+    }
+    return moments;
+  }
+
+  @Test
+  void distribution() throws Exception {
+    Network net = network();
+    double[][] expected = moments(new GillespieEnhanced(net));
+    double[][] actual = moments(new RejectionBasedSimulator(net));
+    for (int i = 0; i < net.getNumSpecies(); i++) {
+      double standardError = Math.sqrt((expected[1][i] + actual[1][i]) / RUNS);
+      assertEquals(expected[0][i], actual[0][i], 4 * standardError + 1E-9);
+    }
+  }
+
+  @Test
+  void fewerEvaluationsThanFirings() throws Exception {
+    long[] firings = new long[1];
+    RejectionBasedSimulator sim = new RejectionBasedSimulator(network()) {
+      @Override
+      protected void fireReaction(int mu, double t, FireType fireType) {
+        super.fireReaction(mu, t, fireType);
+        firings[0]++;
+      }
+    };
+    Stochastics.getInstance().setSeed(1L);
+    sim.start(100);
+    assertTrue(sim.getTime() >= 100);
+    // the enhanced direct method evaluates at least the fired reaction's propensity per firing
+    assertTrue(sim.getPropensityEvaluations() < firings[0]);
+  }
+
+  @Test
+  void boundsKeepInterpreterSynchronized() throws Exception {
+    SBMLNetwork net = (SBMLNetwork) network();
+    int[] unsynchronized = new int[1];
+    RejectionBasedSimulator sim = new RejectionBasedSimulator(net) {
+      @Override
+      protected void fireReaction(int mu, double t, FireType fireType) {
+        // the bounds of the previous step have been recomputed in between
+        if (!net.getSbmlInterpreter().isSynchronized(net.getAmountManager())) {
+          unsynchronized[0]++;
+        }
+        super.fireReaction(mu, t, fireType);
+      }
+    };
+    Stochastics.getInstance().setSeed(1L);
+    sim.start(10);
+    assertEquals(0, unsynchronized[0]);
+  }
+
+}
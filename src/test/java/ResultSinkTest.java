@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+
+import org.apache.commons.math.ode.DerivativeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.simulator.TestUtils;
+import org.simulator.io.CSVResultSink;
+import org.simulator.math.odes.AbstractDESSolver;
+import org.simulator.math.odes.ColumnFilterSink;
+import org.simulator.math.odes.DownsamplingSink;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.MultiTableSink;
+import org.simulator.math.odes.ResultSink;
+import org.simulator.math.odes.RosenbrockSolver;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class ResultSinkTest {
+
+    private SBMLinterpreter interpreter;
+
+    private MultiTable reference;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        interpreter = TestUtils.createInterpreter(TestUtils.SBML_00001);
+        reference = createSolver().solve(interpreter, interpreter.getInitialValues(), 0d, 5d);
+    }
+
+    private AbstractDESSolver createSolver() {
+        AbstractDESSolver solver = new RosenbrockSolver();
+        solver.setStepSize(0.1);
+        return solver;
+    }
+
+    @Test
+    void multiTableSinkEqualsTable() throws DerivativeException {
+        MultiTableSink sink = new MultiTableSink();
+        createSolver().solve(interpreter, interpreter.getInitialValues(), 0d, 5d, sink, null);
+        MultiTable table = sink.getTable();
+        assertEquals(reference.getRowCount(), table.getRowCount());
+        assertEquals(reference.getBlockCount(), table.getBlockCount());
+        for (int i = 0; i < reference.getRowCount(); i++) {
+            assertArrayEquals(reference.getBlock(0).getRow(i), table.getBlock(0).getRow(i), 1E-12);
+        }
+    }
+
+    @Test
+    void columnFilterAndDownsampling() throws DerivativeException {
+        MultiTableSink target = new MultiTableSink();
+        ResultSink sink = new DownsamplingSink(new ColumnFilterSink(target, "S1"), 20);
+        createSolver().solve(interpreter, interpreter.getInitialValues(), 0d, 5d, sink, null);
+        MultiTable table = target.getTable();
+        // rows 0, 20, 40 and the last row 50
+        assertArrayEquals(new double[] {0d, 2d, 4d, 5d}, table.getTimePoints(), 1E-12);
+        assertEquals(1, table.getBlock(0).getColumnCount());
+        int[] rows = {0, 20, 40, 50};
+        for (int i = 0; i < rows.length; i++) {
+            assertEquals(reference.getColumn("S1").getValue(rows[i]),
+                table.getBlock(0).getColumn(0).getValue(i), 1E-12);
+        }
+    }
+
+    @Test
+    void csvSinkWritesAllRows() throws DerivativeException {
+        StringWriter writer = new StringWriter();
+        createSolver().solve(interpreter, interpreter.getInitialValues(), 0d, 5d,
+            new ColumnFilterSink(new CSVResultSink(writer), "S1", "S2"), null);
+        String[] lines = writer.toString().split("\n");
+        assertEquals(reference.getRowCount() + 1, lines.length);
+        assertEquals("time,S1,S2", lines[0]);
+        assertEquals(3, lines[lines.length - 1].split(",").length);
+    }
+
+}
@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.DefaultAmountManager;
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.algorithm.GibsonBruckSimulator;
+import fern.simulation.algorithm.RejectionBasedSimulator;
+import fern.tools.Stochastics;
+
+public class SBMLAmountManagerTest {
+
+  /**
+   * Compares the propensities maintained by the simulator with propensities for which all species
+   * amounts are copied into the interpreter.
+   */
+  private static void assertPropensities(Simulator sim) {
+    DefaultAmountManager copy = new DefaultAmountManager(sim.getNet());
+    for (int i = 0; i < sim.getNet().getNumSpecies(); i++) {
+      copy.setAmount(i, (long) sim.getAmount(i));
+    }
+    for (int r = 0; r < sim.getNet().getNumReactions(); r++) {
+      double expected = sim.getPropensityCalculator().calculatePropensity(r, copy, sim);
+      assertEquals(expected, sim.getPropensity(r), 1E-9 * Math.max(1, expected));
+    }
+  }
+
+  @Test
+  void incrementalSynchronization() throws Exception {
+    SBMLNetwork net = new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true);
+    Stochastics.getInstance().setSeed(3L);
+    Simulator sim = new GibsonBruckSimulator(net);
+    sim.start(20);
+    assertTrue(net.getSbmlInterpreter().isSynchronized(net.getAmountManager()));
+    assertPropensities(sim);
+    assertFalse(net.getSbmlInterpreter().isSynchronized(net.getAmountManager()));
+
+    // evaluations for other amounts in between
+    sim = new RejectionBasedSimulator(net);
+    sim.start(20);
+    sim = new GibsonBruckSimulator(net);
+    sim.start(20);
+    assertPropensities(sim);
+  }
+
+}
@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.LocalParameter;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.Species;
+import org.simulator.TestUtils;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RungeKutta_EventSolver;
+import org.simulator.math.odes.SensitivityDESystem;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class SensitivityDESystemTest {
+
+    private static final double[] TIME_POINTS = {0d, 0.5d, 1d, 2d};
+
+    @Test
+    void globalParameter() throws Exception {
+        // S1 -> S2 with rate k1 * S1 in a compartment of size 1
+        SBMLinterpreter interpreter = TestUtils.createInterpreter(TestUtils.SBML_00001);
+        SensitivityDESystem system = new SensitivityDESystem(interpreter, "k1");
+        MultiTable result = system.solve(new RungeKutta_EventSolver(0.001), interpreter.getInitialValues(), TIME_POINTS);
+        assertEquals(2, result.getBlockCount());
+        double s10 = interpreter.getInitialValues()[result.getBlock(0).getColumnIndex("S1")];
+        double k1 = interpreter.getModel().getParameter("k1").getValue();
+        int column = result.getBlock(1).getColumnIndex("dS1/dk1");
+        for (int i = 0; i < TIME_POINTS.length; i++) {
+            double t = TIME_POINTS[i];
+            assertEquals(-t * s10 * Math.exp(-k1 * t), result.getBlock(1).getValue(i, column), 1E-10);
+        }
+    }
+
+    @Test
+    void localParameter() throws Exception {
+        Model model = TestUtils.createDecayModel(1d, 0.5d);
+        LocalParameter k = model.getReaction("r").getKineticLaw().getLocalParameter("k");
+        SBMLinterpreter interpreter = new SBMLinterpreter(model);
+        SensitivityDESystem system = new SensitivityDESystem(interpreter, "r.k");
+        MultiTable result = system.solve(new RungeKutta_EventSolver(0.001), interpreter.getInitialValues(), TIME_POINTS);
+        int column = result.getBlock(1).getColumnIndex("dA/dr.k");
+        for (int i = 0; i < TIME_POINTS.length; i++) {
+            double t = TIME_POINTS[i];
+            assertEquals(Math.exp(-0.5d * t), result.getBlock(0).getValue(i, result.getBlock(0).getColumnIndex("A")), 1E-10);
+            assertEquals(-t * Math.exp(-0.5d * t), result.getBlock(1).getValue(i, column), 1E-6);
+        }
+        assertEquals(0.5d, k.getValue(), 0d);
+    }
+
+    @Test
+    void setParameterValueOnlyChangesSyntaxTree() throws Exception {
+        Model model = TestUtils.createDecayModel(1d, 0.5d);
+        LocalParameter k = model.getReaction("r").getKineticLaw().getLocalParameter("k");
+        SBMLinterpreter interpreter = new SBMLinterpreter(model);
+        double[] y = interpreter.getInitialValues().clone();
+        double[] dy = new double[y.length];
+        int a = Arrays.asList(interpreter.getIdentifiers()).indexOf("A");
+        interpreter.setParameterValue(0, 2d);
+        interpreter.computeDerivatives(0d, y, dy);
+        assertEquals(-2d, dy[a], 1E-12);
+        assertEquals(0.5d, k.getValue(), 0d);
+        assertArrayEquals(new double[] {2d}, interpreter.getParameterValues(), 0d);
+        assertEquals(2d, interpreter.copy().getParameterValues()[0], 0d);
+
+        interpreter.setParameters(new double[] {0.25d});
+        interpreter.computeDerivatives(0d, y, dy);
+        assertEquals(-0.25d, dy[a], 1E-12);
+        assertEquals(0.25d, k.getValue(), 0d);
+    }
+
+    @Test
+    void setParameterValueOnlyAffectsItsReaction() throws Exception {
+        // A and B decay with the same formula, but each with its own local parameter k
+        Model model = TestUtils.createDecayModel(1d, 0.5d);
+        Species b = model.createSpecies("B", model.getCompartment("c"));
+        b.setInitialAmount(1d);
+        b.setHasOnlySubstanceUnits(true);
+        b.setBoundaryCondition(false);
+        b.setConstant(false);
+        Reaction r2 = model.createReaction("r2");
+        r2.setReversible(false);
+        r2.createReactant(b).setStoichiometry(1d);
+        r2.getReactant(0).setConstant(true);
+        KineticLaw law = r2.createKineticLaw();
+        law.createLocalParameter("k").setValue(0.5d);
+        law.setMath(ASTNode.parseFormula("k * B"));
+        SBMLinterpreter interpreter = new SBMLinterpreter(model);
+        double[] y = interpreter.getInitialValues().clone();
+        double[] dy = new double[y.length];
+        int a = Arrays.asList(interpreter.getIdentifiers()).indexOf("A");
+        int bIndex = Arrays.asList(interpreter.getIdentifiers()).indexOf("B");
+        interpreter.computeDerivatives(0d, y, dy);
+        assertEquals(-0.5d, dy[a], 1E-12);
+        assertEquals(-0.5d, dy[bIndex], 1E-12);
+        for (double k : new double[] {2d, 3d}) {
+            interpreter.setParameterValue(1, k);
+            interpreter.computeDerivatives(0d, y, dy);
+            assertEquals(-0.5d, dy[a], 1E-12);
+            assertEquals(-k, dy[bIndex], 1E-12);
+        }
+        interpreter.setParameterValue(0, 0.25d);
+        interpreter.computeDerivatives(0d, y, dy);
+        assertEquals(-0.25d, dy[a], 1E-12);
+        assertEquals(-3d, dy[bIndex], 1E-12);
+        assertThrows(IndexOutOfBoundsException.class, () -> interpreter.setParameterValue(2, 1d));
+    }
+
+    @Test
+    void rejectsRules() throws Exception {
+        Model model = TestUtils.createDecayModel(1d, 0.5d);
+        Parameter p = model.createParameter("p");
+        p.setConstant(false);
+        AssignmentRule rule = model.createAssignmentRule();
+        rule.setVariable("p");
+        rule.setMath(ASTNode.parseFormula("2 * A"));
+        assertThrows(IllegalArgumentException.class, () -> new SensitivityDESystem(new SBMLinterpreter(model)));
+    }
+
+    @Test
+    void unknownParameter() throws Exception {
+        SBMLinterpreter interpreter = TestUtils.createInterpreter(TestUtils.SBML_00001);
+        assertThrows(IllegalArgumentException.class, () -> new SensitivityDESystem(interpreter, "x"));
+    }
+
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Event;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.RateRule;
+import org.sbml.jsbml.SBMLDocument;
+import org.simulator.TestUtils;
+import org.simulator.math.odes.DormandPrince54Solver;
+import org.simulator.math.odes.RosenbrockSolver;
+import org.simulator.math.odes.RungeKutta_EventSolver;
+import org.simulator.math.odes.SolverStatistics;
+import org.simulator.math.odes.LSODA.LSODAIntegrator;
+import org.simulator.sbml.SBMLinterpreter;
+
+public class SolverStatisticsTest {
+
+    private static final double[] TIME_POINTS = {0d, 1d, 2d};
+
+    private SBMLinterpreter interpreter() throws Exception {
+        return TestUtils.createInterpreter(TestUtils.SBML_00001);
+    }
+
+    @Test
+    void rungeKutta() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        RungeKutta_EventSolver solver = new RungeKutta_EventSolver(0.01d);
+        solver.getStatistics().setTimingEnabled(true);
+        solver.solve(interpreter, interpreter.getInitialValues(), TIME_POINTS);
+        SolverStatistics statistics = solver.getStatistics();
+        assertEquals(200L, statistics.getAcceptedSteps());
+        assertEquals(4L * statistics.getAcceptedSteps(), statistics.getDerivativeEvaluations());
+        assertEquals(0L, statistics.getJacobianEvaluations());
+        assertTrue(statistics.getDerivativeTime() > 0L);
+        // the counters describe the last simulation only
+        solver.solve(interpreter, interpreter.getInitialValues(), TIME_POINTS);
+        assertEquals(200L, statistics.getAcceptedSteps());
+    }
+
+    @Test
+    void rosenbrock() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        RosenbrockSolver solver = new RosenbrockSolver();
+        // times are only measured on request
+        assertFalse(solver.getStatistics().isTimingEnabled());
+        solver.solve(interpreter, interpreter.getInitialValues(), TIME_POINTS);
+        SolverStatistics statistics = solver.getStatistics();
+        assertTrue(statistics.getAcceptedSteps() > 0L);
+        assertEquals(statistics.getAcceptedSteps() + statistics.getRejectedSteps(), statistics.getJacobianEvaluations());
+        assertEquals(statistics.getJacobianEvaluations(), statistics.getLUDecompositions());
+        assertTrue(statistics.getDerivativeEvaluations() > statistics.getJacobianEvaluations());
+        assertEquals(0L, statistics.getDerivativeTime());
+        assertEquals(0L, statistics.getLinearAlgebraTime());
+    }
+
+    @Test
+    void integratorsOfOtherLibraries() throws Exception {
+        SBMLinterpreter interpreter = interpreter();
+        DormandPrince54Solver dormandPrince = new DormandPrince54Solver(0.1d);
+        dormandPrince.solve(interpreter, interpreter.getInitialValues(), TIME_POINTS);
+        assertTrue(dormandPrince.getStatistics().getAcceptedSteps() > 0L);
+        assertTrue(dormandPrince.getStatistics().getDerivativeEvaluations() >= 6L * dormandPrince.getStatistics().getAcceptedSteps());
+        LSODAIntegrator lsoda = new LSODAIntegrator();
+        lsoda.solve(interpreter, interpreter.getInitialValues(), TIME_POINTS);
+        assertTrue(lsoda.getStatistics().getAcceptedSteps() > 0L);
+        assertTrue(lsoda.getStatistics().getDerivativeEvaluations() > lsoda.getStatistics().getAcceptedSteps());
+    }
+
+    @Test
+    void eventsAndJmx() throws Exception {
+        Model model = new SBMLDocument(3, 1).createModel("m");
+        Parameter p = model.createParameter("p");
+        p.setValue(0d);
+        p.setConstant(false);
+        RateRule rule = model.createRateRule();
+        rule.setVariable("p");
+        rule.setMath(ASTNode.parseFormula("1"));
+        Event event = model.createEvent("e");
+        event.setUseValuesFromTriggerTime(true);
+        event.setTrigger(event.createTrigger(false, true, ASTNode.parseFormula("time >= 0.5")));
+        event.createEventAssignment("p", ASTNode.parseFormula("0"));
+        SBMLinterpreter interpreter = new SBMLinterpreter(model);
+        RungeKutta_EventSolver solver = new RungeKutta_EventSolver(0.01d);
+        ObjectName name = solver.getStatistics().register("eventsAndJmx");
+        try {
+            solver.solve(interpreter, interpreter.getInitialValues(), new double[] {0d, 1d});
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "EventFirings"));
+            assertTrue((Long) server.getAttribute(name, "EventChecks") >= 100L);
+            assertEquals(solver.getStatistics().getAcceptedSteps(), server.getAttribute(name, "AcceptedSteps"));
+        } finally {
+            solver.getStatistics().unregister();
+        }
+        assertTrue(!ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+}
@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.simulator.math.odes.DESystem;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RungeKutta_EventSolver;
+import org.simulator.math.odes.StepListener;
+
+public class StepListenerTest {
+
+    /**
+     * dy/dt = 1, which is also notified about the steps of the solver.
+     */
+    private static class Linear implements DESystem, StepListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private int steps;
+
+        private double latestTime = Double.NaN;
+
+        @Override
+        public void onStep(double previousTime, double time, double[] y) {
+            steps++;
+            latestTime = time;
+        }
+
+        @Override
+        public void computeDerivatives(double t, double[] y, double[] yDot) {
+            yDot[0] = 1d;
+        }
+
+        @Override
+        public int getDimension() {
+            return 1;
+        }
+
+        @Override
+        public String[] getIdentifiers() {
+            return new String[] {"y"};
+        }
+
+        @Override
+        public boolean containsEventsOrRules() {
+            return false;
+        }
+
+        @Override
+        public int getPositiveValueCount() {
+            return 0;
+        }
+
+        @Override
+        public void setDelaysIncluded(boolean delaysIncluded) {
+        }
+    }
+
+    @Test
+    void systemIsNotifiedWithoutCast() throws Exception {
+        Linear system = new Linear();
+        double[] timePoints = {0d, 0.5d, 1d, 1.5d, 2d};
+        MultiTable result = new RungeKutta_EventSolver(0.1).solve(system, new double[] {0d}, timePoints);
+        assertEquals(timePoints.length, system.steps);
+        assertEquals(2d, system.latestTime, 0d);
+        assertEquals(2d, result.getBlock(0).getValue(timePoints.length - 1, 0), 1E-12);
+    }
+
+    @Test
+    void registeredListener() throws Exception {
+        Linear system = new Linear();
+        Linear listener = new Linear();
+        RungeKutta_EventSolver solver = new RungeKutta_EventSolver(0.25);
+        solver.addStepListener(listener);
+        solver.solve(system, new double[] {0d}, 0d, 1d);
+        assertEquals(5, listener.steps);
+        assertEquals(1d, listener.latestTime, 1E-12);
+        solver.removeStepListener(listener);
+        solver.solve(system, new double[] {0d}, 0d, 1d);
+        assertEquals(5, listener.steps);
+    }
+
+    @Test
+    void solverIsReusedForAnotherSystem() throws Exception {
+        Linear first = new Linear();
+        Linear second = new Linear();
+        RungeKutta_EventSolver solver = new RungeKutta_EventSolver(0.25);
+        solver.solve(first, new double[] {0d}, 0d, 1d);
+        assertEquals(5, first.steps);
+        assertEquals(1d, first.latestTime, 1E-12);
+        solver.solve(second, new double[] {0d}, 0d, 2d);
+        assertEquals(9, second.steps);
+        assertEquals(5, first.steps);
+        assertEquals(1d, first.latestTime, 1E-12);
+
+        // a system that has been added explicitly remains registered
+        solver.addStepListener(first);
+        solver.solve(first, new double[] {0d}, 0d, 1d);
+        solver.solve(second, new double[] {0d}, 0d, 1d);
+        assertEquals(15, first.steps);
+    }
+
+}
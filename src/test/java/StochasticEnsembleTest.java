@@ -0,0 +1,62 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.Network;
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.StochasticEnsemble;
+import fern.simulation.algorithm.GillespieEnhanced;
+import fern.simulation.observer.AmountIntervalObserver;
+import fern.tools.Stochastics;
+
+public class StochasticEnsembleTest {
+
+  private static final int TRAJECTORIES = 20;
+
+  private static Network network() throws Exception {
+    return new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true);
+  }
+
+  private static AmountIntervalObserver observer(Simulator sim) {
+    return new AmountIntervalObserver(sim, 1, 10, "PX", "X");
+  }
+
+  private static AmountIntervalObserver run(int parallelism) {
+    StochasticEnsemble ensemble = new StochasticEnsemble(StochasticEnsembleTest::network,
+      GillespieEnhanced::new);
+    ensemble.setSeed(5L);
+    ensemble.setParallelism(parallelism);
+    int index = ensemble.addObserver(StochasticEnsembleTest::observer);
+    return (AmountIntervalObserver) ensemble.run(TRAJECTORIES, 10)[index];
+  }
+
+  private static void assertAverages(double[][] expected, double[][] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].length, actual[i].length);
+      for (int j = 0; j < expected[i].length; j++) {
+        assertEquals(expected[i][j], actual[i][j], 1E-9 * Math.max(1, Math.abs(expected[i][j])));
+      }
+    }
+  }
+
+  @Test
+  void sameAsSequential() throws Exception {
+    Simulator sim = new GillespieEnhanced(network());
+    AmountIntervalObserver expected = (AmountIntervalObserver) sim.addObserver(observer(sim));
+    for (int k = 0; k < TRAJECTORIES; k++) {
+      sim.setStochastics(new Stochastics(5L, k));
+      sim.start(10);
+    }
+
+    for (int parallelism : new int[] {1, 3, 4}) {
+      AmountIntervalObserver actual = run(parallelism);
+      assertEquals(TRAJECTORIES, actual.getNumSimulations());
+      assertAverages(expected.getAvgLog(), actual.getAvgLog());
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.algorithm.GibsonBruckSimulator;
+import fern.tools.PhiloxRandomEngine;
+import fern.tools.Stochastics;
+
+public class StochasticsTest {
+
+  private static int[] block(PhiloxRandomEngine engine) {
+    return new int[] {engine.nextInt(), engine.nextInt(), engine.nextInt(), engine.nextInt()};
+  }
+
+  /**
+   * Known answers of Philox4x32-10 from the Random123 distribution.
+   */
+  @Test
+  void knownAnswers() {
+    assertArrayEquals(new int[] {0x6627e8d5, 0xe169c58d, 0xbc57ac4c, 0x9b00dbd8},
+      block(new PhiloxRandomEngine(0L, 0L)));
+    PhiloxRandomEngine engine = new PhiloxRandomEngine(-1L, -1L);
+    engine.setBlock(-1L);
+    assertArrayEquals(new int[] {0x408f276d, 0x41c83b0e, 0xa20bc7c6, 0x6d5451fd}, block(engine));
+    engine = new PhiloxRandomEngine(0x299f31d0a4093822L, 0x0370734413198a2eL);
+    engine.setBlock(0x85a308d3243f6a88L);
+    assertArrayEquals(new int[] {0xd16cfe09, 0x94fdcceb, 0x5001e420, 0x24126ea1}, block(engine));
+  }
+
+  @Test
+  void skip() {
+    PhiloxRandomEngine engine = new PhiloxRandomEngine(42L, 7L);
+    int[] numbers = new int[11];
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = engine.nextInt();
+    }
+    for (int n = 0; n < numbers.length; n++) {
+      PhiloxRandomEngine skipped = engine.split(7L);
+      skipped.nextInt();
+      skipped.skip(n);
+      if (n + 1 < numbers.length) {
+        assertEquals(numbers[n + 1], skipped.nextInt());
+      }
+    }
+    assertNotEquals(numbers[0], engine.split(8L).nextInt());
+  }
+
+  private static double[] simulate(long stream) throws Exception {
+    Simulator sim = new GibsonBruckSimulator(
+      new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true));
+    sim.setStochastics(new Stochastics(2026L, stream));
+    sim.start(20);
+    double[] state = new double[sim.getNet().getNumSpecies() + 1];
+    for (int i = 0; i < sim.getNet().getNumSpecies(); i++) {
+      state[i] = sim.getAmount(i);
+    }
+    state[state.length - 1] = sim.getTime();
+    return state;
+  }
+
+  @Test
+  void parallelStreams() throws Exception {
+    int n = 6;
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<Future<double[]>> futures = new ArrayList<>();
+      for (int k = n - 1; k >= 0; k--) {
+        long stream = k;
+        futures.add(0, executor.submit(() -> simulate(stream)));
+      }
+      for (int k = 0; k < n; k++) {
+        assertArrayEquals(simulate(k), futures.get(k).get());
+      }
+      assertNotEquals(futures.get(0).get()[0], futures.get(1).get()[0]);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fern.network.Network;
+import fern.network.sbml.SBMLNetwork;
+import fern.simulation.Simulator;
+import fern.simulation.algorithm.GillespieEnhanced;
+import fern.simulation.algorithm.GillespieSumTree;
+import fern.simulation.algorithm.SumTree;
+import fern.tools.Stochastics;
+
+public class SumTreeTest {
+
+  @Test
+  void searchMatchesLinearScan() {
+    Random random = new Random(1);
+    double[] values = new double[37];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (i % 5 == 0) ? 0 : random.nextDouble();
+    }
+    SumTree tree = new SumTree(values);
+    for (int step = 0; step < 1000; step++) {
+      int i = random.nextInt(values.length);
+      values[i] = (step % 7 == 0) ? 0 : random.nextDouble();
+      tree.update(i, values[i]);
+      double sum = 0;
+      for (double value : values) {
+        sum += value;
+      }
+      assertEquals(sum, tree.getSum(), 1E-12);
+      double test = random.nextDouble() * tree.getSum();
+      int expected = -1;
+      double prefix = 0;
+      for (int j = 0; j < values.length && expected < 0; j++) {
+        prefix += values[j];
+        if (test < prefix) {
+          expected = j;
+        }
+      }
+      assertEquals(expected, tree.search(test));
+    }
+    // rounding must never select a reaction without propensity
+    assertTrue(values[tree.search(tree.getSum())] > 0);
+  }
+
+  private static double[] simulate(Simulator sim, long seed) {
+    Stochastics.getInstance().setSeed(seed);
+    sim.start(20);
+    double[] state = new double[sim.getNet().getNumSpecies() + 1];
+    for (int i = 0; i < sim.getNet().getNumSpecies(); i++) {
+      state[i] = sim.getAmount(i);
+    }
+    state[state.length - 1] = sim.getTime();
+    return state;
+  }
+
+  @Test
+  void sameTrajectoryAsDirectMethod() throws Exception {
+    Network net = new SBMLNetwork(new File("src/test/resources/sbml/BIOMD0000000012.xml"), true);
+    double[] expected = simulate(new GillespieEnhanced(net), 42L);
+    double[] actual = simulate(new GillespieSumTree(net), 42L);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], actual[i], 1E-9 * Math.abs(expected[i]));
+    }
+  }
+
+}
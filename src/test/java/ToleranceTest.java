@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.simulator.math.odes.AdaptiveStepsizeIntegrator;
+import org.simulator.math.odes.DESystem;
+import org.simulator.math.odes.DormandPrince54Solver;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.math.odes.RosenbrockSolver;
+import org.simulator.math.odes.LSODA.LSODAIntegrator;
+
+public class ToleranceTest {
+
+    private static final double[] TIME_POINTS = {0d, 1d, 2d};
+
+    /**
+     * A nanomolar species that decays fast next to a millimolar species that decays slowly.
+     */
+    private static final double[] INITIAL_VALUES = {1E-9d, 1d};
+
+    private static class MixedScales implements DESystem {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void computeDerivatives(double t, double[] y, double[] yDot) {
+            yDot[0] = -5d * y[0];
+            yDot[1] = -0.1d * y[1];
+        }
+
+        @Override
+        public int getDimension() {
+            return 2;
+        }
+
+        @Override
+        public String[] getIdentifiers() {
+            return new String[] {"small", "large"};
+        }
+
+        @Override
+        public boolean containsEventsOrRules() {
+            return false;
+        }
+
+        @Override
+        public int getPositiveValueCount() {
+            return 0;
+        }
+
+        @Override
+        public void setDelaysIncluded(boolean delaysIncluded) {
+        }
+    }
+
+    /**
+     * @return the relative error of the small species at the last time point
+     */
+    private double relativeError(AdaptiveStepsizeIntegrator solver) throws Exception {
+        MultiTable result = solver.solve(new MixedScales(), INITIAL_VALUES, TIME_POINTS);
+        double t = TIME_POINTS[TIME_POINTS.length - 1];
+        double exact = INITIAL_VALUES[0] * Math.exp(-5d * t);
+        return Math.abs(result.getValueAt(TIME_POINTS.length - 1, 1) - exact) / exact;
+    }
+
+    private void assertScalingImprovesAccuracy(AdaptiveStepsizeIntegrator solver) throws Exception {
+        solver.setAbsTol(1E-6d);
+        solver.setRelTol(1E-6d);
+        double unscaled = relativeError(solver);
+        solver.setScaleAbsTol(true);
+        double scaled = relativeError(solver);
+        assertTrue(scaled < 0.05d, "relative error " + scaled);
+        assertTrue(scaled < unscaled / 50d);
+        solver.setScaleAbsTol(false);
+        solver.setAbsTol(new double[] {1E-15d, 1E-6d});
+        assertEquals(scaled, relativeError(solver), 1E-3d);
+    }
+
+    @Test
+    void dormandPrince() throws Exception {
+        assertScalingImprovesAccuracy(new DormandPrince54Solver(1d));
+    }
+
+    @Test
+    void rosenbrock() throws Exception {
+        assertScalingImprovesAccuracy(new RosenbrockSolver(2, 1d));
+    }
+
+    @Test
+    void lsodaReturnsToScalarTolerances() throws Exception {
+        LSODAIntegrator solver = new LSODAIntegrator();
+        solver.setAbsTol(1E-14d);
+        solver.setRelTol(1E-10d);
+        double tight = relativeError(solver);
+        solver.setAbsTol(new double[] {1E-3d, 1E-3d});
+        solver.setRelTol(new double[] {1E-1d, 1E-1d});
+        double loose = relativeError(solver);
+        assertTrue(tight < loose);
+        // null restores the scalar tolerances
+        solver.setAbsTol((double[]) null);
+        solver.setRelTol((double[]) null);
+        assertEquals(tight, relativeError(solver), 0d);
+    }
+
+    @Test
+    void wrongNumberOfTolerances() {
+        AdaptiveStepsizeIntegrator solver = new DormandPrince54Solver(1d);
+        solver.setAbsTol(new double[] {1E-12d});
+        assertThrows(IllegalArgumentException.class, () -> solver.solve(new MixedScales(), INITIAL_VALUES, TIME_POINTS));
+    }
+
+}
@@ -1,6 +1,16 @@
 package org.simulator;
 
 import org.apache.commons.lang.StringUtils;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.Species;
+import org.simulator.math.odes.MultiTable;
+import org.simulator.sbml.SBMLinterpreter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +29,61 @@ public class TestUtils {
 
   public static String FBA_RESOURCE_PATH = "/fba";
 
+  /**
+   * SBML test case 00001: the reaction S1 -> S2 with the rate k1 * S1 in a compartment of size 1,
+   * where k1 is a global parameter.
+   */
+  public static final String SBML_00001 = "src/test/resources/sbml/00001/00001-sbml-l1v2.xml";
+
+  /**
+   * SBML test case 00002: the reactions S1 -> S2 and S2 -> S1 with mass-action kinetics.
+   */
+  public static final String SBML_00002 = "src/test/resources/sbml/00002/00002-sbml-l1v2.xml";
+
+  /**
+   * Reads the given SBML file and compiles its model.
+   */
+  public static SBMLinterpreter createInterpreter(String path) throws Exception {
+    Model model = (new SBMLReader()).readSBML(path).getModel();
+    return new SBMLinterpreter(model);
+  }
+
+  /**
+   * Creates a model of the decay of the species A in the reaction r with the rate k * A, where k
+   * is a local parameter of r.
+   */
+  public static Model createDecayModel(double initialAmount, double k) throws Exception {
+    Model model = new SBMLDocument(3, 1).createModel("decay");
+    Compartment c = model.createCompartment("c");
+    c.setSize(1d);
+    c.setConstant(true);
+    Species a = model.createSpecies("A", c);
+    a.setInitialAmount(initialAmount);
+    a.setHasOnlySubstanceUnits(true);
+    a.setBoundaryCondition(false);
+    a.setConstant(false);
+    Reaction r = model.createReaction("r");
+    r.setReversible(false);
+    r.createReactant(a).setStoichiometry(1d);
+    r.getReactant(0).setConstant(true);
+    KineticLaw law = r.createKineticLaw();
+    law.createLocalParameter("k").setValue(k);
+    law.setMath(ASTNode.parseFormula("k * A"));
+    return model;
+  }
+
+  /**
+   * Creates measurements of a quantity that decays exponentially with the given rate.
+   */
+  public static MultiTable createDecayData(String id, double initialValue, double rate,
+      double... timePoints) {
+    double[][] values = new double[timePoints.length][1];
+    for (int i = 0; i < timePoints.length; i++) {
+      values[i][0] = initialValue * Math.exp(-rate * timePoints[i]);
+    }
+    return new MultiTable(timePoints, values, new String[] {id});
+  }
+
   /**
    * Get an iteratable over the resources in the resourcePath.
    * <p>